@@ -37,8 +37,8 @@ import io.nuls.ledger.entity.tx.AbstractCoinTransaction;
  */
 public class AliasTransaction extends AbstractCoinTransaction<Alias> {
 
-    public AliasTransaction() throws NulsException {
-        super(TransactionConstant.TX_TYPE_SET_ALIAS, null, null);
+    public AliasTransaction() {
+        super(TransactionConstant.TX_TYPE_SET_ALIAS);
     }
 
     public AliasTransaction(CoinTransferData coinParam, String password) throws NulsException {
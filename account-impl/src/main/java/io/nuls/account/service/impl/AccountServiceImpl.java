@@ -42,6 +42,7 @@ import io.nuls.core.context.NulsContext;
 import io.nuls.core.crypto.AESEncrypt;
 import io.nuls.core.crypto.ECKey;
 import io.nuls.core.crypto.VarInt;
+import io.nuls.core.crypto.script.Script;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.thread.manager.TaskManager;
@@ -72,6 +73,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -418,8 +420,14 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public NulsSignData signData(byte[] bytes, byte[] priKey) {
-        //todo
-        return NulsSignData.EMPTY_SIGN;
+        if (null == bytes || null == priKey || priKey.length == 0) {
+            return null;
+        }
+        ECKey key = ECKey.fromPrivate(new BigInteger(1, priKey));
+        NulsSignData signData = new NulsSignData();
+        signData.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+        signData.setSignBytes(Script.createInputScript(key.sign(bytes).encodeToDER(), key.getPubKey()));
+        return signData;
     }
 
     @Override
@@ -429,10 +437,13 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public NulsSignData signData(byte[] bytes, Account account, String password) {
-        if (null == bytes || bytes.length == 0) {
+        if (null == bytes || bytes.length == 0 || null == account) {
             return null;
         }
-        return this.signData(bytes, AESEncrypt.decrypt(account.getPriKey(), password));
+        if (account.isEncrypted()) {
+            return this.signData(bytes, AESEncrypt.decrypt(account.getEncryptedPriKey(), password));
+        }
+        return this.signData(bytes, account.getPriKey());
     }
 
     @Override
@@ -0,0 +1,175 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.account.entity.tx;
+
+import io.nuls.account.entity.Alias;
+import io.nuls.core.chain.entity.Na;
+import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsSignData;
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.ledger.entity.CoinData;
+import io.nuls.ledger.entity.UtxoData;
+import io.nuls.ledger.entity.UtxoOutput;
+import io.nuls.ledger.entity.params.CoinTransferData;
+import io.nuls.ledger.entity.tx.AbstractCoinTransaction;
+import io.nuls.ledger.service.intf.CoinDataProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The alias tx serialized and parsed again through the no-arg constructor the tx manager uses.
+ */
+public class AliasTransactionParseTest {
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Field field = AbstractCoinTransaction.class.getDeclaredField("coinDataProvider");
+        field.setAccessible(true);
+        field.set(null, new ParseOnlyProvider());
+    }
+
+    @Test
+    public void testAlias() throws Exception {
+        UtxoOutput output = new UtxoOutput();
+        output.setTxHash(NulsDigestData.calcDigestData(new byte[]{1}));
+        output.setValue(1000);
+        output.setAddress(new byte[23]);
+        output.setScriptBytes(new byte[]{1, 2});
+        UtxoData utxoData = new UtxoData();
+        utxoData.getOutputs().add(output);
+
+        AliasTransaction tx = new AliasTransaction();
+        tx.setFee(Na.valueOf(100000));
+        tx.setTxData(new Alias("address", "alias"));
+        tx.setCoinData(utxoData);
+        tx.setSign(sign());
+
+        AliasTransaction parsed = assertRoundTrip(tx, new AliasTransaction());
+        assertEquals("address", parsed.getTxData().getAddress());
+        assertEquals("alias", parsed.getTxData().getAlias());
+        assertEquals(1, ((UtxoData) parsed.getCoinData()).getOutputs().size());
+
+        tx.setSign(null);
+        parsed = assertRoundTrip(tx, new AliasTransaction());
+        assertNull(parsed.getSign());
+    }
+
+    @Test
+    public void testNullAlias() throws Exception {
+        AliasTransaction tx = new AliasTransaction();
+        tx.setFee(Na.ZERO);
+        tx.setSign(sign());
+        AliasTransaction parsed = assertRoundTrip(tx, new AliasTransaction());
+        assertNull(parsed.getTxData());
+        assertNull(parsed.getCoinData());
+    }
+
+    /**
+     * serialize and parse again, the parsed hash must be the hash of the unsigned tx
+     */
+    private static <T extends Transaction> T assertRoundTrip(Transaction tx, T parsed) throws Exception {
+        byte[] bytes = tx.serialize();
+        parsed.parse(bytes);
+        assertEquals(unsignedHash(tx), parsed.getHash());
+        assertEquals(unsignedHash(parsed), parsed.getHash());
+        assertArrayEquals(bytes, parsed.serialize());
+        assertEquals(bytes.length, parsed.size());
+        return parsed;
+    }
+
+    private static NulsDigestData unsignedHash(Transaction tx) throws IOException {
+        NulsSignData sign = tx.getSign();
+        tx.setSign(null);
+        try {
+            return NulsDigestData.calcDigestData(tx.serialize());
+        } finally {
+            tx.setSign(sign);
+        }
+    }
+
+    private static NulsSignData sign() {
+        NulsSignData sign = new NulsSignData();
+        sign.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+        sign.setSignBytes(new byte[]{7, 7, 7});
+        return sign;
+    }
+
+    private static class ParseOnlyProvider implements CoinDataProvider {
+
+        @Override
+        public CoinData parse(NulsByteBuffer byteBuffer) throws NulsException {
+            return byteBuffer.readNulsData(new UtxoData());
+        }
+
+        @Override
+        public CoinTransferData getTransferData(CoinData coinData) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void approve(CoinData coinData, Transaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void save(CoinData coinData, Transaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void rollback(CoinData coinData, Transaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void startBatch(List<Transaction> txList) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void endBatch() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancelBatch() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CoinData createByTransferData(Transaction tx, CoinTransferData coinParam, String password) throws NulsException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
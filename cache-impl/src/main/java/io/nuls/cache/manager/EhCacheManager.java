@@ -26,6 +26,7 @@ package io.nuls.cache.manager;
 import io.nuls.cache.constant.EhCacheConstant;
 import io.nuls.cache.listener.intf.NulsCacheListener;
 import io.nuls.cache.utils.EhcacheListener;
+import io.nuls.cache.utils.EhcacheSizeListener;
 import io.nuls.core.constant.NulsConstant;
 import org.ehcache.Cache;
 import org.ehcache.CacheManager;
@@ -40,6 +41,7 @@ import org.ehcache.expiry.Expirations;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -50,6 +52,7 @@ public class EhCacheManager {
     private static final EhCacheManager INSTANCE = new EhCacheManager();
     private static final Map<String, Class> KEY_TYPE_MAP = new HashMap<>();
     private static final Map<String, Class> VALUE_TYPE_MAP = new HashMap<>();
+    private static final Map<String, EhcacheSizeListener> SIZE_LISTENER_MAP = new ConcurrentHashMap<>();
     private CacheManager cacheManager;
 
     private EhCacheManager() {
@@ -79,6 +82,10 @@ public class EhCacheManager {
         if (timeToIdleSeconds > 0) {
             builder = builder.withExpiry(Expirations.timeToIdleExpiration(Duration.of(timeToIdleSeconds, TimeUnit.SECONDS)));
         }
+        EhcacheSizeListener sizeListener = new EhcacheSizeListener();
+        builder = builder.add(CacheEventListenerConfigurationBuilder
+                .newEventListenerConfiguration(sizeListener, EventType.CREATED, EventType.EVICTED, EventType.EXPIRED, EventType.REMOVED)
+                .ordered().synchronous());
         if (listener != null) {
             Set<EventType> types = new HashSet<>();
             types.add(EventType.CREATED);
@@ -94,6 +101,7 @@ public class EhCacheManager {
         cacheManager.createCache(title, builder.build());
         KEY_TYPE_MAP.put(title, keyType);
         VALUE_TYPE_MAP.put(title, valueType);
+        SIZE_LISTENER_MAP.put(title, sizeListener);
     }
 
     public Cache getCache(String title) {
@@ -111,6 +119,27 @@ public class EhCacheManager {
 
     public void removeCache(String title) {
         cacheManager.removeCache(title);
+        SIZE_LISTENER_MAP.remove(title);
+    }
+
+    public void clearCache(String title) {
+        Cache cache = getCache(title);
+        if (null == cache) {
+            return;
+        }
+        cache.clear();
+        EhcacheSizeListener sizeListener = SIZE_LISTENER_MAP.get(title);
+        if (null != sizeListener) {
+            sizeListener.reset();
+        }
+    }
+
+    public int getSize(String title) {
+        EhcacheSizeListener sizeListener = SIZE_LISTENER_MAP.get(title);
+        if (null == sizeListener) {
+            return 0;
+        }
+        return sizeListener.getSize();
     }
 
     public List<String> getCacheTitleList() {
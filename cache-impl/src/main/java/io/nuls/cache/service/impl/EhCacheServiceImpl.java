@@ -48,6 +48,11 @@ public class EhCacheServiceImpl<K, T> implements CacheService<K, T> {
         cacheManager.createCache(cacheName, String.class, Serializable.class, heapMb, timeToLiveSeconds, timeToIdleSeconds, listener);
     }
 
+    @Override
+    public void createCache(String cacheName, Class<? extends K> keyType, int heapMb, int timeToLiveSeconds, int timeToIdleSeconds, NulsCacheListener listener) {
+        cacheManager.createCache(cacheName, keyType, Serializable.class, heapMb, timeToLiveSeconds, timeToIdleSeconds, listener);
+    }
+
     @Override
     public void createCache(String title, Map<String, Object> initParams) {
 
@@ -92,14 +97,11 @@ public class EhCacheServiceImpl<K, T> implements CacheService<K, T> {
 
     @Override
     public void putElement(String cacheTitle, K key, Object value) {
-        Object valueObj = value;
-        if (value instanceof NulsCloneable) {
-            valueObj = ((NulsCloneable) value).copy();
-        }
-        if (null == cacheManager.getCache(cacheTitle)) {
+        Cache cache = cacheManager.getCache(cacheTitle);
+        if (null == cache) {
             throw new NulsRuntimeException(ErrorCode.FAILED, "Cache not exist!");
         }
-        cacheManager.getCache(cacheTitle).put(key, valueObj);
+        cache.put(key, copyOf(cacheTitle, value));
     }
 
     @Override
@@ -107,22 +109,29 @@ public class EhCacheServiceImpl<K, T> implements CacheService<K, T> {
         if (null == cacheManager.getCache(element.getCacheTitle())) {
             throw new NulsRuntimeException(ErrorCode.FAILED, "Cache not exist!");
         }
-        cacheManager.getCache(element.getCacheTitle()).put(element.getKey(), element.getValue().copy());
+        cacheManager.getCache(element.getCacheTitle()).put(element.getKey(), copyOf(element.getCacheTitle(), element.getValue()));
     }
 
     @Override
-    public T getElement(String cacheTitle, K key) {
-        if (null == cacheManager.getCache(cacheTitle) || null == key) {
-            return null;
+    public T putElementIfAbsent(String cacheTitle, K key, T value) {
+        Cache cache = cacheManager.getCache(cacheTitle);
+        if (null == cache) {
+            throw new NulsRuntimeException(ErrorCode.FAILED, "Cache not exist!");
         }
-        T t = ((T) cacheManager.getCache(cacheTitle).get(key));
-        if (null == t) {
-            return t;
+        T old = (T) cache.putIfAbsent(key, copyOf(cacheTitle, value));
+        if (null == old) {
+            return value;
         }
-        if (t instanceof NulsCloneable) {
-            return (T) ((NulsCloneable) t).copy();
+        return copyOf(cacheTitle, old);
+    }
+
+    @Override
+    public T getElement(String cacheTitle, K key) {
+        Cache cache = cacheManager.getCache(cacheTitle);
+        if (null == cache || null == key) {
+            return null;
         }
-        return t;
+        return copyOf(cacheTitle, (T) cache.get(key));
     }
 
     @Override
@@ -130,20 +139,46 @@ public class EhCacheServiceImpl<K, T> implements CacheService<K, T> {
         if (cacheManager == null || null == cacheManager.getCache(cacheTitle)) {
             return new ArrayList<>();
         }
-        Iterator it = cacheManager.getCache(cacheTitle).iterator();
-        List<T> list = new ArrayList<>();
+        Iterator<T> it = valueIterator(cacheTitle);
+        List<T> list = new ArrayList<>(cacheManager.getSize(cacheTitle));
         while (it.hasNext()) {
-            Cache.Entry<K, T> entry = (Cache.Entry<K, T>) it.next();
-            T t = entry.getValue();
-            T value = t;
-            if (t instanceof NulsCloneable) {
-                value = (T) ((NulsCloneable) t).copy();
-            }
-            list.add(value);
+            list.add(it.next());
         }
         return list;
     }
 
+    @Override
+    public int getSize(String cacheTitle) {
+        return cacheManager.getSize(cacheTitle);
+    }
+
+    @Override
+    public Iterator<T> valueIterator(String cacheTitle) {
+        Cache cache = cacheManager.getCache(cacheTitle);
+        if (null == cache) {
+            return Collections.emptyIterator();
+        }
+        final Iterator<Cache.Entry<K, T>> it = cache.iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return copyOf(cacheTitle, it.next().getValue());
+            }
+        };
+    }
+
+    private <V> V copyOf(String cacheTitle, V value) {
+        if (value instanceof NulsCloneable) {
+            return (V) ((NulsCloneable) value).copy();
+        }
+        return value;
+    }
+
 
     @Override
     public void removeElement(String cacheTitle, K key) {
@@ -160,7 +195,7 @@ public class EhCacheServiceImpl<K, T> implements CacheService<K, T> {
         if (null == cacheManager.getCache(title)) {
             throw new NulsRuntimeException(ErrorCode.FAILED, "Cache not exist!");
         }
-        cacheManager.getCache(title).clear();
+        cacheManager.clearCache(title);
     }
 
     @Override
@@ -0,0 +1,65 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.cache.utils;
+
+import org.ehcache.event.CacheEvent;
+import org.ehcache.event.CacheEventListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the number of mappings of one cache, so its size can be read without walking the entries.
+ * It has to be registered as a synchronous, ordered listener to stay exact.
+ */
+public class EhcacheSizeListener implements CacheEventListener {
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Override
+    public void onEvent(CacheEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                size.incrementAndGet();
+                break;
+            case EVICTED:
+            case EXPIRED:
+            case REMOVED:
+                size.decrementAndGet();
+                break;
+            default:
+                return;
+        }
+    }
+
+    public int getSize() {
+        return Math.max(0, size.get());
+    }
+
+    /**
+     * Cache.clear() does not fire events
+     */
+    public void reset() {
+        size.set(0);
+    }
+}
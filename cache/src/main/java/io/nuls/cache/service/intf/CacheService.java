@@ -26,6 +26,7 @@ package io.nuls.cache.service.intf;
 import io.nuls.cache.entity.CacheElement;
 import io.nuls.cache.listener.intf.NulsCacheListener;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -77,6 +78,16 @@ public interface CacheService<K, V> {
      */
     void putElement(CacheElement element);
 
+    /**
+     * put data to a cache unless the key is already there, in one atomic step
+     *
+     * @param cacheTitle
+     * @param key
+     * @param value
+     * @return the element kept in the cache: the one already there, otherwise value
+     */
+    V putElementIfAbsent(String cacheTitle, K key, V value);
+
     /**
      * get data from the cache named cacheTitle
      *
@@ -109,4 +120,29 @@ public interface CacheService<K, V> {
     Set<K> keySet(String cacheTitle);
 
     void createCache(String cacheName, int heapMb, int timeToLiveSeconds, int timeToIdleSeconds, NulsCacheListener listener);
+
+    /**
+     * create a cache whose keys are instances of keyType instead of String
+     *
+     * @param cacheName
+     * @param keyType
+     */
+    void createCache(String cacheName, Class<? extends K> keyType, int heapMb, int timeToLiveSeconds, int timeToIdleSeconds, NulsCacheListener listener);
+
+    /**
+     * the number of elements in the cache, read from a counter instead of walking the cache
+     *
+     * @param cacheTitle
+     * @return
+     */
+    int getSize(String cacheTitle);
+
+    /**
+     * iterate the values of the cache without materializing them into a list first,
+     * values of a copying cache are copied one by one while iterating
+     *
+     * @param cacheTitle
+     * @return
+     */
+    Iterator<V> valueIterator(String cacheTitle);
 }
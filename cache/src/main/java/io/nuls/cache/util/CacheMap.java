@@ -27,6 +27,7 @@ import io.nuls.cache.listener.intf.NulsCacheListener;
 import io.nuls.cache.service.intf.CacheService;
 import io.nuls.core.context.NulsContext;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -53,12 +54,21 @@ public class CacheMap<K, V> {
         this.cacheName = cacheName;
     }
 
+    public CacheMap(String cacheName, Class<K> keyType, int heapMb, int timeToLiveSeconds, int timeToIdleSeconds) {
+        this(cacheName, keyType, heapMb, timeToLiveSeconds, timeToIdleSeconds, null);
+    }
+
+    public CacheMap(String cacheName, Class<K> keyType, int heapMb, int timeToLiveSeconds, int timeToIdleSeconds, NulsCacheListener listener) {
+        this.cacheService.createCache(cacheName, keyType, heapMb, timeToLiveSeconds, timeToIdleSeconds, listener);
+        this.cacheName = cacheName;
+    }
+
     public int size() {
-        return this.keySet().size();
+        return this.cacheService.getSize(cacheName);
     }
 
     public boolean isEmpty() {
-        return this.keySet().isEmpty();
+        return this.size() == 0;
     }
 
     public boolean containsKey(K key) {
@@ -66,8 +76,13 @@ public class CacheMap<K, V> {
     }
 
     public boolean containsValue(V value) {
-        List<V> vlist = this.cacheService.getElementList(cacheName);
-        return vlist.contains(value);
+        Iterator<V> it = this.valueIterator();
+        while (it.hasNext()) {
+            if (it.next().equals(value)) {
+                return true;
+            }
+        }
+        return false;
     }
 
 
@@ -96,6 +111,10 @@ public class CacheMap<K, V> {
         return this.cacheService.getElementList(cacheName);
     }
 
+    public Iterator<V> valueIterator() {
+        return this.cacheService.valueIterator(cacheName);
+    }
+
     public void destroy() {
         this.cacheService.removeCache(cacheName);
     }
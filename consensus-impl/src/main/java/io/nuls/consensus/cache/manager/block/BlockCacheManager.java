@@ -24,25 +24,31 @@
 package io.nuls.consensus.cache.manager.block;
 
 import io.nuls.cache.util.CacheMap;
+import io.nuls.consensus.cache.manager.tx.ReceivedTxCacheManager;
 import io.nuls.consensus.constant.ConsensusCacheConstant;
 import io.nuls.consensus.constant.PocConsensusConstant;
 import io.nuls.consensus.entity.GetBlockHeaderParam;
+import io.nuls.consensus.entity.RedPunishData;
+import io.nuls.consensus.entity.TxGroup;
 import io.nuls.consensus.entity.block.BifurcateProcessor;
-import io.nuls.consensus.entity.block.BlockHeaderChain;
-import io.nuls.consensus.entity.block.HeaderDigest;
 import io.nuls.consensus.event.GetBlockHeaderEvent;
+import io.nuls.consensus.thread.ConsensusMeetingRunner;
 import io.nuls.consensus.utils.DownloadDataUtils;
 import io.nuls.core.chain.entity.*;
 import io.nuls.core.constant.NulsConstant;
+import io.nuls.core.constant.SeverityLevelEnum;
 import io.nuls.core.constant.TxStatusEnum;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.utils.log.Log;
+import io.nuls.core.validate.TxVerifyMemo;
 import io.nuls.core.validate.ValidateResult;
+import io.nuls.db.entity.NodePo;
 import io.nuls.event.bus.service.intf.EventBroadcaster;
 import io.nuls.ledger.service.intf.LedgerService;
+import io.nuls.network.service.NetworkService;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * @author Niels
@@ -53,14 +59,32 @@ public class BlockCacheManager {
 
     private EventBroadcaster eventBroadcaster;
     private LedgerService ledgerService;
+    private NetworkService networkService;
+    private ReceivedTxCacheManager txCacheManager = ReceivedTxCacheManager.getInstance();
 
-    private CacheMap<String, BlockHeader> headerCacheMap;
-    private CacheMap<String, Block> blockCacheMap;
-    private CacheMap<String, SmallBlock> smallBlockCacheMap;
+    private CacheMap<NulsDigestKey, BlockHeader> headerCacheMap;
+    private CacheMap<NulsDigestKey, Block> blockCacheMap;
+    private CacheMap<NulsDigestKey, SmallBlock> smallBlockCacheMap;
+
+    private OrphanHeaderPool orphanHeaderPool = new OrphanHeaderPool(ConsensusCacheConstant.ORPHAN_HEADER_LIVE_TIME,
+            ConsensusCacheConstant.ORPHAN_HEADER_MAX_BYTES, ConsensusCacheConstant.ORPHAN_HEADER_MAX_BYTES_PER_PEER);
 
     private DownloadDataUtils downloadDataUtils = DownloadDataUtils.getInstance();
     private BifurcateProcessor bifurcateProcessor = BifurcateProcessor.getInstance();
 
+    private final CompactBlockMetrics compactBlockMetrics = new CompactBlockMetrics();
+
+    /**
+     * the small blocks whose received txs failed the merkle check once, they are rebuilt from tx groups only
+     */
+    private final Set<NulsDigestKey> poolRefusedSet = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<NulsDigestKey, Boolean>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<NulsDigestKey, Boolean> eldest) {
+                    return size() > 64;
+                }
+            }));
+
     private long storedHeight;
     private long recievedMaxHeight;
 
@@ -74,12 +98,30 @@ public class BlockCacheManager {
     public void init() {
         eventBroadcaster = NulsContext.getServiceBean(EventBroadcaster.class);
         ledgerService = NulsContext.getServiceBean(LedgerService.class);
-        smallBlockCacheMap = new CacheMap<>(ConsensusCacheConstant.SMALL_BLOCK_CACHE_NAME, 32, ConsensusCacheConstant.LIVE_TIME, 0);
-        blockCacheMap = new CacheMap<>(ConsensusCacheConstant.BLOCK_CACHE_NAME, 64, ConsensusCacheConstant.LIVE_TIME, 0);
-        headerCacheMap = new CacheMap<>(ConsensusCacheConstant.BLOCK_HEADER_CACHE_NAME, 32, ConsensusCacheConstant.LIVE_TIME, 0);
+        networkService = NulsContext.getServiceBean(NetworkService.class);
+        smallBlockCacheMap = new CacheMap<>(ConsensusCacheConstant.SMALL_BLOCK_CACHE_NAME, NulsDigestKey.class, 32, ConsensusCacheConstant.LIVE_TIME, 0);
+        blockCacheMap = new CacheMap<>(ConsensusCacheConstant.BLOCK_CACHE_NAME, NulsDigestKey.class, 64, ConsensusCacheConstant.LIVE_TIME, 0);
+        headerCacheMap = new CacheMap<>(ConsensusCacheConstant.BLOCK_HEADER_CACHE_NAME, NulsDigestKey.class, 32, ConsensusCacheConstant.LIVE_TIME, 0);
     }
 
     public void cacheBlockHeader(BlockHeader header, String sender) {
+        if (!addBlockHeader(header, sender) || null == sender) {
+            return;
+        }
+        LinkedList<OrphanHeaderPool.OrphanHeader> queue = new LinkedList<>(orphanHeaderPool.removeChildren(header.getHash().getKey()));
+        while (!queue.isEmpty()) {
+            OrphanHeaderPool.OrphanHeader orphan = queue.poll();
+            String nodeId = null == orphan.getSender() ? sender : orphan.getSender();
+            if (addBlockHeader(orphan.getHeader(), nodeId)) {
+                queue.addAll(orphanHeaderPool.removeChildren(orphan.getHeader().getHash().getKey()));
+            }
+        }
+    }
+
+    /**
+     * @return true if the header was connected, its orphan children may follow it then
+     */
+    private boolean addBlockHeader(BlockHeader header, String sender) {
         long height = header.getHeight();
         boolean discard = true;
         do {
@@ -94,7 +136,7 @@ public class BlockCacheManager {
             }
             long nextHeight = 1 + bifurcateProcessor.getBestHeight();
             if (height > nextHeight) {
-                headerCacheMap.put(header.getHash().getDigestHex(), header);
+                orphanHeaderPool.add(header, sender);
                 if (header.getHeight() > this.recievedMaxHeight) {
                     this.recievedMaxHeight = header.getHeight();
                 }
@@ -111,30 +153,29 @@ public class BlockCacheManager {
             discard = false;
         } while (false);
         if (discard) {
-            return;
+            return false;
         }
         bifurcateProcessor.addHeader(header);
-        headerCacheMap.put(header.getHash().getDigestHex(), header);
+        headerCacheMap.put(header.getHash().getKey(), header);
         if (null != sender) {
             downloadDataUtils.requestSmallBlock(header.getHash(), sender);
-            checkNextBlockHeader(header.getHash().getDigestHex(), sender);
         }
+        return true;
     }
 
-    private void checkNextBlockHeader(String preHash, String nodeId) {
-        for (BlockHeader header : headerCacheMap.values()) {
-            if (header.getPreHash().getDigestHex().equals(preHash)) {
-                this.cacheBlockHeader(header, nodeId);
-            }
-        }
+    public BlockHeader getBlockHeader(NulsDigestData hash) {
+        return headerCacheMap.get(hash.getKey());
     }
 
-    public BlockHeader getBlockHeader(String hash) {
-        return headerCacheMap.get(hash);
+    /**
+     * forget the orphan headers a peer sent, used when the peer is punished
+     */
+    public void removeOrphanHeaders(String nodeId) {
+        orphanHeaderPool.removeByPeer(nodeId);
     }
 
     public void cacheBlock(Block block) {
-        blockCacheMap.put(block.getHeader().getHash().getDigestHex(), block);
+        blockCacheMap.put(block.getHeader().getHash().getKey(), block);
         boolean b = this.bifurcateProcessor.addHeader(block.getHeader());
         if (b) {
             NulsContext.getInstance().setBestBlock(block);
@@ -142,30 +183,32 @@ public class BlockCacheManager {
         //txs approval
         BlockHeader header = this.getBlockHeader(block.getHeader().getHeight());
         if (null == header) {
-            List<String> blockHashList = bifurcateProcessor.getHashList(block.getHeader().getHeight());
+            List<NulsDigestKey> blockHashList = bifurcateProcessor.getHashList(block.getHeader().getHeight());
             rollbackBlocksTxs(blockHashList);
             return;
         }
+        List<Transaction> approvalList = new ArrayList<>();
         for (Transaction tx : block.getTxs()) {
             if (tx.getStatus() == TxStatusEnum.CACHED) {
-                try {
-                    this.ledgerService.approvalTx(tx);
-                } catch (NulsException e) {
-                    Log.error(e);
-                }
+                approvalList.add(tx);
             }
         }
+        List<Transaction> failedList = this.ledgerService.approvalTxList(approvalList);
+        if (!failedList.isEmpty()) {
+            Log.warn(failedList.size() + " txs of block " + block.getHeader().getHeight() + " could not be approved");
+        }
         Block block1 = this.getBlock(block.getHeader().getHeight());
         if (null != block1 && block1.getHeader().getHeight() > NulsContext.getInstance().getBestBlock().getHeader().getHeight()) {
             NulsContext.getInstance().setBestBlock(block1);
         }
     }
 
-    private void rollbackBlocksTxs(List<String> blockHashList) {
-        for (String hash : blockHashList) {
-            Block block = getBlock(hash);
+    private void rollbackBlocksTxs(List<NulsDigestKey> blockHashList) {
+        for (NulsDigestKey hash : blockHashList) {
+            Block block = blockCacheMap.get(hash);
             if (null != block) {
                 rollbackTxs(block.getTxs());
+                TxVerifyMemo.getInstance().invalidate(block.getTxs());
             }
         }
 
@@ -183,40 +226,157 @@ public class BlockCacheManager {
         }
     }
 
-    public Block getBlock(String hash) {
-        return blockCacheMap.get(hash);
+    public Block getBlock(NulsDigestData hash) {
+        return blockCacheMap.get(hash.getKey());
+    }
+
+    public Block getBlock(NulsDigestKey key) {
+        return blockCacheMap.get(key);
     }
 
     public void cacheSmallBlock(SmallBlock smallBlock, String nodeId) {
-        smallBlockCacheMap.put(smallBlock.getBlockHash().getDigestHex(), smallBlock);
-        downloadDataUtils.requestTxGroup(smallBlock.getBlockHash(), nodeId);
+        smallBlockCacheMap.put(smallBlock.getBlockHash().getKey(), smallBlock);
+        rebuildBlock(smallBlock, null, nodeId);
+    }
+
+    /**
+     * fill in the txs of a small block that were asked for
+     */
+    public void cacheTxGroup(TxGroup txGroup, String nodeId) {
+        SmallBlock smallBlock = getSmallBlock(txGroup.getBlockHash());
+        if (null == smallBlock) {
+            return;
+        }
+        rebuildBlock(smallBlock, txGroup, nodeId);
     }
 
-    public SmallBlock getSmallBlock(String hash) {
-        return smallBlockCacheMap.get(hash);
+    /**
+     * Rebuild the block of a small block from its prefilled txs, the txs of the tx group and the received txs
+     * matched by short id, the txs still missing are asked for in one request.
+     * A short id matching more than one received tx counts as missing. A received tx taken for another one
+     * fails the merkle check of the block, all its txs are asked for then instead of punishing the sender, and the
+     * received txs are not used for that block again. A block whose txs were asked for too often is given up.
+     */
+    private void rebuildBlock(SmallBlock smallBlock, TxGroup txGroup, String nodeId) {
+        BlockHeader header = getBlockHeader(smallBlock.getBlockHash());
+        if (null == header) {
+            return;
+        }
+        NulsDigestKey blockKey = smallBlock.getBlockHash().getKey();
+        Map<Long, Transaction> groupTxMap = new HashMap<>();
+        if (null != txGroup) {
+            for (Transaction tx : txGroup.getTxList()) {
+                groupTxMap.put(smallBlock.getShortId(tx.getHash()), tx);
+            }
+        }
+        boolean usePool = !poolRefusedSet.contains(blockKey);
+        List<Transaction> txs = new ArrayList<>();
+        List<Integer> shortIdIndexList = new ArrayList<>();
+        List<Integer> missingIndexList = new ArrayList<>();
+        int poolCount = 0;
+        int collisionCount = 0;
+        Iterator<Long> shortIds = smallBlock.getShortIdList().iterator();
+        for (int i = 0; i < smallBlock.getTxCount(); i++) {
+            Transaction tx = smallBlock.getPrefilledTxMap().get(i);
+            if (null == tx) {
+                long shortId = shortIds.next();
+                shortIdIndexList.add(i);
+                tx = groupTxMap.get(shortId);
+                if (null == tx && usePool) {
+                    List<Transaction> poolTxList = txCacheManager.getTxListByShortId(smallBlock, shortId);
+                    if (poolTxList.size() == 1) {
+                        tx = poolTxList.get(0);
+                        poolCount++;
+                    } else if (poolTxList.size() > 1) {
+                        collisionCount++;
+                    }
+                }
+                if (null == tx) {
+                    missingIndexList.add(i);
+                }
+            }
+            txs.add(tx);
+        }
+        if (null == txGroup) {
+            compactBlockMetrics.received(smallBlock.getPrefilledTxMap().size(), poolCount, missingIndexList.size());
+            compactBlockMetrics.collisions(collisionCount);
+        }
+        if (!missingIndexList.isEmpty()) {
+            requestTxGroup(smallBlock, missingIndexList, nodeId);
+            return;
+        }
+        Block block = new Block();
+        block.setHeader(header);
+        block.setTxs(txs);
+        ValidateResult<RedPunishData> result = block.verify();
+        if (null == result || result.isFailed()) {
+            if (poolCount > 0) {
+                compactBlockMetrics.collisions(poolCount);
+                poolRefusedSet.add(blockKey);
+                requestTxGroup(smallBlock, shortIdIndexList, nodeId);
+                return;
+            }
+            networkService.blackNode(nodeId, NodePo.YELLOW);
+            removeOrphanHeaders(nodeId);
+            if (null != result && result.getLevel() == SeverityLevelEnum.FLAGRANT_FOUL) {
+                ConsensusMeetingRunner.putPunishData(result.getObject());
+            }
+            return;
+        }
+        if (header.getHeight() < recievedMaxHeight) {
+            askNextHeader(1 + header.getHeight(), nodeId);
+        }
+        cacheBlock(block);
+        downloadDataUtils.removeTxGroup(blockKey);
+        txCacheManager.removeShortIdIndex(blockKey);
+        poolRefusedSet.remove(blockKey);
+    }
+
+    private void requestTxGroup(SmallBlock smallBlock, List<Integer> txIndexList, String nodeId) {
+        NulsDigestKey blockKey = smallBlock.getBlockHash().getKey();
+        if (downloadDataUtils.canRequestTxGroup(blockKey)) {
+            downloadDataUtils.requestTxGroup(smallBlock.getBlockHash(), txIndexList, nodeId);
+            return;
+        }
+        Log.warn("gave up rebuilding block " + smallBlock.getBlockHash().getDigestHex() + " from " + nodeId);
+        downloadDataUtils.removeTxGroup(blockKey);
+        txCacheManager.removeShortIdIndex(blockKey);
+        poolRefusedSet.remove(blockKey);
+        smallBlockCacheMap.remove(blockKey);
+    }
+
+    public SmallBlock getSmallBlock(NulsDigestData hash) {
+        return smallBlockCacheMap.get(hash.getKey());
     }
 
     public void clear() {
         this.blockCacheMap.clear();
         this.headerCacheMap.clear();
         this.smallBlockCacheMap.clear();
+        this.poolRefusedSet.clear();
+        this.orphanHeaderPool.clear();
+        this.bifurcateProcessor.clear();
     }
 
     public void destroy() {
         this.blockCacheMap.destroy();
         this.headerCacheMap.destroy();
         this.smallBlockCacheMap.destroy();
+        this.orphanHeaderPool.clear();
+        this.bifurcateProcessor.clear();
     }
 
     public void removeBlock(BlockHeader header) {
         if (null == header) {
             return;
         }
-        this.bifurcateProcessor.removeHeight(header.getHeight());
-        String hash = header.getHash().getDigestHex();
+        NulsDigestKey hash = header.getHash().getKey();
+        this.bifurcateProcessor.removeHeight(hash, header.getHeight());
         this.blockCacheMap.remove(hash);
         this.smallBlockCacheMap.remove(hash);
         this.headerCacheMap.remove(hash);
+        this.poolRefusedSet.remove(hash);
+        this.txCacheManager.removeShortIdIndex(hash);
     }
 
     public long getBestHeight() {
@@ -229,33 +389,11 @@ public class BlockCacheManager {
 
     public void setStoredHeight(long storedHeight) {
         this.storedHeight = storedHeight;
+        this.orphanHeaderPool.removeByHeight(storedHeight);
     }
 
-//    private HeaderDigest getNextHeaderDigest1(long height) {
-//        HeaderDigest headerDigest = nextHeaderDigest();
-//        if (null == headerDigest) {
-//            return null;
-//        }
-//        while (height > headerDigest.getHeight()) {
-//            this.bifurcateProcessor.removeHeight(headerDigest.getHeight());
-//            headerDigest = nextHeaderDigest();
-//            if (null == headerDigest) {
-//                return null;
-//            }
-//        }
-//        return headerDigest;
-//    }
-//
-//    private HeaderDigest nextHeaderDigest() {
-//        BlockHeaderChain chain = this.bifurcateProcessor.getLongestChain();
-//        if (null == chain) {
-//            return null;
-//        }
-//        return chain.getFirst();
-//    }
-
     public Block getBlock(long height) {
-        String hash = getDigestHex(height);
+        NulsDigestKey hash = getDigestKey(height);
         if (hash == null) {
             return null;
         }
@@ -263,23 +401,27 @@ public class BlockCacheManager {
     }
 
     public BlockHeader getBlockHeader(long height) {
-        String hash = getDigestHex(height);
+        NulsDigestKey hash = getDigestKey(height);
         if (hash == null) {
             return null;
         }
         return headerCacheMap.get(hash);
     }
 
-    public String getDigestHex(long height) {
-        List<String> hashList = bifurcateProcessor.getHashList(height);
-        if (null == hashList || hashList.isEmpty() || hashList.size() > 1) {
+    public NulsDigestKey getDigestKey(long height) {
+        List<NulsDigestKey> hashList = bifurcateProcessor.getHashList(height);
+        if (hashList.size() != 1) {
             return null;
         }
-        return (hashList.get(0));
+        return hashList.get(0);
     }
 
     public boolean canPersistence() {
-        return null != bifurcateProcessor.getLongestChain() && bifurcateProcessor.getLongestChain().size() > PocConsensusConstant.CONFIRM_BLOCK_COUNT;
+        return bifurcateProcessor.getLongestChainSize() > PocConsensusConstant.CONFIRM_BLOCK_COUNT;
+    }
+
+    public CompactBlockMetrics getCompactBlockMetrics() {
+        return compactBlockMetrics;
     }
 
     public long getRecievedMaxHeight() {
@@ -0,0 +1,94 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.consensus.cache.manager.block;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the compact block relay: small blocks received, blocks rebuilt without asking for any tx,
+ * txs found in the local tx pool or missing, prefilled txs and short ids that had to be asked for again
+ * because they matched more than one tx or rebuilt a block that failed to verify.
+ */
+public class CompactBlockMetrics {
+
+    private final LongAdder blocks = new LongAdder();
+    private final LongAdder rebuilt = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder prefilled = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    public void received(int prefilledCount, int hitCount, int missCount) {
+        blocks.increment();
+        prefilled.add(prefilledCount);
+        hits.add(hitCount);
+        misses.add(missCount);
+        if (missCount == 0) {
+            rebuilt.increment();
+        }
+    }
+
+    public void collisions(int count) {
+        collisions.add(count);
+    }
+
+    public long getBlocks() {
+        return blocks.sum();
+    }
+
+    public long getRebuilt() {
+        return rebuilt.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPrefilled() {
+        return prefilled.sum();
+    }
+
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    public void reset() {
+        blocks.reset();
+        rebuilt.reset();
+        hits.reset();
+        misses.reset();
+        prefilled.reset();
+        collisions.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "compact blocks{blocks=" + getBlocks() + ", rebuilt=" + getRebuilt() + ", hits=" + getHits() +
+                ", misses=" + getMisses() + ", prefilled=" + getPrefilled() + ", collisions=" + getCollisions() + "}";
+    }
+}
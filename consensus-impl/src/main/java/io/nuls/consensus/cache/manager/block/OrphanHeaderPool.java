@@ -0,0 +1,230 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.consensus.cache.manager.block;
+
+import io.nuls.core.chain.entity.BlockHeader;
+import io.nuls.core.chain.entity.NulsDigestKey;
+import io.nuls.core.utils.date.TimeService;
+
+import java.util.*;
+
+/**
+ * Headers whose parent is not known yet, indexed by hash, by prevHash and by height.
+ * Connecting a parent only touches its own children. The pool is bounded by the serialized size of
+ * its headers, overall and per peer, and drops the oldest headers first.
+ */
+public class OrphanHeaderPool {
+
+    private final long liveTime;
+    private final int maxBytes;
+    private final int maxBytesPerPeer;
+
+    /**
+     * insertion ordered, so the first entry is always the oldest one
+     */
+    private final LinkedHashMap<NulsDigestKey, OrphanHeader> headerMap = new LinkedHashMap<>();
+    private final Map<NulsDigestKey, Set<NulsDigestKey>> prevHashIndex = new HashMap<>();
+    private final TreeMap<Long, Set<NulsDigestKey>> heightIndex = new TreeMap<>();
+    private final Map<String, Set<NulsDigestKey>> peerIndex = new HashMap<>();
+    private final Map<String, Integer> peerBytesMap = new HashMap<>();
+    private int totalBytes;
+
+    public OrphanHeaderPool(long liveTime, int maxBytes, int maxBytesPerPeer) {
+        this.liveTime = liveTime;
+        this.maxBytes = maxBytes;
+        this.maxBytesPerPeer = maxBytesPerPeer;
+    }
+
+    public synchronized boolean add(BlockHeader header, String sender) {
+        NulsDigestKey key = header.getHash().getKey();
+        if (headerMap.containsKey(key)) {
+            return false;
+        }
+        long now = TimeService.currentTimeMillis();
+        removeExpired(now);
+        OrphanHeader orphan = new OrphanHeader(header, sender, now);
+        if (orphan.size > maxBytesPerPeer || orphan.size > maxBytes) {
+            return false;
+        }
+        while (peerBytes(sender) + orphan.size > maxBytesPerPeer) {
+            removeOldestOfPeer(sender);
+        }
+        while (totalBytes + orphan.size > maxBytes) {
+            remove(headerMap.keySet().iterator().next());
+        }
+        headerMap.put(key, orphan);
+        index(prevHashIndex, header.getPreHash().getKey(), key);
+        index(heightIndex, header.getHeight(), key);
+        index(peerIndex, sender, key);
+        totalBytes += orphan.size;
+        peerBytesMap.put(sender, peerBytes(sender) + orphan.size);
+        return true;
+    }
+
+    /**
+     * take the headers that build on the given parent out of the pool
+     */
+    public synchronized List<OrphanHeader> removeChildren(NulsDigestKey prevHash) {
+        Set<NulsDigestKey> childSet = prevHashIndex.get(prevHash);
+        if (null == childSet) {
+            return Collections.emptyList();
+        }
+        List<OrphanHeader> list = new ArrayList<>(childSet.size());
+        for (NulsDigestKey key : new ArrayList<>(childSet)) {
+            list.add(remove(key));
+        }
+        return list;
+    }
+
+    /**
+     * drop every header at or below the given height
+     */
+    public synchronized void removeByHeight(long height) {
+        while (!heightIndex.isEmpty() && heightIndex.firstKey() <= height) {
+            for (NulsDigestKey key : new ArrayList<>(heightIndex.firstEntry().getValue())) {
+                remove(key);
+            }
+        }
+    }
+
+    public synchronized void removeByPeer(String sender) {
+        Set<NulsDigestKey> set = peerIndex.get(sender);
+        if (null == set) {
+            return;
+        }
+        for (NulsDigestKey key : new ArrayList<>(set)) {
+            remove(key);
+        }
+    }
+
+    public synchronized BlockHeader get(NulsDigestKey key) {
+        OrphanHeader orphan = headerMap.get(key);
+        return null == orphan ? null : orphan.header;
+    }
+
+    public synchronized int size() {
+        return headerMap.size();
+    }
+
+    public synchronized int getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized void clear() {
+        headerMap.clear();
+        prevHashIndex.clear();
+        heightIndex.clear();
+        peerIndex.clear();
+        peerBytesMap.clear();
+        totalBytes = 0;
+    }
+
+    private void removeExpired(long now) {
+        Iterator<OrphanHeader> it = headerMap.values().iterator();
+        while (it.hasNext()) {
+            OrphanHeader orphan = it.next();
+            if (now - orphan.time < liveTime) {
+                return;
+            }
+            it.remove();
+            unindex(orphan);
+        }
+    }
+
+    private void removeOldestOfPeer(String sender) {
+        Set<NulsDigestKey> set = peerIndex.get(sender);
+        if (null != set) {
+            remove(set.iterator().next());
+        }
+    }
+
+    private OrphanHeader remove(NulsDigestKey key) {
+        OrphanHeader orphan = headerMap.remove(key);
+        if (null != orphan) {
+            unindex(orphan);
+        }
+        return orphan;
+    }
+
+    private void unindex(OrphanHeader orphan) {
+        NulsDigestKey key = orphan.header.getHash().getKey();
+        unindex(prevHashIndex, orphan.header.getPreHash().getKey(), key);
+        unindex(heightIndex, orphan.header.getHeight(), key);
+        unindex(peerIndex, orphan.sender, key);
+        totalBytes -= orphan.size;
+        int peerBytes = peerBytes(orphan.sender) - orphan.size;
+        if (peerBytes <= 0) {
+            peerBytesMap.remove(orphan.sender);
+        } else {
+            peerBytesMap.put(orphan.sender, peerBytes);
+        }
+    }
+
+    private int peerBytes(String sender) {
+        Integer bytes = peerBytesMap.get(sender);
+        return null == bytes ? 0 : bytes;
+    }
+
+    private static <T> void index(Map<T, Set<NulsDigestKey>> index, T indexKey, NulsDigestKey key) {
+        Set<NulsDigestKey> set = index.get(indexKey);
+        if (null == set) {
+            set = new LinkedHashSet<>();
+            index.put(indexKey, set);
+        }
+        set.add(key);
+    }
+
+    private static <T> void unindex(Map<T, Set<NulsDigestKey>> index, T indexKey, NulsDigestKey key) {
+        Set<NulsDigestKey> set = index.get(indexKey);
+        if (null == set) {
+            return;
+        }
+        set.remove(key);
+        if (set.isEmpty()) {
+            index.remove(indexKey);
+        }
+    }
+
+    public static class OrphanHeader {
+        private final BlockHeader header;
+        private final String sender;
+        private final long time;
+        private final int size;
+
+        private OrphanHeader(BlockHeader header, String sender, long time) {
+            this.header = header;
+            this.sender = sender;
+            this.time = time;
+            this.size = header.size();
+        }
+
+        public BlockHeader getHeader() {
+            return header;
+        }
+
+        public String getSender() {
+            return sender;
+        }
+    }
+}
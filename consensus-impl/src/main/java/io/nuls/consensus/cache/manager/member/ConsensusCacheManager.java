@@ -32,18 +32,20 @@ import io.nuls.consensus.entity.ConsensusStatusInfo;
 import io.nuls.consensus.entity.member.Agent;
 import io.nuls.consensus.entity.member.Delegate;
 import io.nuls.consensus.utils.ConsensusTool;
+import io.nuls.core.chain.entity.Na;
 import io.nuls.core.context.NulsContext;
 import io.nuls.db.dao.DelegateAccountDataService;
 import io.nuls.db.dao.DelegateDataService;
 import io.nuls.db.entity.DelegateAccountPo;
 import io.nuls.db.entity.DelegatePo;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
+ * The agents and delegates, cached by status.
+ * Next to the caches it keeps the agents in consensus, the delegates of every agent and the deposit totals in memory,
+ * updated on every change, so a round is scheduled without copying the caches or summing up every deposit again.
+ *
  * @author Niels
  * @date 2017/12/6
  */
@@ -70,6 +72,15 @@ public class ConsensusCacheManager {
     private CacheMap<String, Consensus<Delegate>> outDelegateCache = new CacheMap<>(OUT_DELEGATE_LIST, 1024);
     private CacheMap<String, ConsensusStatusInfo> consensusStatusCache = new CacheMap<>(CACHE_CONSENSUS_STATUS_INFO, 128);
 
+    /**
+     * the agents in consensus and all delegates by agent address, shared with the round schedule
+     */
+    private final Map<String, Consensus<Agent>> inAgentMap = new LinkedHashMap<>();
+    private final Map<String, Consensus<Delegate>> delegateMap = new HashMap<>();
+    private final Map<String, Map<String, Consensus<Delegate>>> agentDelegateMap = new HashMap<>();
+    private long inAgentDeposit;
+    private long delegateDeposit;
+
     private ConsensusCacheManager() {
     }
 
@@ -140,9 +151,11 @@ public class ConsensusCacheManager {
         if (ca.getExtend().getStatus() == ConsensusStatusEnum.IN.getCode()) {
             this.inAgentCache.put(ca.getAddress(), ca);
             this.outAgentCache.remove(ca.getAddress());
+            this.indexAgent(ca);
         } else {
             this.outAgentCache.put(ca.getAddress(), ca);
             this.inAgentCache.remove(ca.getAddress());
+            this.unindexAgent(ca.getAddress());
         }
     }
 
@@ -164,6 +177,7 @@ public class ConsensusCacheManager {
     public void delAgent(String address) {
         this.inAgentCache.remove(address);
         this.outAgentCache.remove(address);
+        this.unindexAgent(address);
     }
 
     public void changeAgentStatus(String address, ConsensusStatusEnum statusEnum) {
@@ -182,9 +196,17 @@ public class ConsensusCacheManager {
         this.inDelegateCache.clear();
         this.outDelegateCache.clear();
         this.consensusStatusCache.clear();
+        synchronized (this) {
+            this.inAgentMap.clear();
+            this.delegateMap.clear();
+            this.agentDelegateMap.clear();
+            this.inAgentDeposit = 0;
+            this.delegateDeposit = 0;
+        }
     }
 
     public void cacheDelegate(Consensus<Delegate> cd) {
+        this.indexDelegate(cd);
         if (cd.getExtend().getStatus() == ConsensusStatusEnum.IN.getCode()) {
             this.inDelegateCache.put(cd.getExtend().getHash(), cd);
             this.outDelegateCache.remove(cd.getExtend().getHash());
@@ -212,6 +234,7 @@ public class ConsensusCacheManager {
     public void delDelegate(String id) {
         inDelegateCache.remove(id);
         outDelegateCache.remove(id);
+        this.unindexDelegate(id);
     }
 
     public void changeDelegateStatus(String id, ConsensusStatusEnum statusEnum) {
@@ -267,17 +290,8 @@ public class ConsensusCacheManager {
     }
 
     public void delDelegateByAgent(String address) {
-        List<Consensus<Delegate>> allList = new ArrayList<>(outDelegateCache.values());
-        for (Consensus<Delegate> cd : allList) {
-            if (cd.getExtend().getDelegateAddress().equals(address)) {
-                outDelegateCache.remove(cd.getExtend().getHash());
-            }
-        }
-        allList = new ArrayList<>(inDelegateCache.values());
-        for (Consensus<Delegate> cd : allList) {
-            if (cd.getExtend().getDelegateAddress().equals(address)) {
-                inDelegateCache.remove(cd.getExtend().getHash());
-            }
+        for (Consensus<Delegate> cd : getDelegateListOfAgent(address)) {
+            delDelegate(cd.getExtend().getHash());
         }
     }
 
@@ -286,4 +300,89 @@ public class ConsensusCacheManager {
         allSet.addAll(inDelegateCache.values());
         return new ArrayList<>(allSet);
     }
+
+    /**
+     * the agents in consensus, the instances are shared with the cache and must not be modified
+     */
+    public synchronized List<Consensus<Agent>> getInAgentList() {
+        return new ArrayList<>(inAgentMap.values());
+    }
+
+    /**
+     * the delegates of an agent whatever their status, the instances are shared with the cache and must not be modified
+     */
+    public synchronized List<Consensus<Delegate>> getDelegateListOfAgent(String agentAddress) {
+        Map<String, Consensus<Delegate>> map = agentDelegateMap.get(agentAddress);
+        if (null == map) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(map.values());
+    }
+
+    /**
+     * the deposits of the agents in consensus and of all delegates
+     */
+    public synchronized Na getTotalDeposit() {
+        return Na.valueOf(inAgentDeposit + delegateDeposit);
+    }
+
+    /**
+     * the deposit of the agent if it is in consensus plus the deposits of its delegates
+     */
+    public synchronized Na getAgentTotalDeposit(String agentAddress) {
+        long value = 0;
+        Consensus<Agent> ca = inAgentMap.get(agentAddress);
+        if (null != ca) {
+            value += ca.getExtend().getDeposit().getValue();
+        }
+        Map<String, Consensus<Delegate>> map = agentDelegateMap.get(agentAddress);
+        if (null != map) {
+            for (Consensus<Delegate> cd : map.values()) {
+                value += cd.getExtend().getDeposit().getValue();
+            }
+        }
+        return Na.valueOf(value);
+    }
+
+    private synchronized void indexAgent(Consensus<Agent> ca) {
+        Consensus<Agent> old = inAgentMap.put(ca.getAddress(), ca);
+        if (null != old) {
+            inAgentDeposit -= old.getExtend().getDeposit().getValue();
+        }
+        inAgentDeposit += ca.getExtend().getDeposit().getValue();
+    }
+
+    private synchronized void unindexAgent(String address) {
+        Consensus<Agent> old = inAgentMap.remove(address);
+        if (null != old) {
+            inAgentDeposit -= old.getExtend().getDeposit().getValue();
+        }
+    }
+
+    private synchronized void indexDelegate(Consensus<Delegate> cd) {
+        unindexDelegate(cd.getExtend().getHash());
+        delegateMap.put(cd.getExtend().getHash(), cd);
+        Map<String, Consensus<Delegate>> map = agentDelegateMap.get(cd.getExtend().getDelegateAddress());
+        if (null == map) {
+            map = new LinkedHashMap<>();
+            agentDelegateMap.put(cd.getExtend().getDelegateAddress(), map);
+        }
+        map.put(cd.getExtend().getHash(), cd);
+        delegateDeposit += cd.getExtend().getDeposit().getValue();
+    }
+
+    private synchronized void unindexDelegate(String id) {
+        Consensus<Delegate> old = delegateMap.remove(id);
+        if (null == old) {
+            return;
+        }
+        delegateDeposit -= old.getExtend().getDeposit().getValue();
+        Map<String, Consensus<Delegate>> map = agentDelegateMap.get(old.getExtend().getDelegateAddress());
+        if (null != map) {
+            map.remove(id);
+            if (map.isEmpty()) {
+                agentDelegateMap.remove(old.getExtend().getDelegateAddress());
+            }
+        }
+    }
 }
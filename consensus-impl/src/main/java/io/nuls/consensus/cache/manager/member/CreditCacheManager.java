@@ -0,0 +1,243 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.consensus.cache.manager.member;
+
+import io.nuls.consensus.constant.PocConsensusConstant;
+import io.nuls.consensus.entity.block.BlockRoundData;
+import io.nuls.consensus.entity.tx.YellowPunishTransaction;
+import io.nuls.consensus.service.impl.BlockStorageService;
+import io.nuls.core.chain.entity.Block;
+import io.nuls.core.chain.entity.BlockHeader;
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.constant.TransactionConstant;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.log.Log;
+
+import java.util.*;
+
+/**
+ * Packed-block counts and yellow punishments per address and round, for the rounds the credit value looks back on.
+ * It is filled from the stored blocks once and then follows every block that is saved or rolled back,
+ * so the credit of a member is computed from memory instead of two aggregate queries per round.
+ */
+public class CreditCacheManager {
+
+    private static final CreditCacheManager INSTANCE = new CreditCacheManager();
+
+    private static final int BLOCK_COUNT = 0;
+    private static final int YELLOW_PUNISH_COUNT = 1;
+    /**
+     * the ability looks back one round more than the penalty
+     */
+    private static final long KEEP_ROUNDS = PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT + 1;
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final Map<String, TreeMap<Long, int[]>> roundMap = new HashMap<>();
+    private long latestRoundIndex;
+
+    private CreditCacheManager() {
+    }
+
+    public static CreditCacheManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * load the rounds in the window from the stored blocks, the newest first
+     */
+    public void init() {
+        clear();
+        BlockStorageService blockStorageService = BlockStorageService.getInstance();
+        long bestHeight = blockStorageService.getBestHeight();
+        BlockHeader bestHeader = blockStorageService.getBlockHeader(bestHeight);
+        if (null == bestHeader) {
+            return;
+        }
+        long minRoundIndex = getRoundIndex(bestHeader) - KEEP_ROUNDS;
+        for (long height = bestHeight; height >= 0; height -= LOAD_BATCH_SIZE) {
+            List<Block> blockList = blockStorageService.getBlockList(Math.max(0, height - LOAD_BATCH_SIZE + 1), height);
+            boolean done = blockList.isEmpty();
+            for (Block block : blockList) {
+                if (null == block) {
+                    continue;
+                }
+                if (getRoundIndex(block.getHeader()) < minRoundIndex) {
+                    done = true;
+                    continue;
+                }
+                addBlock(block);
+            }
+            if (done) {
+                break;
+            }
+        }
+        Log.info("credit cache loaded " + roundMap.size() + " addresses up to round " + latestRoundIndex);
+    }
+
+    public synchronized void addBlock(Block block) {
+        long roundIndex = getRoundIndex(block.getHeader());
+        if (roundIndex < 0) {
+            return;
+        }
+        add(block.getHeader().getPackingAddress(), roundIndex, BLOCK_COUNT, 1);
+        for (String address : getYellowPunishAddressList(block)) {
+            add(address, roundIndex, YELLOW_PUNISH_COUNT, 1);
+        }
+        if (roundIndex > latestRoundIndex) {
+            latestRoundIndex = roundIndex;
+            prune();
+        }
+    }
+
+    public synchronized void rollbackBlock(Block block) {
+        long roundIndex = getRoundIndex(block.getHeader());
+        if (roundIndex < 0) {
+            return;
+        }
+        add(block.getHeader().getPackingAddress(), roundIndex, BLOCK_COUNT, -1);
+        for (String address : getYellowPunishAddressList(block)) {
+            add(address, roundIndex, YELLOW_PUNISH_COUNT, -1);
+        }
+    }
+
+    /**
+     * the number of blocks the address packed from roundStart to roundEnd (inclusive)
+     */
+    public synchronized long getBlockCount(String address, long roundStart, long roundEnd) {
+        long count = 0;
+        for (int[] counts : getRounds(address, roundStart, roundEnd).values()) {
+            count += counts[BLOCK_COUNT];
+        }
+        return count;
+    }
+
+    /**
+     * every yellow punishment weighs its distance from startRoundIndex, the later the heavier
+     */
+    public synchronized long getSumOfRoundIndexOfYellowPunish(String address, long startRoundIndex, long endRoundIndex) {
+        long value = 0;
+        for (Map.Entry<Long, int[]> entry : getRounds(address, startRoundIndex, endRoundIndex).entrySet()) {
+            value += entry.getValue()[YELLOW_PUNISH_COUNT] * (entry.getKey() - startRoundIndex + 1);
+        }
+        return value;
+    }
+
+    public double calcCreditVal(String address, long roundIndex) {
+        if (roundIndex == 0) {
+            return 1;
+        }
+        long roundStart = roundIndex - 1 - PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT;
+        if (roundStart < 0) {
+            roundStart = 0;
+        }
+        long blockCount = getBlockCount(address, roundStart, roundIndex - 1);
+        long sumRoundVal = getSumOfRoundIndexOfYellowPunish(address, roundIndex - PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT, roundIndex - 1);
+        double ability = blockCount / PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT;
+        double penalty = (PocConsensusConstant.CREDIT_MAGIC_NUM * sumRoundVal) / (PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT * PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT);
+        return ability - penalty;
+    }
+
+    public synchronized void clear() {
+        roundMap.clear();
+        latestRoundIndex = 0;
+    }
+
+    private SortedMap<Long, int[]> getRounds(String address, long roundStart, long roundEnd) {
+        TreeMap<Long, int[]> rounds = roundMap.get(address);
+        if (null == rounds || roundStart > roundEnd) {
+            return Collections.emptySortedMap();
+        }
+        return rounds.subMap(roundStart, true, roundEnd, true);
+    }
+
+    private void add(String address, long roundIndex, int field, int value) {
+        if (null == address) {
+            return;
+        }
+        TreeMap<Long, int[]> rounds = roundMap.get(address);
+        if (null == rounds) {
+            if (value < 0) {
+                return;
+            }
+            rounds = new TreeMap<>();
+            roundMap.put(address, rounds);
+        }
+        int[] counts = rounds.get(roundIndex);
+        if (null == counts) {
+            if (value < 0) {
+                return;
+            }
+            counts = new int[2];
+            rounds.put(roundIndex, counts);
+        }
+        counts[field] = Math.max(0, counts[field] + value);
+        if (counts[BLOCK_COUNT] == 0 && counts[YELLOW_PUNISH_COUNT] == 0) {
+            rounds.remove(roundIndex);
+            if (rounds.isEmpty()) {
+                roundMap.remove(address);
+            }
+        }
+    }
+
+    /**
+     * drop the rounds that fell out of the window, once per new round
+     */
+    private void prune() {
+        long minRoundIndex = latestRoundIndex - KEEP_ROUNDS;
+        Iterator<TreeMap<Long, int[]>> it = roundMap.values().iterator();
+        while (it.hasNext()) {
+            TreeMap<Long, int[]> rounds = it.next();
+            rounds.headMap(minRoundIndex).clear();
+            if (rounds.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static long getRoundIndex(BlockHeader header) {
+        if (null == header.getExtend()) {
+            return -1;
+        }
+        try {
+            return new BlockRoundData(header.getExtend()).getRoundIndex();
+        } catch (NulsException e) {
+            Log.error(e);
+            return -1;
+        }
+    }
+
+    private static List<String> getYellowPunishAddressList(Block block) {
+        List<String> list = new ArrayList<>();
+        if (null == block.getTxs()) {
+            return list;
+        }
+        for (Transaction tx : block.getTxs()) {
+            if (tx.getType() == TransactionConstant.TX_TYPE_YELLOW_PUNISH && tx instanceof YellowPunishTransaction
+                    && null != ((YellowPunishTransaction) tx).getTxData()) {
+                list.add(((YellowPunishTransaction) tx).getTxData().getAddress());
+            }
+        }
+        return list;
+    }
+}
@@ -23,22 +23,55 @@
  */
 package io.nuls.consensus.cache.manager.tx;
 
-import io.nuls.cache.util.CacheMap;
-import io.nuls.consensus.cache.manager.tx.listener.ReceivedTxCacheListener;
 import io.nuls.consensus.constant.ConsensusCacheConstant;
+import io.nuls.consensus.entity.TxPoolEntry;
 import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsDigestKey;
+import io.nuls.core.chain.entity.SmallBlock;
 import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.constant.TxStatusEnum;
+import io.nuls.core.context.NulsContext;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.date.TimeService;
+import io.nuls.core.utils.log.Log;
+import io.nuls.ledger.entity.tx.AbstractCoinTransaction;
+import io.nuls.ledger.service.intf.LedgerService;
 
-import java.util.List;
+import java.util.*;
 
 /**
+ * The pool of the verified txs waiting for a block.
+ * The txs are indexed by fee per byte, so a block is filled from the top of the index without looking at the rest
+ * of the pool, and a tx spending from another tx of the pool only goes into a block after it.
+ * Txs older than {@link ConsensusCacheConstant#LIVE_TIME} expire, and the txs with the lowest fee rate are evicted
+ * once the pool grows beyond {@link ConsensusCacheConstant#TX_POOL_MAX_BYTES}, together with the txs spending from them.
+ * The dropped txs are rolled back in the ledger after the pool is unlocked.
+ *
  * @author Niels
  * @date 2018/1/5
  */
 public class ReceivedTxCacheManager {
     private static ReceivedTxCacheManager INSTANCE = new ReceivedTxCacheManager();
-    private static final String CACHE_NAME = "Received-tx-cache";
-    private CacheMap<String, Transaction> txCache;
+
+    private LedgerService ledgerService;
+
+    /**
+     * in arrival order, the oldest first
+     */
+    private final LinkedHashMap<NulsDigestKey, TxPoolEntry> txMap = new LinkedHashMap<>();
+    private final TreeSet<TxPoolEntry> feeIndex = new TreeSet<>();
+    private long totalSize;
+    private long sequence;
+
+    /**
+     * the pool txs by their short id in the small blocks being rebuilt, the least recently used index is dropped
+     */
+    private final LinkedHashMap<NulsDigestKey, ShortIdIndex> shortIdIndexMap = new LinkedHashMap<NulsDigestKey, ShortIdIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<NulsDigestKey, ShortIdIndex> eldest) {
+            return size() > ConsensusCacheConstant.SHORT_ID_INDEX_COUNT;
+        }
+    };
 
     private ReceivedTxCacheManager() {
 
@@ -49,35 +82,276 @@ public class ReceivedTxCacheManager {
     }
 
     public void init() {
-        txCache = new CacheMap<>(CACHE_NAME, 64, ConsensusCacheConstant.LIVE_TIME, 0, new ReceivedTxCacheListener());
+        ledgerService = NulsContext.getServiceBean(LedgerService.class);
+        clear();
     }
 
-    public boolean txExist(NulsDigestData hash) {
-        return null != txCache.get(hash.getDigestHex());
+    public synchronized boolean txExist(NulsDigestData hash) {
+        return txMap.containsKey(hash.getKey());
     }
 
-    public Transaction getTx(NulsDigestData txHash) {
+    public synchronized Transaction getTx(NulsDigestData txHash) {
+        TxPoolEntry entry = txMap.get(txHash.getKey());
+        if (null == entry) {
+            return null;
+        }
+        return entry.getTx();
+    }
 
-        return txCache.get(txHash.getDigestHex());
+    /**
+     * The pool txs with the short id in the small block, more than one when the short id collides.
+     * The pool is hashed once per small block, the index then follows the txs coming and going.
+     */
+    public synchronized List<Transaction> getTxListByShortId(SmallBlock smallBlock, long shortId) {
+        NulsDigestKey key = smallBlock.getBlockHash().getKey();
+        ShortIdIndex index = shortIdIndexMap.get(key);
+        if (null == index) {
+            index = new ShortIdIndex(smallBlock);
+            for (TxPoolEntry entry : txMap.values()) {
+                index.add(entry.getTx());
+            }
+            shortIdIndexMap.put(key, index);
+        }
+        List<Transaction> list = index.get(shortId);
+        if (null == list) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(list);
+    }
+
+    /**
+     * drop the short id index of a small block that is done with
+     */
+    public synchronized void removeShortIdIndex(NulsDigestKey blockHash) {
+        shortIdIndexMap.remove(blockHash);
     }
 
-    public void removeTx(List<NulsDigestData> txHashList) {
+    /**
+     * remove the txs that went into a block
+     */
+    public synchronized void removeTx(List<NulsDigestData> txHashList) {
         for (NulsDigestData hash : txHashList) {
-            txCache.remove(hash.getDigestHex());
+            remove(hash.getKey());
+        }
+    }
+
+    /**
+     * @return a copy of the txs of the pool, in arrival order
+     */
+    public synchronized List<Transaction> getTxList() {
+        List<Transaction> list = new ArrayList<>(txMap.size());
+        for (TxPoolEntry entry : txMap.values()) {
+            list.add(entry.getTx());
         }
+        return list;
     }
 
-    public List<Transaction> getTxList() {
+    /**
+     * Pick the txs of the next block: the highest fee rates first, every tx after the txs of the pool it spends from,
+     * until the size or count budget is used up.
+     */
+    public List<Transaction> getPackingTxList(long maxSize, int maxCount) {
+        List<Transaction> expiredList = new ArrayList<>();
+        List<Transaction> list;
+        synchronized (this) {
+            removeExpired(TimeService.currentTimeMillis(), expiredList);
+            list = pack(maxSize, maxCount);
+        }
+        rollbackTx(expiredList);
+        return list;
+    }
 
-        return txCache.values();
+    private List<Transaction> pack(long maxSize, int maxCount) {
+        List<Transaction> list = new ArrayList<>();
+        Set<NulsDigestKey> packedSet = new HashSet<>();
+        PriorityQueue<TxPoolEntry> releasedQueue = new PriorityQueue<>();
+        Iterator<TxPoolEntry> it = feeIndex.iterator();
+        TxPoolEntry next = it.hasNext() ? it.next() : null;
+        long size = 0;
+        while (list.size() < maxCount) {
+            TxPoolEntry entry;
+            if (null != next && (releasedQueue.isEmpty() || next.compareTo(releasedQueue.peek()) < 0)) {
+                entry = next;
+                next = it.hasNext() ? it.next() : null;
+            } else if (!releasedQueue.isEmpty()) {
+                entry = releasedQueue.poll();
+            } else {
+                break;
+            }
+            if (packedSet.contains(entry.getKey()) || size + entry.getSize() > maxSize ||
+                    !packedSet.containsAll(entry.getParentSet())) {
+                //a tx waiting for a parent comes back once the parent is packed
+                continue;
+            }
+            list.add(entry.getTx());
+            packedSet.add(entry.getKey());
+            size += entry.getSize();
+            for (NulsDigestKey childKey : entry.getChildSet()) {
+                TxPoolEntry child = txMap.get(childKey);
+                if (null != child && child.compareTo(entry) < 0) {
+                    releasedQueue.add(child);
+                }
+            }
+        }
+        return list;
     }
 
+    /**
+     * drop a tx that turned out to be invalid and the txs spending from it
+     *
+     * @return the hashes of the dropped txs
+     */
+    public Set<NulsDigestKey> removeInvalidTx(NulsDigestData hash) {
+        Set<NulsDigestKey> removedSet = new HashSet<>();
+        List<Transaction> evictedList = new ArrayList<>();
+        synchronized (this) {
+            evict(hash.getKey(), removedSet, evictedList);
+        }
+        rollbackTx(evictedList);
+        return removedSet;
+    }
 
-    public void clear() {
-        txCache.clear();
+    public synchronized void clear() {
+        txMap.clear();
+        feeIndex.clear();
+        shortIdIndexMap.clear();
+        totalSize = 0;
     }
 
     public void putTx(Transaction tx) {
-        txCache.put(tx.getHash().getDigestHex(), tx);
+        List<Transaction> evictedList = new ArrayList<>();
+        synchronized (this) {
+            NulsDigestKey key = tx.getHash().getKey();
+            if (txMap.containsKey(key)) {
+                return;
+            }
+            long now = TimeService.currentTimeMillis();
+            TxPoolEntry entry = new TxPoolEntry(tx, now, sequence++);
+            if (tx instanceof AbstractCoinTransaction && null != ((AbstractCoinTransaction) tx).getCoinData()) {
+                for (NulsDigestData fromHash : ((AbstractCoinTransaction) tx).getCoinData().getFromHashSet()) {
+                    TxPoolEntry parent = txMap.get(fromHash.getKey());
+                    if (null != parent) {
+                        entry.getParentSet().add(parent.getKey());
+                        parent.getChildSet().add(key);
+                    }
+                }
+            }
+            txMap.put(key, entry);
+            feeIndex.add(entry);
+            for (ShortIdIndex index : shortIdIndexMap.values()) {
+                index.add(tx);
+            }
+            totalSize += entry.getSize();
+            removeExpired(now, evictedList);
+            while (totalSize > ConsensusCacheConstant.TX_POOL_MAX_BYTES && !feeIndex.isEmpty()) {
+                evict(feeIndex.last().getKey(), new HashSet<NulsDigestKey>(), evictedList);
+            }
+        }
+        rollbackTx(evictedList);
+    }
+
+    public synchronized int size() {
+        return txMap.size();
+    }
+
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    private void removeExpired(long now, List<Transaction> evictedList) {
+        while (!txMap.isEmpty()) {
+            TxPoolEntry oldest = txMap.values().iterator().next();
+            if (now - oldest.getTime() < ConsensusCacheConstant.LIVE_TIME) {
+                break;
+            }
+            evict(oldest.getKey(), new HashSet<NulsDigestKey>(), evictedList);
+        }
+    }
+
+    /**
+     * drop the tx and the txs spending from it, the caller rolls them back once it leaves the lock
+     */
+    private void evict(NulsDigestKey key, Set<NulsDigestKey> removedSet, List<Transaction> evictedList) {
+        TxPoolEntry entry = remove(key);
+        if (null == entry) {
+            return;
+        }
+        removedSet.add(key);
+        evictedList.add(entry.getTx());
+        for (NulsDigestKey childKey : new ArrayList<>(entry.getChildSet())) {
+            evict(childKey, removedSet, evictedList);
+        }
+    }
+
+    private TxPoolEntry remove(NulsDigestKey key) {
+        TxPoolEntry entry = txMap.remove(key);
+        if (null == entry) {
+            return null;
+        }
+        feeIndex.remove(entry);
+        totalSize -= entry.getSize();
+        for (ShortIdIndex index : shortIdIndexMap.values()) {
+            index.remove(entry.getTx());
+        }
+        for (NulsDigestKey parentKey : entry.getParentSet()) {
+            TxPoolEntry parent = txMap.get(parentKey);
+            if (null != parent) {
+                parent.getChildSet().remove(key);
+            }
+        }
+        for (NulsDigestKey childKey : entry.getChildSet()) {
+            TxPoolEntry child = txMap.get(childKey);
+            if (null != child) {
+                child.getParentSet().remove(key);
+            }
+        }
+        return entry;
+    }
+
+    private void rollbackTx(List<Transaction> txList) {
+        if (null == ledgerService) {
+            return;
+        }
+        for (Transaction tx : txList) {
+            if (tx.getStatus() == TxStatusEnum.CACHED) {
+                continue;
+            }
+            try {
+                ledgerService.rollbackTx(tx);
+            } catch (NulsException e) {
+                Log.error(e);
+            }
+        }
+    }
+
+    private static class ShortIdIndex {
+        private final SmallBlock smallBlock;
+        private final Map<Long, List<Transaction>> txMap = new HashMap<>();
+
+        private ShortIdIndex(SmallBlock smallBlock) {
+            this.smallBlock = smallBlock;
+        }
+
+        private void add(Transaction tx) {
+            long shortId = smallBlock.getShortId(tx.getHash());
+            List<Transaction> list = txMap.get(shortId);
+            if (null == list) {
+                list = new ArrayList<>(1);
+                txMap.put(shortId, list);
+            }
+            list.add(tx);
+        }
+
+        private void remove(Transaction tx) {
+            long shortId = smallBlock.getShortId(tx.getHash());
+            List<Transaction> list = txMap.get(shortId);
+            if (null != list && list.remove(tx) && list.isEmpty()) {
+                txMap.remove(shortId);
+            }
+        }
+
+        private List<Transaction> get(long shortId) {
+            return txMap.get(shortId);
+        }
     }
 }
@@ -38,4 +38,24 @@ public interface ConsensusCacheConstant {
     String BLOCK_HEADER_CACHE_NAME = "block-header-cache";
     String SMALL_BLOCK_CACHE_NAME = "small-block-cache";
     String BLOCK_CACHE_NAME = "block-cache";
+
+    /**
+     * orphan headers older than 2 minutes are dropped
+     */
+    long ORPHAN_HEADER_LIVE_TIME = 120000;
+    /**
+     * serialized size limit of the whole orphan header pool and of the headers of a single peer
+     */
+    int ORPHAN_HEADER_MAX_BYTES = 16 * 1024 * 1024;
+    int ORPHAN_HEADER_MAX_BYTES_PER_PEER = 4 * 1024 * 1024;
+
+    /**
+     * serialized size limit of the received tx pool, the txs with the lowest fee rate are evicted beyond it
+     */
+    long TX_POOL_MAX_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * short id indexes of the tx pool kept at once, one for each small block being rebuilt
+     */
+    int SHORT_ID_INDEX_COUNT = 4;
 }
@@ -67,6 +67,11 @@ public interface PocConsensusConstant {
      * default:2M
      */
     long MAX_BLOCK_SIZE = 2 << 21;
+    /**
+     * the part of a block kept free of pool txs when packing, for the header, the coinbase and the punish txs
+     */
+    long BLOCK_RESERVED_SIZE = 64 * 1024;
+    int MAX_BLOCK_TX_COUNT = 10000;
 
     Na AGENT_DEPOSIT_LOWER_LIMIT = Na.parseNuls(20000);
     Na ENTRUSTER_DEPOSIT_LOWER_LIMIT = Na.parseNuls(2000);
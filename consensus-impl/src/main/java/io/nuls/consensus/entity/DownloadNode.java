@@ -0,0 +1,91 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.consensus.entity;
+
+/**
+ * A node blocks are downloaded from, with the ranges it has in flight and its measured throughput.
+ */
+public class DownloadNode {
+
+    /**
+     * blocks per second assumed for a node that has not delivered a range yet, high enough to try every node once
+     */
+    private static final double DEFAULT_SPEED = 100;
+    private static final double SPEED_WEIGHT = 0.3;
+
+    private final String nodeId;
+    private int rangeCount;
+    private double speed = DEFAULT_SPEED;
+    private int timeoutCount;
+    private long lastFinishTime;
+
+    public DownloadNode(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public void requested() {
+        rangeCount++;
+    }
+
+    /**
+     * a range was delivered, the node serves its ranges one after the other so the time is counted from
+     * the later of the request and the delivery of its previous range
+     */
+    public void finished(int blockCount, long startTime, long now) {
+        rangeCount--;
+        long time = Math.max(1, now - Math.max(startTime, lastFinishTime));
+        speed = (1 - SPEED_WEIGHT) * speed + SPEED_WEIGHT * blockCount * 1000d / time;
+        lastFinishTime = now;
+        timeoutCount = 0;
+    }
+
+    public void timeout() {
+        rangeCount--;
+        speed = speed / 2;
+        timeoutCount++;
+    }
+
+    /**
+     * @return the expected time until one more range would be delivered, the node with the lowest load is asked first
+     */
+    public double getLoad() {
+        return (rangeCount + 1) / speed;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getRangeCount() {
+        return rangeCount;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public int getTimeoutCount() {
+        return timeoutCount;
+    }
+}
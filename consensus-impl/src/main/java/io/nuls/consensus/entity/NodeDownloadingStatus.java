@@ -36,6 +36,7 @@ public class NodeDownloadingStatus {
     private long start;
     private long end;
     private Set<Long> downloadedSet = new HashSet<>();
+    private long startTime;
     private long updateTime;
 
     public String getNodeId() {
@@ -70,6 +71,14 @@ public class NodeDownloadingStatus {
         this.downloadedSet = downloadedSet;
     }
 
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
     public long getUpdateTime() {
         return updateTime;
     }
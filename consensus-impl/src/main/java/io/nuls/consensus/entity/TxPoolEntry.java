@@ -0,0 +1,100 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.consensus.entity;
+
+import io.nuls.core.chain.entity.NulsDigestKey;
+import io.nuls.core.chain.entity.Transaction;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A tx in the pool with its size and fee rate worked out once, and the txs of the pool it spends from or
+ * that spend from it.
+ * Entries order by fee per byte, the highest first, and by arrival for the same fee rate.
+ */
+public class TxPoolEntry implements Comparable<TxPoolEntry> {
+
+    private final Transaction tx;
+    private final NulsDigestKey key;
+    private final int size;
+    private final double feeRate;
+    private final long time;
+    private final long sequence;
+    private final Set<NulsDigestKey> parentSet = new HashSet<>();
+    private final Set<NulsDigestKey> childSet = new HashSet<>();
+
+    public TxPoolEntry(Transaction tx, long time, long sequence) {
+        this.tx = tx;
+        this.key = tx.getHash().getKey();
+        this.size = tx.size();
+        long fee = null == tx.getFee() ? 0 : tx.getFee().getValue();
+        this.feeRate = (double) fee / Math.max(1, size);
+        this.time = time;
+        this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(TxPoolEntry other) {
+        int result = Double.compare(other.feeRate, this.feeRate);
+        if (result != 0) {
+            return result;
+        }
+        return Long.compare(this.sequence, other.sequence);
+    }
+
+    public Transaction getTx() {
+        return tx;
+    }
+
+    public NulsDigestKey getKey() {
+        return key;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getFeeRate() {
+        return feeRate;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return the txs of the pool this tx spends from, they have to go into a block first
+     */
+    public Set<NulsDigestKey> getParentSet() {
+        return parentSet;
+    }
+
+    /**
+     * @return the txs of the pool that spend from this tx
+     */
+    public Set<NulsDigestKey> getChildSet() {
+        return childSet;
+    }
+}
@@ -24,15 +24,17 @@
 package io.nuls.consensus.entity.block;
 
 import io.nuls.core.chain.entity.BlockHeader;
-import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsDigestKey;
 import io.nuls.core.context.NulsContext;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
+ * The tree of the headers above the stored chain, indexed by hash and by height.
+ * Every header knows its parent and the weight of the chain ending with it, so the best tip is kept up to date
+ * as headers come in and the way between two tips is found by walking up from both.
+ * The tree is pruned as blocks get stored, together with the forks that can not win any more.
+ *
  * @author Niels
  * @date 2018/1/12
  */
@@ -40,9 +42,15 @@ public class BifurcateProcessor {
 
     private static final BifurcateProcessor INSTANCE = new BifurcateProcessor();
 
-    private List<BlockHeaderChain> chainList = new ArrayList<>();
+    private final Map<NulsDigestKey, BlockTreeNode> nodeMap = new HashMap<>();
+    private final TreeMap<Long, List<BlockTreeNode>> heightMap = new TreeMap<>();
 
-    private long bestHeight;
+    private BlockTreeNode bestTip;
+    /**
+     * another tip has the same weight as the best one
+     */
+    private boolean tie;
+    private long prunedHeight;
 
     private BifurcateProcessor() {
     }
@@ -51,94 +59,189 @@ public class BifurcateProcessor {
         return INSTANCE;
     }
 
-    public boolean addHeader(BlockHeader header) {
-        for (BlockHeaderChain chain : chainList) {
-            if (chain.contains(header)) {
-                return false;
-            }
+    /**
+     * @return true if the header was added to the tree
+     */
+    public synchronized boolean addHeader(BlockHeader header) {
+        NulsDigestKey hash = header.getHash().getKey();
+        if (nodeMap.containsKey(hash)) {
+            return false;
         }
-        for (BlockHeaderChain chain : chainList) {
-            int index = chain.indexOf(header.getPreHash().getDigestHex(), header.getHeight() - 1);
-            if (index == chain.size() - 1) {
-                chain.addHeader(header);
-                setBestHeight(header);
-                return true;
-            } else if (index >= 0) {
-                BlockHeaderChain newChain = chain.getBifurcateChain(header);
-                chainList.add(newChain);
-                setBestHeight(header);
-                return true;
-            }
+        BlockTreeNode parent = nodeMap.get(header.getPreHash().getKey());
+        if (null != parent && parent.getHeight() != header.getHeight() - 1) {
+            return false;
         }
-        if ((bestHeight + 1) != header.getHeight()) {
+        if (null == parent && (getBestHeight() + 1) != header.getHeight()) {
             return false;
         }
-        BlockHeaderChain chain = new BlockHeaderChain();
-        chain.addHeader(header);
-        chainList.add(chain);
-        setBestHeight(header);
+        BlockTreeNode node = new BlockTreeNode(hash, header.getHeight(), parent);
+        nodeMap.put(hash, node);
+        List<BlockTreeNode> list = heightMap.get(node.getHeight());
+        if (null == list) {
+            list = new ArrayList<>(1);
+            heightMap.put(node.getHeight(), list);
+        }
+        list.add(node);
+        if (null == bestTip || node.getWeight() > bestTip.getWeight()) {
+            bestTip = node;
+            tie = false;
+        } else if (node.getWeight() == bestTip.getWeight()) {
+            tie = true;
+        }
         return true;
     }
 
-    private void setBestHeight(BlockHeader header) {
-        if (header.getHeight() <= bestHeight) {
-            return;
+    /**
+     * @return the hash of the best tip, the first one seen of the heaviest ones
+     */
+    public synchronized NulsDigestKey getBestHash() {
+        return null == bestTip ? null : bestTip.getHash();
+    }
+
+    /**
+     * @return the number of headers of the best chain in the tree, 0 while two tips are as heavy
+     */
+    public synchronized int getLongestChainSize() {
+        if (null == bestTip || tie) {
+            return 0;
+        }
+        int size = 0;
+        for (BlockTreeNode node = bestTip; null != node; node = node.getParent()) {
+            size++;
         }
-        bestHeight = header.getHeight();
+        return size;
     }
 
-    public BlockHeaderChain getLongestChain() {
-        List<BlockHeaderChain> longestChainList = new ArrayList<>();
-        for (BlockHeaderChain chain : chainList) {
-            if (longestChainList.isEmpty() || chain.size() > longestChainList.get(0).size()) {
-                longestChainList.clear();
-                longestChainList.add(chain);
-            } else if (longestChainList.isEmpty() || chain.size() == longestChainList.get(0).size()) {
-                longestChainList.add(chain);
-            }
+    public synchronized long getBestHeight() {
+        if (null != bestTip) {
+            return bestTip.getHeight();
         }
-        if (longestChainList.size() > 1 || longestChainList.isEmpty()) {
-            return null;
+        if (null != NulsContext.getInstance().getBestBlock()) {
+            return Math.max(prunedHeight, NulsContext.getInstance().getBestBlock().getHeader().getHeight());
         }
-        return longestChainList.get(0);
+        return prunedHeight;
     }
 
+    /**
+     * @return the headers to roll back from one header to the fork point and the ones to apply from there to the other,
+     * null if they are not in the same tree
+     */
+    public synchronized ForkPath getForkPath(NulsDigestKey from, NulsDigestKey to) {
+        BlockTreeNode fromNode = nodeMap.get(from);
+        BlockTreeNode toNode = nodeMap.get(to);
+        if (null == fromNode || null == toNode) {
+            return null;
+        }
+        ForkPath path = new ForkPath();
+        while (fromNode.getHeight() > toNode.getHeight()) {
+            path.getRollbackList().add(fromNode.getHash());
+            fromNode = fromNode.getParent();
+            if (null == fromNode) {
+                return null;
+            }
+        }
+        while (toNode.getHeight() > fromNode.getHeight()) {
+            path.getApplyList().add(toNode.getHash());
+            toNode = toNode.getParent();
+            if (null == toNode) {
+                return null;
+            }
+        }
+        while (fromNode != toNode) {
+            path.getRollbackList().add(fromNode.getHash());
+            path.getApplyList().add(toNode.getHash());
+            fromNode = fromNode.getParent();
+            toNode = toNode.getParent();
+            if (null == fromNode || null == toNode) {
+                return null;
+            }
+        }
+        Collections.reverse(path.getApplyList());
+        return path;
+    }
 
-    public long getBestHeight() {
-        if (bestHeight == 0 && null != NulsContext.getInstance().getBestBlock()) {
-            bestHeight = NulsContext.getInstance().getBestBlock().getHeader().getHeight();
+    /**
+     * The block at the height was stored: drop the headers up to the height and the forks off the stored block.
+     */
+    public synchronized void removeHeight(NulsDigestKey storedHash, long height) {
+        prunedHeight = Math.max(prunedHeight, height);
+        boolean bestRemoved = false;
+        while (!heightMap.isEmpty() && heightMap.firstKey() <= height) {
+            for (BlockTreeNode node : heightMap.pollFirstEntry().getValue()) {
+                nodeMap.remove(node.getHash());
+                bestRemoved |= node == bestTip;
+                for (BlockTreeNode child : new ArrayList<>(node.getChildren())) {
+                    child.detach();
+                    if (node.getHeight() == height && !node.getHash().equals(storedHash)) {
+                        bestRemoved |= removeTree(child);
+                    }
+                }
+            }
+        }
+        if (bestRemoved || tie) {
+            findBestTip();
         }
-        return bestHeight;
     }
 
-    public void removeHeight(long height) {
-        if (chainList.isEmpty()) {
-            return;
+    /**
+     * @return true if the best tip was removed
+     */
+    private boolean removeTree(BlockTreeNode root) {
+        boolean bestRemoved = false;
+        Deque<BlockTreeNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            BlockTreeNode node = stack.pop();
+            nodeMap.remove(node.getHash());
+            List<BlockTreeNode> list = heightMap.get(node.getHeight());
+            if (null != list) {
+                list.remove(node);
+                if (list.isEmpty()) {
+                    heightMap.remove(node.getHeight());
+                }
+            }
+            bestRemoved |= node == bestTip;
+            for (BlockTreeNode child : node.getChildren()) {
+                stack.push(child);
+            }
         }
-        List<BlockHeaderChain> tempList = new ArrayList<>(this.chainList);
-        tempList.forEach((BlockHeaderChain chain) -> removeBlock(chain, height));
+        return bestRemoved;
+    }
 
+    private void findBestTip() {
+        bestTip = null;
+        tie = false;
+        for (List<BlockTreeNode> list : heightMap.descendingMap().values()) {
+            for (BlockTreeNode node : list) {
+                if (null == bestTip || node.getWeight() > bestTip.getWeight()) {
+                    bestTip = node;
+                    tie = false;
+                } else if (node.getWeight() == bestTip.getWeight()) {
+                    tie = true;
+                }
+            }
+        }
     }
 
-    private void removeBlock(BlockHeaderChain chain, long height) {
-        HeaderDigest hd = chain.getHeaderDigest(height);
-        if (hd == null) {
-            return;
+    /**
+     * @return the hashes of the headers at the height, on every fork
+     */
+    public synchronized List<NulsDigestKey> getHashList(long height) {
+        List<BlockTreeNode> list = heightMap.get(height);
+        if (null == list) {
+            return Collections.emptyList();
         }
-        chain.removeHeaderDigest(height);
-        if (chain.size() == 0) {
-            this.chainList.remove(chain);
+        List<NulsDigestKey> hashList = new ArrayList<>(list.size());
+        for (BlockTreeNode node : list) {
+            hashList.add(node.getHash());
         }
+        return hashList;
     }
 
-    public List<String> getHashList(long height) {
-        Set<String> set = new HashSet<>();
-        for (BlockHeaderChain chain : this.chainList) {
-            HeaderDigest headerDigest = chain.getHeaderDigest(height);
-            if (null != headerDigest) {
-                set.add(headerDigest.getHash());
-            }
-        }
-        return new ArrayList<>(set);
+    public synchronized void clear() {
+        nodeMap.clear();
+        heightMap.clear();
+        bestTip = null;
+        tie = false;
     }
 }
@@ -0,0 +1,87 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.consensus.entity.block;
+
+import io.nuls.core.chain.entity.NulsDigestKey;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A header of the block tree: its parent, its children and the weight of the chain ending with it.
+ * A header whose parent is not in the tree is a root, its weight starts at its height.
+ */
+public class BlockTreeNode {
+
+    private final NulsDigestKey hash;
+    private final long height;
+    private BlockTreeNode parent;
+    private final List<BlockTreeNode> children = new ArrayList<>();
+    private final long weight;
+
+    public BlockTreeNode(NulsDigestKey hash, long height, BlockTreeNode parent) {
+        this.hash = hash;
+        this.height = height;
+        this.parent = parent;
+        if (null == parent) {
+            this.weight = height;
+        } else {
+            this.weight = parent.weight + 1;
+            parent.children.add(this);
+        }
+    }
+
+    public NulsDigestKey getHash() {
+        return hash;
+    }
+
+    public long getHeight() {
+        return height;
+    }
+
+    public BlockTreeNode getParent() {
+        return parent;
+    }
+
+    /**
+     * cut the node off its parent, it is a root of the tree then
+     */
+    public void detach() {
+        if (null != parent) {
+            parent.children.remove(this);
+            parent = null;
+        }
+    }
+
+    public List<BlockTreeNode> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return the weight of the chain ending with this header, every header adds one to the weight of its parent
+     */
+    public long getWeight() {
+        return weight;
+    }
+}
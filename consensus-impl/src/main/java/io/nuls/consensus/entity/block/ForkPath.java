@@ -23,40 +23,28 @@
  */
 package io.nuls.consensus.entity.block;
 
+import io.nuls.core.chain.entity.NulsDigestKey;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
+ * The way from one header of the block tree to another: the headers to roll back, from the old tip down,
+ * and the headers to apply, from the fork point up.
+ *
  * @author Niels
- * @date 2018/1/13
+ * @date 2018/3/26
  */
-public class HeaderDigest {
-    private String hash;
-    private long height;
-
-    public HeaderDigest(String hash, long height) {
-        this.hash = hash;
-        this.height = height;
-    }
+public class ForkPath {
 
-    public String getHash() {
-        return hash;
-    }
-
-    public void setHash(String hash) {
-        this.hash = hash;
-    }
-
-    public long getHeight() {
-        return height;
-    }
+    private final List<NulsDigestKey> rollbackList = new ArrayList<>();
+    private final List<NulsDigestKey> applyList = new ArrayList<>();
 
-    public void setHeight(long height) {
-        this.height = height;
+    public List<NulsDigestKey> getRollbackList() {
+        return rollbackList;
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (!(obj instanceof HeaderDigest)) {
-            return false;
-        }
-        return this.getHeight() == ((HeaderDigest) obj).getHeight() && this.getHash().equals(((HeaderDigest) obj).getHash());
+    public List<NulsDigestKey> getApplyList() {
+        return applyList;
     }
 }
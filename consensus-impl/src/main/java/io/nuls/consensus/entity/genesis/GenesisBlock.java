@@ -28,6 +28,8 @@ import io.nuls.consensus.entity.block.BlockRoundData;
 import io.nuls.consensus.utils.StringFileLoader;
 import io.nuls.core.chain.entity.*;
 import io.nuls.core.constant.ErrorCode;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.script.Script;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.utils.crypto.Hex;
@@ -40,6 +42,7 @@ import io.nuls.ledger.entity.params.CoinTransferData;
 import io.nuls.ledger.entity.tx.CoinBaseTransaction;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -133,8 +136,7 @@ public final class GenesisBlock extends Block {
             Log.error(e);
             throw new NulsRuntimeException(e);
         }
-        //todo 用prikey
-        tx.setSign(NulsSignData.EMPTY_SIGN);
+        tx.setSign(signByGenesisKey(tx.getHash()));
         List<Transaction> txlist = new ArrayList<>();
         txlist.add(tx);
         setTxs(txlist);
@@ -169,9 +171,19 @@ public final class GenesisBlock extends Block {
         }
         header.setPackingAddress("00000");
         header.setHash(NulsDigestData.calcDigestData(header));
-        //todo change to real address & signature
-        //todo 用prikey
-        header.setSign(NulsSignData.EMPTY_SIGN);
+        //todo change to real address
+        header.setSign(signByGenesisKey(header.getHash()));
+    }
+
+    /**
+     * the genesis has no packer account yet, its tx and header are signed by the genesis key
+     */
+    private NulsSignData signByGenesisKey(NulsDigestData hash) {
+        ECKey key = ECKey.fromPrivate(new BigInteger(1, Hex.decode(priKey)));
+        NulsSignData signData = new NulsSignData();
+        signData.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+        signData.setSignBytes(Script.createInputScript(key.sign(hash.getWholeBytes()).encodeToDER(), key.getPubKey()));
+        return signData;
     }
 
 
@@ -32,6 +32,7 @@ import io.nuls.core.chain.manager.TransactionManager;
 import io.nuls.core.constant.TransactionConstant;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.core.validate.ValidatorManager;
 import io.nuls.ledger.entity.params.CoinTransferData;
 import io.nuls.ledger.entity.tx.LockNulsTransaction;
 
@@ -40,20 +41,18 @@ import io.nuls.ledger.entity.tx.LockNulsTransaction;
  * @date 2017/12/4
  */
 public class PocJoinConsensusTransaction extends LockNulsTransaction<Consensus<Delegate>> {
+    static {
+        ValidatorManager.addValidator(PocJoinConsensusTransaction.class, CreditThresholdValidator.getInstance());
+        ValidatorManager.addValidator(PocJoinConsensusTransaction.class, DelegateCountValidator.getInstance());
+        ValidatorManager.addValidator(PocJoinConsensusTransaction.class, DelegateDepositValidator.getInstance());
+    }
+
     public PocJoinConsensusTransaction() {
         super(TransactionConstant.TX_TYPE_JOIN_CONSENSUS);
-        this.initValidator();
     }
 
     public PocJoinConsensusTransaction(CoinTransferData lockData, String password) throws NulsException {
         super(TransactionConstant.TX_TYPE_JOIN_CONSENSUS, lockData, password);
-        this.initValidator();
-    }
-
-    private void initValidator() {
-        this.registerValidator(CreditThresholdValidator.getInstance());
-        this.registerValidator(DelegateCountValidator.getInstance());
-        this.registerValidator(DelegateDepositValidator.getInstance());
     }
 
     @Override
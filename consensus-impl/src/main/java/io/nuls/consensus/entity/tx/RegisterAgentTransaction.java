@@ -31,6 +31,7 @@ import io.nuls.consensus.entity.validator.consensus.CommissionRateValidator;
 import io.nuls.core.constant.TransactionConstant;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.core.validate.ValidatorManager;
 import io.nuls.ledger.entity.params.CoinTransferData;
 import io.nuls.ledger.entity.tx.AbstractCoinTransaction;
 
@@ -40,20 +41,18 @@ import io.nuls.ledger.entity.tx.AbstractCoinTransaction;
  */
 public class RegisterAgentTransaction extends AbstractCoinTransaction<Consensus<Agent>> {
 
+    static {
+        ValidatorManager.addValidator(RegisterAgentTransaction.class, new CommissionRateValidator());
+        ValidatorManager.addValidator(RegisterAgentTransaction.class, new AccountCreditValidator());
+        ValidatorManager.addValidator(RegisterAgentTransaction.class, new AgentDepositValidator());
+    }
+
     public RegisterAgentTransaction() {
         super(TransactionConstant.TX_TYPE_REGISTER_AGENT);
-        this.initValidator();
     }
 
     public RegisterAgentTransaction(CoinTransferData lockData, String password) throws NulsException {
         super(TransactionConstant.TX_TYPE_REGISTER_AGENT, lockData, password);
-        this.initValidator();
-    }
-
-    private void initValidator() {
-        this.registerValidator(new CommissionRateValidator());
-        this.registerValidator(new AccountCreditValidator());
-        this.registerValidator(new AgentDepositValidator());
     }
 
     @Override
@@ -24,11 +24,16 @@
 package io.nuls.consensus.entity.validator.block;
 
 import io.nuls.core.chain.entity.Block;
+import io.nuls.core.chain.entity.NulsDigestKey;
 import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.constant.TransactionConstant;
 import io.nuls.core.validate.NulsDataValidator;
+import io.nuls.core.validate.SignatureVerifier;
+import io.nuls.core.validate.TxVerifyMemo;
 import io.nuls.core.validate.ValidateResult;
 
+import java.util.Set;
+
 /**
  * @author Niels
  * @date 2017/11/17
@@ -64,9 +69,13 @@ BlockTxValidator implements NulsDataValidator<Block> {
         if (block.getHeader().getTxCount() != block.getTxs().size()) {
             return ValidateResult.getFailedResult("txCount is wrong!");
         }
+        Set<NulsDigestKey> signVerifiedSet = SignatureVerifier.getInstance().verifyAll(block.getTxs());
         int count = 0;
         for (Transaction tx : block.getTxs()) {
-            ValidateResult result = tx.verify();
+            if (!signVerifiedSet.contains(tx.getHash().getKey())) {
+                return ValidateResult.getFailedResult("there is wrong transaction sign!");
+            }
+            ValidateResult result = TxVerifyMemo.getInstance().verify(tx);
             if (null==result||result.isFailed()) {
                 return ValidateResult.getFailedResult("there is wrong transaction!");
             }
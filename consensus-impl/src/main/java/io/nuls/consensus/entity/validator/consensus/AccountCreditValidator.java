@@ -29,7 +29,7 @@ import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.constant.TransactionConstant;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.utils.log.Log;
-import io.nuls.core.validate.NulsDataValidator;
+import io.nuls.core.validate.StatefulValidator;
 import io.nuls.core.validate.ValidateResult;
 import io.nuls.ledger.service.intf.LedgerService;
 
@@ -39,14 +39,15 @@ import java.util.List;
  * @author Niels
  * @date 2017/12/6
  */
-public class AccountCreditValidator implements NulsDataValidator<RegisterAgentTransaction> {
+public class AccountCreditValidator implements StatefulValidator<RegisterAgentTransaction> {
+
+    private LedgerService ledgerService;
 
-    private LedgerService ledgerService = NulsContext.getServiceBean(LedgerService.class);
     @Override
     public ValidateResult validate(RegisterAgentTransaction data) {
         List<Transaction> list = null;
         try {
-               list = ledgerService.getTxList(data.getTxData().getAddress(), TransactionConstant.TX_TYPE_RED_PUNISH);
+               list = getLedgerService().getTxList(data.getTxData().getAddress(), TransactionConstant.TX_TYPE_RED_PUNISH);
         } catch (Exception e) {
             Log.error(e);
         }
@@ -55,4 +56,11 @@ public class AccountCreditValidator implements NulsDataValidator<RegisterAgentTr
         }
         return ValidateResult.getSuccessResult();
     }
+
+    private LedgerService getLedgerService() {
+        if (ledgerService == null) {
+            ledgerService = NulsContext.getServiceBean(LedgerService.class);
+        }
+        return ledgerService;
+    }
 }
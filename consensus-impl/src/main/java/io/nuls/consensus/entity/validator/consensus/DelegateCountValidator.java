@@ -33,7 +33,7 @@ import io.nuls.consensus.service.impl.PocConsensusServiceImpl;
 import io.nuls.consensus.service.intf.ConsensusService;
 import io.nuls.core.chain.entity.BaseNulsData;
 import io.nuls.core.constant.ErrorCode;
-import io.nuls.core.validate.NulsDataValidator;
+import io.nuls.core.validate.StatefulValidator;
 import io.nuls.core.validate.ValidateResult;
 
 import java.util.List;
@@ -42,7 +42,7 @@ import java.util.List;
  * @author Niels
  * @date 2018/1/17
  */
-public class DelegateCountValidator implements NulsDataValidator<PocJoinConsensusTransaction> {
+public class DelegateCountValidator implements StatefulValidator<PocJoinConsensusTransaction> {
 
     private static final DelegateCountValidator INSTANCE = new DelegateCountValidator();
 
@@ -53,12 +53,10 @@ public class DelegateCountValidator implements NulsDataValidator<PocJoinConsensu
         return INSTANCE;
     }
 
-    private ConsensusCacheManager consensusCacheManager = ConsensusCacheManager.getInstance();
-
     @Override
     public ValidateResult validate(PocJoinConsensusTransaction tx) {
         Consensus<Delegate> cd = tx.getTxData();
-        List<Consensus<Delegate>> list = consensusCacheManager.getCachedDelegateList(cd.getExtend().getDelegateAddress());
+        List<Consensus<Delegate>> list = ConsensusCacheManager.getInstance().getCachedDelegateList(cd.getExtend().getDelegateAddress());
         if (list.size() >= PocConsensusConstant.MAX_ACCEPT_NUM_OF_DELEGATE) {
             return ValidateResult.getFailedResult(ErrorCode.DELEGATE_OVER_COUNT);
         }
@@ -31,7 +31,7 @@ import io.nuls.consensus.entity.tx.PocJoinConsensusTransaction;
 import io.nuls.core.chain.entity.BaseNulsData;
 import io.nuls.core.chain.entity.Na;
 import io.nuls.core.constant.ErrorCode;
-import io.nuls.core.validate.NulsDataValidator;
+import io.nuls.core.validate.StatefulValidator;
 import io.nuls.core.validate.ValidateResult;
 
 import java.util.List;
@@ -40,10 +40,9 @@ import java.util.List;
  * @author Niels
  * @date 2018/1/17
  */
-public class DelegateDepositValidator implements NulsDataValidator<PocJoinConsensusTransaction> {
+public class DelegateDepositValidator implements StatefulValidator<PocJoinConsensusTransaction> {
 
     private static final DelegateDepositValidator INSTANCE = new DelegateDepositValidator();
-    private ConsensusCacheManager consensusCacheManager = ConsensusCacheManager.getInstance();
 
     private DelegateDepositValidator() {
     }
@@ -56,7 +55,7 @@ public class DelegateDepositValidator implements NulsDataValidator<PocJoinConsen
     public ValidateResult validate(PocJoinConsensusTransaction data) {
         Na limit = PocConsensusConstant.ENTRUSTER_DEPOSIT_LOWER_LIMIT;
         Na max = PocConsensusConstant.SUM_OF_DEPOSIT_OF_AGENT_UPPER_LIMIT;
-        List<Consensus<Delegate>> list = consensusCacheManager.getCachedDelegateList(data.getTxData().getExtend().getDelegateAddress());
+        List<Consensus<Delegate>> list = ConsensusCacheManager.getInstance().getCachedDelegateList(data.getTxData().getExtend().getDelegateAddress());
         for (Consensus<Delegate> cd : list) {
             max = max.subtract(cd.getExtend().getDeposit());
         }
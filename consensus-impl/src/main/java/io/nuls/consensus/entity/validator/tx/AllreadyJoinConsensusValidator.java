@@ -30,7 +30,7 @@ import io.nuls.consensus.service.impl.PocConsensusServiceImpl;
 import io.nuls.consensus.service.intf.ConsensusService;
 import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.context.NulsContext;
-import io.nuls.core.validate.NulsDataValidator;
+import io.nuls.core.validate.StatefulValidator;
 import io.nuls.core.validate.ValidateResult;
 import io.nuls.event.bus.filter.NulsEventFilter;
 import io.nuls.event.bus.filter.NulsEventFilterChain;
@@ -39,7 +39,7 @@ import io.nuls.event.bus.filter.NulsEventFilterChain;
  * @author Niels
  * @date 2017/12/6
  */
-public class AllreadyJoinConsensusValidator implements NulsDataValidator<PocJoinConsensusTransaction> {
+public class AllreadyJoinConsensusValidator implements StatefulValidator<PocJoinConsensusTransaction> {
 
     private static final AllreadyJoinConsensusValidator INSTANCE = new AllreadyJoinConsensusValidator();
 
@@ -29,7 +29,7 @@ import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.constant.TransactionConstant;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.utils.log.Log;
-import io.nuls.core.validate.NulsDataValidator;
+import io.nuls.core.validate.StatefulValidator;
 import io.nuls.core.validate.ValidateResult;
 import io.nuls.event.bus.filter.NulsEventFilter;
 import io.nuls.event.bus.filter.NulsEventFilterChain;
@@ -41,10 +41,10 @@ import java.util.List;
  * @author Niels
  * @date 2017/12/19
  */
-public class CreditThresholdValidator implements NulsDataValidator<PocJoinConsensusTransaction> {
+public class CreditThresholdValidator implements StatefulValidator<PocJoinConsensusTransaction> {
 
     private static final CreditThresholdValidator INSTANCE = new CreditThresholdValidator();
-    private LedgerService ledgerService = NulsContext.getServiceBean(LedgerService.class);
+    private LedgerService ledgerService;
 
     private CreditThresholdValidator() {
     }
@@ -58,7 +58,7 @@ public class CreditThresholdValidator implements NulsDataValidator<PocJoinConsen
         String address = data.getTxData().getAddress();
         List<Transaction> list = null;
         try {
-            list = ledgerService.getTxList(address, TransactionConstant.TX_TYPE_RED_PUNISH);
+            list = getLedgerService().getTxList(address, TransactionConstant.TX_TYPE_RED_PUNISH);
         } catch (Exception e) {
             Log.error(e);
         }
@@ -67,4 +67,11 @@ public class CreditThresholdValidator implements NulsDataValidator<PocJoinConsen
         }
         return ValidateResult.getFailedResult(ErrorCode.FAILED);
     }
+
+    private LedgerService getLedgerService() {
+        if (ledgerService == null) {
+            ledgerService = NulsContext.getServiceBean(LedgerService.class);
+        }
+        return ledgerService;
+    }
 }
@@ -25,10 +25,8 @@ package io.nuls.consensus.entity.validator.tx;
 
 import io.nuls.consensus.constant.PunishReasonEnum;
 import io.nuls.consensus.entity.tx.RedPunishTransaction;
-import io.nuls.core.context.NulsContext;
 import io.nuls.core.validate.NulsDataValidator;
 import io.nuls.core.validate.ValidateResult;
-import io.nuls.ledger.service.intf.CoinDataProvider;
 
 /**
  * @author Niels
@@ -38,8 +36,6 @@ public class RedPunishValidator implements NulsDataValidator<RedPunishTransactio
 
     private static final RedPunishValidator INSTANCE = new RedPunishValidator();
 
-    private CoinDataProvider coinDataProvider = NulsContext.getServiceBean(CoinDataProvider.class);
-
     private RedPunishValidator() {
     }
 
@@ -50,6 +50,10 @@ public class BlockEventHandler extends AbstractEventHandler<BlockEvent> {
             //todo
             return;
         }
+        //the downloaded blocks are verified in height order, once the blocks below them are there
+        if (BlockBatchDownloadUtils.getInstance().downloadedBlock(fromId, block)) {
+            return;
+        }
         ValidateResult result = block.verify();
         if (result.isFailed()) {
             if (result.getLevel() == SeverityLevelEnum.FLAGRANT_FOUL) {
@@ -57,9 +61,6 @@ public class BlockEventHandler extends AbstractEventHandler<BlockEvent> {
             }
             return;
         }
-        if (BlockBatchDownloadUtils.getInstance().downloadedBlock(fromId, block)) {
-            return;
-        }
         blockCacheManager.cacheBlock(block);
 
     }
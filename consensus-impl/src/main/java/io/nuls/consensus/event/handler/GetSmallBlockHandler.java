@@ -27,6 +27,7 @@ import io.nuls.consensus.event.GetSmallBlockRequest;
 import io.nuls.consensus.event.SmallBlockEvent;
 import io.nuls.consensus.service.intf.BlockService;
 import io.nuls.core.chain.entity.*;
+import io.nuls.core.constant.TransactionConstant;
 import io.nuls.core.context.NulsContext;
 import io.nuls.event.bus.handler.AbstractEventHandler;
 import io.nuls.event.bus.service.intf.EventBroadcaster;
@@ -43,13 +44,23 @@ public class GetSmallBlockHandler extends AbstractEventHandler<GetSmallBlockRequ
 
     @Override
     public void onEvent(GetSmallBlockRequest event, String fromId) {
-        Block block = blockService.getBlock(event.getEventBody().getBlockHash().getDigestHex());
+        Block block = blockService.getBlock(event.getEventBody().getBlockHash());
         SmallBlockEvent smallBlockEvent = new SmallBlockEvent();
         SmallBlock smallBlock = new SmallBlock();
         smallBlock.setBlockHash(block.getHeader().getHash());
-        smallBlock.setTxHashList(block.getTxHashList());
-        smallBlock.setTxCount(block.getHeader().getTxCount());
+        for (Transaction tx : block.getTxs()) {
+            smallBlock.addTx(tx, isPrefilled(tx));
+        }
         smallBlockEvent.setEventBody(smallBlock);
         eventBroadcaster.sendToNode(smallBlockEvent, fromId);
     }
+
+    /**
+     * the txs made by the packer never went through the tx pool of the receiver
+     */
+    private boolean isPrefilled(Transaction tx) {
+        return tx.getType() == TransactionConstant.TX_TYPE_COIN_BASE ||
+                tx.getType() == TransactionConstant.TX_TYPE_YELLOW_PUNISH ||
+                tx.getType() == TransactionConstant.TX_TYPE_RED_PUNISH;
+    }
 }
@@ -29,7 +29,6 @@ import io.nuls.consensus.event.GetTxGroupRequest;
 import io.nuls.consensus.event.TxGroupEvent;
 import io.nuls.consensus.service.intf.BlockService;
 import io.nuls.core.chain.entity.Block;
-import io.nuls.core.chain.entity.NulsDigestData;
 import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.context.NulsContext;
@@ -40,9 +39,7 @@ import io.nuls.event.bus.service.intf.EventBroadcaster;
 import io.nuls.ledger.service.intf.LedgerService;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author facjas
@@ -58,7 +55,7 @@ public class GetTxGroupHandler extends AbstractEventHandler<GetTxGroupRequest> {
     public void onEvent(GetTxGroupRequest event, String fromId) {
 
         GetTxGroupParam eventBody = event.getEventBody();
-        Block block = blockService.getBlock(eventBody.getBlockHash().getDigestHex());
+        Block block = blockService.getBlock(eventBody.getBlockHash());
         if (null == block) {
             return;
         }
@@ -66,24 +63,19 @@ public class GetTxGroupHandler extends AbstractEventHandler<GetTxGroupRequest> {
         TxGroupEvent txGroupEvent = new TxGroupEvent();
         TxGroup txGroup = new TxGroup();
         txGroup.setBlockHash(block.getHeader().getHash());
-        List<Transaction> txList = getTxList(block,eventBody.getTxHashList());
+        List<Transaction> txList = getTxList(block, eventBody.getTxIndexList());
         txGroup.setTxList(txList);
         txGroupEvent.setEventBody(txGroup);
         eventBroadcaster.sendToNode(txGroupEvent, fromId);
     }
 
-    private List<Transaction> getTxList(Block block, List<NulsDigestData> txHashList) {
+    private List<Transaction> getTxList(Block block, List<Integer> txIndexList) {
         List<Transaction> txList = new ArrayList<>();
-        Map<String, Integer> allTxMap = new HashMap<>();
-        for (int i = 0; i < block.getHeader().getTxCount(); i++) {
-            Transaction tx = block.getTxs().get(i);
-            allTxMap.put(tx.getHash().getDigestHex(), i);
-        }
-        for (NulsDigestData hash : txHashList) {
-            txList.add(block.getTxs().get(allTxMap.get(hash.getDigestHex())));
-        }
-        if (txList.size() != txHashList.size()) {
-            throw new NulsRuntimeException(ErrorCode.DATA_ERROR);
+        for (int index : txIndexList) {
+            if (index < 0 || index >= block.getTxs().size()) {
+                throw new NulsRuntimeException(ErrorCode.DATA_ERROR);
+            }
+            txList.add(block.getTxs().get(index));
         }
         return txList;
     }
@@ -30,6 +30,7 @@ import io.nuls.core.constant.TxStatusEnum;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.utils.log.Log;
+import io.nuls.core.validate.TxVerifyMemo;
 import io.nuls.core.validate.ValidateResult;
 import io.nuls.db.entity.NodePo;
 import io.nuls.event.bus.handler.AbstractEventHandler;
@@ -69,13 +70,14 @@ public class NewTxEventHandler extends AbstractEventHandler<TransactionEvent> {
         } catch (NulsException e) {
             Log.error(e);
         }
-        ValidateResult result = tx.verify();
+        ValidateResult result = TxVerifyMemo.getInstance().verify(tx);
         if (result.isFailed()) {
             if (result.getLevel() == SeverityLevelEnum.NORMAL_FOUL) {
                 networkService.blackNode(fromId, NodePo.YELLOW);
             } else if (result.getLevel() == SeverityLevelEnum.FLAGRANT_FOUL) {
                 networkService.blackNode(fromId, NodePo.BLACK);
             }
+            return;
         }
         if (tx.isLocalTx() && tx.getTransferType() == Transaction.TRANSFER_SEND) {
             tx.setStatus(TxStatusEnum.AGREED);
@@ -44,6 +44,6 @@ public class SmallBlockHandler extends AbstractEventHandler<SmallBlockEvent> {
             return;
         }
         blockCacheManager.cacheSmallBlock(event.getEventBody(), fromId);
-        downloadDataUtils.removeSmallBlock(event.getEventBody().getBlockHash().getDigestHex());
+        downloadDataUtils.removeSmallBlock(event.getEventBody().getBlockHash().getKey());
     }
 }
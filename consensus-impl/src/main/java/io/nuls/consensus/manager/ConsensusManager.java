@@ -27,6 +27,7 @@ import io.nuls.account.entity.Account;
 import io.nuls.account.service.intf.AccountService;
 import io.nuls.consensus.cache.manager.block.BlockCacheManager;
 import io.nuls.consensus.cache.manager.member.ConsensusCacheManager;
+import io.nuls.consensus.cache.manager.member.CreditCacheManager;
 import io.nuls.consensus.cache.manager.tx.ConfirmingTxCacheManager;
 import io.nuls.consensus.cache.manager.tx.ReceivedTxCacheManager;
 import io.nuls.consensus.constant.ConsensusStatusEnum;
@@ -110,6 +111,7 @@ public class ConsensusManager implements Runnable {
         blockCacheManager.init();
         consensusCacheManager = ConsensusCacheManager.getInstance();
         consensusCacheManager.init();
+        CreditCacheManager.getInstance().init();
         confirmingTxCacheManager = ConfirmingTxCacheManager.getInstance();
         confirmingTxCacheManager.init();
         receivedTxCacheManager = ReceivedTxCacheManager.getInstance();
@@ -181,6 +183,7 @@ public class ConsensusManager implements Runnable {
     public void destroy() {
         blockCacheManager.clear();
         consensusCacheManager.clear();
+        CreditCacheManager.getInstance().clear();
         confirmingTxCacheManager.clear();
         receivedTxCacheManager.clear();
     }
@@ -23,6 +23,7 @@
  */
 package io.nuls.consensus.module.impl;
 
+import io.nuls.consensus.cache.manager.block.BlockCacheManager;
 import io.nuls.consensus.constant.ConsensusStatusEnum;
 import io.nuls.consensus.entity.ConsensusStatusInfo;
 import io.nuls.consensus.entity.tx.*;
@@ -41,6 +42,7 @@ import io.nuls.core.context.NulsContext;
 import io.nuls.core.thread.BaseThread;
 import io.nuls.core.thread.manager.TaskManager;
 import io.nuls.core.utils.log.Log;
+import io.nuls.core.validate.TxVerifyMemo;
 import io.nuls.event.bus.service.intf.EventBusService;
 import io.nuls.ledger.event.TransactionEvent;
 
@@ -164,6 +166,10 @@ public class PocConsensusModuleBootstrap extends AbstractConsensusModule {
                 str.append("}");
             }
         }
+        str.append("\n");
+        str.append(BlockCacheManager.getInstance().getCompactBlockMetrics());
+        str.append("\n");
+        str.append(TxVerifyMemo.getInstance());
         return str.toString();
     }
 
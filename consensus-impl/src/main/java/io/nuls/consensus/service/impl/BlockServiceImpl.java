@@ -24,13 +24,14 @@
 package io.nuls.consensus.service.impl;
 
 import io.nuls.consensus.cache.manager.block.BlockCacheManager;
+import io.nuls.consensus.cache.manager.member.CreditCacheManager;
 import io.nuls.consensus.service.intf.BlockService;
 import io.nuls.core.chain.entity.*;
 import io.nuls.core.context.NulsContext;
-import io.nuls.core.exception.NulsException;
 import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.utils.log.Log;
 import io.nuls.core.utils.spring.lite.annotation.Autowired;
+import io.nuls.core.validate.TxVerifyMemo;
 import io.nuls.db.transactional.annotation.DbSession;
 import io.nuls.ledger.service.intf.LedgerService;
 
@@ -93,10 +94,15 @@ public class BlockServiceImpl implements BlockService {
 
     @Override
     public Block getBlock(String hash) {
-        Block block = blockCacheManager.getBlock(hash);
+        return getBlock(NulsDigestData.fromDigestHex(hash));
+    }
+
+    @Override
+    public Block getBlock(NulsDigestData hash) {
+        Block block = blockCacheManager.getBlock(hash.getKey());
         if (null == block) {
             try {
-                block = blockStorageService.getBlock(hash);
+                block = blockStorageService.getBlock(hash.getDigestHex());
             } catch (Exception e) {
                 Log.error(e);
             }
@@ -126,19 +132,18 @@ public class BlockServiceImpl implements BlockService {
     @Override
     @DbSession
     public void saveBlock(Block block) throws IOException {
-        for (int x = 0; x < block.getHeader().getTxCount(); x++) {
-            Transaction tx = block.getTxs().get(x);
+        for (Transaction tx : block.getTxs()) {
             tx.setBlockHeight(block.getHeader().getHeight());
-            try {
-                ledgerService.commitTx(tx);
-            } catch (Exception e) {
-                Log.error(e);
-                rollback(block.getTxs(), x);
-                throw new NulsRuntimeException(e);
-            }
+        }
+        try {
+            ledgerService.commitTxList(block.getTxs());
+        } catch (Exception e) {
+            Log.error(e);
+            throw new NulsRuntimeException(e);
         }
         blockStorageService.save(block.getHeader());
         ledgerService.saveTxList(block.getTxs());
+        CreditCacheManager.getInstance().addBlock(block);
         Block bblock = null;
         try {
             bblock = blockStorageService.getBlock(block.getHeader().getHash().getDigestHex());
@@ -155,9 +160,11 @@ public class BlockServiceImpl implements BlockService {
         if (null == block) {
             return;
         }
-        this.rollback(block.getTxs(), block.getTxs().size() - 1);
+        this.ledgerService.rollbackTxList(block.getTxs());
+        TxVerifyMemo.getInstance().invalidate(block.getTxs());
         this.ledgerService.deleteTx(block.getHeader().getHeight());
         blockStorageService.delete(block.getHeader().getHash().getDigestHex());
+        CreditCacheManager.getInstance().rollbackBlock(block);
     }
 
     @Override
@@ -167,23 +174,10 @@ public class BlockServiceImpl implements BlockService {
 
     @Override
     public BlockHeader getBlockHeader(NulsDigestData hash) {
-        String hashHex = hash.getDigestHex();
-        BlockHeader header = blockCacheManager.getBlockHeader(hashHex);
+        BlockHeader header = blockCacheManager.getBlockHeader(hash);
         if (null == header) {
-            header = blockStorageService.getBlockHeader(hashHex);
+            header = blockStorageService.getBlockHeader(hash.getDigestHex());
         }
         return header;
     }
-
-    private void rollback(List<Transaction> txs, int max) {
-        for (int x = 0; x < max; x++) {
-            Transaction tx = txs.get(x);
-            try {
-                ledgerService.rollbackTx(tx);
-            } catch (NulsException e) {
-                Log.error(e);
-            }
-        }
-
-    }
 }
@@ -46,6 +46,7 @@ public class BlockPersistenceThread implements Runnable {
     private BlockCacheManager blockCacheManager = BlockCacheManager.getInstance();
     private BlockService blockService = NulsContext.getServiceBean(BlockService.class);
     private ConfirmingTxCacheManager txCacheManager = ConfirmingTxCacheManager.getInstance();
+    private ReceivedTxCacheManager receivedTxCacheManager = ReceivedTxCacheManager.getInstance();
     private boolean running;
 
     private BlockPersistenceThread() {
@@ -90,6 +91,7 @@ public class BlockPersistenceThread implements Runnable {
         blockCacheManager.removeBlock(block.getHeader());
         blockCacheManager.setStoredHeight(height);
         txCacheManager.removeTxList(block.getTxHashList());
+        receivedTxCacheManager.removeTx(block.getTxHashList());
     }
 
 }
@@ -26,6 +26,7 @@ package io.nuls.consensus.thread;
 import io.nuls.account.service.intf.AccountService;
 import io.nuls.consensus.cache.manager.block.BlockCacheManager;
 import io.nuls.consensus.cache.manager.member.ConsensusCacheManager;
+import io.nuls.consensus.cache.manager.member.CreditCacheManager;
 import io.nuls.consensus.cache.manager.tx.ConfirmingTxCacheManager;
 import io.nuls.consensus.cache.manager.tx.ReceivedTxCacheManager;
 import io.nuls.consensus.constant.ConsensusStatusEnum;
@@ -45,13 +46,12 @@ import io.nuls.consensus.entity.tx.RedPunishTransaction;
 import io.nuls.consensus.entity.tx.YellowPunishTransaction;
 import io.nuls.consensus.event.BlockHeaderEvent;
 import io.nuls.consensus.manager.ConsensusManager;
-import io.nuls.consensus.service.impl.PocBlockService;
 import io.nuls.consensus.service.intf.BlockService;
 import io.nuls.consensus.utils.ConsensusTool;
-import io.nuls.consensus.utils.TxComparator;
 import io.nuls.core.chain.entity.Block;
 import io.nuls.core.chain.entity.Na;
 import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsDigestKey;
 import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.constant.TransactionConstant;
@@ -62,6 +62,7 @@ import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.utils.cfg.ConfigLoader;
 import io.nuls.core.utils.date.TimeService;
 import io.nuls.core.utils.log.Log;
+import io.nuls.core.validate.TxVerifyMemo;
 import io.nuls.core.validate.ValidateResult;
 import io.nuls.event.bus.service.intf.EventBroadcaster;
 import io.nuls.ledger.entity.params.Coin;
@@ -85,7 +86,7 @@ public class ConsensusMeetingRunner implements Runnable {
     private LedgerService ledgerService = NulsContext.getServiceBean(LedgerService.class);
     private ConsensusCacheManager consensusCacheManager = ConsensusCacheManager.getInstance();
     private BlockCacheManager blockCacheManager = BlockCacheManager.getInstance();
-    private PocBlockService pocBlockService = PocBlockService.getInstance();
+    private CreditCacheManager creditCacheManager = CreditCacheManager.getInstance();
     private ReceivedTxCacheManager txCacheManager = ReceivedTxCacheManager.getInstance();
     private EventBroadcaster eventBroadcaster = NulsContext.getServiceBean(EventBroadcaster.class);
     private boolean running = false;
@@ -135,13 +136,12 @@ public class ConsensusMeetingRunner implements Runnable {
             }
         }
 
+        //the deposits are kept up to date by the cache, only the members are listed here
+        String selfAddress = consensusManager.getConsensusStatusInfo().getAddress();
         List<Consensus<Agent>> list = calcConsensusAgentList();
         currentRound.setMemberCount(list.size());
-        List<PocMeetingMember> memberList = new ArrayList<>();
+        List<PocMeetingMember> memberList = new ArrayList<>(list.size());
         ConsensusGroup cg = new ConsensusGroup();
-        Na totalDeposit = Na.ZERO;
-        Na agentTotalDeposit = Na.ZERO;
-
         for (Consensus<Agent> ca : list) {
             PocMeetingMember mm = new PocMeetingMember();
             mm.setRoundIndex(currentRound.getIndex());
@@ -149,27 +149,16 @@ public class ConsensusMeetingRunner implements Runnable {
             mm.setPackerAddress(ca.getExtend().getDelegateAddress());
             mm.setRoundStartTime(currentRound.getStartTime());
             memberList.add(mm);
-            if (ca.getAddress().equals(consensusManager.getConsensusStatusInfo().getAddress())) {
+            if (ca.getAddress().equals(selfAddress)) {
                 cg.setAgentConsensus(ca);
-                agentTotalDeposit = agentTotalDeposit.add(ca.getExtend().getDeposit());
             }
-            totalDeposit = totalDeposit.add(ca.getExtend().getDeposit());
         }
         Collections.sort(memberList);
         currentRound.setMemberList(memberList);
-        List<Consensus<Delegate>> delegateList = consensusCacheManager.getCachedDelegateList();
-        List<Consensus<Delegate>> myDelegateList = new ArrayList<>();
-        for (Consensus<Delegate> cd : delegateList) {
-            totalDeposit = totalDeposit.add(cd.getExtend().getDeposit());
-            if (cd.getExtend().getDelegateAddress().equals(consensusManager.getConsensusStatusInfo().getAddress())) {
-                myDelegateList.add(cd);
-                agentTotalDeposit = agentTotalDeposit.add(cd.getExtend().getDeposit());
-            }
-        }
-        currentRound.setTotalDeposit(totalDeposit);
-        currentRound.setAgentTotalDeposit(agentTotalDeposit);
+        currentRound.setTotalDeposit(consensusCacheManager.getTotalDeposit());
+        currentRound.setAgentTotalDeposit(consensusCacheManager.getAgentTotalDeposit(selfAddress));
         currentRound.setEndTime(currentRound.getStartTime() + currentRound.getMemberCount() * PocConsensusConstant.BLOCK_TIME_INTERVAL * 1000L);
-        cg.setDelegateList(myDelegateList);
+        cg.setDelegateList(consensusCacheManager.getDelegateListOfAgent(selfAddress));
         currentRound.setConsensusGroup(cg);
         if (ConsensusStatusEnum.IN.getCode() == consensusManager.getConsensusStatusInfo().getStatus()){
             startMeeting();
@@ -182,7 +171,7 @@ public class ConsensusMeetingRunner implements Runnable {
             this.nextRound();
             return;
         }
-        self.setCreditVal(calcCreditVal());
+        self.setCreditVal(creditCacheManager.calcCreditVal(consensusManager.getConsensusStatusInfo().getAddress(), consensusManager.getCurrentRound().getIndex()));
         long timeUnit = 100L;
         while (TimeService.currentTimeMillis() <= (self.getPackTime() - timeUnit)) {
             try {
@@ -194,25 +183,10 @@ public class ConsensusMeetingRunner implements Runnable {
         packing(self);
     }
 
-    private double calcCreditVal() {
-        long roundStart = consensusManager.getCurrentRound().getIndex() - 1 - PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT;
-        if (roundStart < 0) {
-            roundStart = 0;
-        }
-        long blockCount = pocBlockService.getBlockCount(consensusManager.getConsensusStatusInfo().getAddress(), roundStart, consensusManager.getCurrentRound().getIndex() - 1);
-        long sumRoundVal = pocBlockService.getSumOfRoundIndexOfYellowPunish(consensusManager.getConsensusStatusInfo().getAddress(), consensusManager.getCurrentRound().getIndex() - PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT, consensusManager.getCurrentRound().getIndex() - 1);
-        double ability = blockCount / PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT;
-        if (consensusManager.getCurrentRound().getIndex() == 0) {
-            return 1;
-        }
-        double penalty = (PocConsensusConstant.CREDIT_MAGIC_NUM * sumRoundVal) / (PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT * PocConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT);
-        return ability - penalty;
-    }
-
     private void packing(PocMeetingMember self) {
         Block bestBlock = context.getBestBlock();
-        List<Transaction> txList = txCacheManager.getTxList();
-        txList.sort(new TxComparator());
+        List<Transaction> txList = txCacheManager.getPackingTxList(
+                PocConsensusConstant.MAX_BLOCK_SIZE - PocConsensusConstant.BLOCK_RESERVED_SIZE, PocConsensusConstant.MAX_BLOCK_TX_COUNT);
         BlockData bd = new BlockData();
         bd.setHeight(bestBlock.getHeader().getHeight() + 1);
         bd.setPreHash(bestBlock.getHeader().getHash());
@@ -222,26 +196,32 @@ public class ConsensusMeetingRunner implements Runnable {
         roundData.setPackingIndexOfRound(self.getIndexOfRound());
         roundData.setRoundStartTime(consensusManager.getCurrentRound().getStartTime());
         bd.setRoundData(roundData);
-        List<Integer> outTxList = new ArrayList<>();
-        for (int i = 0; i < txList.size(); i++) {
-            Transaction tx = txList.get(i);
-            ValidateResult result = tx.verify();
-            if (result.isFailed()) {
-                outTxList.add(i);
+        //the txs were verified when they entered the pool, only the chain state is checked here
+        Set<NulsDigestKey> outTxSet = new HashSet<>();
+        Iterator<Transaction> it = txList.iterator();
+        while (it.hasNext()) {
+            Transaction tx = it.next();
+            if (outTxSet.contains(tx.getHash().getKey())) {
+                it.remove();
+                continue;
+            }
+            ValidateResult txResult = TxVerifyMemo.getInstance().verify(tx);
+            if (txResult.isFailed()) {
+                Log.info("packing tx failed:" + txResult.getMessage());
+                outTxSet.addAll(txCacheManager.removeInvalidTx(tx.getHash()));
+                it.remove();
                 continue;
             }
             try {
                 ledgerService.approvalTx(tx);
             } catch (NulsException e) {
                 Log.error(e);
-                outTxList.add(i);
+                outTxSet.addAll(txCacheManager.removeInvalidTx(tx.getHash()));
+                it.remove();
                 continue;
             }
             confirmingTxCacheManager.putTx(tx);
         }
-        for (int i = outTxList.size() - 1; i >= 0; i--) {
-            txList.remove(i);
-        }
         addConsensusTx(bestBlock, txList, self);
         bd.setTxList(txList);
         Block newBlock = ConsensusTool.createBlock(bd);
@@ -454,7 +434,7 @@ public class ConsensusMeetingRunner implements Runnable {
 
     private List<Consensus<Agent>> calcConsensusAgentList() {
         List<Consensus<Agent>> list = new ArrayList<>();
-        list.addAll(consensusCacheManager.getCachedAgentList(ConsensusStatusEnum.IN));
+        list.addAll(consensusCacheManager.getInAgentList());
         if (list.size() >= PocConsensusConstant.MIN_CONSENSUS_AGENT_COUNT) {
             return list;
         }
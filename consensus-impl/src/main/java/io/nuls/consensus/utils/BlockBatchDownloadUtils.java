@@ -23,70 +23,85 @@
  */
 package io.nuls.consensus.utils;
 
+import io.nuls.consensus.cache.manager.block.BlockCacheManager;
 import io.nuls.consensus.cache.manager.tx.ConfirmingTxCacheManager;
 import io.nuls.consensus.cache.manager.tx.ReceivedTxCacheManager;
-import io.nuls.consensus.entity.DownloadRound;
+import io.nuls.consensus.entity.DownloadNode;
 import io.nuls.consensus.entity.NodeDownloadingStatus;
 import io.nuls.consensus.event.GetBlockRequest;
-import io.nuls.consensus.cache.manager.block.BlockCacheManager;
 import io.nuls.consensus.service.intf.BlockService;
 import io.nuls.core.chain.entity.Block;
 import io.nuls.core.chain.entity.NulsDigestData;
-import io.nuls.core.chain.entity.Result;
-import io.nuls.core.constant.ErrorCode;
+import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.context.NulsContext;
-import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.utils.log.Log;
-import io.nuls.core.utils.queue.service.impl.QueueService;
-import io.nuls.core.utils.str.StringUtils;
+import io.nuls.core.validate.SignatureVerifier;
 import io.nuls.core.validate.ValidateResult;
 import io.nuls.db.entity.NodePo;
 import io.nuls.event.bus.service.intf.EventBroadcaster;
 import io.nuls.network.service.NetworkService;
 
 import java.util.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Downloads a height range of blocks from several nodes through a sliding window.
+ * The heights are split into small ranges, every node has up to {@link #DOWNLOAD_RANGES_PER_NODE} of them in flight
+ * and the next range goes to the node expected to deliver it first by its measured throughput.
+ * A range without progress for {@link #DOWNLOAD_RANGE_TIME_OUT} goes to another node.
+ * Downloaded blocks are verified and handed to the {@link BlockCacheManager} in height order as soon as
+ * the blocks below them are there, while the later ranges are still downloading.
+ *
  * @author Niels
  * @date 2017/12/11
  */
 public class BlockBatchDownloadUtils {
 
-    private static final int DOWNLOAD_NODE_COUNT = 10;
-    private static final int DOWNLOAD_BLOCKS_PER_TIME = 100;
+    private static final int DOWNLOAD_RANGE_SIZE = 20;
+    private static final int DOWNLOAD_RANGES_PER_NODE = 4;
+    /**
+     * the ranges asked for end at most this many heights above the next block to verify
+     */
+    private static final int DOWNLOAD_WINDOW = 1000;
+    /**
+     * the hashes of every this many heights are checked against the ones most nodes agree on
+     */
+    private static final int DOWNLOAD_CHECKPOINT_INTERVAL = 100;
     /**
-     * todo unit:ms
+     * unit:ms
      */
-    private static final long DOWNLOAD_IDLE_TIME_OUT = 1000;
+    private static final long DOWNLOAD_RANGE_TIME_OUT = 10000;
+    private static final int DOWNLOAD_MAX_TIME_OUTS = 3;
 
     private static final BlockBatchDownloadUtils INSTANCE = new BlockBatchDownloadUtils();
     private EventBroadcaster eventBroadcaster = NulsContext.getServiceBean(EventBroadcaster.class);
-    private QueueService<String> queueService = new QueueService<>();
     private BlockCacheManager blockCacheManager = BlockCacheManager.getInstance();
     private NetworkService networkService = NulsContext.getServiceBean(NetworkService.class);
     private BlockService blockService = NulsContext.getServiceBean(BlockService.class);
 
-
     private ReceivedTxCacheManager receivedTxCacheManager = ReceivedTxCacheManager.getInstance();
     private ConfirmingTxCacheManager confirmingTxCacheManager = ConfirmingTxCacheManager.getInstance();
 
-    private String queueId = StringUtils.getNewUUID();
-
-    private Map<String, NodeDownloadingStatus> nodeStatusMap = new HashMap<>();
-
-    private Map<Long, Block> blockMap = new HashMap<>();
+    private final Map<String, DownloadNode> nodeMap = new HashMap<>();
+    /**
+     * the ranges in flight
+     */
+    private final List<NodeDownloadingStatus> statusList = new ArrayList<>();
+    /**
+     * the ranges to ask for again, by start height
+     */
+    private final TreeMap<Long, NodeDownloadingStatus> pendingMap = new TreeMap<>();
+    private final TreeMap<Long, Block> blockMap = new TreeMap<>();
+    private final Map<Long, String> senderMap = new HashMap<>();
 
-    private boolean finished = true;
-    private List<DownloadRound> roundList = new ArrayList<>();
-    private DownloadRound currentRound;
-    private List<String> nodeIdList;
     private BlockInfo blocksHash;
+    private long startHeight;
+    private long endHeight;
+    private long nextHeight;
+    private long nextRangeStart;
+    private NulsDigestData lastHash;
 
-    private Lock lock = new ReentrantLock();
-
-    private boolean working = false;
+    private boolean finished = true;
+    private volatile boolean working = false;
 
     private BlockBatchDownloadUtils() {
     }
@@ -95,240 +110,311 @@ public class BlockBatchDownloadUtils {
         return INSTANCE;
     }
 
-    private void init(List<String> nodeIdList) {
-        this.nodeIdList = nodeIdList;
-        if (!this.queueService.exist(queueId)) {
-            this.queueService.createQueue(queueId, (long) nodeIdList.size(), false);
-        }
-        for (String nodeId : nodeIdList) {
-            this.queueService.offer(queueId, nodeId);
-        }
-        nodeStatusMap.clear();
-        blockMap.clear();
-    }
-
+    /**
+     * download the blocks from startHeight to endHeight, returns once they are all cached or no node is left
+     */
     public void request(List<String> nodeIdList, long startHeight, long endHeight) throws InterruptedException {
-        lock.lock();
-         if (working) {
-            return;
+        synchronized (this) {
+            if (working) {
+                return;
+            }
+            working = true;
+            finished = false;
         }
-        working = true;
-        this.init(nodeIdList);
+        BlockInfo blockInfo;
         try {
-            blocksHash = DistributedBlockInfoRequestUtils.getInstance().request(startHeight, endHeight, DOWNLOAD_BLOCKS_PER_TIME);
+            blockInfo = DistributedBlockInfoRequestUtils.getInstance().request(startHeight, endHeight, DOWNLOAD_CHECKPOINT_INTERVAL);
         } catch (Exception e) {
+            Log.error(e.getMessage());
+            blockInfo = null;
+        }
+        if (null == blockInfo) {
             working = false;
             return;
         }
-        request(startHeight, endHeight);
+        init(nodeIdList, startHeight, endHeight, blockInfo);
+        long start = System.currentTimeMillis();
         while (working) {
+            schedule();
             Thread.sleep(100L);
         }
-        if(!working){
-            lock.unlock();
+        Log.info("downloaded blocks " + startHeight + "-" + endHeight + (finished ? "" : " failed at " + nextHeight) +
+                ", use:" + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private synchronized void init(List<String> nodeIdList, long startHeight, long endHeight, BlockInfo blockInfo) {
+        clear();
+        for (String nodeId : nodeIdList) {
+            nodeMap.put(nodeId, new DownloadNode(nodeId));
         }
+        this.blocksHash = blockInfo;
+        this.startHeight = startHeight;
+        this.endHeight = endHeight;
+        this.nextHeight = startHeight;
+        this.nextRangeStart = startHeight;
     }
 
-    private void request(long startHeight, long endHeight) throws InterruptedException {
-        finished = false;
-        roundList.clear();
-        long i = startHeight;
-        while (true) {
-            long start = i;
-            int nodeCount = DOWNLOAD_NODE_COUNT;
-            if (this.nodeIdList.size() < DOWNLOAD_NODE_COUNT) {
-                nodeCount = nodeIdList.size();
+    /**
+     * hand the ranges without progress to other nodes and fill the free slots of the nodes
+     */
+    private synchronized void schedule() {
+        if (!working) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<NodeDownloadingStatus> timeoutList = new ArrayList<>();
+        for (NodeDownloadingStatus status : statusList) {
+            if (now - status.getUpdateTime() >= DOWNLOAD_RANGE_TIME_OUT) {
+                timeoutList.add(status);
             }
-            long end = i + DOWNLOAD_BLOCKS_PER_TIME * nodeCount - 1;
-            if (end > endHeight) {
-                end = endHeight;
+        }
+        for (NodeDownloadingStatus status : timeoutList) {
+            statusList.remove(status);
+            DownloadNode node = nodeMap.get(status.getNodeId());
+            if (null != node) {
+                node.timeout();
+                if (node.getTimeoutCount() >= DOWNLOAD_MAX_TIME_OUTS) {
+                    removeNode(node.getNodeId());
+                }
             }
-            DownloadRound round = new DownloadRound();
-            round.setEnd(end);
-            round.setStart(start);
-            if (i == startHeight) {
-                currentRound = round;
-                startDownload();
+            requeue(status.getStart(), status.getEnd());
+        }
+        if (nodeMap.isEmpty()) {
+            Log.warn("no node left to download blocks from");
+            stop(false);
+            return;
+        }
+        while (true) {
+            Map.Entry<Long, NodeDownloadingStatus> pending = pendingMap.firstEntry();
+            long start;
+            long end;
+            if (null != pending) {
+                start = pending.getValue().getStart();
+                end = pending.getValue().getEnd();
+            } else if (nextRangeStart <= endHeight && nextRangeStart < nextHeight + DOWNLOAD_WINDOW) {
+                start = nextRangeStart;
+                end = Math.min(start + DOWNLOAD_RANGE_SIZE - 1, endHeight);
             } else {
-                roundList.add(round);
+                break;
             }
-            i = end + 1;
-            if (i >= endHeight) {
+            DownloadNode node = selectNode();
+            if (null == node) {
                 break;
             }
+            if (null != pending) {
+                pendingMap.remove(start);
+            } else {
+                nextRangeStart = end + 1;
+            }
+            sendRequest(start, end, node, now);
         }
-
     }
 
-    private void startDownload() {
-        try {
-            Set<String> nodeSet = new HashSet<>();
-            if (this.nodeIdList.size() <= DOWNLOAD_NODE_COUNT) {
-                nodeSet.addAll(this.nodeIdList);
-            } else {
-                Random random = new Random();
-                while (true) {
-                    if (nodeSet.size() >= DOWNLOAD_NODE_COUNT) {
-                        break;
-                    }
-                    int index = random.nextInt(nodeIdList.size());
-                    nodeSet.add(this.nodeIdList.get(index));
-                }
+    /**
+     * @return the node with a free slot expected to deliver a range first
+     */
+    private DownloadNode selectNode() {
+        DownloadNode best = null;
+        for (DownloadNode node : nodeMap.values()) {
+            if (node.getRangeCount() >= DOWNLOAD_RANGES_PER_NODE) {
+                continue;
             }
-            List<String> roundNodeList = new ArrayList<>(nodeSet);
-            currentRound.setNodeIdList(roundNodeList);
-            long end = 0;
-            for (int i = 0; end < currentRound.getEnd(); i++) {
-                long start = currentRound.getStart() + i * DOWNLOAD_BLOCKS_PER_TIME;
-                end = start + DOWNLOAD_BLOCKS_PER_TIME - 1;
-                if (end > currentRound.getEnd()) {
-                    end = currentRound.getEnd();
-                }
-                String nodeId = roundNodeList.get(i);
-                this.sendRequest(start, end, nodeId);
+            if (null == best || node.getLoad() < best.getLoad()) {
+                best = node;
             }
-        } catch (Exception e) {
-            Log.error(e);
         }
+        return best;
     }
 
-    private void sendRequest(long start, long end, String nodeId) {
+    private void sendRequest(long start, long end, DownloadNode node, long now) {
         NodeDownloadingStatus status = new NodeDownloadingStatus();
         status.setStart(start);
         status.setEnd(end);
-        status.setNodeId(nodeId);
-        this.eventBroadcaster.sendToNode(new GetBlockRequest(start, end), nodeId);
-        status.setUpdateTime(System.currentTimeMillis());
-        nodeStatusMap.put(nodeId, status);
+        status.setNodeId(node.getNodeId());
+        status.setStartTime(now);
+        status.setUpdateTime(now);
+        statusList.add(status);
+        node.requested();
+        this.eventBroadcaster.sendToNode(new GetBlockRequest(start, end), node.getNodeId());
     }
 
-
-    public boolean downloadedBlock(String nodeId, Block block) {
-        NodeDownloadingStatus status = nodeStatusMap.get(nodeId);
-        if (null == status) {
+    /**
+     * @return true if the block belongs to the download, it is cached in height order then
+     */
+    public synchronized boolean downloadedBlock(String nodeId, Block block) {
+        if (!working) {
             return false;
         }
-        if (!status.containsHeight(block.getHeader().getHeight())) {
+        long height = block.getHeader().getHeight();
+        if (height < startHeight || height > endHeight) {
             return false;
         }
-        blockMap.put(block.getHeader().getHeight(), block);
-        status.downloaded(block.getHeader().getHeight());
-        status.setUpdateTime(System.currentTimeMillis());
-        if (status.finished()) {
-            this.queueService.offer(queueId, nodeId);
+        long now = System.currentTimeMillis();
+        for (NodeDownloadingStatus status : statusList) {
+            if (!status.getNodeId().equals(nodeId) || !status.containsHeight(height)) {
+                continue;
+            }
+            status.downloaded(height);
+            status.setUpdateTime(now);
+            if (status.finished()) {
+                statusList.remove(status);
+                DownloadNode node = nodeMap.get(nodeId);
+                if (null != node) {
+                    node.finished(status.getDownloadedSet().size(), status.getStartTime(), now);
+                }
+            }
+            break;
+        }
+        if (height >= nextHeight && !blockMap.containsKey(height)) {
+            blockMap.put(height, block);
+            senderMap.put(height, nodeId);
+            cacheBlocks();
         }
-        verify();
         return true;
     }
 
-    private void verify() {
-        boolean done = true;
-        for (NodeDownloadingStatus status : nodeStatusMap.values()) {
-            if (!done) {
-                break;
-            }
-            done = status.finished();
-        }
-        if (!done) {
-            return;
-        }
-        Result result;
-        try {
-            result = checkHash();
-        } catch (InterruptedException e) {
-            Log.error(e);
-            return;
+    /**
+     * verify and cache the blocks that follow the last cached one
+     */
+    private void cacheBlocks() {
+        List<Block> blockList = new ArrayList<>();
+        List<Transaction> txList = new ArrayList<>();
+        for (long height = nextHeight; blockMap.containsKey(height); height++) {
+            Block block = blockMap.get(height);
+            blockList.add(block);
+            txList.addAll(block.getTxs());
         }
-        if (null == result || result.isFailed()) {
+        if (blockList.isEmpty()) {
             return;
         }
-        for (long i = currentRound.getStart(); i <= currentRound.getEnd(); i++) {
-            Block block = blockMap.get(i);
-            ValidateResult result1 = block.verify();
-            if (result1.isFailed()) {
-                Log.info(result1.getMessage());
-                try {
-                    failedExecute(block.getHeader().getHeight());
-                } catch (InterruptedException e) {
-                    Log.error(e);
-                }
+        //verify the signatures of all the blocks at once, block.verify() then reads the results from the cache
+        SignatureVerifier.getInstance().verifyAll(txList);
+        for (Block block : blockList) {
+            long height = block.getHeader().getHeight();
+            String message = checkHash(block);
+            if (null == message) {
+                ValidateResult result = block.verify();
+                message = result.isFailed() ? result.getMessage() : null;
+            }
+            if (null != message) {
+                Log.info(message);
+                failedExecute(height);
                 return;
             }
+            blockMap.remove(height);
+            senderMap.remove(height);
             blockCacheManager.cacheBlock(block);
             receivedTxCacheManager.removeTx(block.getTxHashList());
             confirmingTxCacheManager.putTxList(block.getTxs());
+            lastHash = block.getHeader().getHash();
+            nextHeight = height + 1;
+        }
+        if (nextHeight > endHeight) {
+            stop(true);
         }
-        finished();
     }
 
-    private void failedExecute(long height) throws InterruptedException {
-        NodeDownloadingStatus nodeStatus = null;
-        for (NodeDownloadingStatus status : nodeStatusMap.values()) {
-            if (status.containsHeight(height)) {
-                nodeStatus = status;
+    /**
+     * @return the reason the block does not link to the chain, null if it does
+     */
+    private String checkHash(Block block) {
+        NulsDigestData mustHash = blocksHash.getHash(block.getHeader().getHeight());
+        if (null != mustHash && !mustHash.equals(block.getHeader().getHash())) {
+            return "hash wrong!";
+        }
+        NulsDigestData preHash = block.getHeader().getPreHash();
+        if (null == lastHash) {
+            Block preBlock = blockService.getBlock(preHash);
+            if (null == preBlock || preBlock.getHeader().getHeight() != (block.getHeader().getHeight() - 1)) {
+                return "prehash wrong!";
             }
+        } else if (!lastHash.equals(preHash)) {
+            return "prehash wrong!";
         }
-        if (null == nodeStatus) {
+        return null;
+    }
+
+    /**
+     * punish the node that sent the block, drop everything it sent and ask the other nodes for it
+     */
+    private void failedExecute(long height) {
+        String nodeId = senderMap.get(height);
+        blockMap.remove(height);
+        senderMap.remove(height);
+        if (null == nodeId) {
             return;
         }
-        networkService.blackNode(nodeStatus.getNodeId(), NodePo.YELLOW);
-        this.nodeIdList.remove(nodeIdList);
-        this.queueService.remove(queueId, nodeStatus.getNodeId());
-        this.sendRequest(nodeStatus.getStart(), nodeStatus.getEnd(), this.queueService.take(queueId));
+        networkService.blackNode(nodeId, NodePo.YELLOW);
+        blockCacheManager.removeOrphanHeaders(nodeId);
+        Iterator<Map.Entry<Long, String>> it = senderMap.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, String> entry = it.next();
+            if (entry.getValue().equals(nodeId)) {
+                blockMap.remove(entry.getKey());
+                it.remove();
+            }
+        }
+        removeNode(nodeId);
+        requeue(nextHeight, nextRangeStart - 1);
     }
 
-    private Result checkHash() throws InterruptedException {
-        for (long i = currentRound.getStart(); i >= currentRound.getEnd(); i++) {
-            Block block = blockMap.get(i);
-            if(null==block){
-                return Result.getFailed("data error");
-            }
-            if ((i - currentRound.getStart()) % DOWNLOAD_BLOCKS_PER_TIME == 0) {
-                NulsDigestData mustHash = blocksHash.getHash(block.getHeader().getHeight());
-                NulsDigestData hash = block.getHeader().getHash();
-                if (null == hash || null == mustHash || !mustHash.getDigestHex().equals(hash.getDigestHex())) {
-                    failedExecute(block.getHeader().getHeight());
-                    return Result.getFailed("hash wrong!");
-                }
-            }
-            String preHash = block.getHeader().getPreHash().getDigestHex();
-            Block preBlock = blockMap.get(preHash);
-            if (preBlock == null) {
-                preBlock = blockService.getBlock(preHash);
-            }
-            if (null == preBlock || preBlock.getHeader().getHeight() != (block.getHeader().getHeight() - 1)) {
-                failedExecute(block.getHeader().getHeight());
-                return Result.getFailed("prehash wrong!");
+    private void removeNode(String nodeId) {
+        nodeMap.remove(nodeId);
+        List<NodeDownloadingStatus> removedList = new ArrayList<>();
+        for (NodeDownloadingStatus status : statusList) {
+            if (status.getNodeId().equals(nodeId)) {
+                removedList.add(status);
             }
         }
-        return Result.getSuccess();
+        statusList.removeAll(removedList);
+        for (NodeDownloadingStatus status : removedList) {
+            requeue(status.getStart(), status.getEnd());
+        }
     }
 
-    private void finished() {
-        if (!roundFinished()) {
-            return;
-        }
-        if (!roundList.isEmpty()) {
-            currentRound = roundList.get(0);
-            roundList.remove(0);
-            startDownload();
-            return;
+    /**
+     * queue the heights between start and end that are neither downloaded, in flight nor queued already
+     */
+    private void requeue(long start, long end) {
+        long rangeStart = -1;
+        for (long height = Math.max(start, nextHeight); height <= end + 1; height++) {
+            boolean missing = height <= end && !blockMap.containsKey(height) && !isRequested(height);
+            if (missing && rangeStart < 0) {
+                rangeStart = height;
+            }
+            if (rangeStart >= 0 && (!missing || height - rangeStart == DOWNLOAD_RANGE_SIZE)) {
+                NodeDownloadingStatus pending = new NodeDownloadingStatus();
+                pending.setStart(rangeStart);
+                pending.setEnd(height - 1);
+                pendingMap.put(rangeStart, pending);
+                rangeStart = missing ? height : -1;
+            }
         }
-        this.finished = true;
-        this.queueService.destroyQueue(queueId);
-        this.nodeStatusMap.clear();
-        working = false;
     }
 
-    private boolean roundFinished() {
-        boolean result = true;
-        for (String nodeId : currentRound.getNodeIdList()) {
-            if (!result) {
-                break;
+    private boolean isRequested(long height) {
+        for (NodeDownloadingStatus status : statusList) {
+            if (status.containsHeight(height) && !status.getDownloadedSet().contains(height)) {
+                return true;
             }
-            result = nodeStatusMap.get(nodeId).finished();
         }
-        return result;
+        Map.Entry<Long, NodeDownloadingStatus> pending = pendingMap.floorEntry(height);
+        return null != pending && pending.getValue().containsHeight(height);
+    }
+
+    private void stop(boolean finished) {
+        this.finished = finished;
+        this.working = false;
+        clear();
+    }
+
+    private void clear() {
+        nodeMap.clear();
+        statusList.clear();
+        pendingMap.clear();
+        blockMap.clear();
+        senderMap.clear();
+        lastHash = null;
     }
 
     public boolean isFinished() {
@@ -23,23 +23,21 @@
  */
 package io.nuls.consensus.utils;
 
-import io.nuls.consensus.cache.manager.block.BlockCacheManager;
-import io.nuls.consensus.cache.manager.tx.ReceivedTxCacheManager;
 import io.nuls.consensus.entity.GetSmallBlockParam;
 import io.nuls.consensus.entity.GetTxGroupParam;
 import io.nuls.consensus.event.GetSmallBlockRequest;
 import io.nuls.consensus.event.GetTxGroupRequest;
 import io.nuls.consensus.thread.DataDownloadThread;
 import io.nuls.core.chain.entity.NulsDigestData;
-import io.nuls.core.chain.entity.SmallBlock;
+import io.nuls.core.chain.entity.NulsDigestKey;
 import io.nuls.core.constant.NulsConstant;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.thread.manager.TaskManager;
 import io.nuls.core.utils.str.StringUtils;
 import io.nuls.event.bus.service.intf.EventBroadcaster;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -51,6 +49,11 @@ public class DownloadDataUtils {
 
     private static final DownloadDataUtils INSTANCE = new DownloadDataUtils();
 
+    /**
+     * the txs of a block are asked for at most this often, then the block is given up
+     */
+    private static final int MAX_TX_GROUP_REQUEST_COUNT = 10;
+
     private DownloadDataUtils() {
         TaskManager.createAndRunThread(NulsConstant.MODULE_ID_CONSENSUS, "data-download-consensu", new DataDownloadThread());
     }
@@ -60,13 +63,12 @@ public class DownloadDataUtils {
     }
 
     private EventBroadcaster eventBroadcaster = NulsContext.getServiceBean(EventBroadcaster.class);
-    private ReceivedTxCacheManager txCacheManager = ReceivedTxCacheManager.getInstance();
-    private   BlockCacheManager blockCacheManager;
 
-    private final Map<String, Long> smbRequest = new HashMap<>();
-    private final Map<String, Long> tgRequest = new HashMap<>();
-    private final Map<String, Integer> smbRequestCount = new HashMap<>();
-    private final Map<String, Integer> tgRequestCount = new HashMap<>();
+    private final Map<NulsDigestKey, Long> smbRequest = new HashMap<>();
+    private final Map<NulsDigestKey, Long> tgRequest = new HashMap<>();
+    private final Map<NulsDigestKey, Integer> smbRequestCount = new HashMap<>();
+    private final Map<NulsDigestKey, Integer> tgRequestCount = new HashMap<>();
+    private final Map<NulsDigestKey, List<Integer>> tgRequestIndexes = new HashMap<>();
 
     public void requestSmallBlock(NulsDigestData blockHash, String nodeId) {
         GetSmallBlockRequest request = new GetSmallBlockRequest();
@@ -78,59 +80,61 @@ public class DownloadDataUtils {
         } else {
             eventBroadcaster.sendToNode(request, nodeId);
         }
-        smbRequest.put(blockHash.getDigestHex(), System.currentTimeMillis());
-        if (null == smbRequestCount.get(blockHash.getDigestHex())) {
-            smbRequestCount.put(blockHash.getDigestHex(), 1);
+        NulsDigestKey key = blockHash.getKey();
+        smbRequest.put(key, System.currentTimeMillis());
+        if (null == smbRequestCount.get(key)) {
+            smbRequestCount.put(key, 1);
         } else {
-            smbRequestCount.put(blockHash.getDigestHex(), 1 + smbRequestCount.get(blockHash.getDigestHex()));
+            smbRequestCount.put(key, 1 + smbRequestCount.get(key));
         }
     }
 
-    public void requestTxGroup(NulsDigestData blockHash, String nodeId) {
+    /**
+     * ask for the txs of a block that could not be found locally, by their index in the block
+     */
+    public void requestTxGroup(NulsDigestData blockHash, List<Integer> txIndexList, String nodeId) {
         GetTxGroupRequest request = new GetTxGroupRequest();
         GetTxGroupParam data = new GetTxGroupParam();
         data.setBlockHash(blockHash);
-        List<NulsDigestData> txHashList = new ArrayList<>();
-        if(null==blockCacheManager){
-            blockCacheManager  = BlockCacheManager.getInstance();
-        }
-        SmallBlock smb = blockCacheManager.getSmallBlock(blockHash.getDigestHex());
-        for (NulsDigestData txHash : smb.getTxHashList()) {
-            boolean exist = txCacheManager.txExist(txHash);
-            if (!exist) {
-                txHashList.add(txHash);
-            }
-        }
-        data.setTxHashList(txHashList);
+        data.setTxIndexList(txIndexList);
         request.setEventBody(data);
         if (StringUtils.isBlank(nodeId)) {
             eventBroadcaster.broadcastAndCache(request, false);
         } else {
             eventBroadcaster.sendToNode(request, nodeId);
         }
-        tgRequest.put(blockHash.getDigestHex(), System.currentTimeMillis());
-        if (null == tgRequestCount.get(blockHash.getDigestHex())) {
-            tgRequestCount.put(blockHash.getDigestHex(), 1);
+        NulsDigestKey key = blockHash.getKey();
+        tgRequest.put(key, System.currentTimeMillis());
+        tgRequestIndexes.put(key, txIndexList);
+        if (null == tgRequestCount.get(key)) {
+            tgRequestCount.put(key, 1);
         } else {
-            tgRequestCount.put(blockHash.getDigestHex(), 1 + tgRequestCount.get(blockHash.getDigestHex()));
+            tgRequestCount.put(key, 1 + tgRequestCount.get(key));
         }
     }
 
-    public void removeSmallBlock(String blockHash) {
+    public boolean canRequestTxGroup(NulsDigestKey blockHash) {
+        Integer count = tgRequestCount.get(blockHash);
+        return null == count || count < MAX_TX_GROUP_REQUEST_COUNT;
+    }
+
+    public void removeSmallBlock(NulsDigestKey blockHash) {
         smbRequest.remove(blockHash);
         smbRequestCount.remove(blockHash);
     }
 
-    public void removeTxGroup(String blockHash) {
+    public void removeTxGroup(NulsDigestKey blockHash) {
         tgRequest.remove(blockHash);
         tgRequestCount.remove(blockHash);
+        tgRequestIndexes.remove(blockHash);
     }
 
-    public void remove(String blockHash) {
+    public void remove(NulsDigestKey blockHash) {
         smbRequest.remove(blockHash);
         tgRequest.remove(blockHash);
         smbRequestCount.remove(blockHash);
         tgRequestCount.remove(blockHash);
+        tgRequestIndexes.remove(blockHash);
     }
 
     public void reRequest() {
@@ -139,25 +143,33 @@ public class DownloadDataUtils {
     }
 
     private void reReqesetTxGroup() {
-        for (String hash : this.tgRequest.keySet()) {
-            Long time = tgRequest.get(hash);
-            if (null != time && (System.currentTimeMillis() - time) >= 1000L) {
-                this.requestTxGroup(NulsDigestData.fromDigestHex(hash), null);
+        Iterator<Map.Entry<NulsDigestKey, Long>> it = this.tgRequest.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<NulsDigestKey, Long> entry = it.next();
+            NulsDigestKey hash = entry.getKey();
+            if ((System.currentTimeMillis() - entry.getValue()) >= 1000L) {
+                this.requestTxGroup(hash.toDigestData(), tgRequestIndexes.get(hash), null);
             }
-            if (tgRequestCount.get(hash) >= 10) {
-                this.removeTxGroup(hash);
+            if (tgRequestCount.get(hash) >= MAX_TX_GROUP_REQUEST_COUNT) {
+                it.remove();
+                tgRequestCount.remove(hash);
+                tgRequestIndexes.remove(hash);
             }
         }
 
     }
 
     private void reRequestSmallBlock() {
-        for (String hash : this.tgRequest.keySet()) {
-            Long time = tgRequest.get(hash);
-            if (null != time && (System.currentTimeMillis() - time)  >= 1000L) {
-                this.requestSmallBlock(NulsDigestData.fromDigestHex(hash), null);
-            }if (smbRequestCount.get(hash) >= 10) {
-                this.removeTxGroup(hash);
+        Iterator<Map.Entry<NulsDigestKey, Long>> it = this.smbRequest.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<NulsDigestKey, Long> entry = it.next();
+            NulsDigestKey hash = entry.getKey();
+            if ((System.currentTimeMillis() - entry.getValue()) >= 1000L) {
+                this.requestSmallBlock(hash.toDigestData(), null);
+            }
+            if (smbRequestCount.get(hash) >= 10) {
+                it.remove();
+                smbRequestCount.remove(hash);
             }
         }
     }
@@ -0,0 +1,271 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.consensus.entity.tx;
+
+import io.nuls.consensus.entity.Consensus;
+import io.nuls.consensus.entity.RedPunishData;
+import io.nuls.consensus.entity.YellowPunishData;
+import io.nuls.consensus.entity.member.Agent;
+import io.nuls.consensus.entity.member.Delegate;
+import io.nuls.core.chain.entity.Na;
+import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsSignData;
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.crypto.Utils;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.core.utils.io.NulsOutputStreamBuffer;
+import io.nuls.ledger.entity.CoinData;
+import io.nuls.ledger.entity.params.CoinTransferData;
+import io.nuls.ledger.entity.tx.AbstractCoinTransaction;
+import io.nuls.ledger.service.intf.CoinDataProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Every consensus tx type serialized and parsed again, signed and unsigned.
+ */
+public class ConsensusTransactionParseTest {
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Field field = AbstractCoinTransaction.class.getDeclaredField("coinDataProvider");
+        field.setAccessible(true);
+        field.set(null, new ParseOnlyProvider());
+    }
+
+    @Test
+    public void testPocExit() throws Exception {
+        PocExitConsensusTransaction tx = new PocExitConsensusTransaction();
+        tx.setTxData(NulsDigestData.calcDigestData(new byte[]{1}));
+        tx.setCoinData(new BytesCoinData(new byte[]{1, 2, 3}));
+        PocExitConsensusTransaction parsed = assertSignedAndUnsigned(tx, new PocExitConsensusTransaction(), new PocExitConsensusTransaction());
+        assertEquals(tx.getTxData(), parsed.getTxData());
+        assertArrayEquals(new byte[]{1, 2, 3}, ((BytesCoinData) parsed.getCoinData()).bytes);
+    }
+
+    @Test
+    public void testPocJoin() throws Exception {
+        Delegate delegate = new Delegate();
+        delegate.setDeposit(Na.valueOf(20000));
+        delegate.setDelegateAddress("agent");
+        Consensus<Delegate> consensus = new Consensus<>();
+        consensus.setAddress("delegate");
+        consensus.setExtend(delegate);
+        PocJoinConsensusTransaction tx = new PocJoinConsensusTransaction();
+        tx.setTxData(consensus);
+        tx.setCoinData(new BytesCoinData(new byte[]{4}));
+        PocJoinConsensusTransaction parsed = assertSignedAndUnsigned(tx, new PocJoinConsensusTransaction(), new PocJoinConsensusTransaction());
+        assertEquals("delegate", parsed.getTxData().getAddress());
+        assertEquals(Na.valueOf(20000), parsed.getTxData().getExtend().getDeposit());
+        assertEquals("agent", parsed.getTxData().getExtend().getDelegateAddress());
+    }
+
+    @Test
+    public void testRegisterAgent() throws Exception {
+        Agent agent = new Agent();
+        agent.setDeposit(Na.valueOf(200000));
+        agent.setDelegateAddress("packer");
+        agent.setCommissionRate(0.2);
+        agent.setIntroduction("intro");
+        agent.setSeed(true);
+        Consensus<Agent> consensus = new Consensus<>();
+        consensus.setAddress("agent");
+        consensus.setExtend(agent);
+        RegisterAgentTransaction tx = new RegisterAgentTransaction();
+        tx.setTxData(consensus);
+        tx.setCoinData(new BytesCoinData(new byte[]{5, 6}));
+        RegisterAgentTransaction parsed = assertSignedAndUnsigned(tx, new RegisterAgentTransaction(), new RegisterAgentTransaction());
+        assertEquals("agent", parsed.getTxData().getAddress());
+        Agent parsedAgent = parsed.getTxData().getExtend();
+        assertEquals(Na.valueOf(200000), parsedAgent.getDeposit());
+        assertEquals("packer", parsedAgent.getDelegateAddress());
+        assertEquals(0.2, parsedAgent.getCommissionRate(), 0);
+        assertEquals("intro", parsedAgent.getIntroduction());
+        assertEquals(true, parsedAgent.getSeed());
+    }
+
+    @Test
+    public void testRedPunish() throws Exception {
+        RedPunishData data = new RedPunishData();
+        data.setHeight(100);
+        data.setAddress("punished");
+        data.setReasonCode((short) 1);
+        data.setEvidence(new byte[]{9, 9});
+        RedPunishTransaction tx = new RedPunishTransaction();
+        tx.setTxData(data);
+        RedPunishTransaction parsed = assertSignedAndUnsigned(tx, new RedPunishTransaction(), new RedPunishTransaction());
+        assertEquals(100, parsed.getTxData().getHeight());
+        assertEquals("punished", parsed.getTxData().getAddress());
+        assertArrayEquals(new byte[]{9, 9}, parsed.getTxData().getEvidence());
+    }
+
+    @Test
+    public void testYellowPunish() throws Exception {
+        YellowPunishData data = new YellowPunishData();
+        data.setHeight(101);
+        data.setAddress("punished");
+        YellowPunishTransaction tx = new YellowPunishTransaction();
+        tx.setTxData(data);
+        YellowPunishTransaction parsed = assertSignedAndUnsigned(tx, new YellowPunishTransaction(), new YellowPunishTransaction());
+        assertEquals(101, parsed.getTxData().getHeight());
+        assertEquals("punished", parsed.getTxData().getAddress());
+    }
+
+    @Test
+    public void testNullTxData() throws Exception {
+        YellowPunishTransaction parsed = assertSignedAndUnsigned(new YellowPunishTransaction(), new YellowPunishTransaction(), new YellowPunishTransaction());
+        assertNull(parsed.getTxData());
+        PocExitConsensusTransaction exit = assertSignedAndUnsigned(new PocExitConsensusTransaction(), new PocExitConsensusTransaction(), new PocExitConsensusTransaction());
+        assertNull(exit.getTxData());
+        assertNull(exit.getCoinData());
+    }
+
+    private static <T extends Transaction> T assertSignedAndUnsigned(Transaction tx, T signed, T unsigned) throws Exception {
+        tx.setFee(Na.valueOf(100000));
+        tx.setSign(sign());
+        assertRoundTrip(tx, signed);
+        tx.setSign(null);
+        return assertRoundTrip(tx, unsigned);
+    }
+
+    /**
+     * serialize and parse again, the parsed hash must be the hash of the unsigned tx
+     */
+    private static <T extends Transaction> T assertRoundTrip(Transaction tx, T parsed) throws Exception {
+        byte[] bytes = tx.serialize();
+        parsed.parse(bytes);
+        assertEquals(unsignedHash(tx), parsed.getHash());
+        assertEquals(unsignedHash(parsed), parsed.getHash());
+        assertArrayEquals(bytes, parsed.serialize());
+        assertEquals(bytes.length, parsed.size());
+        return parsed;
+    }
+
+    private static NulsDigestData unsignedHash(Transaction tx) throws IOException {
+        NulsSignData sign = tx.getSign();
+        tx.setSign(null);
+        try {
+            return NulsDigestData.calcDigestData(tx.serialize());
+        } finally {
+            tx.setSign(sign);
+        }
+    }
+
+    private static NulsSignData sign() {
+        NulsSignData sign = new NulsSignData();
+        sign.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+        sign.setSignBytes(new byte[]{7, 7, 7});
+        return sign;
+    }
+
+    private static class BytesCoinData extends CoinData {
+        private byte[] bytes;
+
+        BytesCoinData() {
+        }
+
+        BytesCoinData(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public Set<NulsDigestData> getFromHashSet() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public int size() {
+            return Utils.sizeOfSerialize(bytes);
+        }
+
+        @Override
+        protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+            stream.writeBytesWithLength(bytes);
+        }
+
+        @Override
+        protected void parse(NulsByteBuffer byteBuffer) throws NulsException {
+            bytes = byteBuffer.readByLengthByte();
+        }
+    }
+
+    private static class ParseOnlyProvider implements CoinDataProvider {
+
+        @Override
+        public CoinData parse(NulsByteBuffer byteBuffer) throws NulsException {
+            return byteBuffer.readNulsData(new BytesCoinData());
+        }
+
+        @Override
+        public CoinTransferData getTransferData(CoinData coinData) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void approve(CoinData coinData, Transaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void save(CoinData coinData, Transaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void rollback(CoinData coinData, Transaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void startBatch(List<Transaction> txList) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void endBatch() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancelBatch() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CoinData createByTransferData(Transaction tx, CoinTransferData coinParam, String password) throws NulsException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
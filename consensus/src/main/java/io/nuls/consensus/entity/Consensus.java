@@ -56,7 +56,7 @@ public class Consensus<T extends BaseNulsData> extends BaseNulsData implements N
     protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
         stream.writeString(address);
         if (null != extend) {
-            stream.writeBytesWithLength(extend.serialize());
+            stream.writeNulsData(extend);
         }
     }
 
@@ -25,6 +25,7 @@ package io.nuls.consensus.entity;
 
 import io.nuls.core.chain.entity.BaseNulsData;
 import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.constant.NulsConstant;
 import io.nuls.core.crypto.VarInt;
 import io.nuls.core.exception.NulsException;
@@ -38,6 +39,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * Asks for the txs of a block by their index in the block.
+ *
  * @author Niels
  * @date 2017/12/18
  */
@@ -46,7 +49,7 @@ public class GetTxGroupParam extends BaseNulsData {
     private long time;
     private NulsDigestData blockHash;
 
-    private List<NulsDigestData> txHashList;
+    private List<Integer> txIndexList;
 
     public GetTxGroupParam() {
         this.time = TimeService.currentTimeMillis();
@@ -57,8 +60,10 @@ public class GetTxGroupParam extends BaseNulsData {
         int size = 0;
         size += NulsConstant.TIME_VALUE_LENGTH;
         size += Utils.sizeOfSerialize(blockHash);
-        size += VarInt.sizeOf(txHashList.size());
-        size += this.getTxHashBytesLength();
+        size += VarInt.sizeOf(txIndexList.size());
+        for (int index : txIndexList) {
+            size += VarInt.sizeOf(index);
+        }
         return size;
     }
 
@@ -66,9 +71,9 @@ public class GetTxGroupParam extends BaseNulsData {
     protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
         stream.writeTime(time);
         stream.writeNulsData(blockHash);
-        stream.writeVarInt(txHashList.size());
-        for (NulsDigestData data : txHashList) {
-            stream.writeNulsData(data);
+        stream.writeVarInt(txIndexList.size());
+        for (int index : txIndexList) {
+            stream.writeVarInt(index);
         }
     }
 
@@ -77,18 +82,13 @@ public class GetTxGroupParam extends BaseNulsData {
         this.time = byteBuffer.readTime();
         this.blockHash = byteBuffer.readHash();
         long txCount = byteBuffer.readVarInt();
-        this.txHashList = new ArrayList<>();
-        for (int i = 0; i < txCount; i++) {
-            this.txHashList.add(byteBuffer.readHash());
+        if (txCount < 0 || txCount > byteBuffer.remaining()) {
+            throw new NulsException(ErrorCode.DATA_PARSE_ERROR);
         }
-    }
-
-    private int getTxHashBytesLength() {
-        int size = 0;
-        for (NulsDigestData hash : txHashList) {
-            size += Utils.sizeOfSerialize(hash);
+        this.txIndexList = new ArrayList<>();
+        for (int i = 0; i < txCount; i++) {
+            this.txIndexList.add((int) byteBuffer.readVarInt());
         }
-        return size;
     }
 
     public NulsDigestData getBlockHash() {
@@ -99,11 +99,11 @@ public class GetTxGroupParam extends BaseNulsData {
         this.blockHash = blockHash;
     }
 
-    public List<NulsDigestData> getTxHashList() {
-        return txHashList;
+    public List<Integer> getTxIndexList() {
+        return txIndexList;
     }
 
-    public void setTxHashList(List<NulsDigestData> txHashList) {
-        this.txHashList = txHashList;
+    public void setTxIndexList(List<Integer> txIndexList) {
+        this.txIndexList = txIndexList;
     }
 }
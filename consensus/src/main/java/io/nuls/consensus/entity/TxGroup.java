@@ -25,6 +25,7 @@ package io.nuls.consensus.entity;
 
 import io.nuls.core.chain.entity.BaseNulsData;
 import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsDigestKey;
 import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.crypto.VarInt;
 import io.nuls.core.exception.NulsException;
@@ -46,7 +47,7 @@ public class TxGroup extends BaseNulsData {
 
     private NulsDigestData blockHash;
     private List<Transaction> txList;
-    private Map<String, Transaction> txMap;
+    private Map<NulsDigestKey, Transaction> txMap;
 
     @Override
     public int size() {
@@ -92,7 +93,7 @@ public class TxGroup extends BaseNulsData {
     private void initTxMap() {
         this.txMap = new HashMap<>();
         for (Transaction tx : txList) {
-            txMap.put(tx.getHash().getDigestHex(), tx);
+            txMap.put(tx.getHash().getKey(), tx);
         }
     }
 
@@ -113,7 +114,7 @@ public class TxGroup extends BaseNulsData {
         initTxMap();
     }
 
-    public Transaction getTx(String digestHex) {
-        return txMap.get(digestHex);
+    public Transaction getTx(NulsDigestData hash) {
+        return txMap.get(hash.getKey());
     }
 }
@@ -59,6 +59,8 @@ public interface BlockService {
 
     Block getBlock(String hash);
 
+    Block getBlock(NulsDigestData hash);
+
     Block getBlock(long height);
 
     List<Block> getBlockList(long startHeight, long endHeight);
@@ -30,7 +30,6 @@ import io.nuls.core.exception.NulsVerificationException;
 import io.nuls.core.utils.io.NulsByteBuffer;
 import io.nuls.core.utils.io.NulsOutputStreamBuffer;
 import io.nuls.core.validate.DataValidatorChain;
-import io.nuls.core.validate.NulsDataValidator;
 import io.nuls.core.validate.ValidateResult;
 import io.nuls.core.validate.ValidatorManager;
 
@@ -54,11 +53,6 @@ public abstract class BaseNulsData implements Serializable, Cloneable {
         this.parse(buffer);
     }
 
-
-    protected void registerValidator(NulsDataValidator<? extends BaseNulsData> validator) {
-        ValidatorManager.addValidator(this.getClass(), validator);
-    }
-
     public abstract int size();
 
     /**
@@ -89,6 +83,21 @@ public abstract class BaseNulsData implements Serializable, Cloneable {
         }
     }
 
+    /**
+     * write into a stream supplied by the caller, nested data is written in the same pass
+     * instead of being serialized into a byte array of its own first
+     *
+     * @param stream
+     * @throws IOException
+     */
+    public final void serializeTo(NulsOutputStreamBuffer stream) throws IOException {
+        if (size() == 0) {
+            stream.write(NulsConstant.PLACE_HOLDER);
+        } else {
+            serializeToStream(stream);
+        }
+    }
+
     public final void parse(byte[] bytes) throws NulsException {
         if (bytes == null || bytes.length == 0 || ((bytes.length == 4) && Arrays.equals(NulsConstant.PLACE_HOLDER, bytes))) {
             return;
@@ -96,6 +105,17 @@ public abstract class BaseNulsData implements Serializable, Cloneable {
         this.parse(new NulsByteBuffer(bytes));
     }
 
+    /**
+     * parse from the cursor of a buffer that is shared with the enclosing data,
+     * so the remaining payload does not have to be copied for every nested field
+     *
+     * @param byteBuffer
+     * @throws NulsException
+     */
+    public final void parseFrom(NulsByteBuffer byteBuffer) throws NulsException {
+        this.parse(byteBuffer);
+    }
+
     /**
      * serialize important field
      *
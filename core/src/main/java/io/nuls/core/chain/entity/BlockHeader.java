@@ -23,18 +23,14 @@
  */
 package io.nuls.core.chain.entity;
 
-import io.nuls.core.chain.manager.BlockHeaderValidatorManager;
 import io.nuls.core.crypto.VarInt;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.utils.crypto.Utils;
 import io.nuls.core.utils.io.NulsByteBuffer;
 import io.nuls.core.utils.io.NulsOutputStreamBuffer;
-import io.nuls.core.utils.log.Log;
-import io.nuls.core.validate.NulsDataValidator;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
 
 /**
  * @author vivi
@@ -59,14 +55,6 @@ public class BlockHeader extends BaseNulsData {
     private byte[] extend;
 
     public BlockHeader() {
-        initValidators();
-    }
-
-    private void initValidators() {
-        List<NulsDataValidator> list = BlockHeaderValidatorManager.getValidators();
-        for (NulsDataValidator validator : list) {
-            this.registerValidator(validator);
-        }
     }
 
     @Override
@@ -97,6 +85,7 @@ public class BlockHeader extends BaseNulsData {
 
     @Override
     protected void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        int start = byteBuffer.getCursor();
         this.preHash = byteBuffer.readHash();
         this.merkleHash = byteBuffer.readHash();
         this.time = byteBuffer.readVarInt();
@@ -104,11 +93,8 @@ public class BlockHeader extends BaseNulsData {
         this.txCount = byteBuffer.readVarInt();
         this.packingAddress = byteBuffer.readString();
         this.extend = byteBuffer.readByLengthByte();
-        try {
-            this.hash = NulsDigestData.calcDigestData(this.serialize());
-        } catch (IOException e) {
-            Log.error(e);
-        }
+        int signStart = byteBuffer.getCursor();
+        this.hash = NulsDigestData.calcUnsignedDigestData(byteBuffer.getPayload(), start, signStart, signStart, signStart);
         this.sign = byteBuffer.readSign();
 
     }
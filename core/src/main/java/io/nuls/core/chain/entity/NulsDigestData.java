@@ -24,6 +24,7 @@
 package io.nuls.core.chain.entity;
 
 
+import io.nuls.core.constant.NulsConstant;
 import io.nuls.core.crypto.Sha256Hash;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.exception.NulsRuntimeException;
@@ -34,6 +35,8 @@ import io.nuls.core.utils.io.NulsOutputStreamBuffer;
 import io.nuls.core.utils.log.Log;
 
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -45,6 +48,7 @@ public class NulsDigestData extends BaseNulsData {
     public static final NulsDigestData EMPTY_HASH = new NulsDigestData(new byte[]{0, 0,1, 0});
     protected short digestAlgType = 0;
     protected byte[] digestBytes;
+    private transient NulsDigestKey key;
 
     public NulsDigestData() {
     }
@@ -65,6 +69,7 @@ public class NulsDigestData extends BaseNulsData {
 
     public void setDigestAlgType(short digestAlgType) {
         this.digestAlgType = digestAlgType;
+        this.key = null;
     }
 
     @Override
@@ -82,15 +87,23 @@ public class NulsDigestData extends BaseNulsData {
     protected void parse(NulsByteBuffer byteBuffer) throws NulsException {
         this.setDigestAlgType(byteBuffer.readShort());
         this.digestBytes = byteBuffer.readByLengthByte();
+        this.key = null;
     }
 
     public String getDigestHex() {
-        try {
-            return Hex.encode(serialize());
-        } catch (IOException e) {
-            Log.error(e);
-            return null;
+        return getKey().getDigestHex();
+    }
+
+    /**
+     * the immutable identity of this digest, use it instead of the hex string as a map or cache key
+     */
+    public NulsDigestKey getKey() {
+        NulsDigestKey digestKey = this.key;
+        if (null == digestKey) {
+            digestKey = NulsDigestKey.of(digestAlgType, digestBytes);
+            this.key = digestKey;
         }
+        return digestKey;
     }
 
     public static NulsDigestData fromDigestHex(String hex) {
@@ -141,6 +154,21 @@ public class NulsDigestData extends BaseNulsData {
         return digestData;
     }
 
+    /**
+     * Calc the digest of signed data straight from the bytes it was parsed from.
+     * The digest covers [start, end) with the sign in [signStart, signEnd) replaced by the place holder,
+     * which is what serialize() writes while the sign is not set yet.
+     */
+    public static NulsDigestData calcUnsignedDigestData(byte[] payload, int start, int signStart, int signEnd, int end) {
+        MessageDigest digest = Sha256Hash.newDigest();
+        digest.update(payload, start, signStart - start);
+        digest.update(NulsConstant.PLACE_HOLDER);
+        digest.update(payload, signEnd, end - signEnd);
+        NulsDigestData digestData = new NulsDigestData();
+        digestData.digestBytes = digest.digest(digest.digest());
+        return digestData;
+    }
+
     public static NulsDigestData calcMerkleDigestData(List<NulsDigestData> ddList) {
         //todo
         int levelOffset = 0;
@@ -168,13 +196,16 @@ public class NulsDigestData extends BaseNulsData {
         if (!(obj instanceof NulsDigestData)) {
             return false;
         }
-        if (this.getWholeBytes() == null || ((NulsDigestData) obj).getWholeBytes() == null) {
-            return false;
-        }
-        if (this.getWholeBytes().length != ((NulsDigestData) obj).getWholeBytes().length) {
+        NulsDigestData other = (NulsDigestData) obj;
+        if (this.digestBytes == null || other.digestBytes == null) {
             return false;
         }
-        return this.getDigestHex().equals(((NulsDigestData) obj).getDigestHex());
+        return this.digestAlgType == other.digestAlgType && Arrays.equals(this.digestBytes, other.digestBytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return getKey().hashCode();
     }
 
     @Override
@@ -0,0 +1,124 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.chain.entity;
+
+import io.nuls.core.crypto.VarInt;
+import io.nuls.core.utils.crypto.Hex;
+import io.nuls.core.utils.crypto.Utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Immutable identity of a {@link NulsDigestData}, intended to be used as a key in maps, sets and caches.
+ * It holds the serialized digest bytes (algorithm type, length and digest), so two keys are equal exactly
+ * when their {@link #getDigestHex()} values are equal, without encoding anything to compare them.
+ */
+public final class NulsDigestKey implements Serializable, Comparable<NulsDigestKey> {
+
+    private static final long serialVersionUID = -6105487297539418921L;
+
+    private final byte[] wholeBytes;
+    private final int hashCode;
+    private transient volatile String digestHex;
+
+    private NulsDigestKey(byte[] wholeBytes) {
+        this.wholeBytes = wholeBytes;
+        this.hashCode = Arrays.hashCode(wholeBytes);
+    }
+
+    public static NulsDigestKey of(short digestAlgType, byte[] digestBytes) {
+        int length = null == digestBytes ? 0 : digestBytes.length;
+        byte[] lengthBytes = new VarInt(length).encode();
+        byte[] bytes = new byte[2 + lengthBytes.length + length];
+        byte[] algBytes = Utils.shortToBytes(digestAlgType);
+        System.arraycopy(algBytes, 0, bytes, 0, 2);
+        System.arraycopy(lengthBytes, 0, bytes, 2, lengthBytes.length);
+        if (length > 0) {
+            System.arraycopy(digestBytes, 0, bytes, 2 + lengthBytes.length, length);
+        }
+        return new NulsDigestKey(bytes);
+    }
+
+    public static NulsDigestKey fromDigestHex(String hex) {
+        NulsDigestKey key = new NulsDigestKey(Hex.decode(hex));
+        key.digestHex = hex;
+        return key;
+    }
+
+    /**
+     * the hex string is computed once and then shared by every caller
+     */
+    public String getDigestHex() {
+        String hex = digestHex;
+        if (null == hex) {
+            hex = Hex.encode(wholeBytes);
+            digestHex = hex;
+        }
+        return hex;
+    }
+
+    public NulsDigestData toDigestData() {
+        return new NulsDigestData(Arrays.copyOf(wholeBytes, wholeBytes.length));
+    }
+
+    public int size() {
+        return wholeBytes.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof NulsDigestKey)) {
+            return false;
+        }
+        NulsDigestKey other = (NulsDigestKey) obj;
+        return hashCode == other.hashCode && Arrays.equals(wholeBytes, other.wholeBytes);
+    }
+
+    @Override
+    public int compareTo(NulsDigestKey other) {
+        int length = Math.min(wholeBytes.length, other.wholeBytes.length);
+        for (int i = 0; i < length; i++) {
+            int a = wholeBytes[i] & 0xff;
+            int b = other.wholeBytes[i] & 0xff;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return wholeBytes.length - other.wholeBytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return getDigestHex();
+    }
+}
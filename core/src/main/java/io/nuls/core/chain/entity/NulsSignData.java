@@ -40,6 +40,11 @@ public class NulsSignData extends BaseNulsData {
 
     public static final NulsSignData EMPTY_SIGN = new NulsSignData(new byte[]{0, 0, 1, 0});
 
+    /**
+     * signBytes is an input script: <DER signature> <public key>
+     */
+    public static final short SIGN_ALG_ECC = 1;
+
     protected short signAlgType;
     protected byte[] signBytes;
 
@@ -23,7 +23,11 @@
  */
 package io.nuls.core.chain.entity;
 
+import io.nuls.core.constant.ErrorCode;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.crypto.VarInt;
 import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.crypto.SipHash;
 import io.nuls.core.utils.crypto.Utils;
 import io.nuls.core.utils.io.NulsByteBuffer;
 import io.nuls.core.utils.io.NulsOutputStreamBuffer;
@@ -31,23 +35,40 @@ import io.nuls.core.utils.io.NulsOutputStreamBuffer;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
+ * A block without its txs: the txs the receiver can not have are sent whole, the others as 6-byte short ids
+ * the receiver matches against the txs it already holds.
+ * The short id of a tx is its SipHash-2-4 keyed with the block hash, so ids can not be chosen to collide
+ * across blocks.
+ *
  * @author Niels
  * @date 2018/1/2
  */
 public class SmallBlock extends BaseNulsData {
+
+    public static final int SHORT_ID_LENGTH = 6;
+    private static final long SHORT_ID_MASK = 0xffffffffffffL;
+
     private NulsDigestData blockHash;
     private long txCount;
-    private List<NulsDigestData> txHashList;
+    private Map<Integer, Transaction> prefilledTxMap = new TreeMap<>();
+    private List<Long> shortIdList = new ArrayList<>();
+
+    private long[] shortIdKey;
 
     @Override
     public int size() {
         int size = Utils.sizeOfSerialize(blockHash);
         size += Utils.sizeOfSerialize(txCount);
-        for (NulsDigestData hash : txHashList) {
-            size += Utils.sizeOfSerialize(hash);
+        size += VarInt.sizeOf(prefilledTxMap.size());
+        for (Map.Entry<Integer, Transaction> entry : prefilledTxMap.entrySet()) {
+            size += VarInt.sizeOf(entry.getKey());
+            size += Utils.sizeOfSerialize(entry.getValue());
         }
+        size += SHORT_ID_LENGTH * shortIdList.size();
         return size;
     }
 
@@ -55,38 +76,83 @@ public class SmallBlock extends BaseNulsData {
     protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
         stream.writeNulsData(blockHash);
         stream.writeVarInt(txCount);
-        for (NulsDigestData hash : txHashList) {
-            stream.writeNulsData(hash);
+        stream.writeVarInt(prefilledTxMap.size());
+        for (Map.Entry<Integer, Transaction> entry : prefilledTxMap.entrySet()) {
+            stream.writeVarInt(entry.getKey());
+            stream.writeNulsData(entry.getValue());
+        }
+        byte[] bytes = new byte[SHORT_ID_LENGTH];
+        for (long shortId : shortIdList) {
+            for (int i = 0; i < SHORT_ID_LENGTH; i++) {
+                bytes[i] = (byte) (shortId >>> (8 * i));
+            }
+            stream.write(bytes);
         }
     }
 
     @Override
     protected void parse(NulsByteBuffer byteBuffer) throws NulsException {
         blockHash = byteBuffer.readHash();
-        txCount = (int) byteBuffer.readVarInt();
-        List<NulsDigestData> hashList = new ArrayList<>();
-        for (int i = 0; i < txCount; i++) {
-            hashList.add(byteBuffer.readHash());
+        txCount = byteBuffer.readVarInt();
+        long prefilledCount = byteBuffer.readVarInt();
+        if (txCount < 0 || prefilledCount < 0 || prefilledCount > txCount) {
+            throw new NulsException(ErrorCode.DATA_PARSE_ERROR);
+        }
+        prefilledTxMap = new TreeMap<>();
+        for (int i = 0; i < prefilledCount; i++) {
+            long index = byteBuffer.readVarInt();
+            if (index < 0 || index >= txCount || prefilledTxMap.containsKey((int) index)) {
+                throw new NulsException(ErrorCode.DATA_PARSE_ERROR);
+            }
+            prefilledTxMap.put((int) index, byteBuffer.readTransaction());
+        }
+        long shortIdCount = txCount - prefilledCount;
+        if (shortIdCount * SHORT_ID_LENGTH > byteBuffer.remaining()) {
+            throw new NulsException(ErrorCode.DATA_PARSE_ERROR);
         }
-        if (!hashList.isEmpty()) {
-            this.txHashList = hashList;
+        shortIdList = new ArrayList<>((int) shortIdCount);
+        for (int i = 0; i < shortIdCount; i++) {
+            byte[] bytes = byteBuffer.readBytes(SHORT_ID_LENGTH);
+            long shortId = 0;
+            for (int j = 0; j < SHORT_ID_LENGTH; j++) {
+                shortId |= (bytes[j] & 0xffL) << (8 * j);
+            }
+            shortIdList.add(shortId);
         }
     }
 
-    public NulsDigestData getBlockHash() {
-        return blockHash;
+    /**
+     * @return the short id of the tx in this block
+     */
+    public long getShortId(NulsDigestData txHash) {
+        if (null == shortIdKey) {
+            byte[] key = Sha256Hash.hash(blockHash.getDigestBytes());
+            shortIdKey = new long[]{Utils.readInt64LE(key, 0), Utils.readInt64LE(key, 8)};
+        }
+        return SipHash.hash(shortIdKey[0], shortIdKey[1], txHash.getDigestBytes()) & SHORT_ID_MASK;
     }
 
-    public void setBlockHash(NulsDigestData blockHash) {
-        this.blockHash = blockHash;
+    /**
+     * add a tx of the block, in block order
+     *
+     * @param prefilled send the whole tx instead of its short id
+     */
+    public void addTx(Transaction tx, boolean prefilled) {
+        if (prefilled) {
+            prefilledTxMap.put((int) txCount, tx);
+        } else {
+            shortIdList.add(getShortId(tx.getHash()));
+        }
+        txCount++;
     }
 
-    public List<NulsDigestData> getTxHashList() {
-        return txHashList;
+    public NulsDigestData getBlockHash() {
+        return blockHash;
     }
 
-    public void setTxHashList(List<NulsDigestData> txHashList) {
-        this.txHashList = txHashList;
+    public void setBlockHash(NulsDigestData blockHash) {
+        this.blockHash = blockHash;
+        this.shortIdKey = null;
     }
 
     public long getTxCount() {
@@ -96,4 +162,26 @@ public class SmallBlock extends BaseNulsData {
     public void setTxCount(long txCount) {
         this.txCount = txCount;
     }
+
+    /**
+     * @return the prefilled txs by their index in the block
+     */
+    public Map<Integer, Transaction> getPrefilledTxMap() {
+        return prefilledTxMap;
+    }
+
+    public void setPrefilledTxMap(Map<Integer, Transaction> prefilledTxMap) {
+        this.prefilledTxMap = prefilledTxMap;
+    }
+
+    /**
+     * @return the short ids of the txs that are not prefilled, in block order
+     */
+    public List<Long> getShortIdList() {
+        return shortIdList;
+    }
+
+    public void setShortIdList(List<Long> shortIdList) {
+        this.shortIdList = shortIdList;
+    }
 }
@@ -24,7 +24,6 @@
 package io.nuls.core.chain.entity;
 
 import io.nuls.core.chain.intf.NulsCloneable;
-import io.nuls.core.chain.manager.TransactionValidatorManager;
 import io.nuls.core.constant.TxStatusEnum;
 import io.nuls.core.crypto.VarInt;
 import io.nuls.core.exception.NulsException;
@@ -33,10 +32,8 @@ import io.nuls.core.utils.date.TimeService;
 import io.nuls.core.utils.io.NulsByteBuffer;
 import io.nuls.core.utils.io.NulsOutputStreamBuffer;
 import io.nuls.core.utils.log.Log;
-import io.nuls.core.validate.NulsDataValidator;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * @author Niels
@@ -71,24 +68,33 @@ public abstract class Transaction<T extends BaseNulsData> extends BaseNulsData i
     // when localTx is true, should care transferType
     protected int transferType;
 
+    /**
+     * a parsed transaction is not changed any more, so its size is only calculated once
+     */
+    private boolean parsed;
+    private int parsedSize;
+
     public Transaction(int type) {
         this.dataType = NulsDataType.TRANSACTION;
         this.time = TimeService.currentTimeMillis();
         this.type = type;
-        this.initValidators();
-    }
-
-    private void initValidators() {
-        List<NulsDataValidator> list = TransactionValidatorManager.getValidators();
-        for (NulsDataValidator<Transaction> validator : list) {
-            this.registerValidator(validator);
-        }
     }
 
     public abstract T parseTxData(NulsByteBuffer byteBuffer) throws NulsException;
 
     @Override
-    public int size() {
+    public final int size() {
+        if (parsedSize > 0) {
+            return parsedSize;
+        }
+        int size = calcSize();
+        if (parsed) {
+            this.parsedSize = size;
+        }
+        return size;
+    }
+
+    protected int calcSize() {
         int size = 0;
         size += VarInt.sizeOf(type);
         size += VarInt.sizeOf(time);
@@ -111,18 +117,40 @@ public abstract class Transaction<T extends BaseNulsData> extends BaseNulsData i
 
     @Override
     protected void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        int start = byteBuffer.getCursor();
         type = (int) byteBuffer.readVarInt();
         time = byteBuffer.readVarInt();
         long feeValue = byteBuffer.readVarInt();
         this.fee = Na.valueOf(feeValue);
         this.remark = byteBuffer.readByLengthByte();
-        txData = this.parseTxData(byteBuffer);
-        try {
-            hash = NulsDigestData.calcDigestData(this.serialize());
-        } catch (IOException e) {
-            Log.error(e);
+        if (byteBuffer.readPlaceHolder()) {
+            txData = null;
+        } else {
+            txData = this.parseTxData(byteBuffer);
         }
+        int signStart = byteBuffer.getCursor();
         sign = byteBuffer.readSign();
+        int signEnd = byteBuffer.getCursor();
+        this.parseAfterSign(byteBuffer);
+        hash = NulsDigestData.calcUnsignedDigestData(byteBuffer.getPayload(), start, signStart, signEnd, byteBuffer.getCursor());
+        this.parsed = true;
+        this.parsedSize = 0;
+    }
+
+    /**
+     * to be called by the setters of serialized fields
+     */
+    protected final void resetSize() {
+        this.parsedSize = 0;
+    }
+
+    /**
+     * parse the fields that are serialized after the sign, they are part of the hash as well
+     *
+     * @param byteBuffer
+     * @throws NulsException
+     */
+    protected void parseAfterSign(NulsByteBuffer byteBuffer) throws NulsException {
     }
 
 
@@ -142,10 +170,12 @@ public abstract class Transaction<T extends BaseNulsData> extends BaseNulsData i
 
     public void setTime(long time) {
         this.time = time;
+        this.resetSize();
     }
 
     public void setType(int type) {
         this.type = type;
+        this.resetSize();
     }
 
     public int getType() {
@@ -158,6 +188,7 @@ public abstract class Transaction<T extends BaseNulsData> extends BaseNulsData i
 
     public void setRemark(byte[] remark) {
         this.remark = remark;
+        this.resetSize();
     }
 
     public NulsDigestData getHash() {
@@ -174,6 +205,7 @@ public abstract class Transaction<T extends BaseNulsData> extends BaseNulsData i
 
     public void setSign(NulsSignData sign) {
         this.sign = sign;
+        this.resetSize();
     }
 
     public T getTxData() {
@@ -182,6 +214,7 @@ public abstract class Transaction<T extends BaseNulsData> extends BaseNulsData i
 
     public void setTxData(T txData) {
         this.txData = txData;
+        this.resetSize();
     }
 
     public Na getFee() {
@@ -190,6 +223,7 @@ public abstract class Transaction<T extends BaseNulsData> extends BaseNulsData i
 
     public void setFee(Na fee) {
         this.fee = fee;
+        this.resetSize();
     }
 
     public long getBlockHeight() {
@@ -31,10 +31,8 @@ import io.nuls.core.tx.serivce.TransactionService;
 import io.nuls.core.utils.io.NulsByteBuffer;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Niels
@@ -44,6 +42,7 @@ public class TransactionManager {
 
     private static final Map<Integer, Class<? extends Transaction>> TX_MAP = new HashMap<>();
     private static final Map<Class<? extends Transaction>, TransactionService> TX_SERVICE_MAP = new HashMap<>();
+    private static final Map<Class, List<TransactionService>> SERVICE_LIST_MAP = new ConcurrentHashMap<>();
 
     public static final void putTx(int txType, Class<? extends Transaction> txClass, TransactionService txService) {
         if (TX_MAP.containsKey(txType)) {
@@ -51,6 +50,7 @@ public class TransactionManager {
         }
         TX_MAP.put(txType, txClass);
         TX_SERVICE_MAP.put(txClass, txService);
+        SERVICE_LIST_MAP.clear();
     }
 
     public static final Class<? extends Transaction> getTxClass(int txType) {
@@ -75,7 +75,7 @@ public class TransactionManager {
     }
 
     public static Transaction getInstance(NulsByteBuffer byteBuffer) throws Exception {
-        int txType = (int) new NulsByteBuffer(byteBuffer.getPayloadByCursor()).readVarInt();
+        int txType = (int) byteBuffer.peekVarInt();
         Class<? extends Transaction> txClass = getTxClass(txType);
         if (null == txClass) {
             throw new NulsRuntimeException(ErrorCode.FAILED, "transaction type not exist!");
@@ -87,4 +87,27 @@ public class TransactionManager {
     public static TransactionService getService(Class<? extends Transaction> txClass) {
         return TX_SERVICE_MAP.get(txClass);
     }
+
+    /**
+     * the services of the class and of its super classes, the super classes first.
+     * The list is built on the first call and shared afterwards, it must not be modified
+     */
+    public static List<TransactionService> getServiceList(Class<? extends Transaction> txClass) {
+        List<TransactionService> list = SERVICE_LIST_MAP.get(txClass);
+        if (null != list) {
+            return list;
+        }
+        list = new ArrayList<>();
+        Class clazz = txClass;
+        while (null != clazz && !clazz.equals(Transaction.class)) {
+            TransactionService txService = TX_SERVICE_MAP.get(clazz);
+            if (null != txService) {
+                list.add(0, txService);
+            }
+            clazz = clazz.getSuperclass();
+        }
+        list = Collections.unmodifiableList(list);
+        SERVICE_LIST_MAP.put(txClass, list);
+        return list;
+    }
 }
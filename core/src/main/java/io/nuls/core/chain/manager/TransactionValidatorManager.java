@@ -23,7 +23,9 @@
  */
 package io.nuls.core.chain.manager;
 
+import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.validate.NulsDataValidator;
+import io.nuls.core.validate.ValidatorManager;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +44,7 @@ public class TransactionValidatorManager {
      */
     public static void addTxDefValidator(NulsDataValidator validator) {
         ALL_LIST.add(validator);
+        ValidatorManager.addValidator(Transaction.class, validator);
     }
 
     public static final List<NulsDataValidator> getValidators() {
@@ -126,7 +126,8 @@ public enum ErrorCode {
      * ------------  Ledger Exception code   --------------
      */
     BALANCE_NOT_ENOUGH("LED001", 70001),
-    UTXO_STATUS_CHANGE("LED002", 700002);
+    UTXO_STATUS_CHANGE("LED002", 700002),
+    UTXO_OWNER_NOT_MATCH("LED003", 70003);
 
     private final int msg;
     private final String code;
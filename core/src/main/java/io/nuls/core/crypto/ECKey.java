@@ -397,12 +397,26 @@ public class ECKey {
         return doSign(hash, priv);
     }
 
+    /**
+     * 签名原始数据，与 {@link #verify(byte[], byte[], byte[])} 校验的数据一致
+     *
+     * @param data
+     * @return ECDSASignature
+     */
+    public ECDSASignature sign(byte[] data) {
+        return doSign(data, priv);
+    }
+
     protected ECDSASignature doSign(Sha256Hash input, BigInteger privateKeyForSigning) {
+        return doSign(input.getBytes(), privateKeyForSigning);
+    }
+
+    protected ECDSASignature doSign(byte[] input, BigInteger privateKeyForSigning) {
         Utils.checkNotNull(privateKeyForSigning);
         ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
         ECPrivateKeyParameters privKey = new ECPrivateKeyParameters(privateKeyForSigning, CURVE);
         signer.init(true, privKey);
-        BigInteger[] components = signer.generateSignature(input.getBytes());
+        BigInteger[] components = signer.generateSignature(input);
         return new ECDSASignature(components[0], components[1]).toCanonicalised();
     }
 
@@ -27,7 +27,6 @@ import io.nuls.core.chain.entity.BaseNulsData;
 import io.nuls.core.chain.entity.NulsDigestData;
 import io.nuls.core.chain.entity.NulsSignData;
 import io.nuls.core.chain.intf.NulsCloneable;
-import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.utils.crypto.Utils;
 import io.nuls.core.utils.io.NulsByteBuffer;
@@ -69,14 +68,11 @@ public abstract class BaseEvent<T extends BaseNulsData> extends BaseNulsData imp
 
     @Override
     protected void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        int start = byteBuffer.getCursor();
         this.header = byteBuffer.readNulsData(new EventHeader());
         this.eventBody = parseEventBody(byteBuffer);
-        try {
-            this.hash = NulsDigestData.calcDigestData(this.serialize());
-        } catch (IOException e) {
-            Log.error(e);
-            throw new NulsException(ErrorCode.DATA_PARSE_ERROR);
-        }
+        int signStart = byteBuffer.getCursor();
+        this.hash = NulsDigestData.calcUnsignedDigestData(byteBuffer.getPayload(), start, signStart, signStart, signStart);
         this.sign = byteBuffer.readSign();
     }
 
@@ -79,8 +79,17 @@ public class EventManager {
     }
 
     public static BaseEvent getInstance(byte[] bytes) throws NulsException {
+        return getInstance(new NulsByteBuffer(bytes));
+    }
+
+    /**
+     * parse the event from the buffer, starting at its current cursor
+     */
+    public static BaseEvent getInstance(NulsByteBuffer byteBuffer) throws NulsException {
+        NulsByteBuffer eventBuffer = byteBuffer.readSlice(byteBuffer.remaining());
         EventHeader header = new EventHeader();
-        header.parse(new NulsByteBuffer(bytes));
+        header.parse(eventBuffer);
+        eventBuffer.resetCursor();
         Class<? extends BaseEvent> clazz = EVENT_MAP.get(header.getModuleId() + "_" + header.getEventType());
         if (null == clazz) {
             return null;
@@ -93,7 +102,7 @@ public class EventManager {
             throw new NulsException(ErrorCode.DATA_PARSE_ERROR);
         }
         try {
-            event.parse(new NulsByteBuffer(bytes));
+            event.parse(eventBuffer);
         } catch (Exception e) {
             Log.error(e);
             throw e;
@@ -39,6 +39,11 @@ public class NulsMessage {
 
     protected byte[] data;
 
+    /**
+     * the body of a message parsed from a view, it is copied into data only when data is asked for
+     */
+    private NulsByteBuffer body;
+
     public NulsMessage() {
         this.header = new NulsMessageHeader();
         this.data = new byte[0];
@@ -48,6 +53,10 @@ public class NulsMessage {
         parse(buffer);
     }
 
+    public NulsMessage(NulsByteBuffer byteBuffer) throws NulsException {
+        parse(byteBuffer);
+    }
+
     public NulsMessage(NulsMessageHeader header) {
         this.header = header;
         this.data = new byte[0];
@@ -82,12 +91,20 @@ public class NulsMessage {
     }
 
     public byte caculateXor() {
-        if (header == null || data == null || data.length == 0) {
+        if (header == null || getDataLength() == 0) {
             return 0x00;
         }
         byte xor = 0x00;
-        for (int i = 0; i < data.length; i++) {
-            xor ^= data[i];
+        if (data != null) {
+            for (int i = 0; i < data.length; i++) {
+                xor ^= data[i];
+            }
+        } else {
+            byte[] payload = body.getPayload();
+            int end = body.getCursor() + body.remaining();
+            for (int i = body.getCursor(); i < end; i++) {
+                xor ^= payload[i];
+            }
         }
         header.setXor(xor);
         return xor;
@@ -110,6 +127,16 @@ public class NulsMessage {
 
         this.header = header;
         this.data = data;
+        this.body = null;
+    }
+
+    /**
+     * read the header and keep the body as a view of the buffer, the buffer must not change until the body was parsed
+     */
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.header = new NulsMessageHeader(byteBuffer);
+        this.body = byteBuffer.readSlice(header.getLength());
+        this.data = null;
     }
 
     public void setHeader(NulsMessageHeader header) {
@@ -117,19 +144,40 @@ public class NulsMessage {
     }
 
     public byte[] getData() {
+        if (data == null && body != null) {
+            data = body.getPayloadByCursor();
+        }
         return data;
     }
 
     public void setData(byte[] data) {
         this.data = data;
+        this.body = null;
+    }
+
+    /**
+     * @return a buffer to parse the body from, without copying it
+     */
+    public NulsByteBuffer getBody() {
+        if (data == null && body != null) {
+            return new NulsByteBuffer(body.getPayload(), body.getCursor(), body.remaining());
+        }
+        return new NulsByteBuffer(data, 0, data.length);
+    }
+
+    private int getDataLength() {
+        if (data == null && body != null) {
+            return body.remaining();
+        }
+        return data == null ? 0 : data.length;
     }
 
     public void verify() throws NulsVerificationException {
-        if (this.header == null || this.data == null) {
+        if (this.header == null || (this.data == null && this.body == null)) {
             throw new NulsVerificationException(ErrorCode.NET_MESSAGE_ERROR);
         }
 
-        if (header.getLength() != data.length) {
+        if (header.getLength() != getDataLength()) {
             throw new NulsVerificationException(ErrorCode.NET_MESSAGE_LENGTH_ERROR);
         }
 
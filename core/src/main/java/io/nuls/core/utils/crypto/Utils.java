@@ -25,6 +25,7 @@ package io.nuls.core.utils.crypto;
 
 import io.nuls.core.chain.entity.BaseNulsData;
 import io.nuls.core.constant.ErrorCode;
+import io.nuls.core.constant.NulsConstant;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.crypto.Sha256Hash;
 import io.nuls.core.crypto.VarInt;
@@ -498,10 +499,20 @@ public class Utils {
         } else if (val instanceof byte[]) {
             return VarInt.sizeOf(((byte[]) val).length) + ((byte[]) val).length;
         } else if (val instanceof BaseNulsData) {
-            int size = ((BaseNulsData) val).size();
-            return size == 0 ? 1 : size;
+            return sizeOfSerialize((BaseNulsData) val);
         }
         throw new NulsRuntimeException(ErrorCode.DATA_ERROR, "instance of unkown");
     }
 
+    /**
+     * empty data is written as a place holder, see {@link io.nuls.core.utils.io.NulsOutputStreamBuffer#writeNulsData}
+     */
+    public static int sizeOfSerialize(BaseNulsData val) {
+        if (null == val) {
+            return NulsConstant.PLACE_HOLDER.length;
+        }
+        int size = val.size();
+        return size == 0 ? NulsConstant.PLACE_HOLDER.length : size;
+    }
+
 }
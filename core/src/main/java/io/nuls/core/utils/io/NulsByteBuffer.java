@@ -38,9 +38,11 @@ import io.nuls.core.utils.crypto.Utils;
 import io.nuls.core.utils.log.Log;
 
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
 
 /**
+ * Reads nuls data from a byte array, or from the part of it between offset and limit.
+ * The cursor is an index into the whole array, so a view shares the positions of the array it was taken from.
+ *
  * @author Niels
  * @date 2017/11/2
  */
@@ -48,6 +50,10 @@ public class NulsByteBuffer {
 
     private final byte[] payload;
 
+    private final int offset;
+
+    private final int limit;
+
     private int cursor;
 
     public NulsByteBuffer(byte[] bytes) {
@@ -59,10 +65,46 @@ public class NulsByteBuffer {
             throw new NulsRuntimeException(ErrorCode.FAILED, "create byte buffer faild!");
         }
         this.payload = bytes;
+        this.offset = 0;
+        this.limit = bytes.length;
         this.cursor = cursor;
     }
 
+    /**
+     * a view of length bytes of the array starting at offset, nothing is copied
+     */
+    public NulsByteBuffer(byte[] bytes, int offset, int length) {
+        if (null == bytes || offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new NulsRuntimeException(ErrorCode.FAILED, "create byte buffer faild!");
+        }
+        this.payload = bytes;
+        this.offset = offset;
+        this.limit = offset + length;
+        this.cursor = offset;
+    }
+
+    /**
+     * @return a view of the next length bytes, the cursor is moved behind them
+     */
+    public NulsByteBuffer readSlice(int length) throws NulsException {
+        checkRemaining(length);
+        NulsByteBuffer slice = new NulsByteBuffer(payload, cursor, length);
+        cursor += length;
+        return slice;
+    }
+
+    public int remaining() {
+        return limit - cursor;
+    }
+
+    private void checkRemaining(int length) throws NulsException {
+        if (length < 0 || limit - cursor < length) {
+            throw new NulsException(ErrorCode.DATA_PARSE_ERROR);
+        }
+    }
+
     public long readUint32LE() throws NulsException {
+        checkRemaining(4);
         try {
             long u = Utils.readUint32LE(payload, cursor);
             cursor += 4;
@@ -73,6 +115,7 @@ public class NulsByteBuffer {
     }
 
     public short readInt16LE() throws NulsException {
+        checkRemaining(2);
         try {
             short s = Utils.readInt16LE(payload, cursor);
             cursor += 2;
@@ -83,6 +126,7 @@ public class NulsByteBuffer {
     }
 
     public int readInt32LE() throws NulsException {
+        checkRemaining(4);
         try {
             int u = Utils.readInt32LE(payload, cursor);
             cursor += 4;
@@ -97,6 +141,7 @@ public class NulsByteBuffer {
     }
 
     public long readInt64() throws NulsException {
+        checkRemaining(8);
         try {
             long u = Utils.readInt64LE(payload, cursor);
             cursor += 8;
@@ -111,9 +156,22 @@ public class NulsByteBuffer {
         return readVarInt(0);
     }
 
+    /**
+     * read a VarInt at the cursor without moving it
+     */
+    public long peekVarInt() throws NulsException {
+        try {
+            return new VarInt(payload, cursor).value;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new NulsException(ErrorCode.DATA_PARSE_ERROR, e);
+        }
+    }
+
     public long readVarInt(int offset) throws NulsException {
         try {
+            checkRemaining(offset + 1);
             VarInt varint = new VarInt(payload, cursor + offset);
+            checkRemaining(offset + varint.getOriginalSizeInBytes());
             cursor += offset + varint.getOriginalSizeInBytes();
             return varint.value;
         } catch (ArrayIndexOutOfBoundsException e) {
@@ -122,6 +180,7 @@ public class NulsByteBuffer {
     }
 
     public byte readByte() throws NulsException {
+        checkRemaining(1);
         try {
             byte b = payload[cursor];
             cursor += 1;
@@ -132,6 +191,7 @@ public class NulsByteBuffer {
     }
 
     public byte[] readBytes(int length) throws NulsException {
+        checkRemaining(length);
         try {
             byte[] b = new byte[length];
             System.arraycopy(payload, cursor, b, 0, length);
@@ -160,7 +220,7 @@ public class NulsByteBuffer {
     }
 
     public void resetCursor() {
-        this.cursor = 0;
+        this.cursor = offset;
     }
 
     public short readShort() throws NulsException {
@@ -194,11 +254,11 @@ public class NulsByteBuffer {
     }
 
     public boolean isFinished() {
-        return this.payload.length == cursor;
+        return limit == cursor;
     }
 
     public byte[] getPayloadByCursor() {
-        byte[] bytes = new byte[payload.length - cursor];
+        byte[] bytes = new byte[limit - cursor];
         System.arraycopy(this.payload, cursor, bytes, 0, bytes.length);
         return bytes;
     }
@@ -207,33 +267,51 @@ public class NulsByteBuffer {
         return payload;
     }
 
+    public int getCursor() {
+        return cursor;
+    }
+
     public <T extends BaseNulsData> T readNulsData(T nulsData) throws NulsException {
 
-        if (payload == null || payload.length == 0 ) {
+        if (payload == null || limit == offset) {
             return null;
         }
-        if(payload.length>=4){
-            byte[] byte4 = new byte[4];
-            System.arraycopy(payload,cursor,byte4,0,4);
-            if(Arrays.equals(NulsConstant.PLACE_HOLDER,byte4)){
-                cursor += 4;
-                return null;
-            }
-
+        if (readPlaceHolder()) {
+            return null;
+        }
+        if (cursor < limit) {
+            nulsData.parseFrom(this);
         }
-        int length = payload.length - cursor;
-        byte[] bytes = new byte[length];
-        System.arraycopy(payload, cursor, bytes, 0, length);
-        nulsData.parse(bytes);
-        cursor += nulsData.size();
         return nulsData;
     }
 
+    /**
+     * skip the place holder that is written for a null field
+     *
+     * @return true if there was a place holder at the cursor
+     */
+    public boolean readPlaceHolder() {
+        int length = NulsConstant.PLACE_HOLDER.length;
+        if (limit - cursor < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (payload[cursor + i] != NulsConstant.PLACE_HOLDER[i]) {
+                return false;
+            }
+        }
+        cursor += length;
+        return true;
+    }
+
     public NulsSignData readSign() throws NulsException {
         return this.readNulsData(new NulsSignData());
     }
 
     public long readTime() {
+        if (limit - cursor < 8) {
+            throw new NulsRuntimeException(ErrorCode.DATA_PARSE_ERROR);
+        }
         long value = Utils.readInt64LE(payload, cursor);
         cursor += 8;
         return value;
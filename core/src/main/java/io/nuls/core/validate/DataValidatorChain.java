@@ -26,60 +26,65 @@ package io.nuls.core.validate;
 import io.nuls.core.chain.entity.BaseNulsData;
 import io.nuls.core.utils.log.Log;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
+ * A compiled validator pipeline of one data class.
+ * It is built once by {@link ValidatorManager} and only read afterwards, so it runs as a plain loop.
+ * The {@link StatefulValidator}s can be run apart from the others, the rest of the chain only looks at the data itself.
+ *
  * @author Niels
  * @date 2017/11/16
  */
 public class DataValidatorChain {
 
-    private List<NulsDataValidator<BaseNulsData>> list = new ArrayList<>();
-    private Set<Class> classSet = new HashSet<>();
-    private ThreadLocal<Integer> index = new ThreadLocal<>();
+    private final NulsDataValidator<BaseNulsData>[] validators;
+    private final ValidatorCounter[] counters;
+    private final boolean[] statefuls;
 
-    public ValidateResult startDoValidator(BaseNulsData data) {
-        if (list.isEmpty()) {
-            return ValidateResult.getSuccessResult();
+    @SuppressWarnings("unchecked")
+    public DataValidatorChain(List<NulsDataValidator> validatorList, List<ValidatorCounter> counterList) {
+        this.validators = validatorList.toArray(new NulsDataValidator[validatorList.size()]);
+        this.counters = counterList.toArray(new ValidatorCounter[counterList.size()]);
+        this.statefuls = new boolean[validators.length];
+        for (int i = 0; i < validators.length; i++) {
+            statefuls[i] = validators[i] instanceof StatefulValidator;
         }
-        index.set(-1);
-        ValidateResult result = doValidate(data);
-        boolean b = index.get() == list.size();
-        index.remove();
-        if (b) {
-            return ValidateResult.getSuccessResult();
-        } else if (!b && result.isSuccess()) {
-            return ValidateResult.getFailedResult("The Validators not fully executed`");
-        }
-        return result;
     }
 
-    private ValidateResult doValidate(BaseNulsData data) {
-        index.set(1 + index.get());
-        if (index.get() == list.size()) {
-            return ValidateResult.getSuccessResult();
-        }
-        NulsDataValidator<BaseNulsData> validator = list.get(index.get());
-        ValidateResult result = validator.validate(data);
-        if (null == result) {
-            Log.error(validator.getClass() + " has null result!");
-        }
-        if (!result.isSuccess()) {
-            return result;
-        }
-        return this.doValidate(data);
+    public ValidateResult startDoValidator(BaseNulsData data) {
+        return run(data, true, true);
     }
 
-    public void addValidator(NulsDataValidator validator) {
-        if (null == validator) {
-            return;
-        }
+    public ValidateResult startDoStatelessValidator(BaseNulsData data) {
+        return run(data, true, false);
+    }
+
+    public ValidateResult startDoStatefulValidator(BaseNulsData data) {
+        return run(data, false, true);
+    }
 
-        if (classSet.add(validator.getClass())) {
-            list.add(validator);
+    private ValidateResult run(BaseNulsData data, boolean stateless, boolean stateful) {
+        for (int i = 0; i < validators.length; i++) {
+            if (statefuls[i] ? !stateful : !stateless) {
+                continue;
+            }
+            long start = System.nanoTime();
+            ValidateResult result = validators[i].validate(data);
+            boolean success = null != result && result.isSuccess();
+            counters[i].add(System.nanoTime() - start, success);
+            if (null == result) {
+                Log.error(validators[i].getClass() + " has null result!");
+                return ValidateResult.getFailedResult(validators[i].getClass() + " has null result!");
+            }
+            if (!success) {
+                return result;
+            }
         }
+        return ValidateResult.getSuccessResult();
+    }
+
+    public int size() {
+        return validators.length;
     }
 }
@@ -0,0 +1,214 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.validate;
+
+import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsDigestKey;
+import io.nuls.core.chain.entity.NulsSignData;
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.script.Script;
+import io.nuls.core.crypto.script.ScriptChunk;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Batch signature verification stage.
+ * The signatures of a block (or any burst of transactions) are checked on a bounded fork-join pool
+ * and every successful result is remembered by tx hash, so the per-transaction validators that run
+ * afterwards only pay for a map lookup.
+ * Failures are never cached: a forged copy of a tx must not be able to poison the entry of the real one.
+ */
+public class SignatureVerifier {
+
+    private static final int DEFAULT_CACHE_SIZE = 100000;
+    /**
+     * below this many transactions a task verifies its range directly instead of splitting it
+     */
+    private static final int SPLIT_THRESHOLD = 16;
+
+    private static final SignatureVerifier INSTANCE = new SignatureVerifier(Runtime.getRuntime().availableProcessors(), DEFAULT_CACHE_SIZE);
+
+    private final ForkJoinPool pool;
+    private final int cacheSize;
+    private final Map<NulsDigestKey, NulsSignData> verifiedCache;
+
+    public SignatureVerifier(int parallelism, int cacheSize) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.cacheSize = cacheSize;
+        this.verifiedCache = Collections.synchronizedMap(new LinkedHashMap<NulsDigestKey, NulsSignData>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<NulsDigestKey, NulsSignData> eldest) {
+                return size() > SignatureVerifier.this.cacheSize;
+            }
+        });
+    }
+
+    public static SignatureVerifier getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * verify the signature of one transaction, consulting the cache first
+     */
+    public boolean verify(Transaction tx) {
+        if (null == tx || null == tx.getHash()) {
+            return false;
+        }
+        NulsDigestKey key = tx.getHash().getKey();
+        NulsSignData sign = tx.getSign();
+        if (isVerified(key, sign)) {
+            return true;
+        }
+        boolean result = verifySign(tx.getHash(), sign);
+        if (result && cacheSize > 0) {
+            verifiedCache.put(key, sign);
+        }
+        return result;
+    }
+
+    /**
+     * verify all signatures in parallel
+     *
+     * @return the hashes of the transactions whose signature is valid
+     */
+    public Set<NulsDigestKey> verifyAll(List<? extends Transaction> txList) {
+        Set<NulsDigestKey> verifiedSet = new HashSet<>();
+        if (null == txList || txList.isEmpty()) {
+            return verifiedSet;
+        }
+        boolean[] results = new boolean[txList.size()];
+        pool.invoke(new VerifyTask(txList, results, 0, txList.size()));
+        for (int i = 0; i < results.length; i++) {
+            if (results[i]) {
+                verifiedSet.add(txList.get(i).getHash().getKey());
+            }
+        }
+        return verifiedSet;
+    }
+
+    public void clearCache() {
+        verifiedCache.clear();
+    }
+
+    private boolean isVerified(NulsDigestKey key, NulsSignData sign) {
+        if (null == sign) {
+            return false;
+        }
+        return isSameSign(verifiedCache.get(key), sign);
+    }
+
+    /**
+     * the tx hash does not cover the sign, so a cached result only holds for the very same sign
+     */
+    static boolean isSameSign(NulsSignData cached, NulsSignData sign) {
+        return null != cached && null != sign && (cached == sign || (cached.getSignAlgType() == sign.getSignAlgType()
+                && Arrays.equals(cached.getSignBytes(), sign.getSignBytes())));
+    }
+
+    /**
+     * check the signature against the hash without touching the cache.
+     * The signer signs the whole bytes of the hash (alg type and digest), so those are the bytes checked here.
+     * This is what executing the input script against a pay-to-pubkey output does ({@code <pubKey> OP_CHECKSIG}),
+     * anything that is not an ecc sign, the placeholder {@link NulsSignData#EMPTY_SIGN} included, is rejected.
+     */
+    public static boolean verifySign(NulsDigestData hash, NulsSignData sign) {
+        if (null == hash || null == sign || null == sign.getSignBytes()) {
+            return false;
+        }
+        if (sign.getSignAlgType() != NulsSignData.SIGN_ALG_ECC) {
+            return false;
+        }
+        List<ScriptChunk> chunks = getChunks(sign);
+        if (null == chunks) {
+            return false;
+        }
+        try {
+            return ECKey.verify(hash.getWholeBytes(), chunks.get(0).data, chunks.get(1).data);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * the public key carried by an ecc sign, null for any other sign or a malformed one.
+     * The sign only proves that this key signed, whoever owns the spent outputs has to be checked against it.
+     */
+    public static byte[] getPubKey(NulsSignData sign) {
+        if (null == sign || sign.getSignAlgType() != NulsSignData.SIGN_ALG_ECC) {
+            return null;
+        }
+        List<ScriptChunk> chunks = getChunks(sign);
+        if (null == chunks) {
+            return null;
+        }
+        return chunks.get(1).data;
+    }
+
+    /**
+     * an ecc sign is the input script {@code <signature> <pubKey>}
+     */
+    private static List<ScriptChunk> getChunks(NulsSignData sign) {
+        if (null == sign.getSignBytes()) {
+            return null;
+        }
+        try {
+            List<ScriptChunk> chunks = new Script(sign.getSignBytes()).getChunks();
+            if (chunks.size() != 2 || null == chunks.get(0).data || null == chunks.get(1).data) {
+                return null;
+            }
+            return chunks;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private class VerifyTask extends RecursiveAction {
+        private final List<? extends Transaction> txList;
+        private final boolean[] results;
+        private final int from;
+        private final int to;
+
+        private VerifyTask(List<? extends Transaction> txList, boolean[] results, int from, int to) {
+            this.txList = txList;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = verify(txList.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new VerifyTask(txList, results, from, middle), new VerifyTask(txList, results, middle, to));
+        }
+    }
+}
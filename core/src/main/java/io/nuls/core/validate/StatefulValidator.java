@@ -21,28 +21,17 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-package io.nuls.consensus.utils;
+package io.nuls.core.validate;
 
-import io.nuls.core.chain.entity.Transaction;
-
-import java.util.Comparator;
+import io.nuls.core.chain.entity.BaseNulsData;
 
 /**
+ * A validator whose result depends on the chain state (balances, deposits, punish records) and not only on the data.
+ * Its result can change with every new block, so it is never remembered by {@link TxVerifyMemo}.
+ * A validator that does not implement it must give the same answer for the same data at any time.
+ *
  * @author Niels
- * @date 2017/12/26
+ * @date 2018/3/27
  */
-public class TxComparator implements Comparator<Transaction> {
-
-
-    @Override
-    public int compare(Transaction o1, Transaction o2) {
-        long key = o1.size() - o2.size();
-        int val = 0;
-        if (key > 0) {
-            return 1;
-        } else if (key < 0) {
-            return -1;
-        }
-        return val;
-    }
+public interface StatefulValidator<T extends BaseNulsData> extends NulsDataValidator<T> {
 }
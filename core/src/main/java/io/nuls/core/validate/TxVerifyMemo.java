@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.validate;
+
+import io.nuls.core.chain.entity.NulsDigestKey;
+import io.nuls.core.chain.entity.NulsSignData;
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.constant.ErrorCode;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers which transactions passed their stateless validators (format, size, remark, sign, script), by tx hash.
+ * A tx is checked when it arrives, again before it is packed and again when its block is validated;
+ * with the memo only the {@link StatefulValidator}s run the second and third time.
+ * Like {@link SignatureVerifier} only successes are kept, and only for the same sign.
+ */
+public class TxVerifyMemo {
+
+    private static final int DEFAULT_CACHE_SIZE = 100000;
+
+    private static final TxVerifyMemo INSTANCE = new TxVerifyMemo(DEFAULT_CACHE_SIZE);
+
+    private final int cacheSize;
+    private final Map<NulsDigestKey, NulsSignData> verifiedCache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TxVerifyMemo(int cacheSize) {
+        this.cacheSize = cacheSize;
+        this.verifiedCache = Collections.synchronizedMap(new LinkedHashMap<NulsDigestKey, NulsSignData>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<NulsDigestKey, NulsSignData> eldest) {
+                return size() > TxVerifyMemo.this.cacheSize;
+            }
+        });
+    }
+
+    public static TxVerifyMemo getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * the full verification of a tx, the stateless part is taken from the memo when possible
+     */
+    public ValidateResult verify(Transaction tx) {
+        ValidateResult result = verifyStateless(tx);
+        if (result.isFailed()) {
+            return result;
+        }
+        return ValidatorManager.startDoStatefulValidator(tx);
+    }
+
+    public ValidateResult verifyStateless(Transaction tx) {
+        if (null == tx || null == tx.getHash()) {
+            return ValidateResult.getFailedResult(ErrorCode.NULL_PARAMETER);
+        }
+        NulsDigestKey key = tx.getHash().getKey();
+        if (SignatureVerifier.isSameSign(verifiedCache.get(key), tx.getSign())) {
+            hits.increment();
+            return ValidateResult.getSuccessResult();
+        }
+        misses.increment();
+        ValidateResult result = ValidatorManager.startDoStatelessValidator(tx);
+        if (result.isSuccess() && cacheSize > 0 && null != tx.getSign()) {
+            verifiedCache.put(key, tx.getSign());
+        }
+        return result;
+    }
+
+    /**
+     * reorg hook: the txs of blocks that left the chain are checked from scratch if they show up again,
+     * coinbase and punish txs only make sense at the position of their block
+     */
+    public void invalidate(List<? extends Transaction> txList) {
+        if (null == txList) {
+            return;
+        }
+        for (Transaction tx : txList) {
+            if (null != tx.getHash()) {
+                verifiedCache.remove(tx.getHash().getKey());
+            }
+        }
+    }
+
+    public void clear() {
+        verifiedCache.clear();
+    }
+
+    public int size() {
+        return verifiedCache.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "tx verify memo{size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() + "}";
+    }
+}
@@ -23,43 +23,131 @@
  * SOFTWARE.
  *
  */
-
 package io.nuls.core.validate;
 
 import io.nuls.core.chain.entity.BaseNulsData;
 import io.nuls.core.constant.ErrorCode;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Validators are registered against a class and apply to all of its subclasses.
+ * The chain of a concrete class is compiled on its first verification, from the validators of
+ * its super classes down to its own, and is dropped whenever a new validator is registered.
+ *
  * @author Niels
  * @date 2018/1/26
  */
 public class ValidatorManager {
 
+    private static final Map<Class, List<NulsDataValidator>> VALIDATOR_MAP = new HashMap<>();
+    private static final Map<Class, ValidatorCounter> COUNTER_MAP = new ConcurrentHashMap<>();
     private static Map<Class, DataValidatorChain> chainMap = new ConcurrentHashMap<>();
 
-
-    public static void addValidator(Class<? extends BaseNulsData> clazz, NulsDataValidator<? extends BaseNulsData> validator) {
-        DataValidatorChain chain = chainMap.get(clazz);
-        if (null == chain) {
-            chain = new DataValidatorChain();
-            chainMap.put(clazz, chain);
+    public static synchronized void addValidator(Class<? extends BaseNulsData> clazz, NulsDataValidator<? extends BaseNulsData> validator) {
+        if (null == validator) {
+            return;
         }
-        chain.addValidator(validator);
+        List<NulsDataValidator> list = VALIDATOR_MAP.get(clazz);
+        if (null == list) {
+            list = new ArrayList<>();
+            VALIDATOR_MAP.put(clazz, list);
+        }
+        for (NulsDataValidator item : list) {
+            if (item.getClass() == validator.getClass()) {
+                return;
+            }
+        }
+        list.add(validator);
+        chainMap.clear();
     }
 
     public static ValidateResult startDoValidator(BaseNulsData data) {
         if (data == null) {
             return ValidateResult.getFailedResult(ErrorCode.NULL_PARAMETER);
         }
-        DataValidatorChain chain = chainMap.get(data.getClass());
+        return getChain(data.getClass()).startDoValidator(data);
+    }
+
+    /**
+     * run the validators that only look at the data itself
+     */
+    public static ValidateResult startDoStatelessValidator(BaseNulsData data) {
+        if (data == null) {
+            return ValidateResult.getFailedResult(ErrorCode.NULL_PARAMETER);
+        }
+        return getChain(data.getClass()).startDoStatelessValidator(data);
+    }
+
+    /**
+     * run the {@link StatefulValidator}s only
+     */
+    public static ValidateResult startDoStatefulValidator(BaseNulsData data) {
+        if (data == null) {
+            return ValidateResult.getFailedResult(ErrorCode.NULL_PARAMETER);
+        }
+        return getChain(data.getClass()).startDoStatefulValidator(data);
+    }
+
+    private static DataValidatorChain getChain(Class clazz) {
+        DataValidatorChain chain = chainMap.get(clazz);
         if (null == chain) {
-            return ValidateResult.getSuccessResult();
+            chain = compile(clazz);
         }
-        return chain.startDoValidator(data);
+        return chain;
+    }
+
+    private static synchronized DataValidatorChain compile(Class clazz) {
+        DataValidatorChain chain = chainMap.get(clazz);
+        if (null != chain) {
+            return chain;
+        }
+        LinkedList<Class> classList = new LinkedList<>();
+        for (Class c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            classList.addFirst(c);
+        }
+        List<NulsDataValidator> validatorList = new ArrayList<>();
+        List<ValidatorCounter> counterList = new ArrayList<>();
+        Set<Class> validatorClassSet = new HashSet<>();
+        for (Class c : classList) {
+            List<NulsDataValidator> list = VALIDATOR_MAP.get(c);
+            if (null == list) {
+                continue;
+            }
+            for (NulsDataValidator validator : list) {
+                if (validatorClassSet.add(validator.getClass())) {
+                    validatorList.add(validator);
+                    counterList.add(getCounter(validator.getClass()));
+                }
+            }
+        }
+        chain = new DataValidatorChain(validatorList, counterList);
+        chainMap.put(clazz, chain);
+        return chain;
     }
-}
 
+    private static ValidatorCounter getCounter(Class validatorClass) {
+        ValidatorCounter counter = COUNTER_MAP.get(validatorClass);
+        if (null == counter) {
+            counter = new ValidatorCounter(validatorClass.getSimpleName());
+            COUNTER_MAP.put(validatorClass, counter);
+        }
+        return counter;
+    }
+
+    /**
+     * the timing counters of all validators, the slowest first
+     */
+    public static List<ValidatorCounter> getCounterList() {
+        List<ValidatorCounter> list = new ArrayList<>(COUNTER_MAP.values());
+        list.sort((o1, o2) -> Long.compare(o2.getTotalNanos(), o1.getTotalNanos()));
+        return list;
+    }
+
+    public static void resetCounters() {
+        for (ValidatorCounter counter : COUNTER_MAP.values()) {
+            counter.reset();
+        }
+    }
+}
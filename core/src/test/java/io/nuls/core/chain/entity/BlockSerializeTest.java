@@ -0,0 +1,139 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.chain.entity;
+
+import io.nuls.core.chain.manager.TransactionManager;
+import io.nuls.core.crypto.UnsafeByteArrayOutputStream;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.crypto.Utils;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.core.utils.io.NulsOutputStreamBuffer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A block streams its txs into its own buffer, it must write the same bytes as the txs serialized one by one.
+ */
+public class BlockSerializeTest {
+
+    private static final int TX_TYPE = 9998;
+
+    @BeforeClass
+    public static void init() {
+        TransactionManager.putTx(TX_TYPE, TestTransaction.class, null);
+    }
+
+    @Test
+    public void testStreamedBlockEqualsTxBytes() throws Exception {
+        Block block = new Block();
+        block.parse(createBlock(50).serialize());
+        byte[] bytes = block.serialize();
+
+        UnsafeByteArrayOutputStream bos = new UnsafeByteArrayOutputStream(bytes.length);
+        bos.write(block.getHeader().serialize());
+        for (Transaction tx : block.getTxs()) {
+            bos.write(tx.serialize());
+        }
+        assertArrayEquals(bos.toByteArray(), bytes);
+        assertEquals(bytes.length, block.size());
+    }
+
+    @Test
+    public void testParsedSizeFollowsSetters() throws Exception {
+        Block block = new Block();
+        block.parse(createBlock(1).serialize());
+        Transaction tx = block.getTxs().get(0);
+        assertEquals(tx.serialize().length, tx.size());
+
+        tx.setRemark(new byte[100]);
+        assertEquals(tx.serialize().length, tx.size());
+        tx.setSign(null);
+        assertEquals(tx.serialize().length, tx.size());
+    }
+
+    private static Block createBlock(int txCount) {
+        Random random = new Random(1);
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < txCount; i++) {
+            TestTransaction tx = new TestTransaction();
+            tx.setFee(Na.valueOf(100000));
+            tx.setRemark(new byte[]{1, 2, 3});
+            tx.coinData = new byte[140];
+            random.nextBytes(tx.coinData);
+            NulsSignData sign = new NulsSignData();
+            sign.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+            sign.setSignBytes(new byte[72]);
+            tx.setSign(sign);
+            txs.add(tx);
+        }
+        BlockHeader header = new BlockHeader();
+        header.setPreHash(NulsDigestData.calcDigestData(new byte[]{1}));
+        header.setMerkleHash(NulsDigestData.calcDigestData(new byte[]{2}));
+        header.setHeight(1);
+        header.setTxCount(txCount);
+        header.setPackingAddress("2CjPVMKST7h4Q5Dqa8Q9P9CwYSmN7mG");
+        Block block = new Block();
+        block.setHeader(header);
+        block.setTxs(txs);
+        return block;
+    }
+
+    public static class TestTransaction extends Transaction<BaseNulsData> {
+
+        private byte[] coinData;
+
+        public TestTransaction() {
+            super(TX_TYPE);
+        }
+
+        @Override
+        public BaseNulsData parseTxData(NulsByteBuffer byteBuffer) throws NulsException {
+            return null;
+        }
+
+        @Override
+        protected int calcSize() {
+            return super.calcSize() + Utils.sizeOfSerialize(coinData);
+        }
+
+        @Override
+        protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+            super.serializeToStream(stream);
+            stream.writeBytesWithLength(coinData);
+        }
+
+        @Override
+        protected void parseAfterSign(NulsByteBuffer byteBuffer) throws NulsException {
+            this.coinData = byteBuffer.readByLengthByte();
+        }
+    }
+}
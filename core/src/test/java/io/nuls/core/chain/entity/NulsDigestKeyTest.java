@@ -0,0 +1,108 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.chain.entity;
+
+import io.nuls.core.utils.crypto.Hex;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * A {@link NulsDigestKey} must find exactly what the digest hex string found before.
+ */
+public class NulsDigestKeyTest {
+
+    @Test
+    public void testSameIdentityAsHex() throws Exception {
+        NulsDigestData hash = NulsDigestData.calcDigestData(new byte[]{1, 2, 3});
+        NulsDigestKey key = hash.getKey();
+        assertEquals(Hex.encode(hash.serialize()), key.getDigestHex());
+        assertEquals(hash.size(), key.size());
+
+        NulsDigestData copy = new NulsDigestData(hash.serialize());
+        assertEquals(key, copy.getKey());
+        assertEquals(key.hashCode(), copy.getKey().hashCode());
+        assertEquals(key, NulsDigestKey.fromDigestHex(key.getDigestHex()));
+        assertEquals(key, NulsDigestKey.of(hash.getDigestAlgType(), hash.getDigestBytes()));
+        assertEquals(hash, key.toDigestData());
+
+        NulsDigestData other = NulsDigestData.calcDigestData(new byte[]{1, 2, 4});
+        assertNotEquals(key, other.getKey());
+    }
+
+    @Test
+    public void testKeyIsCached() {
+        NulsDigestData hash = NulsDigestData.calcDigestData(new byte[]{1});
+        NulsDigestKey key = hash.getKey();
+        assertSame(key, hash.getKey());
+        assertSame(key.getDigestHex(), key.getDigestHex());
+
+        String hex = key.getDigestHex();
+        assertSame(hex, NulsDigestKey.fromDigestHex(hex).getDigestHex());
+
+        hash.setDigestAlgType((short) 1);
+        assertNotEquals(key, hash.getKey());
+    }
+
+    @Test
+    public void testOrderFollowsHex() {
+        Random random = new Random(1);
+        NulsDigestKey last = null;
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[32];
+            random.nextBytes(bytes);
+            NulsDigestKey key = NulsDigestData.calcDigestData(bytes).getKey();
+            if (null != last) {
+                assertEquals(Integer.signum(last.getDigestHex().compareTo(key.getDigestHex())), Integer.signum(last.compareTo(key)));
+            }
+            last = key;
+        }
+    }
+
+    @Test
+    public void testLookupWithParsedDigest() throws Exception {
+        Random random = new Random(1);
+        Map<NulsDigestKey, Integer> keyMap = new HashMap<>();
+        NulsDigestData[] hashes = new NulsDigestData[1000];
+        for (int i = 0; i < hashes.length; i++) {
+            byte[] bytes = new byte[32];
+            random.nextBytes(bytes);
+            hashes[i] = NulsDigestData.calcDigestData(bytes);
+            keyMap.put(hashes[i].getKey(), i);
+        }
+        assertEquals(hashes.length, keyMap.size());
+        for (int i = 0; i < hashes.length; i++) {
+            NulsDigestData received = new NulsDigestData(hashes[i].serialize());
+            assertEquals(Integer.valueOf(i), keyMap.get(received.getKey()));
+        }
+        assertFalse(keyMap.containsKey(NulsDigestData.calcDigestData(new byte[]{0}).getKey()));
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.chain.entity;
+
+import io.nuls.core.chain.manager.TransactionManager;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.crypto.Utils;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.core.utils.io.NulsOutputStreamBuffer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * A parsed tx is hashed straight from the bytes it was read from, with the sign replaced by the place holder.
+ * That hash must be the one calculated from the unsigned tx serialized again.
+ */
+public class TransactionParseTest {
+
+    private static final int TX_TYPE = 9997;
+
+    @BeforeClass
+    public static void init() {
+        TransactionManager.putTx(TX_TYPE, TestTransaction.class, null);
+    }
+
+    @Test
+    public void testNullTxDataAndSign() throws Exception {
+        TestTransaction tx = createTx(null, null, null);
+        TestTransaction parsed = assertRoundTrip(tx);
+        assertNull(parsed.getTxData());
+        assertNull(parsed.getSign());
+        assertNull(parsed.afterSign);
+    }
+
+    @Test
+    public void testTxDataAndSign() throws Exception {
+        TestTransaction tx = createTx(NulsDigestData.calcDigestData(new byte[]{1}), sign(), new byte[]{4, 5, 6});
+        TestTransaction parsed = assertRoundTrip(tx);
+        assertEquals(tx.getTxData(), parsed.getTxData());
+        assertArrayEquals(tx.afterSign, parsed.afterSign);
+    }
+
+    @Test
+    public void testFieldsAfterNullSign() throws Exception {
+        TestTransaction parsed = assertRoundTrip(createTx(NulsDigestData.calcDigestData(new byte[]{1}), null, new byte[]{4, 5, 6}));
+        assertArrayEquals(new byte[]{4, 5, 6}, parsed.afterSign);
+    }
+
+    @Test
+    public void testTxsInBlock() throws Exception {
+        List<Transaction> txs = new ArrayList<>();
+        txs.add(createTx(null, sign(), new byte[]{1}));
+        txs.add(createTx(NulsDigestData.calcDigestData(new byte[]{2}), null, null));
+        txs.add(createTx(NulsDigestData.calcDigestData(new byte[]{3}), sign(), new byte[]{3, 3}));
+        BlockHeader header = new BlockHeader();
+        header.setPreHash(NulsDigestData.calcDigestData(new byte[]{1}));
+        header.setMerkleHash(NulsDigestData.calcDigestData(new byte[]{2}));
+        header.setHeight(1);
+        header.setTxCount(txs.size());
+        header.setPackingAddress("2CjPVMKST7h4Q5Dqa8Q9P9CwYSmN7mG");
+        Block block = new Block();
+        block.setHeader(header);
+        block.setTxs(txs);
+        byte[] bytes = block.serialize();
+
+        Block parsed = new Block();
+        parsed.parse(bytes);
+        assertEquals(txs.size(), parsed.getTxs().size());
+        for (int i = 0; i < txs.size(); i++) {
+            Transaction tx = parsed.getTxs().get(i);
+            assertEquals(unsignedHash(txs.get(i)), tx.getHash());
+            assertEquals(unsignedHash(tx), tx.getHash());
+        }
+        assertArrayEquals(bytes, parsed.serialize());
+    }
+
+    private TestTransaction assertRoundTrip(TestTransaction tx) throws Exception {
+        byte[] bytes = tx.serialize();
+        TestTransaction parsed = new TestTransaction();
+        parsed.parse(bytes);
+        assertEquals(unsignedHash(tx), parsed.getHash());
+        assertEquals(unsignedHash(parsed), parsed.getHash());
+        assertArrayEquals(bytes, parsed.serialize());
+        assertEquals(bytes.length, parsed.size());
+        return parsed;
+    }
+
+    /**
+     * the hash a tx had before it was signed
+     */
+    static NulsDigestData unsignedHash(Transaction tx) throws IOException {
+        NulsSignData sign = tx.getSign();
+        tx.setSign(null);
+        try {
+            return NulsDigestData.calcDigestData(tx.serialize());
+        } finally {
+            tx.setSign(sign);
+        }
+    }
+
+    private static TestTransaction createTx(NulsDigestData txData, NulsSignData sign, byte[] afterSign) {
+        TestTransaction tx = new TestTransaction();
+        tx.setFee(Na.valueOf(100000));
+        tx.setRemark(new byte[]{1, 2, 3});
+        tx.setTxData(txData);
+        tx.setSign(sign);
+        tx.afterSign = afterSign;
+        return tx;
+    }
+
+    private static NulsSignData sign() {
+        NulsSignData sign = new NulsSignData();
+        sign.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+        sign.setSignBytes(new byte[]{7, 7, 7});
+        return sign;
+    }
+
+    public static class TestTransaction extends Transaction<NulsDigestData> {
+
+        private byte[] afterSign;
+
+        public TestTransaction() {
+            super(TX_TYPE);
+        }
+
+        @Override
+        public NulsDigestData parseTxData(NulsByteBuffer byteBuffer) throws NulsException {
+            return byteBuffer.readHash();
+        }
+
+        @Override
+        protected int calcSize() {
+            return super.calcSize() + Utils.sizeOfSerialize(afterSign);
+        }
+
+        @Override
+        protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+            super.serializeToStream(stream);
+            stream.writeBytesWithLength(afterSign);
+        }
+
+        @Override
+        protected void parseAfterSign(NulsByteBuffer byteBuffer) throws NulsException {
+            this.afterSign = byteBuffer.readByLengthByte();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.validate;
+
+import io.nuls.core.chain.entity.BaseNulsData;
+import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsDigestKey;
+import io.nuls.core.chain.entity.NulsSignData;
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.script.Script;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SignatureVerifierTest {
+
+    @Test
+    public void testVerifySign() {
+        ECKey key = new ECKey();
+        NulsDigestData hash = NulsDigestData.calcDigestData(new byte[]{1, 2, 3});
+        NulsSignData sign = sign(key, hash);
+        assertTrue(SignatureVerifier.verifySign(hash, sign));
+        assertArrayEquals(key.getPubKey(), SignatureVerifier.getPubKey(sign));
+    }
+
+    @Test
+    public void testPlaceholderSignRejected() {
+        NulsDigestData hash = NulsDigestData.calcDigestData(new byte[]{1, 2, 3});
+        assertFalse(SignatureVerifier.verifySign(hash, NulsSignData.EMPTY_SIGN));
+        assertNull(SignatureVerifier.getPubKey(NulsSignData.EMPTY_SIGN));
+    }
+
+    @Test
+    public void testForeignSignRejected() {
+        ECKey key = new ECKey();
+        NulsDigestData hash = NulsDigestData.calcDigestData(new byte[]{1, 2, 3});
+        NulsDigestData otherHash = NulsDigestData.calcDigestData(new byte[]{3, 2, 1});
+        //a valid sign of another tx
+        assertFalse(SignatureVerifier.verifySign(hash, sign(key, otherHash)));
+
+        //the signature of one key carried with the public key of another
+        NulsSignData sign = new NulsSignData();
+        sign.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+        sign.setSignBytes(Script.createInputScript(key.sign(hash.getWholeBytes()).encodeToDER(), new ECKey().getPubKey()));
+        assertFalse(SignatureVerifier.verifySign(hash, sign));
+    }
+
+    @Test
+    public void testVerifyAll() {
+        SignatureVerifier verifier = new SignatureVerifier(4, 0);
+        ECKey key = new ECKey();
+        List<Transaction> txList = new ArrayList<>();
+        Set<NulsDigestKey> validSet = new HashSet<>();
+        //enough txs to be split over the workers
+        for (int i = 0; i < 100; i++) {
+            NulsDigestData hash = NulsDigestData.calcDigestData(new byte[]{(byte) i, 1});
+            TestTransaction tx = new TestTransaction();
+            tx.setHash(hash);
+            if (i % 3 == 0) {
+                tx.setSign(NulsSignData.EMPTY_SIGN);
+            } else {
+                tx.setSign(sign(key, hash));
+                validSet.add(hash.getKey());
+            }
+            txList.add(tx);
+        }
+        assertEquals(validSet, verifier.verifyAll(txList));
+    }
+
+    @Test
+    public void testCacheHoldsOnlyTheVerifiedSign() {
+        SignatureVerifier verifier = new SignatureVerifier(1, 10);
+        ECKey key = new ECKey();
+        NulsDigestData hash = NulsDigestData.calcDigestData(new byte[]{1, 2, 3});
+        TestTransaction tx = new TestTransaction();
+        tx.setHash(hash);
+        tx.setSign(sign(key, hash));
+        assertTrue(verifier.verify(tx));
+
+        //the same tx with a forged sign must not be served from the cache
+        TestTransaction forged = new TestTransaction();
+        forged.setHash(hash);
+        forged.setSign(sign(key, NulsDigestData.calcDigestData(new byte[]{3, 2, 1})));
+        assertFalse(verifier.verify(forged));
+        assertTrue(verifier.verify(tx));
+    }
+
+    static NulsSignData sign(ECKey key, NulsDigestData hash) {
+        NulsSignData sign = new NulsSignData();
+        sign.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+        sign.setSignBytes(Script.createInputScript(key.sign(hash.getWholeBytes()).encodeToDER(), key.getPubKey()));
+        return sign;
+    }
+
+    static class TestTransaction extends Transaction<BaseNulsData> {
+
+        TestTransaction() {
+            super(1);
+        }
+
+        @Override
+        public BaseNulsData parseTxData(NulsByteBuffer byteBuffer) throws NulsException {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.validate;
+
+import io.nuls.core.chain.entity.BaseNulsData;
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.chain.manager.TransactionValidatorManager;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The validators that Block, BlockHeader and Transaction used to copy from their managers in the constructor,
+ * and the ones the tx subclasses added there, are registered per class now. These check that the compiled
+ * chain of a subclass still runs all of them.
+ */
+public class ValidatorManagerTest {
+
+    private static final List<String> CALLED = new ArrayList<>();
+
+    @Test
+    public void testChainOfSubclass() {
+        TransactionValidatorManager.addTxDefValidator(new DefValidator());
+        CALLED.clear();
+        assertTrue(new ChildTx().verify().isSuccess());
+        assertEquals(Arrays.asList("def", "child"), CALLED);
+
+        CALLED.clear();
+        new OtherTx().verify();
+        assertEquals(Arrays.asList("def"), CALLED);
+
+        //the compiled chains are dropped when a validator is added, a second registration is ignored
+        TransactionValidatorManager.addTxDefValidator(new LateValidator());
+        TransactionValidatorManager.addTxDefValidator(new LateValidator());
+        CALLED.clear();
+        new ChildTx().verify();
+        assertEquals(Arrays.asList("def", "late", "child"), CALLED);
+    }
+
+    private static class Recorder<T extends BaseNulsData> implements NulsDataValidator<T> {
+        private final String name;
+
+        Recorder(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public ValidateResult validate(T data) {
+            CALLED.add(name);
+            return ValidateResult.getSuccessResult();
+        }
+    }
+
+    private static class DefValidator extends Recorder<Transaction> {
+        DefValidator() {
+            super("def");
+        }
+    }
+
+    private static class LateValidator extends Recorder<Transaction> {
+        LateValidator() {
+            super("late");
+        }
+    }
+
+    private static class ChildValidator extends Recorder<ChildTx> {
+        ChildValidator() {
+            super("child");
+        }
+    }
+
+    static class ChildTx extends Transaction<BaseNulsData> {
+        static {
+            ValidatorManager.addValidator(ChildTx.class, new ChildValidator());
+        }
+
+        ChildTx() {
+            super(1);
+        }
+
+        @Override
+        public BaseNulsData parseTxData(NulsByteBuffer byteBuffer) throws NulsException {
+            return null;
+        }
+    }
+
+    static class OtherTx extends Transaction<BaseNulsData> {
+        OtherTx() {
+            super(2);
+        }
+
+        @Override
+        public BaseNulsData parseTxData(NulsByteBuffer byteBuffer) throws NulsException {
+            return null;
+        }
+    }
+}
@@ -27,7 +27,9 @@ package io.nuls.db.dao.filter;
 import io.nuls.core.utils.log.Log;
 import io.nuls.core.utils.spring.lite.annotation.Interceptor;
 import io.nuls.core.utils.spring.lite.core.interceptor.BeanMethodInterceptorChain;
-import io.nuls.core.utils.str.StringUtils;
+import io.nuls.db.dao.impl.kv.KvStoreManager;
+import io.nuls.db.dao.impl.kv.KvWriteBatch;
+import io.nuls.db.dao.impl.mybatis.session.SessionLocal;
 import io.nuls.db.dao.impl.mybatis.session.SessionManager;
 import io.nuls.db.transactional.TransactionalInterceptor;
 import io.nuls.db.transactional.annotation.PROPAGATION;
@@ -46,54 +48,72 @@ public class TransactionalInterceptorImpl implements TransactionalInterceptor {
 
     @Override
     public Object intercept(Annotation annotation, Object obj, Method method, Object[] args, BeanMethodInterceptorChain interceptorChain) throws Throwable {
-        String lastId = SessionManager.getId();
-        String id = lastId;
-        if (id == null) {
-            id = StringUtils.getNewUUID();
-        }
-        Object result;
-        boolean isSessionBeginning = false;
-        boolean isCommit = false;
         DbSession ann = (DbSession) annotation;
-        if (ann.transactional() == PROPAGATION.REQUIRED && !SessionManager.getTxState(id)) {
-            isCommit = true;
-        } else if (ann.transactional() == PROPAGATION.INDEPENDENT) {
-            id = StringUtils.getNewUUID();
-            isCommit = true;
-        }
-        SqlSession session = SessionManager.getSession(id);
-        if (session == null) {
+        SessionLocal local = SessionManager.getLocal();
+        SessionLocal.Frame frame = local.peek();
+        boolean isSessionBeginning = false;
+        if (null == frame || ann.transactional() == PROPAGATION.INDEPENDENT) {
             isSessionBeginning = true;
-            session = SessionManager.openSession(false);
-            SessionManager.setConnection(id, session);
-            SessionManager.setId(id);
-        } else {
-            isSessionBeginning = false;
+            frame = local.push(SessionManager.openSession(false));
         }
+        boolean isCommit = ann.transactional() == PROPAGATION.INDEPENDENT ||
+                (ann.transactional() == PROPAGATION.REQUIRED && !frame.isInTransaction());
+        SqlSession session = frame.getSession();
+        Object result;
+        boolean kvOpen = false;
+        boolean committed = false;
         try {
             if (isCommit) {
-                SessionManager.startTransaction(id);
+                frame.setInTransaction(true);
+                KvStoreManager.begin();
+                kvOpen = true;
             }
             result = interceptorChain.execute(annotation, obj, method, args);
             if (isCommit) {
-                session.commit();
-                SessionManager.endTransaction(id);
+                kvOpen = false;
+                KvWriteBatch kvUndo = KvStoreManager.commit();
+                try {
+                    session.commit();
+                } catch (Exception e) {
+                    KvStoreManager.undo(kvUndo);
+                    throw e;
+                }
+                committed = true;
+                frame.setInTransaction(false);
+                SessionManager.getMetrics().committed();
             }
         } catch (Exception e) {
+            if (kvOpen) {
+                KvStoreManager.rollback();
+            }
             session.rollback();
-            SessionManager.endTransaction(id);
+            frame.setInTransaction(false);
+            SessionManager.getMetrics().rolledBack();
             throw e;
         } finally {
             if (isSessionBeginning) {
-                SessionManager.setConnection(id, null);
-                SessionManager.setId(lastId);
+                local.pop();
                 session.close();
             }
         }
+        if (committed) {
+            forceKv();
+        }
         return result;
     }
 
 
+    /**
+     * the session is committed already, a failure here leaves the log segments dirty for the next force
+     */
+    private void forceKv() {
+        try {
+            KvStoreManager.force();
+        } catch (Exception e) {
+            Log.error("forcing the kv log failed after a commit", e);
+        }
+    }
+
     private boolean isFilterMethod(Method method) {
         return false;
     }
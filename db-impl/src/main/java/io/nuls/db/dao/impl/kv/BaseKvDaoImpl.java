@@ -0,0 +1,189 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.db.dao.BaseDataService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base of the daos backed by the kv store.
+ * A po is written together with its secondary keys in one batch; the primary table holds the po itself,
+ * so listing and counting go over that table only.
+ *
+ * K : the type of primary key of Object
+ * V : the type of Object
+ */
+public abstract class BaseKvDaoImpl<K, V> implements BaseDataService<K, V> {
+
+    private final byte table;
+
+    protected BaseKvDaoImpl(byte table) {
+        this.table = table;
+    }
+
+    protected KvStore getStore() {
+        return KvStoreManager.getStore();
+    }
+
+    /**
+     * add the puts for the po and its secondary keys, and the deletes for the secondary keys of the stored version
+     */
+    protected abstract void put(KvWriteBatch batch, V po);
+
+    /**
+     * add the deletes for the stored po and its secondary keys
+     *
+     * @return false if nothing is stored under the key
+     */
+    protected abstract boolean remove(KvWriteBatch batch, K key);
+
+    protected abstract byte[] getKey(V po);
+
+    protected abstract V decode(byte[] bytes);
+
+    @Override
+    public int save(V po) {
+        KvWriteBatch batch = new KvWriteBatch();
+        put(batch, po);
+        getStore().write(batch);
+        return 1;
+    }
+
+    @Override
+    public int save(List<V> list) {
+        if (null == list || list.isEmpty()) {
+            return 0;
+        }
+        KvWriteBatch batch = new KvWriteBatch();
+        for (V po : list) {
+            put(batch, po);
+        }
+        getStore().write(batch);
+        return list.size();
+    }
+
+    @Override
+    public int update(V po) {
+        if (!getStore().contains(getKey(po))) {
+            return 0;
+        }
+        return save(po);
+    }
+
+    @Override
+    public int update(List<V> list) {
+        int result = 0;
+        KvWriteBatch batch = new KvWriteBatch();
+        for (V po : list) {
+            if (getStore().contains(getKey(po))) {
+                put(batch, po);
+                result++;
+            }
+        }
+        getStore().write(batch);
+        return result;
+    }
+
+    @Override
+    public int delete(K key) {
+        KvWriteBatch batch = new KvWriteBatch();
+        if (!remove(batch, key)) {
+            return 0;
+        }
+        getStore().write(batch);
+        return 1;
+    }
+
+    @Override
+    public int delete(List<K> keyList) {
+        int result = 0;
+        KvWriteBatch batch = new KvWriteBatch();
+        for (K key : keyList) {
+            if (remove(batch, key)) {
+                result++;
+            }
+        }
+        getStore().write(batch);
+        return result;
+    }
+
+    protected V getValue(byte[] key) {
+        byte[] bytes = getStore().get(key);
+        if (null == bytes) {
+            return null;
+        }
+        return decode(bytes);
+    }
+
+    protected List<V> getValues(byte[] prefix) {
+        List<V> list = new ArrayList<>();
+        for (byte[] bytes : getStore().values(prefix)) {
+            list.add(decode(bytes));
+        }
+        return list;
+    }
+
+    @Override
+    public List<V> getList() {
+        return getValues(KvKeys.table(table));
+    }
+
+    @Override
+    public List<V> getList(Map<String, Object> params) {
+        if (null == params || params.isEmpty()) {
+            return getList();
+        }
+        return search(params);
+    }
+
+    /**
+     * the pos matching the search params of the mybatis dao of the same table;
+     * those daos have no searchable and list the whole table, so does this one unless a dao overrides it
+     */
+    protected List<V> search(Map<String, Object> params) {
+        return getList();
+    }
+
+    @Override
+    public Long getCount() {
+        return (long) getStore().count(KvKeys.table(table));
+    }
+
+    /**
+     * the page number starts at 1, no page size means everything
+     */
+    protected static <T> List<T> page(List<T> list, Integer pageNumber, Integer pageSize) {
+        if (null == pageNumber || null == pageSize || pageSize <= 0) {
+            return list;
+        }
+        int from = Math.max(pageNumber - 1, 0) * pageSize;
+        if (from >= list.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(list.subList(from, Math.min(list.size(), from + pageSize)));
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.core.constant.TransactionConstant;
+import io.nuls.db.dao.BlockHeaderService;
+import io.nuls.db.dao.impl.mybatis.params.BlockSearchParams;
+import io.nuls.db.entity.BlockHeaderPo;
+import io.nuls.db.entity.TransactionPo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Block headers by hash, with the hash of the main chain block at every height
+ * and the rounds every consensus address packed a block in.
+ */
+public class KvBlockDaoImpl extends BaseKvDaoImpl<String, BlockHeaderPo> implements BlockHeaderService {
+
+    public KvBlockDaoImpl() {
+        super(KvKeys.HEADER);
+    }
+
+    @Override
+    protected void put(KvWriteBatch batch, BlockHeaderPo po) {
+        BlockHeaderPo stored = get(po.getHash());
+        if (null != stored) {
+            removeSecondaryKeys(batch, stored);
+        }
+        batch.put(KvKeys.header(po.getHash()), KvCodec.encode(po));
+        batch.put(KvKeys.height(po.getHeight()), po.getHash().getBytes(StandardCharsets.UTF_8));
+        if (null != po.getConsensusAddress()) {
+            batch.put(KvKeys.packer(po.getConsensusAddress(), po.getRoundIndex(), po.getHeight()), null);
+        }
+    }
+
+    @Override
+    protected boolean remove(KvWriteBatch batch, String hash) {
+        BlockHeaderPo stored = get(hash);
+        if (null == stored) {
+            return false;
+        }
+        batch.delete(KvKeys.header(hash));
+        removeSecondaryKeys(batch, stored);
+        return true;
+    }
+
+    private void removeSecondaryKeys(KvWriteBatch batch, BlockHeaderPo stored) {
+        if (stored.getHash().equals(getHash(stored.getHeight()))) {
+            batch.delete(KvKeys.height(stored.getHeight()));
+        }
+        if (null != stored.getConsensusAddress()) {
+            batch.delete(KvKeys.packer(stored.getConsensusAddress(), stored.getRoundIndex(), stored.getHeight()));
+        }
+    }
+
+    @Override
+    protected byte[] getKey(BlockHeaderPo po) {
+        return KvKeys.header(po.getHash());
+    }
+
+    @Override
+    protected BlockHeaderPo decode(byte[] bytes) {
+        return KvCodec.decodeHeader(bytes);
+    }
+
+    @Override
+    public BlockHeaderPo get(String hash) {
+        return getValue(KvKeys.header(hash));
+    }
+
+    private String getHash(long height) {
+        byte[] hash = getStore().get(KvKeys.height(height));
+        if (null == hash) {
+            return null;
+        }
+        return new String(hash, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public BlockHeaderPo getHeader(long height) {
+        String hash = getHash(height);
+        if (null == hash) {
+            return null;
+        }
+        return get(hash);
+    }
+
+    @Override
+    public BlockHeaderPo getHeader(String hash) {
+        return get(hash);
+    }
+
+    @Override
+    public long getBestHeight() {
+        byte[] key = getStore().lastKey(KvKeys.table(KvKeys.HEIGHT));
+        if (null == key) {
+            return 0;
+        }
+        return KvKeys.getNumber(key, 1);
+    }
+
+    @Override
+    public BlockHeaderPo getBestBlockHeader() {
+        return getHeader(getBestHeight());
+    }
+
+    @Override
+    public List<BlockHeaderPo> getHeaderList(long startHeight, long endHeight) {
+        List<BlockHeaderPo> list = new ArrayList<>();
+        for (byte[] key : getStore().keys(KvKeys.height(startHeight), KvKeys.height(endHeight + 1))) {
+            BlockHeaderPo po = getHeader(KvKeys.getNumber(key, 1));
+            if (null != po) {
+                list.add(po);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * the conditions of {@link BlockSearchParams}; a hash, a height or a height range is looked up through the keys,
+     * the other conditions filter the headers found
+     */
+    @Override
+    protected List<BlockHeaderPo> search(Map<String, Object> params) {
+        List<BlockHeaderPo> list;
+        if (params.containsKey(BlockSearchParams.SEARCH_FIELD_HASH)) {
+            list = new ArrayList<>();
+            BlockHeaderPo po = get(String.valueOf(params.get(BlockSearchParams.SEARCH_FIELD_HASH)));
+            if (null != po) {
+                list.add(po);
+            }
+        } else if (params.containsKey(BlockSearchParams.SEARCH_FIELD_HEIGHT)) {
+            list = new ArrayList<>();
+            BlockHeaderPo po = getHeader(getLong(params, BlockSearchParams.SEARCH_FIELD_HEIGHT));
+            if (null != po) {
+                list.add(po);
+            }
+        } else if (params.containsKey(BlockSearchParams.SEARCH_FIELD_HEIGHT_START) ||
+                params.containsKey(BlockSearchParams.SEARCH_FIELD_HEIGHT_END)) {
+            long start = params.containsKey(BlockSearchParams.SEARCH_FIELD_HEIGHT_START) ?
+                    getLong(params, BlockSearchParams.SEARCH_FIELD_HEIGHT_START) : 0;
+            long end = params.containsKey(BlockSearchParams.SEARCH_FIELD_HEIGHT_END) ?
+                    getLong(params, BlockSearchParams.SEARCH_FIELD_HEIGHT_END) : getBestHeight();
+            list = getHeaderList(start, end);
+        } else {
+            list = getList();
+        }
+        List<BlockHeaderPo> result = new ArrayList<>();
+        for (BlockHeaderPo po : list) {
+            if (matches(po, params)) {
+                result.add(po);
+            }
+        }
+        return result;
+    }
+
+    private static boolean matches(BlockHeaderPo po, Map<String, Object> params) {
+        return equals(params, BlockSearchParams.SEARCH_FIELD_HASH, po.getHash()) &&
+                equals(params, BlockSearchParams.SEARCH_FIELD_HEIGHT, po.getHeight()) &&
+                equals(params, BlockSearchParams.SEARCH_FIELD_PRE_HASH, po.getPreHash()) &&
+                equals(params, BlockSearchParams.SEARCH_FIELD_MERKLE_HASH, po.getMerkleHash()) &&
+                equals(params, BlockSearchParams.SEARCH_FIELD_ADDRESS, po.getConsensusAddress()) &&
+                (!params.containsKey(BlockSearchParams.SEARCH_FIELD_HEIGHT_START) ||
+                        po.getHeight() >= getLong(params, BlockSearchParams.SEARCH_FIELD_HEIGHT_START)) &&
+                (!params.containsKey(BlockSearchParams.SEARCH_FIELD_HEIGHT_END) ||
+                        po.getHeight() <= getLong(params, BlockSearchParams.SEARCH_FIELD_HEIGHT_END)) &&
+                (!params.containsKey(BlockSearchParams.SEARCH_FIELD_ROUND_START) ||
+                        po.getRoundIndex() >= getLong(params, BlockSearchParams.SEARCH_FIELD_ROUND_START)) &&
+                (!params.containsKey(BlockSearchParams.SEARCH_FIELD_ROUND_END) ||
+                        po.getRoundIndex() <= getLong(params, BlockSearchParams.SEARCH_FIELD_ROUND_END));
+    }
+
+    private static boolean equals(Map<String, Object> params, String field, Object value) {
+        return !params.containsKey(field) || (null != value && String.valueOf(value).equals(String.valueOf(params.get(field))));
+    }
+
+    private static long getLong(Map<String, Object> params, String field) {
+        return Long.parseLong(String.valueOf(params.get(field)));
+    }
+
+    @Override
+    public List<BlockHeaderPo> getHashList(long startHeight, long endHeight, long split) {
+        List<BlockHeaderPo> list = new ArrayList<>();
+        for (long height = startHeight; height <= endHeight; height += split) {
+            String hash = getHash(height);
+            if (null != hash) {
+                BlockHeaderPo po = new BlockHeaderPo();
+                po.setHeight(height);
+                po.setHash(hash);
+                list.add(po);
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public long getCount(String address, long roundStart, long roundEnd) {
+        return getStore().keys(KvKeys.packer(address, roundStart), KvKeys.packer(address, roundEnd + 1)).size();
+    }
+
+    @Override
+    public List<Long> getListOfRoundIndexOfYellowPunish(String address, long startRoundIndex, long endRoundIndex) {
+        List<Long> list = new ArrayList<>();
+        int offset = KvKeys.relations(address).length;
+        for (byte[] key : getStore().keys(KvKeys.relations(address))) {
+            byte[] bytes = getStore().get(KvKeys.tx(KvKeys.getString(key, offset)));
+            if (null == bytes) {
+                continue;
+            }
+            TransactionPo tx = KvCodec.decodeTx(bytes);
+            if (tx.getType() == null || tx.getType() != TransactionConstant.TX_TYPE_YELLOW_PUNISH || null == tx.getBlockHeight()) {
+                continue;
+            }
+            BlockHeaderPo header = getHeader(tx.getBlockHeight());
+            if (null != header && header.getRoundIndex() >= startRoundIndex && header.getRoundIndex() <= endRoundIndex) {
+                list.add(header.getRoundIndex());
+            }
+        }
+        return list;
+    }
+}
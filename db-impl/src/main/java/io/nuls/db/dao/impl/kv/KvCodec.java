@@ -0,0 +1,267 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.db.entity.BlockHeaderPo;
+import io.nuls.db.entity.TransactionLocalPo;
+import io.nuls.db.entity.TransactionPo;
+import io.nuls.db.entity.UtxoInputPo;
+import io.nuls.db.entity.UtxoOutputPo;
+import io.nuls.db.exception.DBException;
+
+import java.io.*;
+
+/**
+ * Value layout of the kv store: the columns of the po, in table order, with a flag in front of every nullable one.
+ */
+public final class KvCodec {
+
+    private KvCodec() {
+    }
+
+    public static byte[] encode(BlockHeaderPo po) {
+        ValueWriter writer = new ValueWriter();
+        writer.string(po.getHash());
+        writer.number(po.getHeight());
+        writer.string(po.getPreHash());
+        writer.string(po.getMerkleHash());
+        writer.number(po.getCreateTime());
+        writer.string(po.getConsensusAddress());
+        writer.number(po.getTxCount());
+        writer.number(po.getRoundIndex());
+        writer.bytes(po.getSign());
+        writer.bytes(po.getExtend());
+        return writer.toBytes();
+    }
+
+    public static BlockHeaderPo decodeHeader(byte[] bytes) {
+        ValueReader reader = new ValueReader(bytes);
+        BlockHeaderPo po = new BlockHeaderPo();
+        po.setHash(reader.string());
+        po.setHeight(reader.number());
+        po.setPreHash(reader.string());
+        po.setMerkleHash(reader.string());
+        po.setCreateTime(reader.number());
+        po.setConsensusAddress(reader.string());
+        po.setTxCount(reader.number());
+        po.setRoundIndex(reader.number());
+        po.setSign(reader.bytes());
+        po.setExtend(reader.bytes());
+        return po;
+    }
+
+    public static byte[] encode(TransactionPo po) {
+        ValueWriter writer = new ValueWriter();
+        writer.string(po.getHash());
+        writer.number(po.getTxIndex());
+        writer.number(null == po.getType() ? null : (long) po.getType());
+        writer.number(po.getCreateTime());
+        writer.number(po.getBlockHeight());
+        writer.string(po.getRemark());
+        writer.number(po.getFee());
+        writer.bytes(po.getTxData());
+        writer.bytes(po.getSign());
+        return writer.toBytes();
+    }
+
+    public static TransactionPo decodeTx(byte[] bytes) {
+        ValueReader reader = new ValueReader(bytes);
+        TransactionPo po = new TransactionPo();
+        po.setHash(reader.string());
+        po.setTxIndex(reader.number().intValue());
+        Long type = reader.number();
+        po.setType(null == type ? null : type.intValue());
+        po.setCreateTime(reader.number());
+        po.setBlockHeight(reader.number());
+        po.setRemark(reader.string());
+        po.setFee(reader.number());
+        po.setTxData(reader.bytes());
+        po.setSign(reader.bytes());
+        return po;
+    }
+
+    public static byte[] encode(TransactionLocalPo po) {
+        ValueWriter writer = new ValueWriter();
+        writer.string(po.getHash());
+        writer.number(po.getTxIndex());
+        writer.number(null == po.getType() ? null : (long) po.getType());
+        writer.number(po.getCreateTime());
+        writer.number(po.getBlockHeight());
+        writer.string(po.getRemark());
+        writer.number(po.getFee());
+        writer.number(po.getTransferType());
+        writer.bytes(po.getTxData());
+        writer.bytes(po.getSign());
+        return writer.toBytes();
+    }
+
+    public static TransactionLocalPo decodeLocalTx(byte[] bytes) {
+        ValueReader reader = new ValueReader(bytes);
+        TransactionLocalPo po = new TransactionLocalPo();
+        po.setHash(reader.string());
+        po.setTxIndex(reader.integer());
+        Long type = reader.number();
+        po.setType(null == type ? null : type.intValue());
+        po.setCreateTime(reader.number());
+        po.setBlockHeight(reader.number());
+        po.setRemark(reader.string());
+        po.setFee(reader.number());
+        po.setTransferType(reader.integer());
+        po.setTxData(reader.bytes());
+        po.setSign(reader.bytes());
+        return po;
+    }
+
+    public static byte[] encode(UtxoInputPo po) {
+        ValueWriter writer = new ValueWriter();
+        writer.string(po.getTxHash());
+        writer.number(po.getInIndex());
+        writer.string(po.getFromHash());
+        writer.number(po.getFromIndex());
+        writer.bytes(po.getSign());
+        return writer.toBytes();
+    }
+
+    public static UtxoInputPo decodeInput(byte[] bytes) {
+        ValueReader reader = new ValueReader(bytes);
+        UtxoInputPo po = new UtxoInputPo();
+        po.setTxHash(reader.string());
+        po.setInIndex(reader.integer());
+        po.setFromHash(reader.string());
+        po.setFromIndex(reader.integer());
+        po.setSign(reader.bytes());
+        return po;
+    }
+
+    public static byte[] encode(UtxoOutputPo po) {
+        ValueWriter writer = new ValueWriter();
+        writer.string(po.getTxHash());
+        writer.number(po.getOutIndex());
+        writer.number(po.getValue());
+        writer.number(po.getLockTime());
+        writer.number(null == po.getStatus() ? null : (long) po.getStatus());
+        writer.bytes(po.getScript());
+        writer.string(po.getAddress());
+        return writer.toBytes();
+    }
+
+    public static UtxoOutputPo decodeOutput(byte[] bytes) {
+        ValueReader reader = new ValueReader(bytes);
+        UtxoOutputPo po = new UtxoOutputPo();
+        po.setTxHash(reader.string());
+        po.setOutIndex(reader.integer());
+        po.setValue(reader.number());
+        po.setLockTime(reader.number());
+        Long status = reader.number();
+        po.setStatus(null == status ? null : status.byteValue());
+        po.setScript(reader.bytes());
+        po.setAddress(reader.string());
+        return po;
+    }
+
+    private static class ValueWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private void string(String value) {
+            try {
+                out.writeBoolean(null != value);
+                if (null != value) {
+                    out.writeUTF(value);
+                }
+            } catch (IOException e) {
+                throw new DBException(e);
+            }
+        }
+
+        private void number(Number value) {
+            try {
+                out.writeBoolean(null != value);
+                if (null != value) {
+                    out.writeLong(value.longValue());
+                }
+            } catch (IOException e) {
+                throw new DBException(e);
+            }
+        }
+
+        private void bytes(byte[] value) {
+            try {
+                out.writeBoolean(null != value);
+                if (null != value) {
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            } catch (IOException e) {
+                throw new DBException(e);
+            }
+        }
+
+        private byte[] toBytes() {
+            return bytes.toByteArray();
+        }
+    }
+
+    private static class ValueReader {
+        private final DataInputStream in;
+
+        private ValueReader(byte[] bytes) {
+            this.in = new DataInputStream(new ByteArrayInputStream(bytes));
+        }
+
+        private String string() {
+            try {
+                return in.readBoolean() ? in.readUTF() : null;
+            } catch (IOException e) {
+                throw new DBException(e);
+            }
+        }
+
+        private Long number() {
+            try {
+                return in.readBoolean() ? in.readLong() : null;
+            } catch (IOException e) {
+                throw new DBException(e);
+            }
+        }
+
+        private Integer integer() {
+            Long value = number();
+            return null == value ? null : value.intValue();
+        }
+
+        private byte[] bytes() {
+            try {
+                if (!in.readBoolean()) {
+                    return null;
+                }
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                return value;
+            } catch (IOException e) {
+                throw new DBException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Key layout of the kv store. Every key starts with a one byte table prefix, numbers are big-endian
+ * so that they sort like numbers, and strings end with a zero byte where more parts follow.
+ */
+public final class KvKeys {
+
+    /**
+     * hash -> header
+     */
+    public static final byte HEADER = 'h';
+    /**
+     * height -> hash
+     */
+    public static final byte HEIGHT = 'H';
+    /**
+     * consensus address, round index, height -> nothing
+     */
+    public static final byte PACKER = 'P';
+    /**
+     * hash -> tx
+     */
+    public static final byte TX = 't';
+    /**
+     * block height, create time, hash -> nothing
+     */
+    public static final byte BLOCK_TX = 'T';
+    /**
+     * hash -> local tx
+     */
+    public static final byte LOCAL_TX = 'l';
+    /**
+     * block height, create time, hash -> nothing, for the local txs
+     */
+    public static final byte BLOCK_LOCAL_TX = 'L';
+    /**
+     * tx hash, index -> input
+     */
+    public static final byte INPUT = 'i';
+    /**
+     * tx hash, index -> output
+     */
+    public static final byte OUTPUT = 'o';
+    /**
+     * address, status, tx hash, index -> nothing
+     */
+    public static final byte ADDRESS_OUTPUT = 'a';
+    /**
+     * address, tx hash -> nothing
+     */
+    public static final byte RELATION = 'r';
+
+    private static final int INDEX_SUFFIX_SIZE = 5;
+
+    private KvKeys() {
+    }
+
+    public static byte[] header(String hash) {
+        return new KeyBuilder(HEADER).string(hash).build();
+    }
+
+    public static byte[] height(long height) {
+        return new KeyBuilder(HEIGHT).number(height).build();
+    }
+
+    public static byte[] packer(String address, long roundIndex, long height) {
+        return new KeyBuilder(PACKER).string(address).separator().number(roundIndex).number(height).build();
+    }
+
+    public static byte[] packer(String address, long roundIndex) {
+        return new KeyBuilder(PACKER).string(address).separator().number(roundIndex).build();
+    }
+
+    public static byte[] tx(String hash) {
+        return new KeyBuilder(TX).string(hash).build();
+    }
+
+    public static byte[] blockTx(long height, long createTime, String hash) {
+        return new KeyBuilder(BLOCK_TX).number(height).number(createTime).string(hash).build();
+    }
+
+    public static byte[] blockTx(long height) {
+        return new KeyBuilder(BLOCK_TX).number(height).build();
+    }
+
+    public static byte[] localTx(String hash) {
+        return new KeyBuilder(LOCAL_TX).string(hash).build();
+    }
+
+    public static byte[] blockLocalTx(long height, long createTime, String hash) {
+        return new KeyBuilder(BLOCK_LOCAL_TX).number(height).number(createTime).string(hash).build();
+    }
+
+    public static byte[] blockLocalTx(long height) {
+        return new KeyBuilder(BLOCK_LOCAL_TX).number(height).build();
+    }
+
+    public static byte[] input(String txHash, int index) {
+        return new KeyBuilder(INPUT).string(txHash).separator().index(index).build();
+    }
+
+    public static byte[] inputs(String txHash) {
+        return new KeyBuilder(INPUT).string(txHash).separator().build();
+    }
+
+    public static byte[] output(String txHash, int index) {
+        return new KeyBuilder(OUTPUT).string(txHash).separator().index(index).build();
+    }
+
+    public static byte[] outputs(String txHash) {
+        return new KeyBuilder(OUTPUT).string(txHash).separator().build();
+    }
+
+    public static byte[] addressOutput(String address, byte status, String txHash, int index) {
+        return new KeyBuilder(ADDRESS_OUTPUT).string(address).separator().status(status).string(txHash).separator().index(index).build();
+    }
+
+    public static byte[] addressOutputs(String address) {
+        return new KeyBuilder(ADDRESS_OUTPUT).string(address).separator().build();
+    }
+
+    public static byte[] addressOutputs(String address, byte status) {
+        return new KeyBuilder(ADDRESS_OUTPUT).string(address).separator().status(status).build();
+    }
+
+    public static byte[] relation(String address, String txHash) {
+        return new KeyBuilder(RELATION).string(address).separator().string(txHash).build();
+    }
+
+    public static byte[] relations(String address) {
+        return new KeyBuilder(RELATION).string(address).separator().build();
+    }
+
+    public static byte[] table(byte table) {
+        return new byte[]{table};
+    }
+
+    /**
+     * @return the number at the offset of a key
+     */
+    public static long getNumber(byte[] key, int offset) {
+        return ByteBuffer.wrap(key, offset, 8).getLong() ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * @return the string from the offset up to the tx index at the end of a key
+     */
+    public static String getIndexedHash(byte[] key, int offset) {
+        return new String(key, offset, key.length - offset - INDEX_SUFFIX_SIZE, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the tx index at the end of a key
+     */
+    public static int getIndex(byte[] key) {
+        return ByteBuffer.wrap(key, key.length - 4, 4).getInt();
+    }
+
+    /**
+     * @return the string from the offset to the end of a key
+     */
+    public static String getString(byte[] key, int offset) {
+        return new String(key, offset, key.length - offset, StandardCharsets.UTF_8);
+    }
+
+    private static class KeyBuilder {
+        private final ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        private KeyBuilder(byte table) {
+            buffer.put(table);
+        }
+
+        private KeyBuilder string(String value) {
+            buffer.put(value.getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        private KeyBuilder separator() {
+            buffer.put((byte) 0);
+            return this;
+        }
+
+        private KeyBuilder number(long value) {
+            // flipping the sign bit keeps negative numbers in front of positive ones
+            buffer.putLong(value ^ Long.MIN_VALUE);
+            return this;
+        }
+
+        private KeyBuilder index(int value) {
+            buffer.putInt(value);
+            return this;
+        }
+
+        private KeyBuilder status(byte value) {
+            buffer.put(value);
+            return this;
+        }
+
+        private byte[] build() {
+            byte[] key = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(key);
+            return key;
+        }
+    }
+}
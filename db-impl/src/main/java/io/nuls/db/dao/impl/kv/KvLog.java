@@ -0,0 +1,287 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.core.utils.log.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of write batches, split into memory-mapped segment files of a fixed size.
+ * A record is [int length][int crc32][ops], an op is [byte type][short keyLength][key][int valueLength][value].
+ * A record is written completely before the write position moves on, so replay stops at the first
+ * record that is empty or does not match its checksum, which is where an interrupted write ended.
+ * Positions handed out are (segment << 32 | offset) and point at the int length in front of a value.
+ */
+public class KvLog {
+
+    public static final byte OP_PUT = 1;
+    public static final byte OP_DELETE = 2;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final File dir;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segmentList = new ArrayList<>();
+
+    private MappedByteBuffer current;
+    private int writeOffset;
+    /**
+     * the first segment written since the last force, -1 if nothing was
+     */
+    private int dirtySegment = -1;
+
+    public KvLog(File dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    public interface ReplayHandler {
+        /**
+         * @param position    the position of the value, -1 for deletes
+         * @param valueLength the length of the value, 0 for deletes
+         */
+        void apply(byte type, byte[] key, long position, int valueLength);
+    }
+
+    /**
+     * map the existing segments and hand every complete op to the handler, in the order they were written
+     */
+    public void open(ReplayHandler handler) throws IOException {
+        open(handler, 0);
+    }
+
+    /**
+     * map the existing segments and hand the complete ops from the position on to the handler,
+     * the ops in front of it are already known to the caller
+     *
+     * @param from a position returned by {@link #getEndPosition()}
+     * @return false if the log ends before the position, nothing is replayed then
+     */
+    public synchronized boolean open(ReplayHandler handler, long from) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("can not create " + dir.getAbsolutePath());
+        }
+        segmentList.clear();
+        for (int segment = 0; ; segment++) {
+            File file = segmentFile(segment);
+            if (!file.exists()) {
+                break;
+            }
+            segmentList.add(map(file));
+        }
+        if (segmentList.isEmpty()) {
+            segmentList.add(map(segmentFile(0)));
+        }
+        int fromSegment = (int) (from >>> 32);
+        int fromOffset = (int) from;
+        if (fromSegment >= segmentList.size() || fromOffset > segmentSize) {
+            return false;
+        }
+        for (int segment = fromSegment; segment < segmentList.size(); segment++) {
+            int start = segment == fromSegment ? fromOffset : 0;
+            int end = replay(segment, start, handler);
+            if (segment == segmentList.size() - 1) {
+                current = segmentList.get(segment);
+                writeOffset = end;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * append one batch of ops as a single record
+     *
+     * @return the positions of the values, -1 for deletes
+     */
+    public synchronized long[] append(List<KvWriteBatch.Op> opList) throws IOException {
+        int size = RECORD_HEADER_SIZE;
+        for (KvWriteBatch.Op op : opList) {
+            size += opSize(op);
+        }
+        if (size > segmentSize) {
+            throw new IOException("record of " + size + " bytes is larger than a segment");
+        }
+        if (writeOffset + size + RECORD_HEADER_SIZE > segmentSize) {
+            current = map(segmentFile(segmentList.size()));
+            segmentList.add(current);
+            writeOffset = 0;
+        }
+        long segment = segmentList.size() - 1;
+        long[] positions = new long[opList.size()];
+        ByteBuffer body = ByteBuffer.allocate(size - RECORD_HEADER_SIZE);
+        for (int i = 0; i < opList.size(); i++) {
+            KvWriteBatch.Op op = opList.get(i);
+            body.put(op.type);
+            body.putShort((short) op.key.length);
+            body.put(op.key);
+            if (op.type == OP_PUT) {
+                positions[i] = segment << 32 | (writeOffset + RECORD_HEADER_SIZE + body.position());
+                body.putInt(op.value.length);
+                body.put(op.value);
+            } else {
+                positions[i] = -1;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+        ByteBuffer buffer = current.duplicate();
+        buffer.position(writeOffset + 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(body.array());
+        // the length goes last, a record without it is not there on replay
+        buffer.putInt(writeOffset, size - RECORD_HEADER_SIZE);
+        writeOffset += size;
+        if (dirtySegment < 0) {
+            dirtySegment = (int) segment;
+        }
+        return positions;
+    }
+
+    public byte[] read(long position) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = segmentList.get((int) (position >>> 32)).duplicate();
+        }
+        buffer.position((int) position);
+        byte[] value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return value;
+    }
+
+    /**
+     * flush the records written since the last force to the disk
+     */
+    public synchronized void force() {
+        if (dirtySegment < 0) {
+            return;
+        }
+        for (int segment = dirtySegment; segment < segmentList.size(); segment++) {
+            segmentList.get(segment).force();
+        }
+        dirtySegment = -1;
+    }
+
+    public synchronized long size() {
+        return (long) (segmentList.size() - 1) * segmentSize + writeOffset;
+    }
+
+    /**
+     * the position the next record is written at
+     */
+    public synchronized long getEndPosition() {
+        return ((long) segmentList.size() - 1) << 32 | writeOffset;
+    }
+
+    public synchronized void close() {
+        force();
+        segmentList.clear();
+        current = null;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * @return the offset after the last complete record
+     */
+    private int replay(int segment, int start, ReplayHandler handler) {
+        ByteBuffer buffer = segmentList.get(segment).duplicate();
+        int offset = start;
+        while (offset + RECORD_HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.position(offset + RECORD_HEADER_SIZE);
+            buffer.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                Log.warn("kv log " + segmentFile(segment).getName() + " ends with a broken record at " + offset);
+                break;
+            }
+            ByteBuffer ops = ByteBuffer.wrap(body);
+            while (ops.hasRemaining()) {
+                byte type = ops.get();
+                byte[] key = new byte[ops.getShort() & 0xffff];
+                ops.get(key);
+                long position = -1;
+                int valueLength = 0;
+                if (type == OP_PUT) {
+                    position = ((long) segment) << 32 | (offset + RECORD_HEADER_SIZE + ops.position());
+                    valueLength = ops.getInt(ops.position());
+                    ops.position(ops.position() + 4 + valueLength);
+                }
+                handler.apply(type, key, position, valueLength);
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private static int opSize(KvWriteBatch.Op op) {
+        int size = 1 + 2 + op.key.length;
+        if (op.type == OP_PUT) {
+            size += 4 + op.value.length;
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of a segment file, -1 for other files
+     */
+    public static int getSegment(File file) {
+        String name = file.getName();
+        if (!name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private File segmentFile(int segment) {
+        return new File(dir, String.format("%08d", segment) + SEGMENT_SUFFIX);
+    }
+}
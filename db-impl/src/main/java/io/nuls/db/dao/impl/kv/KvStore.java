@@ -0,0 +1,558 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.core.utils.log.Log;
+import io.nuls.db.exception.DBException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Key-value store on top of a {@link KvLog}.
+ * The index is a sorted map from key to the position and length of its latest value, so lookups are one map access
+ * plus one read from a mapped segment and prefix scans are range scans.
+ * The index is checkpointed to a file every few segments and on close; opening the store loads the checkpoint and
+ * replays only the log written after it, without reading any value.
+ * The log is compacted on open once less than half of it is still referenced by the index.
+ * Writes made while a db session is open on the thread are held in a {@link KvTransaction} and only appended to the
+ * log when the session commits; the reads of that thread see them on top of the index.
+ */
+public class KvStore {
+
+    private static final int COMPACT_BATCH_SIZE = 1000;
+    private static final String COMPACT_DIR_SUFFIX = ".compact";
+    private static final String COMPACT_DONE_FILE = "done";
+    private static final String CHECKPOINT_FILE = "index.ckpt";
+    private static final int CHECKPOINT_VERSION = 1;
+    /**
+     * a checkpoint is written once the log grew by this many segments since the last one
+     */
+    private static final int CHECKPOINT_INTERVAL = 4;
+
+    private static final Comparator<byte[]> KEY_COMPARATOR = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] a, byte[] b) {
+            int length = Math.min(a.length, b.length);
+            for (int i = 0; i < length; i++) {
+                int result = (a[i] & 0xff) - (b[i] & 0xff);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return a.length - b.length;
+        }
+    };
+
+    private final File dir;
+    private final int segmentSize;
+    private final ConcurrentSkipListMap<byte[], Location> index = new ConcurrentSkipListMap<>(KEY_COMPARATOR);
+    private final KvLog.ReplayHandler indexHandler = new KvLog.ReplayHandler() {
+        @Override
+        public void apply(byte type, byte[] key, long position, int valueLength) {
+            if (type == KvLog.OP_PUT) {
+                put(key, new Location(position, valueLength));
+            } else {
+                remove(key);
+            }
+        }
+    };
+    private final ThreadLocal<ArrayDeque<KvTransaction>> transactionHolder = new ThreadLocal<ArrayDeque<KvTransaction>>() {
+        @Override
+        protected ArrayDeque<KvTransaction> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+    private KvLog log;
+    /**
+     * the bytes of the log still referenced by the index
+     */
+    private long liveSize;
+    private long checkpointLogSize;
+
+    public KvStore(File dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    public synchronized void open() throws IOException {
+        long start = System.currentTimeMillis();
+        finishCompaction();
+        log = load(new KvLog(dir, segmentSize));
+        if (log.size() > 2L * segmentSize && liveSize < log.size() / 2) {
+            compact();
+        } else if (log.size() != checkpointLogSize) {
+            checkpoint();
+        }
+        Log.info("kv store " + dir.getAbsolutePath() + " opened with " + index.size() + " keys, use:" +
+                (System.currentTimeMillis() - start) + "ms");
+    }
+
+    public synchronized void close() {
+        if (null != log) {
+            checkpoint();
+            log.close();
+            log = null;
+        }
+        index.clear();
+        liveSize = 0;
+    }
+
+    public byte[] get(byte[] key) {
+        for (KvTransaction transaction : transactionHolder.get()) {
+            byte[] value = transaction.getPendingMap().get(key);
+            if (null != value) {
+                return value == KvTransaction.DELETED ? null : value;
+            }
+        }
+        Location location = index.get(key);
+        if (null == location) {
+            return null;
+        }
+        return log.read(location.position);
+    }
+
+    public boolean contains(byte[] key) {
+        for (KvTransaction transaction : transactionHolder.get()) {
+            byte[] value = transaction.getPendingMap().get(key);
+            if (null != value) {
+                return value != KvTransaction.DELETED;
+            }
+        }
+        return index.containsKey(key);
+    }
+
+    /**
+     * hold back the writes of this thread until {@link #commit()} or {@link #rollback()}, the outermost db session
+     * of a thread begins one, a session of its own inside it begins another one
+     */
+    public void begin() {
+        transactionHolder.get().push(new KvTransaction(KEY_COMPARATOR));
+    }
+
+    /**
+     * append the writes held back since the last {@link #begin()} to the log, without forcing it
+     *
+     * @return the batch that restores the stored values of the written keys, for a session whose commit fails after
+     */
+    public KvWriteBatch commit() {
+        ArrayDeque<KvTransaction> stack = transactionHolder.get();
+        if (stack.isEmpty()) {
+            return new KvWriteBatch();
+        }
+        KvTransaction transaction = stack.pop();
+        if (stack.isEmpty()) {
+            transactionHolder.remove();
+        }
+        KvWriteBatch undo = new KvWriteBatch();
+        synchronized (this) {
+            for (byte[] key : transaction.getPendingMap().keySet()) {
+                Location location = index.get(key);
+                if (null == location) {
+                    undo.delete(key);
+                } else {
+                    undo.put(key, log.read(location.position));
+                }
+            }
+            append(transaction.getBatch());
+        }
+        return undo;
+    }
+
+    /**
+     * drop the writes held back since the last {@link #begin()}
+     */
+    public void rollback() {
+        ArrayDeque<KvTransaction> stack = transactionHolder.get();
+        if (!stack.isEmpty()) {
+            stack.pop();
+        }
+        if (stack.isEmpty()) {
+            transactionHolder.remove();
+        }
+    }
+
+    public void put(byte[] key, byte[] value) {
+        write(new KvWriteBatch().put(key, value));
+    }
+
+    public void delete(byte[] key) {
+        write(new KvWriteBatch().delete(key));
+    }
+
+    /**
+     * apply the batch, or hold it back while a db session is open on this thread
+     */
+    public void write(KvWriteBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        KvTransaction transaction = transactionHolder.get().peek();
+        if (null != transaction) {
+            transaction.add(batch);
+            return;
+        }
+        append(batch);
+    }
+
+    private synchronized void append(KvWriteBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<KvWriteBatch.Op> opList = batch.getOpList();
+        long[] positions;
+        try {
+            positions = log.append(opList);
+        } catch (IOException e) {
+            throw new DBException(e);
+        }
+        for (int i = 0; i < opList.size(); i++) {
+            KvWriteBatch.Op op = opList.get(i);
+            if (op.type == KvLog.OP_PUT) {
+                put(op.key, new Location(positions[i], op.value.length));
+            } else {
+                remove(op.key);
+            }
+        }
+        if (log.size() - checkpointLogSize >= (long) CHECKPOINT_INTERVAL * segmentSize) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * @return the keys starting with the prefix, in key order
+     */
+    public List<byte[]> keys(byte[] prefix) {
+        return new ArrayList<>(view(range(prefix), prefix, prefixEnd(prefix)).keySet());
+    }
+
+    /**
+     * @return the values of the keys starting with the prefix, in key order
+     */
+    public List<byte[]> values(byte[] prefix) {
+        List<byte[]> list = new ArrayList<>();
+        for (Object value : view(range(prefix), prefix, prefixEnd(prefix)).values()) {
+            list.add(value instanceof Location ? log.read(((Location) value).position) : (byte[]) value);
+        }
+        return list;
+    }
+
+    /**
+     * @return the keys from fromKey (inclusive) to toKey (exclusive), in key order
+     */
+    public List<byte[]> keys(byte[] fromKey, byte[] toKey) {
+        return new ArrayList<>(view(index.subMap(fromKey, true, toKey, false), fromKey, toKey).keySet());
+    }
+
+    /**
+     * @return the greatest key starting with the prefix, or null
+     */
+    public byte[] lastKey(byte[] prefix) {
+        NavigableMap<byte[], ?> range = view(range(prefix), prefix, prefixEnd(prefix));
+        if (range.isEmpty()) {
+            return null;
+        }
+        return range.lastKey();
+    }
+
+    public int count(byte[] prefix) {
+        return view(range(prefix), prefix, prefixEnd(prefix)).size();
+    }
+
+    /**
+     * flush the log to the disk
+     */
+    public void force() {
+        log.force();
+    }
+
+    private ConcurrentNavigableMap<byte[], Location> range(byte[] prefix) {
+        byte[] end = prefixEnd(prefix);
+        if (null == end) {
+            return index.tailMap(prefix, true);
+        }
+        return index.subMap(prefix, true, end, false);
+    }
+
+    /**
+     * @return the smallest key greater than every key starting with the prefix, null if there is none
+     */
+    private static byte[] prefixEnd(byte[] prefix) {
+        byte[] end = Arrays.copyOf(prefix, prefix.length);
+        for (int i = end.length - 1; i >= 0; i--) {
+            if (end[i] != (byte) 0xff) {
+                end[i]++;
+                return Arrays.copyOf(end, i + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * the range of the index from fromKey (inclusive) to toKey (exclusive, null for no end) as this thread sees it,
+     * with the writes its open sessions hold back on top; the values are {@link Location}s or pending values
+     */
+    private NavigableMap<byte[], ?> view(NavigableMap<byte[], Location> range, byte[] fromKey, byte[] toKey) {
+        ArrayDeque<KvTransaction> stack = transactionHolder.get();
+        if (stack.isEmpty()) {
+            return range;
+        }
+        TreeMap<byte[], Object> view = null;
+        Iterator<KvTransaction> it = stack.descendingIterator();
+        while (it.hasNext()) {
+            NavigableMap<byte[], byte[]> pendingMap = it.next().getPendingMap();
+            NavigableMap<byte[], byte[]> pendingRange = null == toKey ? pendingMap.tailMap(fromKey, true) :
+                    pendingMap.subMap(fromKey, true, toKey, false);
+            if (pendingRange.isEmpty()) {
+                continue;
+            }
+            if (null == view) {
+                view = new TreeMap<byte[], Object>(range);
+            }
+            for (Map.Entry<byte[], byte[]> entry : pendingRange.entrySet()) {
+                if (entry.getValue() == KvTransaction.DELETED) {
+                    view.remove(entry.getKey());
+                } else {
+                    view.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return null == view ? range : view;
+    }
+
+    private void put(byte[] key, Location location) {
+        Location old = index.put(key, location);
+        liveSize += recordSize(key, location.length);
+        if (null != old) {
+            liveSize -= recordSize(key, old.length);
+        }
+    }
+
+    private void remove(byte[] key) {
+        Location old = index.remove(key);
+        if (null != old) {
+            liveSize -= recordSize(key, old.length);
+        }
+    }
+
+    private static long recordSize(byte[] key, int valueLength) {
+        return 7 + key.length + valueLength;
+    }
+
+    /**
+     * build the index from the checkpoint and the log written after it, or from the whole log without a usable checkpoint
+     */
+    private KvLog load(KvLog kvLog) throws IOException {
+        index.clear();
+        liveSize = 0;
+        long[] checkpoint = readCheckpoint();
+        if (null != checkpoint && kvLog.open(indexHandler, checkpoint[0])) {
+            checkpointLogSize = checkpoint[1];
+            return kvLog;
+        }
+        index.clear();
+        liveSize = 0;
+        checkpointLogSize = -1;
+        kvLog.open(indexHandler);
+        return kvLog;
+    }
+
+    /**
+     * write the index next to the log, together with the position of the log it covers.
+     * The log is forced first, so a checkpoint never covers records that are not on the disk.
+     */
+    private void checkpoint() {
+        long start = System.currentTimeMillis();
+        log.force();
+        File file = new File(dir, CHECKPOINT_FILE);
+        File tmpFile = new File(dir, CHECKPOINT_FILE + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmpFile)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOut), crc));
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(log.getEndPosition());
+            out.writeLong(log.size());
+            out.writeInt(index.size());
+            for (Map.Entry<byte[], Location> entry : index.entrySet()) {
+                out.writeShort(entry.getKey().length);
+                out.write(entry.getKey());
+                out.writeLong(entry.getValue().position);
+                out.writeInt(entry.getValue().length);
+            }
+            out.writeLong(crc.getValue());
+            out.flush();
+            fileOut.getFD().sync();
+        } catch (IOException e) {
+            Log.warn("kv store checkpoint failed, the log is replayed from the last one", e);
+            tmpFile.delete();
+            return;
+        }
+        try {
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.warn("kv store checkpoint failed, the log is replayed from the last one", e);
+            return;
+        }
+        checkpointLogSize = log.size();
+        Log.debug("kv store checkpoint of " + index.size() + " keys, use:" + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * fill the index from the checkpoint file
+     *
+     * @return the log position and log size the checkpoint covers, null if there is no intact checkpoint
+     */
+    private long[] readCheckpoint() {
+        File file = new File(dir, CHECKPOINT_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileInputStream fileIn = new FileInputStream(file)) {
+            CRC32 crc = new CRC32();
+            DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(fileIn), crc));
+            if (in.readInt() != CHECKPOINT_VERSION) {
+                return null;
+            }
+            long endPosition = in.readLong();
+            long logSize = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[in.readUnsignedShort()];
+                in.readFully(key);
+                long position = in.readLong();
+                put(key, new Location(position, in.readInt()));
+            }
+            long value = crc.getValue();
+            if (in.readLong() != value) {
+                Log.warn("kv store checkpoint " + file.getAbsolutePath() + " is broken, the whole log is replayed");
+                return null;
+            }
+            return new long[]{endPosition, logSize};
+        } catch (IOException e) {
+            Log.warn("kv store checkpoint " + file.getAbsolutePath() + " can not be read, the whole log is replayed", e);
+            return null;
+        }
+    }
+
+    /**
+     * write the live values to a new log next to the old one and swap the segment files
+     */
+    private void compact() throws IOException {
+        long start = System.currentTimeMillis();
+        long oldSize = log.size();
+        File compactDir = new File(dir.getAbsolutePath() + COMPACT_DIR_SUFFIX);
+        deleteFiles(compactDir);
+        KvLog compactLog = new KvLog(compactDir, segmentSize);
+        compactLog.open(new KvLog.ReplayHandler() {
+            @Override
+            public void apply(byte type, byte[] key, long position, int valueLength) {
+            }
+        });
+        KvWriteBatch batch = new KvWriteBatch();
+        for (Map.Entry<byte[], Location> entry : index.entrySet()) {
+            batch.put(entry.getKey(), log.read(entry.getValue().position));
+            if (batch.size() >= COMPACT_BATCH_SIZE) {
+                compactLog.append(batch.getOpList());
+                batch = new KvWriteBatch();
+            }
+        }
+        if (!batch.isEmpty()) {
+            compactLog.append(batch.getOpList());
+        }
+        compactLog.close();
+        log.close();
+        int segmentCount = compactDir.list().length;
+        Files.write(new File(compactDir, COMPACT_DONE_FILE).toPath(), String.valueOf(segmentCount).getBytes(StandardCharsets.UTF_8));
+        finishCompaction();
+        log = load(new KvLog(dir, segmentSize));
+        checkpoint();
+        Log.info("kv store compacted from " + oldSize + " to " + log.size() + " bytes, use:" +
+                (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * a compacted log replaces the old one only once it is complete, an interrupted swap is finished on the next open
+     */
+    private void finishCompaction() throws IOException {
+        File compactDir = new File(dir.getAbsolutePath() + COMPACT_DIR_SUFFIX);
+        if (!compactDir.exists()) {
+            return;
+        }
+        File doneFile = new File(compactDir, COMPACT_DONE_FILE);
+        if (doneFile.exists()) {
+            // the positions of the checkpoint point into the old log
+            new File(dir, CHECKPOINT_FILE).delete();
+            // the segments beyond the compacted ones go first, the others are replaced one by one
+            int segmentCount = Integer.parseInt(new String(Files.readAllBytes(doneFile.toPath()), StandardCharsets.UTF_8).trim());
+            File[] files = dir.listFiles();
+            if (null != files) {
+                for (File file : files) {
+                    if (KvLog.getSegment(file) >= segmentCount) {
+                        file.delete();
+                    }
+                }
+            }
+            files = compactDir.listFiles();
+            if (null != files) {
+                for (File file : files) {
+                    if (!file.equals(doneFile)) {
+                        Files.move(file.toPath(), new File(dir, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+        }
+        deleteFiles(compactDir);
+        compactDir.delete();
+    }
+
+    private static void deleteFiles(File dir) {
+        File[] files = dir.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * where the latest value of a key is in the log
+     */
+    private static final class Location {
+        private final long position;
+        private final int length;
+
+        private Location(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
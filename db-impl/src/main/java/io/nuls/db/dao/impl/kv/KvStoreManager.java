@@ -0,0 +1,97 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.core.constant.ErrorCode;
+import io.nuls.db.exception.DBException;
+
+/**
+ * Holds the store the kv daos work on, the db module opens it before the daos are used.
+ */
+public class KvStoreManager {
+
+    private static KvStore store;
+
+    public static KvStore getStore() {
+        if (null == store) {
+            throw new DBException(ErrorCode.DB_SESSION_MISS_INIT);
+        }
+        return store;
+    }
+
+    public static void setStore(KvStore store) {
+        KvStoreManager.store = store;
+    }
+
+    /**
+     * hold back the kv writes of this thread until the db session commits or rolls back.
+     * Does nothing while the h2 engine is in use, as do the other session methods.
+     */
+    public static void begin() {
+        KvStore kvStore = store;
+        if (null != kvStore) {
+            kvStore.begin();
+        }
+    }
+
+    /**
+     * append the kv writes of the session to the log
+     *
+     * @return the batch that takes them back if the sql commit fails afterwards
+     */
+    public static KvWriteBatch commit() {
+        KvStore kvStore = store;
+        if (null == kvStore) {
+            return new KvWriteBatch();
+        }
+        return kvStore.commit();
+    }
+
+    public static void rollback() {
+        KvStore kvStore = store;
+        if (null != kvStore) {
+            kvStore.rollback();
+        }
+    }
+
+    /**
+     * take back the kv writes of a session whose sql commit failed after they were appended
+     */
+    public static void undo(KvWriteBatch undo) {
+        KvStore kvStore = store;
+        if (null != kvStore) {
+            kvStore.write(undo);
+        }
+    }
+
+    /**
+     * make everything written so far durable, called once a db session committed
+     */
+    public static void force() {
+        KvStore kvStore = store;
+        if (null != kvStore) {
+            kvStore.force();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The kv writes of one db session, held back until the session commits.
+ * The writes are kept in order for the log and by key, so reads of the session see them before they are applied.
+ */
+class KvTransaction {
+
+    /**
+     * marks a key deleted in the session, compared by identity
+     */
+    static final byte[] DELETED = new byte[0];
+
+    private final KvWriteBatch batch = new KvWriteBatch();
+    private final TreeMap<byte[], byte[]> pendingMap;
+
+    KvTransaction(Comparator<byte[]> comparator) {
+        this.pendingMap = new TreeMap<>(comparator);
+    }
+
+    void add(KvWriteBatch writeBatch) {
+        for (KvWriteBatch.Op op : writeBatch.getOpList()) {
+            if (op.type == KvLog.OP_PUT) {
+                batch.put(op.key, op.value);
+                pendingMap.put(op.key, op.value);
+            } else {
+                batch.delete(op.key);
+                pendingMap.put(op.key, DELETED);
+            }
+        }
+    }
+
+    KvWriteBatch getBatch() {
+        return batch;
+    }
+
+    /**
+     * @return the values written in the session by key, {@link #DELETED} for the deleted keys
+     */
+    NavigableMap<byte[], byte[]> getPendingMap() {
+        return pendingMap;
+    }
+}
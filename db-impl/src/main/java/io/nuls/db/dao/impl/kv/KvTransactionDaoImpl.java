@@ -0,0 +1,198 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.core.utils.crypto.Hex;
+import io.nuls.core.utils.str.StringUtils;
+import io.nuls.db.dao.TransactionDataService;
+import io.nuls.db.entity.BlockHeaderPo;
+import io.nuls.db.entity.TransactionPo;
+import io.nuls.db.entity.UtxoInputPo;
+import io.nuls.db.entity.UtxoOutputPo;
+
+import java.util.*;
+
+/**
+ * Transactions by hash, listed per block in (height, create time) order.
+ * Like the joined select of the mybatis dao, a tx is returned with its inputs, the outputs they spend and its outputs.
+ */
+public class KvTransactionDaoImpl extends BaseKvDaoImpl<String, TransactionPo> implements TransactionDataService {
+
+    private static final int BLOCK_TX_HASH_OFFSET = 1 + 8 + 8;
+
+    private static final Comparator<TransactionPo> BLOCK_ORDER = new Comparator<TransactionPo>() {
+        @Override
+        public int compare(TransactionPo o1, TransactionPo o2) {
+            int result = Long.compare(o1.getBlockHeight(), o2.getBlockHeight());
+            if (result == 0) {
+                result = Long.compare(o1.getCreateTime(), o2.getCreateTime());
+            }
+            return result;
+        }
+    };
+
+    public KvTransactionDaoImpl() {
+        super(KvKeys.TX);
+    }
+
+    @Override
+    protected void put(KvWriteBatch batch, TransactionPo po) {
+        byte[] bytes = getStore().get(KvKeys.tx(po.getHash()));
+        if (null != bytes) {
+            TransactionPo stored = KvCodec.decodeTx(bytes);
+            batch.delete(KvKeys.blockTx(stored.getBlockHeight(), stored.getCreateTime(), stored.getHash()));
+        }
+        batch.put(KvKeys.tx(po.getHash()), KvCodec.encode(po));
+        batch.put(KvKeys.blockTx(po.getBlockHeight(), po.getCreateTime(), po.getHash()), null);
+    }
+
+    @Override
+    protected boolean remove(KvWriteBatch batch, String hash) {
+        byte[] bytes = getStore().get(KvKeys.tx(hash));
+        if (null == bytes) {
+            return false;
+        }
+        TransactionPo stored = KvCodec.decodeTx(bytes);
+        batch.delete(KvKeys.tx(hash));
+        batch.delete(KvKeys.blockTx(stored.getBlockHeight(), stored.getCreateTime(), hash));
+        return true;
+    }
+
+    @Override
+    protected byte[] getKey(TransactionPo po) {
+        return KvKeys.tx(po.getHash());
+    }
+
+    @Override
+    protected TransactionPo decode(byte[] bytes) {
+        return fill(KvCodec.decodeTx(bytes));
+    }
+
+    @Override
+    public TransactionPo get(String hash) {
+        return getValue(KvKeys.tx(hash));
+    }
+
+    @Override
+    public List<TransactionPo> getTxs(Long blockHeight) {
+        return getTxs(getStore().keys(KvKeys.blockTx(blockHeight)));
+    }
+
+    @Override
+    public List<TransactionPo> getTxs(Long startHeight, Long endHeight) {
+        return getTxs(getStore().keys(KvKeys.blockTx(startHeight), KvKeys.blockTx(endHeight + 1)));
+    }
+
+    @Override
+    public List<TransactionPo> getTxs(String blockHash) {
+        byte[] bytes = getStore().get(KvKeys.header(blockHash));
+        if (null == bytes) {
+            return new ArrayList<>();
+        }
+        BlockHeaderPo header = KvCodec.decodeHeader(bytes);
+        return getTxs(header.getHeight());
+    }
+
+    @Override
+    public List<TransactionPo> getTxs(byte[] blockHash) {
+        return getTxs(Hex.encode(blockHash));
+    }
+
+    @Override
+    public List<TransactionPo> getTxs(String address, int type, Integer start, Integer limit) {
+        List<TransactionPo> list = new ArrayList<>();
+        if (StringUtils.isBlank(address)) {
+            for (byte[] bytes : getStore().values(KvKeys.table(KvKeys.TX))) {
+                TransactionPo po = KvCodec.decodeTx(bytes);
+                if (type == 0 || po.getType() == type) {
+                    list.add(po);
+                }
+            }
+        } else {
+            int offset = KvKeys.relations(address).length;
+            for (byte[] key : getStore().keys(KvKeys.relations(address))) {
+                byte[] bytes = getStore().get(KvKeys.tx(KvKeys.getString(key, offset)));
+                if (null == bytes) {
+                    continue;
+                }
+                TransactionPo po = KvCodec.decodeTx(bytes);
+                if (type == 0 || po.getType() == type) {
+                    list.add(po);
+                }
+            }
+        }
+        Collections.sort(list, BLOCK_ORDER);
+        list = page(list, start, limit);
+        for (TransactionPo po : list) {
+            fill(po);
+        }
+        return list;
+    }
+
+    @Override
+    public List<TransactionPo> getTxs(String address, int type) {
+        return getTxs(address, type, null, null);
+    }
+
+    private List<TransactionPo> getTxs(List<byte[]> blockTxKeys) {
+        List<TransactionPo> list = new ArrayList<>(blockTxKeys.size());
+        for (byte[] key : blockTxKeys) {
+            TransactionPo po = get(KvKeys.getString(key, BLOCK_TX_HASH_OFFSET));
+            if (null != po) {
+                list.add(po);
+            }
+        }
+        return list;
+    }
+
+    private TransactionPo fill(TransactionPo po) {
+        po.setInputs(getInputs(getStore(), po.getHash()));
+        po.setOutputs(getOutputs(getStore(), po.getHash()));
+        return po;
+    }
+
+    /**
+     * the inputs of a tx, each with the output it spends
+     */
+    static List<UtxoInputPo> getInputs(KvStore store, String txHash) {
+        List<UtxoInputPo> inputs = new ArrayList<>();
+        for (byte[] bytes : store.values(KvKeys.inputs(txHash))) {
+            UtxoInputPo input = KvCodec.decodeInput(bytes);
+            byte[] from = store.get(KvKeys.output(input.getFromHash(), input.getFromIndex()));
+            if (null != from) {
+                input.setFromOutPut(KvCodec.decodeOutput(from));
+            }
+            inputs.add(input);
+        }
+        return inputs;
+    }
+
+    static List<UtxoOutputPo> getOutputs(KvStore store, String txHash) {
+        List<UtxoOutputPo> outputs = new ArrayList<>();
+        for (byte[] bytes : store.values(KvKeys.outputs(txHash))) {
+            outputs.add(KvCodec.decodeOutput(bytes));
+        }
+        return outputs;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.core.utils.crypto.Hex;
+import io.nuls.core.utils.str.StringUtils;
+import io.nuls.db.dao.TransactionLocalDataService;
+import io.nuls.db.entity.BlockHeaderPo;
+import io.nuls.db.entity.TransactionLocalPo;
+
+import java.util.*;
+
+/**
+ * The txs of the local accounts by hash, listed per block in (height, create time) order.
+ * The inputs and outputs are read from the tables the block commit writes, the same ones {@link KvTransactionDaoImpl} reads.
+ */
+public class KvTransactionLocalDaoImpl extends BaseKvDaoImpl<String, TransactionLocalPo> implements TransactionLocalDataService {
+
+    private static final int BLOCK_TX_HASH_OFFSET = 1 + 8 + 8;
+
+    private static final Comparator<TransactionLocalPo> BLOCK_ORDER = new Comparator<TransactionLocalPo>() {
+        @Override
+        public int compare(TransactionLocalPo o1, TransactionLocalPo o2) {
+            int result = Long.compare(o1.getBlockHeight(), o2.getBlockHeight());
+            if (result == 0) {
+                result = Long.compare(o1.getCreateTime(), o2.getCreateTime());
+            }
+            return result;
+        }
+    };
+
+    public KvTransactionLocalDaoImpl() {
+        super(KvKeys.LOCAL_TX);
+    }
+
+    @Override
+    protected void put(KvWriteBatch batch, TransactionLocalPo po) {
+        byte[] bytes = getStore().get(KvKeys.localTx(po.getHash()));
+        if (null != bytes) {
+            TransactionLocalPo stored = KvCodec.decodeLocalTx(bytes);
+            batch.delete(KvKeys.blockLocalTx(stored.getBlockHeight(), stored.getCreateTime(), stored.getHash()));
+        }
+        batch.put(KvKeys.localTx(po.getHash()), KvCodec.encode(po));
+        batch.put(KvKeys.blockLocalTx(po.getBlockHeight(), po.getCreateTime(), po.getHash()), null);
+    }
+
+    @Override
+    protected boolean remove(KvWriteBatch batch, String hash) {
+        byte[] bytes = getStore().get(KvKeys.localTx(hash));
+        if (null == bytes) {
+            return false;
+        }
+        TransactionLocalPo stored = KvCodec.decodeLocalTx(bytes);
+        batch.delete(KvKeys.localTx(hash));
+        batch.delete(KvKeys.blockLocalTx(stored.getBlockHeight(), stored.getCreateTime(), hash));
+        return true;
+    }
+
+    @Override
+    protected byte[] getKey(TransactionLocalPo po) {
+        return KvKeys.localTx(po.getHash());
+    }
+
+    @Override
+    protected TransactionLocalPo decode(byte[] bytes) {
+        return fill(KvCodec.decodeLocalTx(bytes));
+    }
+
+    @Override
+    public TransactionLocalPo get(String hash) {
+        return getValue(KvKeys.localTx(hash));
+    }
+
+    @Override
+    public List<TransactionLocalPo> getTxs(Long blockHeight) {
+        return getTxs(getStore().keys(KvKeys.blockLocalTx(blockHeight)));
+    }
+
+    @Override
+    public List<TransactionLocalPo> getTxs(Long startHeight, Long endHeight) {
+        return getTxs(getStore().keys(KvKeys.blockLocalTx(startHeight), KvKeys.blockLocalTx(endHeight + 1)));
+    }
+
+    @Override
+    public List<TransactionLocalPo> getTxs(String blockHash) {
+        byte[] bytes = getStore().get(KvKeys.header(blockHash));
+        if (null == bytes) {
+            return new ArrayList<>();
+        }
+        BlockHeaderPo header = KvCodec.decodeHeader(bytes);
+        return getTxs(header.getHeight());
+    }
+
+    @Override
+    public List<TransactionLocalPo> getTxs(byte[] blockHash) {
+        return getTxs(Hex.encode(blockHash));
+    }
+
+    @Override
+    public List<TransactionLocalPo> getTxs(String address, int type, Integer start, Integer limit) {
+        List<TransactionLocalPo> list = new ArrayList<>();
+        if (StringUtils.isBlank(address)) {
+            for (byte[] bytes : getStore().values(KvKeys.table(KvKeys.LOCAL_TX))) {
+                TransactionLocalPo po = KvCodec.decodeLocalTx(bytes);
+                if (type == 0 || po.getType() == type) {
+                    list.add(po);
+                }
+            }
+        } else {
+            int offset = KvKeys.relations(address).length;
+            for (byte[] key : getStore().keys(KvKeys.relations(address))) {
+                byte[] bytes = getStore().get(KvKeys.localTx(KvKeys.getString(key, offset)));
+                if (null == bytes) {
+                    continue;
+                }
+                TransactionLocalPo po = KvCodec.decodeLocalTx(bytes);
+                if (type == 0 || po.getType() == type) {
+                    list.add(po);
+                }
+            }
+        }
+        Collections.sort(list, BLOCK_ORDER);
+        list = page(list, start, limit);
+        for (TransactionLocalPo po : list) {
+            fill(po);
+        }
+        return list;
+    }
+
+    @Override
+    public List<TransactionLocalPo> getTxs(String address, int type) {
+        return getTxs(address, type, null, null);
+    }
+
+    private List<TransactionLocalPo> getTxs(List<byte[]> blockTxKeys) {
+        List<TransactionLocalPo> list = new ArrayList<>(blockTxKeys.size());
+        for (byte[] key : blockTxKeys) {
+            TransactionLocalPo po = get(KvKeys.getString(key, BLOCK_TX_HASH_OFFSET));
+            if (null != po) {
+                list.add(po);
+            }
+        }
+        return list;
+    }
+
+    private TransactionLocalPo fill(TransactionLocalPo po) {
+        po.setInputs(KvTransactionDaoImpl.getInputs(getStore(), po.getHash()));
+        po.setOutputs(KvTransactionDaoImpl.getOutputs(getStore(), po.getHash()));
+        return po;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.core.constant.ErrorCode;
+import io.nuls.db.dao.TxAccountRelationDataService;
+import io.nuls.db.entity.TxAccountRelationPo;
+import io.nuls.db.exception.DBException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The txs of every address, as (address, txHash) keys without a value.
+ * Relations have no id in the kv store, so they can not be read or deleted by one.
+ */
+public class KvTxAccountRelationDaoImpl extends BaseKvDaoImpl<String, TxAccountRelationPo> implements TxAccountRelationDataService {
+
+    public KvTxAccountRelationDaoImpl() {
+        super(KvKeys.RELATION);
+    }
+
+    @Override
+    protected void put(KvWriteBatch batch, TxAccountRelationPo po) {
+        batch.put(getKey(po), null);
+    }
+
+    @Override
+    protected boolean remove(KvWriteBatch batch, String id) {
+        throw new DBException(ErrorCode.DB_UNKOWN_EXCEPTION, "relations have no id in the kv store");
+    }
+
+    @Override
+    protected byte[] getKey(TxAccountRelationPo po) {
+        return KvKeys.relation(po.getAddress(), po.getTxHash());
+    }
+
+    @Override
+    protected TxAccountRelationPo decode(byte[] bytes) {
+        throw new DBException(ErrorCode.DB_UNKOWN_EXCEPTION, "relations are kept in their keys");
+    }
+
+    @Override
+    public TxAccountRelationPo get(String id) {
+        throw new DBException(ErrorCode.DB_UNKOWN_EXCEPTION, "relations have no id in the kv store");
+    }
+
+    @Override
+    public List<TxAccountRelationPo> getList() {
+        List<TxAccountRelationPo> list = new ArrayList<>();
+        for (byte[] key : getStore().keys(KvKeys.table(KvKeys.RELATION))) {
+            String relation = KvKeys.getString(key, 1);
+            int separator = relation.indexOf('\0');
+            list.add(new TxAccountRelationPo(relation.substring(separator + 1), relation.substring(0, separator)));
+        }
+        return list;
+    }
+
+    @Override
+    public void deleteRelation(String txHash, Set<String> addressSet) {
+        List<TxAccountRelationPo> list = new ArrayList<>(addressSet.size());
+        for (String address : addressSet) {
+            list.add(new TxAccountRelationPo(txHash, address));
+        }
+        deleteRelations(list);
+    }
+
+    @Override
+    public int deleteRelations(List<TxAccountRelationPo> list) {
+        int result = 0;
+        KvWriteBatch batch = new KvWriteBatch();
+        for (TxAccountRelationPo po : list) {
+            byte[] key = getKey(po);
+            if (getStore().contains(key)) {
+                batch.delete(key);
+                result++;
+            }
+        }
+        getStore().write(batch);
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.db.dao.UtxoInputDataService;
+import io.nuls.db.entity.UtxoInputPo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inputs by (txHash, inIndex).
+ */
+public class KvUtxoInputDaoImpl extends BaseKvDaoImpl<Map<String, Object>, UtxoInputPo> implements UtxoInputDataService {
+
+    public KvUtxoInputDaoImpl() {
+        super(KvKeys.INPUT);
+    }
+
+    @Override
+    protected void put(KvWriteBatch batch, UtxoInputPo po) {
+        batch.put(getKey(po), KvCodec.encode(po));
+    }
+
+    @Override
+    protected boolean remove(KvWriteBatch batch, Map<String, Object> keyMap) {
+        byte[] key = getKey(keyMap);
+        if (!getStore().contains(key)) {
+            return false;
+        }
+        batch.delete(key);
+        return true;
+    }
+
+    @Override
+    protected byte[] getKey(UtxoInputPo po) {
+        return KvKeys.input(po.getTxHash(), po.getInIndex());
+    }
+
+    private byte[] getKey(Map<String, Object> keyMap) {
+        return KvKeys.input((String) keyMap.get("txHash"), (Integer) keyMap.get("inIndex"));
+    }
+
+    @Override
+    protected UtxoInputPo decode(byte[] bytes) {
+        return KvCodec.decodeInput(bytes);
+    }
+
+    @Override
+    public UtxoInputPo get(Map<String, Object> keyMap) {
+        return getValue(getKey(keyMap));
+    }
+
+    @Override
+    public List<UtxoInputPo> getTxInputs(String txHash) {
+        return getValues(KvKeys.inputs(txHash));
+    }
+
+    @Override
+    public int deleteInputs(List<UtxoInputPo> keyList) {
+        int result = 0;
+        KvWriteBatch batch = new KvWriteBatch();
+        for (UtxoInputPo po : keyList) {
+            byte[] key = getKey(po);
+            if (getStore().contains(key)) {
+                batch.delete(key);
+                result++;
+            }
+        }
+        getStore().write(batch);
+        return result;
+    }
+}
@@ -0,0 +1,261 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.core.constant.ErrorCode;
+import io.nuls.core.exception.NulsRuntimeException;
+import io.nuls.db.dao.UtxoOutputDataService;
+import io.nuls.db.entity.TransactionPo;
+import io.nuls.db.entity.UtxoOutputPo;
+
+import java.util.*;
+
+/**
+ * Outputs by (txHash, outIndex), with an (address, status) index over them.
+ * A status change moves the output to another index key in the same batch.
+ */
+public class KvUtxoOutputDaoImpl extends BaseKvDaoImpl<Map<String, Object>, UtxoOutputPo> implements UtxoOutputDataService {
+
+    private static final byte SPENT = 2;
+
+    private static final Comparator<UtxoOutputPo> ADDRESS_ORDER = new Comparator<UtxoOutputPo>() {
+        @Override
+        public int compare(UtxoOutputPo o1, UtxoOutputPo o2) {
+            int result = o1.getAddress().compareTo(o2.getAddress());
+            if (result == 0) {
+                result = Byte.compare(o1.getStatus(), o2.getStatus());
+            }
+            if (result == 0) {
+                result = Long.compare(o1.getValue(), o2.getValue());
+            }
+            return result;
+        }
+    };
+
+    public KvUtxoOutputDaoImpl() {
+        super(KvKeys.OUTPUT);
+    }
+
+    @Override
+    protected void put(KvWriteBatch batch, UtxoOutputPo po) {
+        UtxoOutputPo stored = getValue(getKey(po));
+        if (null != stored) {
+            batch.delete(getAddressKey(stored));
+        }
+        batch.put(getKey(po), KvCodec.encode(po));
+        batch.put(getAddressKey(po), null);
+    }
+
+    @Override
+    protected boolean remove(KvWriteBatch batch, Map<String, Object> keyMap) {
+        byte[] key = KvKeys.output((String) keyMap.get("txHash"), (Integer) keyMap.get("outIndex"));
+        UtxoOutputPo stored = getValue(key);
+        if (null == stored) {
+            return false;
+        }
+        batch.delete(key);
+        batch.delete(getAddressKey(stored));
+        return true;
+    }
+
+    @Override
+    protected byte[] getKey(UtxoOutputPo po) {
+        return KvKeys.output(po.getTxHash(), po.getOutIndex());
+    }
+
+    private byte[] getAddressKey(UtxoOutputPo po) {
+        return KvKeys.addressOutput(po.getAddress(), po.getStatus(), po.getTxHash(), po.getOutIndex());
+    }
+
+    @Override
+    protected UtxoOutputPo decode(byte[] bytes) {
+        return KvCodec.decodeOutput(bytes);
+    }
+
+    @Override
+    public UtxoOutputPo get(Map<String, Object> keyMap) {
+        return getValue(KvKeys.output((String) keyMap.get("txHash"), (Integer) keyMap.get("outIndex")));
+    }
+
+    @Override
+    public List<UtxoOutputPo> getTxOutputs(String txHash) {
+        return getValues(KvKeys.outputs(txHash));
+    }
+
+    @Override
+    public List<UtxoOutputPo> getAccountOutputs(String address, byte status) {
+        List<UtxoOutputPo> list = getByAddressKeys(getStore().keys(KvKeys.addressOutputs(address, status)));
+        Collections.sort(list, ADDRESS_ORDER);
+        return list;
+    }
+
+    @Override
+    public List<UtxoOutputPo> getAccountOutputs(int txType, String address, Long beginTime, Long endTime) {
+        List<UtxoOutputPo> list = new ArrayList<>();
+        for (UtxoOutputPo po : getByAddressKeys(getStore().keys(KvKeys.addressOutputs(address)))) {
+            setTxInfo(po);
+            if (null == po.getTxType() || po.getTxType() != txType) {
+                continue;
+            }
+            if ((null != beginTime && po.getCreateTime() < beginTime) || (null != endTime && po.getCreateTime() > endTime)) {
+                continue;
+            }
+            list.add(po);
+        }
+        return list;
+    }
+
+    @Override
+    public List<UtxoOutputPo> getAllUnSpend() {
+        List<byte[]> keyList = new ArrayList<>();
+        for (byte[] key : getStore().keys(KvKeys.table(KvKeys.ADDRESS_OUTPUT))) {
+            if (getStatus(key) != SPENT) {
+                keyList.add(key);
+            }
+        }
+        List<UtxoOutputPo> list = getByAddressKeys(keyList);
+        Collections.sort(list, ADDRESS_ORDER);
+        return list;
+    }
+
+    @Override
+    public List<UtxoOutputPo> getLockUtxo(String address, Long beginTime, Integer pageNumber, Integer pageSize) {
+        List<UtxoOutputPo> list = new ArrayList<>();
+        for (UtxoOutputPo po : getByAddressKeys(getStore().keys(KvKeys.addressOutputs(address)))) {
+            if (null != po.getLockTime() && po.getLockTime() > beginTime) {
+                list.add(po);
+            }
+        }
+        list = page(list, pageNumber, pageSize);
+        for (UtxoOutputPo po : list) {
+            setTxInfo(po);
+        }
+        return list;
+    }
+
+    @Override
+    public List<UtxoOutputPo> getAccountUnSpend(String address) {
+        List<byte[]> keyList = new ArrayList<>();
+        for (byte[] key : getStore().keys(KvKeys.addressOutputs(address))) {
+            if (getStatus(key) != SPENT) {
+                keyList.add(key);
+            }
+        }
+        List<UtxoOutputPo> list = getByAddressKeys(keyList);
+        Collections.sort(list, ADDRESS_ORDER);
+        return list;
+    }
+
+    @Override
+    public int updateStatus(List<UtxoOutputPo> list) {
+        // only the last status of an output counts, and every output is moved once
+        Map<String, UtxoOutputPo> statusMap = new LinkedHashMap<>();
+        for (UtxoOutputPo po : list) {
+            statusMap.put(po.getTxHash() + "-" + po.getOutIndex(), po);
+        }
+        KvWriteBatch batch = new KvWriteBatch();
+        for (UtxoOutputPo po : statusMap.values()) {
+            UtxoOutputPo stored = getValue(getKey(po));
+            if (null == stored) {
+                throw new NulsRuntimeException(ErrorCode.UTXO_STATUS_CHANGE);
+            }
+            batch.delete(getAddressKey(stored));
+            stored.setStatus(po.getStatus());
+            batch.put(getKey(stored), KvCodec.encode(stored));
+            batch.put(getAddressKey(stored), null);
+        }
+        getStore().write(batch);
+        return list.size();
+    }
+
+    @Override
+    public List<UtxoOutputPo> getOutputs(List<UtxoOutputPo> keyList) {
+        List<UtxoOutputPo> list = new ArrayList<>();
+        for (UtxoOutputPo key : keyList) {
+            UtxoOutputPo po = getValue(getKey(key));
+            if (null != po) {
+                list.add(po);
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public int deleteOutputs(List<UtxoOutputPo> keyList) {
+        int result = 0;
+        KvWriteBatch batch = new KvWriteBatch();
+        for (UtxoOutputPo key : keyList) {
+            UtxoOutputPo stored = getValue(getKey(key));
+            if (null != stored) {
+                batch.delete(getKey(stored));
+                batch.delete(getAddressKey(stored));
+                result++;
+            }
+        }
+        getStore().write(batch);
+        return result;
+    }
+
+    @Override
+    public int updateStatus(UtxoOutputPo po) {
+        return updateStatus(Collections.singletonList(po));
+    }
+
+    private List<UtxoOutputPo> getByAddressKeys(List<byte[]> keyList) {
+        List<UtxoOutputPo> list = new ArrayList<>(keyList.size());
+        for (byte[] key : keyList) {
+            int offset = getStatusOffset(key) + 1;
+            UtxoOutputPo po = getValue(KvKeys.output(KvKeys.getIndexedHash(key, offset), KvKeys.getIndex(key)));
+            if (null != po) {
+                list.add(po);
+            }
+        }
+        return list;
+    }
+
+    private static byte getStatus(byte[] key) {
+        return key[getStatusOffset(key)];
+    }
+
+    /**
+     * the status follows the zero byte after the address
+     */
+    private static int getStatusOffset(byte[] key) {
+        for (int i = 1; i < key.length; i++) {
+            if (key[i] == 0) {
+                return i + 1;
+            }
+        }
+        throw new NulsRuntimeException(ErrorCode.DB_DATA_ERROR);
+    }
+
+    private void setTxInfo(UtxoOutputPo po) {
+        byte[] bytes = getStore().get(KvKeys.tx(po.getTxHash()));
+        if (null != bytes) {
+            TransactionPo tx = KvCodec.decodeTx(bytes);
+            po.setTxType(tx.getType());
+            po.setCreateTime(tx.getCreateTime());
+        }
+    }
+}
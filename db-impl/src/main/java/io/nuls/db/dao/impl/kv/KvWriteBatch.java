@@ -0,0 +1,71 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Puts and deletes that are written to the log as one record, so they are replayed all together or not at all.
+ */
+public class KvWriteBatch {
+
+    private static final byte[] EMPTY_VALUE = new byte[0];
+
+    private final List<Op> opList = new ArrayList<>();
+
+    public KvWriteBatch put(byte[] key, byte[] value) {
+        opList.add(new Op(KvLog.OP_PUT, key, null == value ? EMPTY_VALUE : value));
+        return this;
+    }
+
+    public KvWriteBatch delete(byte[] key) {
+        opList.add(new Op(KvLog.OP_DELETE, key, null));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return opList.isEmpty();
+    }
+
+    public int size() {
+        return opList.size();
+    }
+
+    List<Op> getOpList() {
+        return opList;
+    }
+
+    static class Op {
+        final byte type;
+        final byte[] key;
+        final byte[] value;
+
+        private Op(byte type, byte[] key, byte[] value) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -23,15 +23,24 @@
  */
 package io.nuls.db.dao.impl.mybatis;
 
+import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.utils.log.Log;
 import io.nuls.db.dao.BaseDataService;
 import io.nuls.db.dao.impl.mybatis.common.BaseMapper;
 import io.nuls.db.transactional.annotation.DbSession;
 import io.nuls.db.dao.impl.mybatis.session.SessionManager;
+import io.nuls.db.dao.impl.mybatis.session.SessionTransaction;
 import io.nuls.db.dao.impl.mybatis.util.Searchable;
+import io.nuls.db.exception.DBException;
 import io.nuls.db.transactional.annotation.PROPAGATION;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 
@@ -83,11 +92,7 @@ public abstract class BaseDaoImpl<T extends BaseMapper<K, V>, K, V> implements B
     @Override
     @DbSession
     public int update(List<V> list) {
-        int result = 0;
-        for (int i = 0; i < list.size(); i++) {
-            result += update(list.get(i));
-        }
-        return result;
+        return sum(executeBatch("updateByPrimaryKey", list));
     }
 
     @Override
@@ -101,6 +106,12 @@ public abstract class BaseDaoImpl<T extends BaseMapper<K, V>, K, V> implements B
         return this.getMapper().deleteByPrimaryKey(key);
     }
 
+    @Override
+    @DbSession
+    public int delete(List<K> keyList) {
+        return sum(executeBatch("deleteByPrimaryKey", keyList));
+    }
+
     @Override
     public List<V> getList() {
         return this.getMapper().selectList(null);
@@ -114,6 +125,49 @@ public abstract class BaseDaoImpl<T extends BaseMapper<K, V>, K, V> implements B
         return this.getMapper().selectList(getSearchable(params));
     }
 
+    /**
+     * Execute one statement of the mapper for every element of the list as a single jdbc batch.
+     * The batch runs on the connection of the current session, so it takes part in its transaction.
+     *
+     * @return the update count of every element, in list order
+     */
+    protected int[] executeBatch(String statementId, List<?> list) {
+        int[] counts = new int[list.size()];
+        if (list.isEmpty()) {
+            return counts;
+        }
+        SqlSession session = getSession();
+        Configuration configuration = session.getConfiguration();
+        MappedStatement statement = configuration.getMappedStatement(mapperClass.getName() + "." + statementId);
+        Executor executor = configuration.newExecutor(new SessionTransaction(session), ExecutorType.BATCH);
+        try {
+            for (Object param : list) {
+                executor.update(statement, param);
+            }
+            SessionManager.getMetrics().batch(list.size());
+            int index = 0;
+            for (BatchResult result : executor.flushStatements()) {
+                for (int count : result.getUpdateCounts()) {
+                    counts[index++] = count;
+                }
+            }
+        } catch (SQLException e) {
+            throw new DBException(ErrorCode.DB_UPDATE_ERROR, e.getMessage());
+        } finally {
+            executor.close(false);
+            session.clearCache();
+        }
+        return counts;
+    }
+
+    protected static int sum(int[] counts) {
+        int result = 0;
+        for (int count : counts) {
+            result += count;
+        }
+        return result;
+    }
+
     /**
      * change params to searchable object
      *
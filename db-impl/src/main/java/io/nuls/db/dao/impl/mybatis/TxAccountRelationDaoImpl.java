@@ -30,6 +30,8 @@ import io.nuls.db.entity.TxAccountRelationPo;
 import io.nuls.db.transactional.annotation.DbSession;
 import io.nuls.db.transactional.annotation.PROPAGATION;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -51,9 +53,15 @@ public class TxAccountRelationDaoImpl extends BaseDaoImpl<TxAccountRelationMappe
 
     @Override
     public void deleteRelation(String txHash, Set<String> addressSet) {
+        List<TxAccountRelationPo> list = new ArrayList<>(addressSet.size());
         for (String address : addressSet) {
-            TxAccountRelationPo po = new TxAccountRelationPo(txHash, address);
-            getMapper().deleteRelation(po);
+            list.add(new TxAccountRelationPo(txHash, address));
         }
+        deleteRelations(list);
+    }
+
+    @Override
+    public int deleteRelations(List<TxAccountRelationPo> list) {
+        return sum(executeBatch("deleteRelation", list));
     }
 }
@@ -31,6 +31,8 @@ import io.nuls.db.entity.UtxoInputPo;
 import io.nuls.db.transactional.annotation.DbSession;
 import io.nuls.db.transactional.annotation.PROPAGATION;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -56,4 +58,16 @@ public class UtxoInputDaoImpl extends BaseDaoImpl<UtxoInputMapper, Map<String,Ob
         searchable.addCondition("tx_hash", SearchOperator.eq, txHash);
         return getMapper().selectList(searchable);
     }
+
+    @Override
+    public int deleteInputs(List<UtxoInputPo> keyList) {
+        List<Map<String, Object>> paramList = new ArrayList<>(keyList.size());
+        for (UtxoInputPo po : keyList) {
+            Map<String, Object> keyMap = new HashMap<>();
+            keyMap.put("txHash", po.getTxHash());
+            keyMap.put("inIndex", po.getInIndex());
+            paramList.add(keyMap);
+        }
+        return delete(paramList);
+    }
 }
@@ -34,6 +34,8 @@ import io.nuls.db.entity.UtxoOutputPo;
 import io.nuls.db.transactional.annotation.DbSession;
 import io.nuls.db.transactional.annotation.PROPAGATION;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -43,6 +45,11 @@ import java.util.Map;
  */
 @DbSession(transactional = PROPAGATION.NONE)
 public class UtxoOutputDaoImpl extends BaseDaoImpl<UtxoOutputMapper, Map<String, Object>, UtxoOutputPo> implements UtxoOutputDataService {
+    /**
+     * keys per select, keeps the statement and its parameter count small
+     */
+    private static final int SELECT_KEYS_LIMIT = 500;
+
     public UtxoOutputDaoImpl() {
         super(UtxoOutputMapper.class);
     }
@@ -113,8 +120,7 @@ public class UtxoOutputDaoImpl extends BaseDaoImpl<UtxoOutputMapper, Map<String,
     @Override
     public int updateStatus(List<UtxoOutputPo> list) {
         int result = 0;
-        for (int i = 0; i < list.size(); i++) {
-            int value = getMapper().updateStatus(list.get(i));
+        for (int value : executeBatch("updateStatus", list)) {
             if (value != 1) {
                 throw new NulsRuntimeException(ErrorCode.UTXO_STATUS_CHANGE);
             }
@@ -123,6 +129,28 @@ public class UtxoOutputDaoImpl extends BaseDaoImpl<UtxoOutputMapper, Map<String,
         return result;
     }
 
+    @Override
+    public List<UtxoOutputPo> getOutputs(List<UtxoOutputPo> keyList) {
+        List<UtxoOutputPo> result = new ArrayList<>();
+        for (int i = 0; i < keyList.size(); i += SELECT_KEYS_LIMIT) {
+            List<UtxoOutputPo> subList = keyList.subList(i, Math.min(keyList.size(), i + SELECT_KEYS_LIMIT));
+            result.addAll(getMapper().selectByKeys(subList));
+        }
+        return result;
+    }
+
+    @Override
+    public int deleteOutputs(List<UtxoOutputPo> keyList) {
+        List<Map<String, Object>> paramList = new ArrayList<>(keyList.size());
+        for (UtxoOutputPo po : keyList) {
+            Map<String, Object> keyMap = new HashMap<>();
+            keyMap.put("txHash", po.getTxHash());
+            keyMap.put("outIndex", po.getOutIndex());
+            paramList.add(keyMap);
+        }
+        return delete(paramList);
+    }
+
     @Override
     public int updateStatus(UtxoOutputPo po) {
         return getMapper().updateStatus(po);
@@ -23,11 +23,76 @@
  */
 package io.nuls.db.dao.impl.mybatis.session;
 
+import org.apache.ibatis.session.SqlSession;
+
 /**
+ * The sessions of one thread, as a stack: the top one is used by the daos,
+ * an independent transaction pushes its own session on top and pops it when it is done.
+ * The frames are kept and reused, so entering and leaving a session allocates nothing.
+ *
  * @author vivi
  * @date 2017/12/5.
  */
 public class SessionLocal {
 
+    private static final int INITIAL_DEPTH = 4;
+
+    private Frame[] frames = new Frame[INITIAL_DEPTH];
+    private int depth;
+
+    public Frame push(SqlSession session) {
+        if (depth == frames.length) {
+            Frame[] array = new Frame[depth * 2];
+            System.arraycopy(frames, 0, array, 0, depth);
+            frames = array;
+        }
+        Frame frame = frames[depth];
+        if (null == frame) {
+            frame = new Frame();
+            frames[depth] = frame;
+        }
+        frame.session = session;
+        frame.inTransaction = false;
+        depth++;
+        return frame;
+    }
+
+    public void pop() {
+        if (depth == 0) {
+            return;
+        }
+        depth--;
+        frames[depth].session = null;
+    }
+
+    /**
+     * @return the top frame, or null if the thread has no session
+     */
+    public Frame peek() {
+        if (depth == 0) {
+            return null;
+        }
+        return frames[depth - 1];
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public static class Frame {
+        private SqlSession session;
+        private boolean inTransaction;
+
+        public SqlSession getSession() {
+            return session;
+        }
+
+        public boolean isInTransaction() {
+            return inTransaction;
+        }
 
+        public void setInTransaction(boolean inTransaction) {
+            this.inTransaction = inTransaction;
+        }
+    }
 }
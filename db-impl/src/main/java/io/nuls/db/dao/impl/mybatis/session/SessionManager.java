@@ -24,15 +24,10 @@
 package io.nuls.db.dao.impl.mybatis.session;
 
 import io.nuls.core.constant.ErrorCode;
-import io.nuls.core.utils.log.Log;
-import io.nuls.core.utils.str.StringUtils;
 import io.nuls.db.exception.DBException;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * @author zhouwei
  * @date 2017/10/25
@@ -41,86 +36,55 @@ public class SessionManager {
 
     private static SqlSessionFactory sqlSessionFactory;
 
-    private static ThreadLocal<Map<String, SqlSession>> sessionHolder = new ThreadLocal<>();
-    private static ThreadLocal<Map<String, Boolean>> txHolder = new ThreadLocal<>();
-    private static ThreadLocal<String> idHolder = new ThreadLocal<>();
-
-    public static String getId() {
-        return idHolder.get();
-    }
+    private static final ThreadLocal<SessionLocal> LOCAL_HOLDER = new ThreadLocal<SessionLocal>() {
+        @Override
+        protected SessionLocal initialValue() {
+            return new SessionLocal();
+        }
+    };
 
-    public static void setId(String id) {
-        idHolder.remove();
-        idHolder.set(id);
-    }
+    private static final SessionMetrics METRICS = new SessionMetrics();
 
     public static SqlSession openSession(boolean autoCommit) {
         if (sqlSessionFactory == null) {
             throw new DBException(ErrorCode.DB_SAVE_CANNOT_NULL);
         }
-        return sqlSessionFactory.openSession(autoCommit);
-    }
-
-    public static SqlSession getSession() {
-        String id = idHolder.get();
-        SqlSession session = getSession(id);
+        SqlSession session = sqlSessionFactory.openSession(autoCommit);
+        METRICS.opened();
         return session;
     }
 
-    public static SqlSession getSession(String id) {
+    /**
+     * @return the session on top of the stack of the current thread, or null
+     */
+    public static SqlSession getSession() {
         if (sqlSessionFactory == null) {
             throw new DBException(ErrorCode.DB_SAVE_CANNOT_NULL);
         }
-        Map<String, SqlSession> map = sessionHolder.get();
-        if (null == map || !map.containsKey(id)) {
+        SessionLocal.Frame frame = LOCAL_HOLDER.get().peek();
+        if (null == frame) {
             return null;
         }
-        return map.get(id);
+        return frame.getSession();
     }
 
-    public static void setConnection(String id, SqlSession session) {
-        Map<String, SqlSession> map = sessionHolder.get();
-        if (null == map) {
-            map = new HashMap<>();
-        }
-        if (null == session) {
-            map.remove(id);
-        } else {
-            map.put(id, session);
-        }
-        sessionHolder.remove();
-        sessionHolder.set(map);
+    public static SessionLocal getLocal() {
+        return LOCAL_HOLDER.get();
     }
 
-    public static void startTransaction(String id) {
-        Map<String, Boolean> map = txHolder.get();
-        if (map == null) {
-            map = new HashMap<>();
-        }
-        map.put(id, true);
-        txHolder.remove();
-        txHolder.set(map);
+    /**
+     * make the session the current one of this thread until it is popped
+     */
+    public static SessionLocal.Frame pushSession(SqlSession session) {
+        return LOCAL_HOLDER.get().push(session);
     }
 
-    public static void endTransaction(String id) {
-        Map<String, Boolean> map = txHolder.get();
-        if (map == null) {
-            map = new HashMap<>();
-        }
-        map.remove(id);
-        txHolder.remove();
-        txHolder.set(map);
+    public static void popSession() {
+        LOCAL_HOLDER.get().pop();
     }
 
-    public static boolean getTxState(String id) {
-        if (StringUtils.isBlank(id)) {
-            return false;
-        }
-        Map<String, Boolean> map = txHolder.get();
-        if (null == map || !map.containsKey(id)) {
-            return false;
-        }
-        return map.get(id);
+    public static SessionMetrics getMetrics() {
+        return METRICS;
     }
 
     public static void setSqlSessionFactory(SqlSessionFactory sqlSessionFactory) {
@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.mybatis.session;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the db sessions: opened sessions, commits, rollbacks and jdbc batches with their statements.
+ */
+public class SessionMetrics {
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder rolledBack = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchStatements = new LongAdder();
+
+    public void opened() {
+        opened.increment();
+    }
+
+    public void committed() {
+        committed.increment();
+    }
+
+    public void rolledBack() {
+        rolledBack.increment();
+    }
+
+    public void batch(int statements) {
+        batches.increment();
+        batchStatements.add(statements);
+    }
+
+    public long getOpened() {
+        return opened.sum();
+    }
+
+    public long getCommitted() {
+        return committed.sum();
+    }
+
+    public long getRolledBack() {
+        return rolledBack.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getBatchStatements() {
+        return batchStatements.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "sessions:" + getOpened() + ",commits:" + getCommitted() + ",rollbacks:" + getRolledBack() +
+                ",batches:" + getBatches() + ",batchStatements:" + getBatchStatements();
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.migration;
+
+import io.nuls.core.utils.log.Log;
+import org.apache.ibatis.io.Resources;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings an existing data directory up to the current schema version.
+ * schema-h2.sql creates the tables, every change after that is a numbered script under sql/migration,
+ * and the versions already applied are recorded in the schema_version table.
+ */
+public class SchemaMigrator {
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS `schema_version` (" +
+            "`version` int NOT NULL, `description` varchar(100) NOT NULL, `applied_time` bigint(14) NOT NULL, " +
+            "PRIMARY KEY (`version`))";
+
+    private final List<Migration> migrationList = new ArrayList<>();
+
+    public SchemaMigrator() {
+        migrationList.add(new Migration(1, "secondary indexes", "sql/migration/V1__secondary_indexes.sql"));
+    }
+
+    /**
+     * apply every migration newer than the recorded version, each one in its own transaction
+     *
+     * @return the schema version after the migration
+     */
+    public int migrate(DataSource dataSource) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_VERSION_TABLE);
+                }
+                connection.commit();
+                int version = getVersion(connection);
+                for (Migration migration : migrationList) {
+                    if (migration.version <= version) {
+                        continue;
+                    }
+                    long start = System.currentTimeMillis();
+                    apply(connection, migration);
+                    version = migration.version;
+                    Log.info("schema migrated to version " + version + " (" + migration.description + "), use:" +
+                            (System.currentTimeMillis() - start) + "ms");
+                }
+                return version;
+            } catch (SQLException | IOException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    public int getVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select max(version) from schema_version")) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            return 0;
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : readStatements(migration.resource)) {
+                statement.execute(sql);
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into schema_version (version, description, applied_time) values (?, ?, ?)")) {
+            statement.setInt(1, migration.version);
+            statement.setString(2, migration.description);
+            statement.setLong(3, System.currentTimeMillis());
+            statement.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    /**
+     * the statements of a script are separated by ';', lines starting with '--' are comments
+     */
+    private List<String> readStatements(String resource) throws IOException {
+        List<String> list = new ArrayList<>();
+        StringBuilder sql = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Resources.getResourceAsStream(resource), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("--")) {
+                    continue;
+                }
+                sql.append(line).append(' ');
+                if (line.endsWith(";")) {
+                    list.add(sql.substring(0, sql.lastIndexOf(";")).trim());
+                    sql.setLength(0);
+                }
+            }
+        }
+        if (sql.toString().trim().length() > 0) {
+            list.add(sql.toString().trim());
+        }
+        return list;
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final String resource;
+
+        private Migration(int version, String description, String resource) {
+            this.version = version;
+            this.description = description;
+            this.resource = resource;
+        }
+    }
+}
@@ -25,19 +25,27 @@ package io.nuls.db.module.impl;
 
 import com.alibaba.druid.pool.DruidDataSource;
 import io.nuls.core.constant.ErrorCode;
+import io.nuls.core.context.NulsContext;
+import io.nuls.core.thread.BaseThread;
+import io.nuls.core.thread.manager.TaskManager;
 import io.nuls.core.utils.log.Log;
+import io.nuls.db.constant.DbConstant;
+import io.nuls.db.dao.impl.kv.*;
 import io.nuls.db.dao.impl.mybatis.*;
 import io.nuls.db.dao.impl.mybatis.session.SessionManager;
 import io.nuls.db.exception.DBException;
+import io.nuls.db.migration.SchemaMigrator;
 import io.nuls.db.module.AbstractDBModule;
 import io.nuls.module.version.DbMavenInfo;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * @author vivi
@@ -47,11 +55,17 @@ public class MybatisDbModuleBootstrap extends AbstractDBModule {
 
     private SqlSessionFactory sqlSessionFactory;
 
+    private KvStore kvStore;
+
     @Override
     public void init() {
-        initService();
+        boolean kvEngine = DbConstant.STORAGE_ENGINE_KV.equals(getCfgValue(DbConstant.PROPERTY_STORAGE_ENGINE, DbConstant.STORAGE_ENGINE_H2));
+        initService(kvEngine);
         try {
             initSqlSessionFactory();
+            if (kvEngine) {
+                initKvStore();
+            }
         } catch (Exception e) {
             Log.error(e);
             throw new DBException(ErrorCode.DB_MODULE_START_FAIL);
@@ -69,11 +83,41 @@ public class MybatisDbModuleBootstrap extends AbstractDBModule {
         InputStream in = Resources.getResourceAsStream(resource);
         sqlSessionFactory = new SqlSessionFactoryBuilder().build(in);
         SessionManager.setSqlSessionFactory(sqlSessionFactory);
+        new SchemaMigrator().migrate(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource());
+    }
+
+
+    private void initKvStore() throws IOException {
+        String dir = getCfgValue(DbConstant.PROPERTY_KV_DIR, DbConstant.DEFAULT_KV_DIR);
+        int segmentSize = getCfgValue(DbConstant.PROPERTY_KV_SEGMENT_SIZE, DbConstant.DEFAULT_KV_SEGMENT_SIZE);
+        kvStore = new KvStore(new File(dir), segmentSize << 20);
+        kvStore.open();
+        KvStoreManager.setStore(kvStore);
     }
 
+    private <T> T getCfgValue(String property, T defaultValue) {
+        if (null == NulsContext.MODULES_CONFIG) {
+            return defaultValue;
+        }
+        return NulsContext.MODULES_CONFIG.getCfgValue(DbConstant.CFG_DB_SECTION, property, defaultValue);
+    }
 
-    private void initService() {
-        this.registerService(BlockDaoImpl.class);
+    private void initService(boolean kvEngine) {
+        if (kvEngine) {
+            this.registerService(KvBlockDaoImpl.class);
+            this.registerService(KvTransactionDaoImpl.class);
+            this.registerService(KvTxAccountRelationDaoImpl.class);
+            this.registerService(KvUtxoOutputDaoImpl.class);
+            this.registerService(KvUtxoInputDaoImpl.class);
+            this.registerService(KvTransactionLocalDaoImpl.class);
+        } else {
+            this.registerService(BlockDaoImpl.class);
+            this.registerService(TransactionDaoImpl.class);
+            this.registerService(TxAccountRelationDaoImpl.class);
+            this.registerService(UtxoOutputDaoImpl.class);
+            this.registerService(UtxoInputDaoImpl.class);
+            this.registerService(TransactionLocalDaoImpl.class);
+        }
         this.registerService(AliasDaoImpl.class);
         this.registerService(AccountDaoImpl.class);
         this.registerService(DelegateDaoImpl.class);
@@ -81,11 +125,6 @@ public class MybatisDbModuleBootstrap extends AbstractDBModule {
         this.registerService(NodeDaoImpl.class);
         this.registerService(NodeGroupDaoImpl.class);
         this.registerService(NodeGroupRelationDaoImpl.class);
-        this.registerService(TransactionDaoImpl.class);
-        this.registerService(TransactionLocalDaoImpl.class);
-        this.registerService(TxAccountRelationDaoImpl.class);
-        this.registerService(UtxoOutputDaoImpl.class);
-        this.registerService(UtxoInputDaoImpl.class);
         this.registerService(SubChainDaoImpl.class);
         this.registerService(AccountTxDaoImpl.class);
         this.registerService(UtxoTransactionDaoImpl.class);
@@ -93,6 +132,11 @@ public class MybatisDbModuleBootstrap extends AbstractDBModule {
 
     @Override
     public void shutdown() {
+        if (kvStore != null) {
+            KvStoreManager.setStore(null);
+            kvStore.close();
+            kvStore = null;
+        }
         if (sqlSessionFactory != null) {
             DruidDataSource druidDataSource = (DruidDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
             druidDataSource.close();
@@ -113,7 +157,13 @@ public class MybatisDbModuleBootstrap extends AbstractDBModule {
         str.append(getModuleName());
         str.append(",moduleStatus:");
         str.append(getStatus());
-        str.append(",ThreadCount:");
+        str.append(",storageEngine:");
+        str.append(null == kvStore ? DbConstant.STORAGE_ENGINE_H2 : DbConstant.STORAGE_ENGINE_KV);
+        str.append(",threadCount:");
+        List<BaseThread> threadList = TaskManager.getThreadList(this.getModuleId());
+        str.append(null == threadList ? 0 : threadList.size());
+        str.append(",");
+        str.append(SessionManager.getMetrics());
         return str.toString();
     }
 
@@ -0,0 +1,16 @@
+-- block_header: getHeader(height), getHeaderList, getSplitHashList
+create index IF NOT EXISTS block_header_height_idx on block_header(height);
+
+-- transaction: getTxs(height), getTxs(start, end), ordered by block_height, create_time
+create index IF NOT EXISTS transaction_block_height_idx on transaction(block_height, create_time);
+create index IF NOT EXISTS transaction_local_block_height_idx on transaction_local(block_height, create_time);
+
+-- utxo_output: getAccountUnSpend(address), getAccountOutputs(address, status), ordered by status, value
+create index IF NOT EXISTS utxo_output_address_idx on utxo_output(address, status, value);
+
+-- utxo_input: the join from an input to the output it spends
+create index IF NOT EXISTS utxo_input_from_idx on utxo_input(from_hash, from_index);
+
+-- tx_account_relation: the address joins and deleteRelation(txHash, address)
+create index IF NOT EXISTS tx_account_relation_address_idx on tx_account_relation(address, tx_hash);
+create index IF NOT EXISTS tx_account_relation_tx_hash_idx on tx_account_relation(tx_hash, address);
@@ -0,0 +1,127 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.filter;
+
+import io.nuls.core.utils.spring.lite.core.interceptor.BeanMethodInterceptorChain;
+import io.nuls.db.dao.impl.kv.KvStore;
+import io.nuls.db.dao.impl.kv.KvStoreManager;
+import io.nuls.db.dao.impl.mybatis.session.SessionManager;
+import io.nuls.db.transactional.annotation.DbSession;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class TransactionalInterceptorImplTest {
+
+    private static final byte[] KEY = "key".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OLD_VALUE = "old".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEW_VALUE = "new".getBytes(StandardCharsets.UTF_8);
+
+    private File dir;
+    private KvStore store;
+    private Method method;
+    private Annotation annotation;
+
+    @Before
+    public void init() throws Exception {
+        Environment environment = new Environment("test", new JdbcTransactionFactory(),
+                new UnpooledDataSource("org.h2.Driver", "jdbc:h2:mem:interceptor", "sa", ""));
+        SessionManager.setSqlSessionFactory(new SqlSessionFactoryBuilder().build(new Configuration(environment)));
+        dir = Files.createTempDirectory("kv-session").toFile();
+        store = new KvStore(dir, 1 << 20);
+        store.open();
+        store.put(KEY, OLD_VALUE);
+        KvStoreManager.setStore(store);
+        method = getClass().getDeclaredMethod("session");
+        annotation = method.getAnnotation(DbSession.class);
+    }
+
+    @After
+    public void destroy() {
+        KvStoreManager.setStore(null);
+        store.close();
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    @DbSession
+    public void session() {
+    }
+
+    @Test
+    public void testRollback() throws Throwable {
+        try {
+            new TransactionalInterceptorImpl().intercept(annotation, this, method, null, new Chain() {
+                @Override
+                public Object execute(Annotation ann, Object obj, Method method, Object[] params) {
+                    store.put(KEY, NEW_VALUE);
+                    store.put("other".getBytes(StandardCharsets.UTF_8), NEW_VALUE);
+                    assertArrayEquals(NEW_VALUE, store.get(KEY));
+                    throw new IllegalStateException("save failed");
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("save failed", e.getMessage());
+        }
+        assertArrayEquals(OLD_VALUE, store.get(KEY));
+        assertEquals(1, store.count(new byte[0]));
+    }
+
+    @Test
+    public void testCommit() throws Throwable {
+        new TransactionalInterceptorImpl().intercept(annotation, this, method, null, new Chain() {
+            @Override
+            public Object execute(Annotation ann, Object obj, Method method, Object[] params) {
+                store.delete(KEY);
+                assertFalse(store.contains(KEY));
+                store.put(KEY, NEW_VALUE);
+                assertEquals(1, store.keys(KEY).size());
+                return null;
+            }
+        });
+        assertArrayEquals(NEW_VALUE, store.get(KEY));
+        store.close();
+        store.open();
+        assertArrayEquals(NEW_VALUE, store.get(KEY));
+    }
+
+    private static class Chain extends BeanMethodInterceptorChain {
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.dao.impl.kv;
+
+import io.nuls.db.entity.BlockHeaderPo;
+import io.nuls.db.entity.TransactionPo;
+import io.nuls.db.entity.TxAccountRelationPo;
+import io.nuls.db.entity.UtxoInputPo;
+import io.nuls.db.entity.UtxoOutputPo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Imports a chain through the kv daos the way the ledger writes a block, then reads txs,
+ * headers and unspent outputs back, before and after the store is reopened.
+ */
+public class KvDaoTest {
+
+    private static final int BLOCK_COUNT = 50;
+    private static final int TX_PER_BLOCK = 10;
+    private static final int ADDRESS_COUNT = 20;
+
+    private File dir;
+    private KvStore store;
+
+    private KvBlockDaoImpl headerDao;
+    private KvTransactionDaoImpl txDao;
+    private KvUtxoOutputDaoImpl outputDao;
+    private KvUtxoInputDaoImpl inputDao;
+    private KvTxAccountRelationDaoImpl relationDao;
+
+    /**
+     * address -> txHash-index of every output that is not spent
+     */
+    private final Map<String, Set<String>> unSpendMap = new HashMap<>();
+
+    @Before
+    public void init() throws Exception {
+        dir = Files.createTempDirectory("kv-dao").toFile();
+        // small segments so the import rolls over several of them
+        store = new KvStore(dir, 64 << 10);
+        store.open();
+        KvStoreManager.setStore(store);
+        headerDao = new KvBlockDaoImpl();
+        txDao = new KvTransactionDaoImpl();
+        outputDao = new KvUtxoOutputDaoImpl();
+        inputDao = new KvUtxoInputDaoImpl();
+        relationDao = new KvTxAccountRelationDaoImpl();
+    }
+
+    @After
+    public void destroy() {
+        KvStoreManager.setStore(null);
+        store.close();
+        delete(dir);
+    }
+
+    @Test
+    public void testImportAndRead() throws Exception {
+        Random random = new Random(1);
+        for (int height = 0; height < BLOCK_COUNT; height++) {
+            importBlock(random, height);
+            store.force();
+        }
+        assertChain();
+
+        store.close();
+        store.open();
+        assertChain();
+    }
+
+    private void assertChain() {
+        assertEquals(BLOCK_COUNT - 1, headerDao.getBestHeight());
+        for (long height = 0; height < BLOCK_COUNT; height++) {
+            BlockHeaderPo header = headerDao.getHeader(height);
+            assertEquals(hash('b', height), header.getHash());
+            assertEquals(height, (long) header.getHeight());
+            assertEquals(TX_PER_BLOCK, txDao.getTxs(height).size());
+        }
+        for (long index = 0; index < BLOCK_COUNT * TX_PER_BLOCK; index++) {
+            TransactionPo tx = txDao.get(hash('t', index));
+            assertEquals(index / TX_PER_BLOCK, (long) tx.getBlockHeight());
+            assertEquals(2, tx.getOutputs().size());
+        }
+        assertNull(txDao.get(hash('t', BLOCK_COUNT * TX_PER_BLOCK)));
+
+        for (int i = 0; i < ADDRESS_COUNT; i++) {
+            String address = address(i);
+            Set<String> unSpend = new HashSet<>();
+            for (UtxoOutputPo po : outputDao.getAccountUnSpend(address)) {
+                assertEquals(address, po.getAddress());
+                unSpend.add(po.getTxHash() + "-" + po.getOutIndex());
+            }
+            Set<String> expected = unSpendMap.get(address);
+            assertEquals(null == expected ? new HashSet<String>() : expected, unSpend);
+        }
+    }
+
+    /**
+     * every tx spends the first output of the tx before it and has two outputs, like the ledger writes a block
+     */
+    private void importBlock(Random random, long height) {
+        BlockHeaderPo header = new BlockHeaderPo();
+        header.setHash(hash('b', height));
+        header.setHeight(height);
+        header.setPreHash(hash('b', height - 1));
+        header.setMerkleHash(hash('m', height));
+        header.setCreateTime(1520000000000L + height * 10000);
+        header.setConsensusAddress(address(random.nextInt(ADDRESS_COUNT)));
+        header.setTxCount((long) TX_PER_BLOCK);
+        header.setRoundIndex(height / 10);
+        header.setSign(new byte[72]);
+        header.setExtend(new byte[32]);
+
+        List<TransactionPo> txList = new ArrayList<>();
+        List<UtxoOutputPo> outputList = new ArrayList<>();
+        List<UtxoInputPo> inputList = new ArrayList<>();
+        List<UtxoOutputPo> spentList = new ArrayList<>();
+        List<TxAccountRelationPo> relationList = new ArrayList<>();
+        for (int i = 0; i < TX_PER_BLOCK; i++) {
+            long index = height * TX_PER_BLOCK + i;
+            TransactionPo tx = new TransactionPo();
+            tx.setHash(hash('t', index));
+            tx.setTxIndex(i);
+            tx.setType(2);
+            tx.setCreateTime(header.getCreateTime() + i);
+            tx.setBlockHeight(height);
+            tx.setFee(100000L);
+            tx.setTxData(new byte[64]);
+            tx.setSign(new byte[72]);
+            txList.add(tx);
+            if (index > 0) {
+                UtxoInputPo input = new UtxoInputPo();
+                input.setTxHash(tx.getHash());
+                input.setInIndex(0);
+                input.setFromHash(hash('t', index - 1));
+                input.setFromIndex(0);
+                input.setSign(new byte[72]);
+                inputList.add(input);
+                UtxoOutputPo spent = new UtxoOutputPo();
+                spent.setTxHash(input.getFromHash());
+                spent.setOutIndex(0);
+                spent.setStatus((byte) 2);
+                spentList.add(spent);
+            }
+            for (int outIndex = 0; outIndex < 2; outIndex++) {
+                UtxoOutputPo output = new UtxoOutputPo();
+                output.setTxHash(tx.getHash());
+                output.setOutIndex(outIndex);
+                output.setValue((long) random.nextInt(100000000));
+                output.setLockTime(0L);
+                output.setStatus((byte) 0);
+                output.setAddress(address(random.nextInt(ADDRESS_COUNT)));
+                output.setScript(new byte[25]);
+                outputList.add(output);
+                relationList.add(new TxAccountRelationPo(tx.getHash(), output.getAddress()));
+            }
+        }
+        headerDao.save(header);
+        txDao.save(txList);
+        outputDao.save(outputList);
+        inputDao.save(inputList);
+        outputDao.updateStatus(spentList);
+        relationDao.save(relationList);
+
+        for (UtxoOutputPo output : outputList) {
+            Set<String> set = unSpendMap.get(output.getAddress());
+            if (null == set) {
+                set = new HashSet<>();
+                unSpendMap.put(output.getAddress(), set);
+            }
+            set.add(output.getTxHash() + "-" + output.getOutIndex());
+        }
+        for (UtxoOutputPo spent : spentList) {
+            for (Set<String> set : unSpendMap.values()) {
+                set.remove(spent.getTxHash() + "-" + spent.getOutIndex());
+            }
+        }
+    }
+
+    private static String hash(char prefix, long index) {
+        return prefix + String.format("%069d", index);
+    }
+
+    private static String address(int index) {
+        return String.format("Ns%038d", index);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (null != children) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
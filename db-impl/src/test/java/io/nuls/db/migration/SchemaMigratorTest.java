@@ -0,0 +1,108 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.migration;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.*;
+
+/**
+ * The dao queries scan their table on the bare schema and use the migrated indexes afterwards.
+ */
+public class SchemaMigratorTest {
+
+    private static final String[][] QUERIES = {
+            {"block_header_height_idx", "select * from block_header where height = 1"},
+            {"transaction_block_height_idx", "select * from transaction where block_height = 1 order by block_height asc, create_time asc"},
+            {"utxo_output_address_idx", "select * from utxo_output where status <> 2 and address = 'a' order by status asc, value asc"},
+            {"utxo_input_from_idx", "select * from utxo_input where from_hash = 'a' and from_index = 0"},
+            {"tx_account_relation_address_idx", "select * from tx_account_relation where address = 'a'"},
+    };
+
+    private JdbcDataSource dataSource;
+    private Connection connection;
+
+    @Before
+    public void init() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migration;INIT=RUNSCRIPT FROM 'classpath:sql/schema-h2.sql';" +
+                "DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=FALSE");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        connection = dataSource.getConnection();
+    }
+
+    @After
+    public void destroy() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testMigrate() throws Exception {
+        for (String[] query : QUERIES) {
+            String plan = explain(query[1]);
+            assertTrue(plan, plan.contains("tableScan"));
+        }
+
+        SchemaMigrator migrator = new SchemaMigrator();
+        assertEquals(1, migrator.migrate(dataSource));
+        assertEquals(1, migrator.getVersion(connection));
+        for (String[] query : QUERIES) {
+            String plan = explain(query[1]);
+            assertTrue(plan, plan.toLowerCase().contains(query[0]));
+        }
+
+        // an up to date schema is left alone
+        assertEquals(1, migrator.migrate(dataSource));
+        assertEquals(1, count("select count(*) from schema_version"));
+    }
+
+    private String explain(String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("explain " + sql);
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private int count(String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
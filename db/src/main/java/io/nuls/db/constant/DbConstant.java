@@ -0,0 +1,47 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.db.constant;
+
+public interface DbConstant {
+
+    /**
+     * optional settings of the [db] section in modules.ini
+     */
+    String CFG_DB_SECTION = "db";
+    /**
+     * h2: everything in the h2 database,
+     * kv: blocks, txs, utxos and tx relations in the kv store, everything else in the h2 database
+     */
+    String PROPERTY_STORAGE_ENGINE = "storage.engine";
+    String PROPERTY_KV_DIR = "kv.dir";
+    /**
+     * segment size of the kv log, in MB
+     */
+    String PROPERTY_KV_SEGMENT_SIZE = "kv.segment.size";
+
+    String STORAGE_ENGINE_H2 = "h2";
+    String STORAGE_ENGINE_KV = "kv";
+    String DEFAULT_KV_DIR = "./data/kv";
+    int DEFAULT_KV_SEGMENT_SIZE = 64;
+}
@@ -74,6 +74,14 @@ public interface BaseDataService<K, T> {
      */
     int delete(K k);
 
+    /**
+     * 批量删除持久化数据
+     *
+     * @param keyList 数据的键值集合
+     * @return
+     */
+    int delete(List<K> keyList);
+
     /**
      * @return all
      */
@@ -25,6 +25,7 @@ package io.nuls.db.dao;
 
 import io.nuls.db.entity.TxAccountRelationPo;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -34,4 +35,6 @@ import java.util.Set;
 public interface TxAccountRelationDataService extends BaseDataService<String,TxAccountRelationPo> {
 
     void deleteRelation(String txHash, Set<String> addressSet);
+
+    int deleteRelations(List<TxAccountRelationPo> list);
 }
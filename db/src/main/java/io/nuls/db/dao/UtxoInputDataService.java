@@ -37,5 +37,9 @@ public interface UtxoInputDataService extends BaseDataService<Map<String, Object
 
     List<UtxoInputPo> getTxInputs(String txHash);
 
+    /**
+     * only txHash and inIndex of the elements are used
+     */
+    int deleteInputs(List<UtxoInputPo> keyList);
 
 }
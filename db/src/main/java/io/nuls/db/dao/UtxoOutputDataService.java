@@ -49,5 +49,15 @@ public interface UtxoOutputDataService extends BaseDataService<Map<String, Objec
 
     int updateStatus(List<UtxoOutputPo> list);
 
+    /**
+     * only txHash and outIndex of the elements are used
+     */
+    List<UtxoOutputPo> getOutputs(List<UtxoOutputPo> keyList);
+
+    /**
+     * only txHash and outIndex of the elements are used
+     */
+    int deleteOutputs(List<UtxoOutputPo> keyList);
+
     int updateStatus(UtxoOutputPo po);
 }
@@ -24,50 +24,71 @@
 package io.nuls.event.bus.processor.manager;
 
 import io.nuls.core.constant.ErrorCode;
-import io.nuls.core.constant.NulsConstant;
+import io.nuls.core.context.NulsContext;
 import io.nuls.core.event.BaseEvent;
 import io.nuls.core.event.EventManager;
 import io.nuls.core.exception.NulsRuntimeException;
-import io.nuls.core.module.service.ModuleService;
-import io.nuls.core.thread.manager.NulsThreadFactory;
-import io.nuls.core.thread.manager.TaskManager;
 import io.nuls.core.utils.log.Log;
 import io.nuls.core.utils.param.AssertUtil;
 import io.nuls.core.utils.str.StringUtils;
 import io.nuls.event.bus.constant.EventBusConstant;
 import io.nuls.event.bus.handler.intf.NulsEventHandler;
-import io.nuls.event.bus.module.intf.AbstractEventBusModule;
 import io.nuls.event.bus.processor.thread.EventDispatchThread;
-import io.nuls.event.bus.processor.thread.NulsEventCall;
 import io.nuls.event.bus.utils.disruptor.DisruptorEvent;
 import io.nuls.event.bus.utils.disruptor.DisruptorUtil;
 
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Events go through a multi producer ring buffer, the handlers run on the worker that takes the event.
+ *
  * @author Niels
  * @date 2017/11/6
  */
 public class ProcessorManager<E extends io.nuls.core.event.BaseEvent, H extends NulsEventHandler<? extends BaseEvent>> {
-    private final Map<String, H> handlerMap = new HashMap<>();
-    private final Map<Class, Set<String>> eventHandlerMapping = new HashMap<>();
+    private final Map<String, H> handlerMap = new ConcurrentHashMap<>();
+    private final Map<Class, Set<String>> eventHandlerMapping = new ConcurrentHashMap<>();
+    /**
+     * the handlers of an event class including those of its super classes, dropped when a handler changes
+     */
+    private final Map<Class, NulsEventHandler[]> handlerCache = new ConcurrentHashMap<>();
+    private final Set<Class> shedEventSet = Collections.newSetFromMap(new ConcurrentHashMap<Class, Boolean>());
     private DisruptorUtil<DisruptorEvent<ProcessData<E>>> disruptorService = DisruptorUtil.getInstance();
-    private ExecutorService pool;
     private String disruptorName;
+    private BackpressurePolicy backpressurePolicy;
+    /**
+     * the shed policy starts dropping when fewer slots than this are free
+     */
+    private long shedThreshold;
+    private final ProcessorMetrics metrics;
 
     public ProcessorManager(String disruptorName) {
         this.disruptorName = disruptorName;
+        this.metrics = new ProcessorMetrics(disruptorName);
         this.init();
     }
 
     public final void init() {
+        int ringBufferSize = getCfgValue(EventBusConstant.PROPERTY_RING_BUFFER_SIZE, EventBusConstant.DEFAULT_RING_BUFFER_SIZE);
+        int threadCount = getCfgValue(EventBusConstant.PROPERTY_THREAD_COUNT, EventBusConstant.THREAD_COUNT);
+        String waitStrategy = getCfgValue(EventBusConstant.PROPERTY_WAIT_STRATEGY, EventBusConstant.DEFAULT_WAIT_STRATEGY);
+        backpressurePolicy = BackpressurePolicy.parse(getCfgValue(EventBusConstant.PROPERTY_BACKPRESSURE, EventBusConstant.DEFAULT_BACKPRESSURE));
+        for (String className : getCfgValue(EventBusConstant.PROPERTY_SHED_EVENTS, "").split(",")) {
+            if (StringUtils.isBlank(className)) {
+                continue;
+            }
+            try {
+                shedEventSet.add(Class.forName(className.trim()));
+            } catch (ClassNotFoundException e) {
+                Log.warn("unknown shed event:" + className);
+            }
+        }
 
-        pool = TaskManager.createThreadPool(EventBusConstant.THREAD_COUNT,0,
-                new NulsThreadFactory(NulsConstant.MODULE_ID_EVENT_BUS, EventBusConstant.THREAD_POOL_NAME));
-        disruptorService.createDisruptor(disruptorName, EventBusConstant.DEFAULT_RING_BUFFER_SIZE);
+        disruptorService.createDisruptor(disruptorName, ringBufferSize, DisruptorUtil.createWaitStrategy(waitStrategy));
+        shedThreshold = disruptorService.getBufferSize(disruptorName) / 8;
         List<EventDispatchThread> handlerList = new ArrayList<>();
-        for (int i = 0; i < EventBusConstant.THREAD_COUNT; i++) {
+        for (int i = 0; i < threadCount; i++) {
             EventDispatchThread handler = new EventDispatchThread(this);
             handlerList.add(handler);
         }
@@ -75,14 +96,45 @@ public class ProcessorManager<E extends io.nuls.core.event.BaseEvent, H extends
         disruptorService.start(disruptorName);
     }
 
+    private static <T> T getCfgValue(String property, T defaultValue) {
+        if (null == NulsContext.MODULES_CONFIG) {
+            return defaultValue;
+        }
+        return NulsContext.MODULES_CONFIG.getCfgValue(EventBusConstant.CFG_EVENT_BUS_SECTION, property, defaultValue);
+    }
 
     public void shutdown() {
         disruptorService.shutdown(disruptorName);
     }
 
-    public void offer(ProcessData<E> data) {
+    /**
+     * @return false when the event was dropped by the backpressure policy
+     */
+    public boolean offer(ProcessData<E> data) {
         EventManager.care(data.getData().getClass());
-        disruptorService.offer(disruptorName, data);
+        metrics.offered();
+        switch (backpressurePolicy) {
+            case DROP:
+                if (disruptorService.tryOffer(disruptorName, data)) {
+                    return true;
+                }
+                break;
+            case SHED:
+                if (!shedEventSet.contains(data.getData().getClass())) {
+                    disruptorService.offer(disruptorName, data);
+                    return true;
+                }
+                if (disruptorService.getRemainingCapacity(disruptorName) > shedThreshold
+                        && disruptorService.tryOffer(disruptorName, data)) {
+                    return true;
+                }
+                break;
+            default:
+                disruptorService.offer(disruptorName, data);
+                return true;
+        }
+        metrics.dropped();
+        return false;
     }
 
     public String registerEventHandler(String handlerId, Class<E> eventClass, H handler) {
@@ -94,6 +146,7 @@ public class ProcessorManager<E extends io.nuls.core.event.BaseEvent, H extends
         }
         handlerMap.put(handlerId, handler);
         cacheHandlerMapping(eventClass, handlerId);
+        handlerCache.clear();
         return handlerId;
     }
 
@@ -101,7 +154,7 @@ public class ProcessorManager<E extends io.nuls.core.event.BaseEvent, H extends
 
         Set<String> ids = eventHandlerMapping.get(eventClass);
         if (null == ids) {
-            ids = new HashSet<>();
+            ids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
         }
 //        boolean b =
         ids.add(handlerId);
@@ -114,6 +167,32 @@ public class ProcessorManager<E extends io.nuls.core.event.BaseEvent, H extends
 
     public void removeEventHandler(String handlerId) {
         handlerMap.remove(handlerId);
+        handlerCache.clear();
+    }
+
+    /**
+     * drop events of this class first when the ring buffer is nearly full
+     */
+    public void addShedEvent(Class<? extends BaseEvent> eventClass) {
+        shedEventSet.add(eventClass);
+    }
+
+    public ProcessorMetrics getMetrics() {
+        return metrics;
+    }
+
+    public long getRemainingCapacity() {
+        return disruptorService.getRemainingCapacity(disruptorName);
+    }
+
+    private NulsEventHandler[] getHandlers(Class<E> clazz) {
+        NulsEventHandler[] handlers = handlerCache.get(clazz);
+        if (null == handlers) {
+            Set<NulsEventHandler> set = getHandlerList(clazz);
+            handlers = set.toArray(new NulsEventHandler[set.size()]);
+            handlerCache.put(clazz, handlers);
+        }
+        return handlers;
     }
 
     private Set<NulsEventHandler> getHandlerList(Class<E> clazz) {
@@ -141,13 +220,27 @@ public class ProcessorManager<E extends io.nuls.core.event.BaseEvent, H extends
     }
 
 
-    public void executeHandlers(ProcessData<E> data) throws InterruptedException {
+    /**
+     * run the handlers of the event one after another on the calling worker
+     */
+    public void executeHandlers(ProcessData<E> data) {
         if (null == data) {
             throw new NulsRuntimeException(ErrorCode.FAILED, "execute event handler faild,the event is null!");
         }
-        Set<NulsEventHandler> handlerSet = this.getHandlerList((Class<E>) data.getData().getClass());
-        for (NulsEventHandler handler : handlerSet) {
-            pool.execute(new NulsEventCall(data, handler));
+        for (NulsEventHandler handler : this.getHandlers((Class<E>) data.getData().getClass())) {
+            long start = System.nanoTime();
+            boolean success = true;
+            try {
+                //filter&handler is the same level
+                boolean ok = handler.getFilterChain().startDoFilter(data.getData());
+                if (ok) {
+                    handler.onEvent(data.getData(), data.getNodeId());
+                }
+            } catch (Exception e) {
+                success = false;
+                Log.error(e);
+            }
+            metrics.handled(System.nanoTime() - start, success);
         }
     }
 }
@@ -0,0 +1,97 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.event.bus.processor.manager;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one processor: offered, dropped and handled events and the time spent in the handlers.
+ */
+public class ProcessorMetrics {
+
+    private final String name;
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder handled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder handlerNanos = new LongAdder();
+
+    public ProcessorMetrics(String name) {
+        this.name = name;
+    }
+
+    public void offered() {
+        offered.increment();
+    }
+
+    public void dropped() {
+        dropped.increment();
+    }
+
+    public void handled(long nanos, boolean success) {
+        handled.increment();
+        handlerNanos.add(nanos);
+        if (!success) {
+            failed.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getOffered() {
+        return offered.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getHandled() {
+        return handled.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getHandlerNanos() {
+        return handlerNanos.sum();
+    }
+
+    public void reset() {
+        offered.reset();
+        dropped.reset();
+        handled.reset();
+        failed.reset();
+        handlerNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return name + "{offered=" + getOffered() + ", dropped=" + getDropped() + ", handled=" + getHandled() +
+                ", failed=" + getFailed() + ", handlerMs=" + getHandlerNanos() / 1000000 + "}";
+    }
+}
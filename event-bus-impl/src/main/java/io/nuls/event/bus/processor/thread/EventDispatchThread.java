@@ -48,6 +48,11 @@ public class EventDispatchThread extends BaseThread implements WorkHandler<Disru
             Log.debug("did sth ....");
             return;
         }
-        processorManager.executeHandlers(event.getData());
+        try {
+            processorManager.executeHandlers(event.getData());
+        } finally {
+            //the slot is reused, do not keep the event alive until then
+            event.setData(null);
+        }
     }
 }
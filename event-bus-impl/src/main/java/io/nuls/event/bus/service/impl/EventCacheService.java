@@ -24,6 +24,8 @@
 package io.nuls.event.bus.service.impl;
 
 import io.nuls.cache.service.intf.CacheService;
+import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsDigestKey;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.event.BaseEvent;
 
@@ -36,16 +38,18 @@ public class EventCacheService {
     private static final String CACHE_OF_SENDED = "event-cache-sended";
     private static final String CACHE_OF_RECIEVED = "event-cache-recieved";
     private static final int TIME_OF_IDLE_SECONDS = 60;
-    private CacheService cacheService;
+    private CacheService<NulsDigestKey, Object> cacheService;
 
     private EventCacheService() {
         init();
     }
 
     private void init() {
-        this.cacheService = NulsContext.getServiceBean(CacheService.class);
-        this.cacheService.createCache(CACHE_OF_SENDED, 100, 0, TIME_OF_IDLE_SECONDS);
-        this.cacheService.createCache(CACHE_OF_RECIEVED, 100, 0, TIME_OF_IDLE_SECONDS);
+        @SuppressWarnings("unchecked")
+        CacheService<NulsDigestKey, Object> service = NulsContext.getServiceBean(CacheService.class);
+        this.cacheService = service;
+        this.cacheService.createCache(CACHE_OF_SENDED, NulsDigestKey.class, 100, 0, TIME_OF_IDLE_SECONDS, null);
+        this.cacheService.createCache(CACHE_OF_RECIEVED, NulsDigestKey.class, 100, 0, TIME_OF_IDLE_SECONDS, null);
     }
 
     public static EventCacheService getInstance() {
@@ -53,20 +57,21 @@ public class EventCacheService {
     }
 
     public void cacheSendedEvent(BaseEvent event) {
-        this.cacheService.putElement(CACHE_OF_SENDED, event.getHash().getDigestHex(), event);
+        this.cacheService.putElement(CACHE_OF_SENDED, event.getHash().getKey(), event);
     }
 
-    public void cacheRecievedEventHash(String hashHex) {
-        this.cacheService.putElement(CACHE_OF_SENDED, hashHex, 1);
+    public void cacheRecievedEventHash(NulsDigestData hash) {
+        this.cacheService.putElement(CACHE_OF_RECIEVED, hash.getKey(), 1);
     }
 
-    public boolean isKnown(String hashHex) {
-        return this.cacheService.containsKey(CACHE_OF_RECIEVED, hashHex) ||
-                this.cacheService.containsKey(CACHE_OF_SENDED, hashHex);
+    public boolean isKnown(NulsDigestData hash) {
+        NulsDigestKey key = hash.getKey();
+        return this.cacheService.containsKey(CACHE_OF_RECIEVED, key) ||
+                this.cacheService.containsKey(CACHE_OF_SENDED, key);
     }
 
-    public BaseEvent getEvent(String hashHex) {
-        return (BaseEvent) this.cacheService.getElement(CACHE_OF_SENDED, hashHex);
+    public BaseEvent getEvent(NulsDigestData hash) {
+        return (BaseEvent) this.cacheService.getElement(CACHE_OF_SENDED, hash.getKey());
     }
 
     public void destroy() {
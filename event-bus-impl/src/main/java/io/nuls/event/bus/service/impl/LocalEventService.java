@@ -29,6 +29,7 @@ import io.nuls.event.bus.constant.EventBusConstant;
 import io.nuls.event.bus.handler.AbstractEventHandler;
 import io.nuls.event.bus.processor.manager.ProcessData;
 import io.nuls.event.bus.processor.manager.ProcessorManager;
+import io.nuls.event.bus.processor.manager.ProcessorMetrics;
 
 /**
  * @author Niels
@@ -66,4 +67,8 @@ public class LocalEventService {
     public void shutdown() {
         this.processorManager.shutdown();
     }
+
+    public ProcessorMetrics getMetrics() {
+        return processorManager.getMetrics();
+    }
 }
@@ -31,6 +31,7 @@ import io.nuls.event.bus.constant.EventBusConstant;
 import io.nuls.event.bus.handler.AbstractEventHandler;
 import io.nuls.event.bus.processor.manager.ProcessData;
 import io.nuls.event.bus.processor.manager.ProcessorManager;
+import io.nuls.event.bus.processor.manager.ProcessorMetrics;
 
 /**
  * @author Niels
@@ -61,8 +62,8 @@ public class NetworkEventService {
     }
 
     public void publish(BaseEvent event, String nodeId) {
-        boolean exist = eventCacheService.isKnown(event.getHash().getDigestHex() );
-        eventCacheService.cacheRecievedEventHash(event.getHash().getDigestHex() );
+        boolean exist = eventCacheService.isKnown(event.getHash());
+        eventCacheService.cacheRecievedEventHash(event.getHash());
         processorManager.offer(new ProcessData(event, nodeId));
 
     }
@@ -79,6 +80,10 @@ public class NetworkEventService {
         processorManager.shutdown();
     }
 
+    public ProcessorMetrics getMetrics() {
+        return processorManager.getMetrics();
+    }
+
     public String registerEventHandler(String id, Class<? extends BaseEvent> eventClass, AbstractEventHandler<? extends BaseEvent> eventHandler) {
        return processorManager.registerEventHandler(id,eventClass,eventHandler);
 
@@ -35,8 +35,8 @@ import io.nuls.core.utils.param.AssertUtil;
 import io.nuls.event.bus.module.impl.EventBusModuleBootstrap;
 import io.nuls.event.bus.processor.manager.ProcessData;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Niels
@@ -44,7 +44,7 @@ import java.util.Map;
  */
 public class DisruptorUtil<T extends DisruptorEvent> {
     private static final DisruptorUtil INSTANCE = new DisruptorUtil();
-    private static final Map<String, Disruptor<DisruptorEvent>> DISRUPTOR_MAP = new HashMap<>();
+    private static final Map<String, Disruptor<DisruptorEvent>> DISRUPTOR_MAP = new ConcurrentHashMap<>();
 
     public static DisruptorUtil getInstance() {
         return INSTANCE;
@@ -60,30 +60,59 @@ public class DisruptorUtil<T extends DisruptorEvent> {
         }
     };
 
+    private static final ExceptionHandler EXCEPTION_HANDLER = new ExceptionHandler() {
+        @Override
+        public void handleEventException(Throwable ex, long sequence, Object event) {
+            Log.error(ex);
+        }
+
+        @Override
+        public void handleOnStartException(Throwable ex) {
+            Log.error(ex);
+        }
+
+        @Override
+        public void handleOnShutdownException(Throwable ex) {
+            Log.error(ex);
+        }
+    };
+
     /**
-     * create a disruptor
+     * create a disruptor, any thread may offer to it
      *
      * @param name           The title of the disruptor
      * @param ringBufferSize The size of ringBuffer
+     * @param waitStrategy   how the consumers wait for new events
      */
-    public void createDisruptor(String name, int ringBufferSize) {
+    public void createDisruptor(String name, int ringBufferSize, WaitStrategy waitStrategy) {
         if (DISRUPTOR_MAP.keySet().contains(name)) {
             throw new NulsRuntimeException(ErrorCode.FAILED, "create disruptor faild,the name is repetitive!");
         }
 
         Disruptor<DisruptorEvent> disruptor = new Disruptor<DisruptorEvent>(EVENT_FACTORY,
-                ringBufferSize, new NulsThreadFactory(ModuleService.getInstance().getModuleId(EventBusModuleBootstrap.class), name), ProducerType.SINGLE,
-                new BlockingWaitStrategy());
-        //SleepingWaitStrategy
-//        disruptor.handleEventsWith(new EventHandler<DisruptorEvent>() {
-//            @Override
-//            public void onEvent(DisruptorEvent disruptorEvent, long l, boolean b) throws Exception {
-//                Log.debug(disruptorEvent.getData() + "");
-//            }
-//        });
+                ringBufferSize, new NulsThreadFactory(ModuleService.getInstance().getModuleId(EventBusModuleBootstrap.class), name), ProducerType.MULTI,
+                waitStrategy);
+        //a failed handler must not stop its worker
+        disruptor.setDefaultExceptionHandler(EXCEPTION_HANDLER);
         DISRUPTOR_MAP.put(name, disruptor);
     }
 
+    /**
+     * @param name blocking, lite-blocking, sleeping, yielding or busy-spin
+     */
+    public static WaitStrategy createWaitStrategy(String name) {
+        if ("lite-blocking".equalsIgnoreCase(name)) {
+            return new LiteBlockingWaitStrategy();
+        } else if ("sleeping".equalsIgnoreCase(name)) {
+            return new SleepingWaitStrategy();
+        } else if ("yielding".equalsIgnoreCase(name)) {
+            return new YieldingWaitStrategy();
+        } else if ("busy-spin".equalsIgnoreCase(name)) {
+            return new BusySpinWaitStrategy();
+        }
+        return new BlockingWaitStrategy();
+    }
+
     /**
      * start a disruptor service
      *
@@ -114,11 +143,44 @@ public class DisruptorUtil<T extends DisruptorEvent> {
      * @param obj
      */
     public void offer(String name, Object obj) {
-        Disruptor<DisruptorEvent> disruptor = DISRUPTOR_MAP.get(name);
-        AssertUtil.canNotEmpty(disruptor, "the disruptor is not exist!name:" + name);
-        RingBuffer<DisruptorEvent> ringBuffer = disruptor.getRingBuffer();
+        RingBuffer<DisruptorEvent> ringBuffer = getRingBuffer(name);
         //请求下一个事件序号；
         long sequence = ringBuffer.next();
+        publish(ringBuffer, sequence, obj);
+    }
+
+    /**
+     * add the data obj to the disruptor named the field name, if it has a free slot
+     *
+     * @return false when the ring buffer is full
+     */
+    public boolean tryOffer(String name, Object obj) {
+        RingBuffer<DisruptorEvent> ringBuffer = getRingBuffer(name);
+        long sequence;
+        try {
+            sequence = ringBuffer.tryNext();
+        } catch (InsufficientCapacityException e) {
+            return false;
+        }
+        publish(ringBuffer, sequence, obj);
+        return true;
+    }
+
+    public long getRemainingCapacity(String name) {
+        return getRingBuffer(name).remainingCapacity();
+    }
+
+    public int getBufferSize(String name) {
+        return getRingBuffer(name).getBufferSize();
+    }
+
+    private RingBuffer<DisruptorEvent> getRingBuffer(String name) {
+        Disruptor<DisruptorEvent> disruptor = DISRUPTOR_MAP.get(name);
+        AssertUtil.canNotEmpty(disruptor, "the disruptor is not exist!name:" + name);
+        return disruptor.getRingBuffer();
+    }
+
+    private void publish(RingBuffer<DisruptorEvent> ringBuffer, long sequence, Object obj) {
         try {
             //获取该序号对应的事件对象；
             DisruptorEvent event = ringBuffer.get(sequence);
@@ -32,8 +32,28 @@ public interface EventBusConstant {
     String DISRUPTOR_NAME_LOCAL = "nuls-processing-local";
     String DISRUPTOR_NAME_NETWORK = "nuls-processing-network";
     int THREAD_COUNT = 10*Runtime.getRuntime().availableProcessors();
-    String THREAD_POOL_NAME = "nuls-processor-dispatcher";
     int DEFAULT_RING_BUFFER_SIZE = 1 << 20;
 
+    /**
+     * optional settings of the [event-bus] section in modules.ini
+     */
+    String CFG_EVENT_BUS_SECTION = "event-bus";
+    String PROPERTY_RING_BUFFER_SIZE = "ring.buffer.size";
+    String PROPERTY_THREAD_COUNT = "thread.count";
+    /**
+     * blocking, lite-blocking, sleeping, yielding, busy-spin
+     */
+    String PROPERTY_WAIT_STRATEGY = "wait.strategy";
+    /**
+     * block, drop, shed
+     */
+    String PROPERTY_BACKPRESSURE = "backpressure";
+    /**
+     * comma separated event class names, dropped first by the shed policy
+     */
+    String PROPERTY_SHED_EVENTS = "shed.events";
+    String DEFAULT_WAIT_STRATEGY = "blocking";
+    String DEFAULT_BACKPRESSURE = "shed";
+
 
 }
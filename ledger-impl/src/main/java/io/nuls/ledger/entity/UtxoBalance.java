@@ -26,61 +26,155 @@ package io.nuls.ledger.entity;
 import io.nuls.core.chain.entity.Na;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
+ * The unspent outputs of one address, indexed by (txHash, index).
+ * Usable and locked totals are kept up to date as outputs are added, removed or change state,
+ * instead of being summed up again after every change.
+ *
  * @author Niels
  * @date 2017/11/13
  */
 public class UtxoBalance extends Balance {
 
-    private List<UtxoOutput> unSpends;
+    private static final int STATE_NONE = 0;
+    private static final int STATE_USABLE = 1;
+    private static final int STATE_LOCKED = 2;
+
+    private final Map<UtxoKey, UnSpend> unSpendMap = new LinkedHashMap<>();
+
+    private long usableValue;
+    private long lockedValue;
 
     public UtxoBalance() {
-        super();
+        super(Na.ZERO, Na.ZERO);
+    }
+
+    /**
+     * @return a snapshot of the unspent outputs, in the order they were added
+     */
+    public synchronized List<UtxoOutput> getUnSpends() {
+        List<UtxoOutput> list = new ArrayList<>(unSpendMap.size());
+        for (UnSpend unSpend : unSpendMap.values()) {
+            list.add(unSpend.output);
+        }
+        return list;
+    }
+
+    /**
+     * add the output, or take over its state if the key is already known
+     */
+    public synchronized void addUnSpend(UtxoOutput output, long currentTime) {
+        UtxoKey key = output.getUtxoKey();
+        UnSpend unSpend = unSpendMap.get(key);
+        if (null == unSpend) {
+            unSpend = new UnSpend(output);
+            unSpendMap.put(key, unSpend);
+        } else if (unSpend.output != output) {
+            add(unSpend.state, -unSpend.output.getValue());
+            unSpend.state = STATE_NONE;
+            unSpend.output = output;
+            publish();
+        }
+        updateState(unSpend, currentTime);
+    }
+
+    /**
+     * take over the state of the output if its key is known, ignore it otherwise
+     */
+    public synchronized void updateUnSpend(UtxoOutput output, long currentTime) {
+        if (unSpendMap.containsKey(output.getUtxoKey())) {
+            addUnSpend(output, currentTime);
+        }
     }
 
-    public UtxoBalance(Na usable, Na locked) {
-        super(usable, locked);
-        this.unSpends = new ArrayList<>();
+    public synchronized UtxoOutput removeUnSpend(UtxoKey key) {
+        UnSpend unSpend = unSpendMap.remove(key);
+        if (null == unSpend) {
+            return null;
+        }
+        add(unSpend.state, -unSpend.output.getValue());
+        publish();
+        return unSpend.output;
+    }
+
+    public synchronized boolean containsSpend(UtxoKey key) {
+        return unSpendMap.containsKey(key);
     }
 
-    public UtxoBalance(Na usable, Na locked, List<UtxoOutput> unSpends) {
-        this(usable, locked);
-        this.unSpends = unSpends;
+    public synchronized int getUnSpendCount() {
+        return unSpendMap.size();
     }
 
-    public List<UtxoOutput> getUnSpends() {
-        return unSpends;
+    /**
+     * re-evaluate one output after its status changed or its lock time passed
+     */
+    public synchronized void refresh(UtxoKey key, long currentTime) {
+        UnSpend unSpend = unSpendMap.get(key);
+        if (null != unSpend) {
+            updateState(unSpend, currentTime);
+        }
     }
 
-    public void setUnSpends(List<UtxoOutput> unSpends) {
-        this.unSpends = unSpends;
+    /**
+     * re-evaluate every output
+     */
+    public synchronized void recalc(long currentTime) {
+        for (UnSpend unSpend : unSpendMap.values()) {
+            unSpend.state = STATE_NONE;
+        }
+        usableValue = 0;
+        lockedValue = 0;
+        for (UnSpend unSpend : unSpendMap.values()) {
+            unSpend.state = stateOf(unSpend.output, currentTime);
+            add(unSpend.state, unSpend.output.getValue());
+        }
+        publish();
     }
 
-    public void addUnSpend(UtxoOutput unSpend) {
-        this.unSpends.add(unSpend);
+    private void updateState(UnSpend unSpend, long currentTime) {
+        int state = stateOf(unSpend.output, currentTime);
+        if (state == unSpend.state) {
+            return;
+        }
+        add(unSpend.state, -unSpend.output.getValue());
+        add(state, unSpend.output.getValue());
+        unSpend.state = state;
+        publish();
     }
 
-    public UtxoOutput removeUnSpend(String key) {
-        for (int i = 0; i < unSpends.size(); i++) {
-            UtxoOutput output = unSpends.get(i);
-            if (key.equals(output.getKey())) {
-                unSpends.remove(output);
-                return output;
-            }
+    private static int stateOf(UtxoOutput output, long currentTime) {
+        if (output.getStatus() == UtxoOutput.USEABLE) {
+            return output.getLockTime() > currentTime ? STATE_LOCKED : STATE_USABLE;
+        } else if (output.getStatus() == UtxoOutput.LOCKED) {
+            return STATE_LOCKED;
         }
-        return null;
+        return STATE_NONE;
     }
 
-    public boolean containsSpend(String key) {
-        for (int i = 0; i < unSpends.size(); i++) {
-            UtxoOutput output = unSpends.get(i);
-            if (key.equals(output.getKey())) {
-                return true;
-            }
+    private void add(int state, long value) {
+        if (state == STATE_USABLE) {
+            usableValue += value;
+        } else if (state == STATE_LOCKED) {
+            lockedValue += value;
         }
-        return false;
     }
 
+    private void publish() {
+        this.setUsable(Na.valueOf(usableValue));
+        this.setLocked(Na.valueOf(lockedValue));
+        this.setBalance(Na.valueOf(usableValue + lockedValue));
+    }
+
+    private static class UnSpend {
+        private UtxoOutput output;
+        private int state = STATE_NONE;
+
+        private UnSpend(UtxoOutput output) {
+            this.output = output;
+        }
+    }
 }
@@ -23,24 +23,32 @@
  */
 package io.nuls.ledger.entity;
 
+import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.crypto.VarInt;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.utils.io.NulsByteBuffer;
 import io.nuls.core.utils.io.NulsOutputStreamBuffer;
+import io.nuls.core.validate.ValidatorManager;
 import io.nuls.ledger.validator.UtxoTxInputsValidator;
 import io.nuls.ledger.validator.UtxoTxOutputsValidator;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author Niels
  * @date 2017/11/16
  */
 public class UtxoData extends CoinData {
+    static {
+        ValidatorManager.addValidator(UtxoData.class, UtxoTxInputsValidator.getInstance());
+        ValidatorManager.addValidator(UtxoData.class, UtxoTxOutputsValidator.getInstance());
+    }
+
     public UtxoData() {
-        this.registerValidator(UtxoTxInputsValidator.getInstance());
-        this.registerValidator(UtxoTxOutputsValidator.getInstance());
     }
 
     private List<UtxoInput> inputs = new ArrayList<>();
@@ -63,18 +71,27 @@ public class UtxoData extends CoinData {
         this.outputs = outputs;
     }
 
+    @Override
+    public Set<NulsDigestData> getFromHashSet() {
+        Set<NulsDigestData> set = new HashSet<>();
+        for (UtxoInput input : inputs) {
+            set.add(input.getFromHash());
+        }
+        return set;
+    }
+
     @Override
     public int size() {
         int size = 0;
 
-        size += 1;   //input's length
+        size += VarInt.sizeOf(inputs == null ? 0 : inputs.size());
         if (inputs != null) {
             for (int i = 0; i < inputs.size(); i++) {
                 size += inputs.get(i).size();
             }
         }
 
-        size += 1;   //output's length
+        size += VarInt.sizeOf(outputs == null ? 0 : outputs.size());
         if (outputs != null) {
             for (int i = 0; i < outputs.size(); i++) {
                 size += outputs.get(i).size();
@@ -116,5 +133,7 @@ public class UtxoData extends CoinData {
             output.parse(byteBuffer);
             outputs.add(output);
         }
+        this.inputs = inputs;
+        this.outputs = outputs;
     }
 }
@@ -167,6 +167,13 @@ public class UtxoInput extends BaseNulsData {
         this.key = key;
     }
 
+    /**
+     * the key of the output this input spends
+     */
+    public UtxoKey getUtxoKey() {
+        return new UtxoKey(fromHash.getKey(), fromIndex);
+    }
+
     public NulsDigestData getFromHash() {
         return fromHash;
     }
@@ -0,0 +1,72 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.entity;
+
+import io.nuls.core.chain.entity.NulsDigestKey;
+
+/**
+ * identifies an output by the hash of its transaction and its index in it
+ */
+public final class UtxoKey {
+
+    private final NulsDigestKey txHash;
+    private final int index;
+    private final int hashCode;
+
+    public UtxoKey(NulsDigestKey txHash, int index) {
+        this.txHash = txHash;
+        this.index = index;
+        this.hashCode = 31 * txHash.hashCode() + index;
+    }
+
+    public NulsDigestKey getTxHash() {
+        return txHash;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof UtxoKey)) {
+            return false;
+        }
+        UtxoKey other = (UtxoKey) obj;
+        return index == other.index && hashCode == other.hashCode && txHash.equals(other.txHash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return txHash.getDigestHex() + "-" + index;
+    }
+}
@@ -35,6 +35,7 @@ import io.nuls.core.utils.io.NulsOutputStreamBuffer;
 import io.nuls.core.utils.str.StringUtils;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Created by win10 on 2017/10/30.
@@ -58,12 +59,14 @@ public class UtxoOutput extends BaseNulsData {
     private Script script;
 
     //0: usable, 1:locked， 2：spent
-    private int status;
+    private volatile int status;
 
     public static final int USEABLE = 0;
     public static final int LOCKED = 1;
     public static final int SPENT = 2;
 
+    private static final AtomicIntegerFieldUpdater<UtxoOutput> STATUS_UPDATER = AtomicIntegerFieldUpdater.newUpdater(UtxoOutput.class, "status");
+
     /** ------ redundancy ------  */
     private Transaction parent;
 
@@ -87,9 +90,9 @@ public class UtxoOutput extends BaseNulsData {
         int s = 0;
         s += Utils.sizeOfSerialize(txHash);
         s += VarInt.sizeOf(index);
-        s += VarInt.sizeOf(value);
+        s += 8;
         s += Utils.sizeOfSerialize(address);
-        s += VarInt.sizeOf(lockTime);
+        s += 8;
         s += Utils.sizeOfSerialize(scriptBytes);
         return s;
     }
@@ -196,6 +199,15 @@ public class UtxoOutput extends BaseNulsData {
         this.status = status;
     }
 
+    /**
+     * atomically move the output from the expected status to the new one
+     *
+     * @return false if the output was not in the expected status
+     */
+    public boolean compareAndSetStatus(int expect, int update) {
+        return STATUS_UPDATER.compareAndSet(this, expect, update);
+    }
+
     public Transaction getParent() {
         return parent;
     }
@@ -215,6 +227,10 @@ public class UtxoOutput extends BaseNulsData {
         this.key = key;
     }
 
+    public UtxoKey getUtxoKey() {
+        return new UtxoKey(this.getTxHash().getKey(), index);
+    }
+
     public long getCreateTime() {
         return createTime;
     }
@@ -26,7 +26,10 @@ package io.nuls.ledger.module.impl;
 import io.nuls.core.chain.manager.TransactionValidatorManager;
 import io.nuls.core.constant.TransactionConstant;
 import io.nuls.core.context.NulsContext;
+import io.nuls.core.thread.manager.NulsThreadFactory;
 import io.nuls.core.thread.manager.TaskManager;
+import io.nuls.core.utils.date.TimeService;
+import io.nuls.core.utils.log.Log;
 import io.nuls.db.dao.UtxoOutputDataService;
 import io.nuls.ledger.entity.listener.CoinDataTxService;
 import io.nuls.ledger.entity.tx.CoinBaseTransaction;
@@ -40,11 +43,15 @@ import io.nuls.ledger.service.impl.UtxoCoinManager;
 import io.nuls.ledger.service.impl.UtxoLedgerServiceImpl;
 import io.nuls.ledger.service.intf.LedgerService;
 import io.nuls.ledger.thread.SmallChangeThread;
+import io.nuls.ledger.util.UtxoLockTimeWheel;
 import io.nuls.ledger.validator.TxFieldValidator;
 import io.nuls.ledger.validator.TxMaxSizeValidator;
 import io.nuls.ledger.validator.TxRemarkValidator;
 import io.nuls.ledger.validator.TxSignValidator;
 
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * @author Niels
@@ -52,6 +59,8 @@ import io.nuls.ledger.validator.TxSignValidator;
  */
 public class UtxoLedgerModuleBootstrap extends AbstractLedgerModule {
 
+    private static final String LOCK_TIME_POOL_NAME = "utxo-lock-time";
+
     private LedgerCacheService cacheService;
 
     private LedgerService ledgerService;
@@ -97,6 +106,15 @@ public class UtxoLedgerModuleBootstrap extends AbstractLedgerModule {
 
         SmallChangeThread smallChangeThread = SmallChangeThread.getInstance();
         TaskManager.createAndRunThread(this.getModuleId(), SmallChangeThread.class.getSimpleName(), smallChangeThread);
+
+        ScheduledThreadPoolExecutor lockTimePool = TaskManager.createScheduledThreadPool(new NulsThreadFactory(this.getModuleId(), LOCK_TIME_POOL_NAME));
+        lockTimePool.scheduleAtFixedRate(() -> {
+            try {
+                UtxoLockTimeWheel.getInstance().advance(TimeService.currentTimeMillis());
+            } catch (Exception e) {
+                Log.error(e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
     }
 
     @Override
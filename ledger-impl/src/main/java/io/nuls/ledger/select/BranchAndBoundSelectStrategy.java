@@ -0,0 +1,111 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.select;
+
+import io.nuls.ledger.entity.UtxoOutput;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Depth-first search for a set of outputs whose sum lands between the target and the target plus
+ * a tolerance, so that the transaction needs no change output.
+ * The search is bounded by a number of tries and falls back to largest-first when nothing fits.
+ */
+public class BranchAndBoundSelectStrategy implements CoinSelectStrategy {
+
+    private static final int DEFAULT_MAX_TRIES = 100000;
+
+    private final long tolerance;
+    private final int maxTries;
+    private final CoinSelectStrategy fallback = new LargestFirstSelectStrategy();
+
+    public BranchAndBoundSelectStrategy(long tolerance) {
+        this(tolerance, DEFAULT_MAX_TRIES);
+    }
+
+    public BranchAndBoundSelectStrategy(long tolerance, int maxTries) {
+        this.tolerance = tolerance;
+        this.maxTries = maxTries;
+    }
+
+    @Override
+    public List<UtxoOutput> select(List<UtxoOutput> candidates, long target) {
+        candidates.sort(LargestFirstSelectStrategy.VALUE_DESC);
+        int size = candidates.size();
+        long[] values = new long[size];
+        // remaining[i] is the sum of the values from i to the end
+        long[] remaining = new long[size + 1];
+        for (int i = size - 1; i >= 0; i--) {
+            values[i] = candidates.get(i).getValue();
+            remaining[i] = remaining[i + 1] + values[i];
+        }
+        if (remaining[0] < target) {
+            return new ArrayList<>();
+        }
+        boolean[] chosen = new boolean[size];
+        int depth = 0;
+        long amount = 0;
+        int tries = 0;
+        while (tries++ < maxTries) {
+            boolean backtrack;
+            if (amount >= target) {
+                if (amount <= target + tolerance) {
+                    return collect(candidates, chosen, depth);
+                }
+                backtrack = true;
+            } else {
+                backtrack = depth == size || amount + remaining[depth] < target;
+            }
+            if (!backtrack) {
+                chosen[depth] = true;
+                amount += values[depth];
+                depth++;
+                continue;
+            }
+            // step back to the last included output and try the branch without it
+            while (depth > 0 && !chosen[depth - 1]) {
+                depth--;
+            }
+            if (depth == 0) {
+                break;
+            }
+            depth--;
+            chosen[depth] = false;
+            amount -= values[depth];
+            depth++;
+        }
+        return fallback.select(candidates, target);
+    }
+
+    private static List<UtxoOutput> collect(List<UtxoOutput> candidates, boolean[] chosen, int depth) {
+        List<UtxoOutput> list = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            if (chosen[i]) {
+                list.add(candidates.get(i));
+            }
+        }
+        return list;
+    }
+}
@@ -21,41 +21,24 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-package io.nuls.consensus.entity;
+package io.nuls.ledger.select;
+
+import io.nuls.ledger.entity.UtxoOutput;
 
 import java.util.List;
 
 /**
+ * picks the outputs that pay for a transaction
+ *
  * @author Niels
- * @date 2018/1/16
+ * @date 2018/3/24
  */
-public class DownloadRound {
-
-    private long start;
-    private long end;
-    private List<String> nodeIdList;
-
-    public long getStart() {
-        return start;
-    }
-
-    public void setStart(long start) {
-        this.start = start;
-    }
-
-    public long getEnd() {
-        return end;
-    }
-
-    public void setEnd(long end) {
-        this.end = end;
-    }
-
-    public void setNodeIdList(List<String> nodeIdList) {
-        this.nodeIdList = nodeIdList;
-    }
-
-    public List<String> getNodeIdList() {
-        return nodeIdList;
-    }
+public interface CoinSelectStrategy {
+
+    /**
+     * @param candidates usable outputs, the list may be reordered
+     * @param target     the value the selection has to reach
+     * @return outputs whose values sum up to at least the target, or an empty list if the candidates are not enough
+     */
+    List<UtxoOutput> select(List<UtxoOutput> candidates, long target);
 }
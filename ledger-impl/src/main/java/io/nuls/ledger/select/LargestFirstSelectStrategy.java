@@ -0,0 +1,54 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.select;
+
+import io.nuls.ledger.entity.UtxoOutput;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * spends the biggest outputs first, which keeps the number of inputs low
+ */
+public class LargestFirstSelectStrategy implements CoinSelectStrategy {
+
+    public static final Comparator<UtxoOutput> VALUE_DESC = (o1, o2) -> Long.compare(o2.getValue(), o1.getValue());
+
+    @Override
+    public List<UtxoOutput> select(List<UtxoOutput> candidates, long target) {
+        candidates.sort(VALUE_DESC);
+        List<UtxoOutput> selected = new ArrayList<>();
+        long amount = 0;
+        for (UtxoOutput output : candidates) {
+            selected.add(output);
+            amount += output.getValue();
+            if (amount >= target) {
+                return selected;
+            }
+        }
+        return Collections.emptyList();
+    }
+}
@@ -21,41 +21,35 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-package io.nuls.event.bus.processor.thread;
+package io.nuls.ledger.select;
 
-import io.nuls.core.utils.log.Log;
-import io.nuls.event.bus.handler.intf.NulsEventHandler;
-import io.nuls.event.bus.processor.manager.ProcessData;
+import io.nuls.ledger.entity.UtxoOutput;
+
+import java.util.Collections;
+import java.util.List;
 
 /**
+ * spends the smallest single output that covers the target,
+ * and falls back to largest-first when no single output is big enough
+ *
  * @author Niels
- * @date 2017/11/6
+ * @date 2018/3/24
  */
-public class NulsEventCall<T extends io.nuls.core.event.BaseEvent> implements Runnable {
-    private final ProcessData<T> data;
-    private final NulsEventHandler<T> handler;
+public class SmallestSufficientSelectStrategy implements CoinSelectStrategy {
 
-    public NulsEventCall(ProcessData<T> data, NulsEventHandler<T> handler) {
-        this.data = data;
-        this.handler = handler;
-    }
+    private final CoinSelectStrategy fallback = new LargestFirstSelectStrategy();
 
     @Override
-    public void run() {
-        if (null == data || null == handler) {
-            return;
-        }
-        try {
-            //filter&handler is the same level
-            boolean ok = handler.getFilterChain().startDoFilter(data.getData());
-            if (ok) {
-                long start = System.currentTimeMillis();
-                handler.onEvent(data.getData(), data.getNodeId());
-                Log.debug(data.getData().getClass()+",use:"+(System.currentTimeMillis()-start));
+    public List<UtxoOutput> select(List<UtxoOutput> candidates, long target) {
+        UtxoOutput best = null;
+        for (UtxoOutput output : candidates) {
+            if (output.getValue() >= target && (null == best || output.getValue() < best.getValue())) {
+                best = output;
             }
-        } catch (Exception e) {
-            Log.error(e);
         }
-        return;
+        if (null != best) {
+            return Collections.singletonList(best);
+        }
+        return fallback.select(candidates, target);
     }
 }
@@ -23,13 +23,17 @@
  */
 package io.nuls.ledger.service.impl;
 
+import io.nuls.account.entity.Address;
 import io.nuls.cache.service.intf.CacheService;
 import io.nuls.core.context.NulsContext;
+import io.nuls.core.utils.date.TimeService;
 import io.nuls.core.utils.spring.lite.annotation.Autowired;
 import io.nuls.core.utils.str.StringUtils;
 import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.entity.Balance;
+import io.nuls.ledger.entity.UtxoBalance;
 import io.nuls.ledger.entity.UtxoOutput;
+import io.nuls.ledger.util.UtxoLockTimeWheel;
 
 
 /**
@@ -56,6 +60,7 @@ public class LedgerCacheService {
     public void clear() {
         this.cacheService.clearCache(LedgerConstant.STANDING_BOOK);
         this.utxoCacheService.clearCache(LedgerConstant.UTXO);
+        UtxoLockTimeWheel.getInstance().clear();
     }
 
     public void destroy() {
@@ -92,10 +97,46 @@ public class LedgerCacheService {
             return false;
         }
         UtxoOutput output = utxoCacheService.getElement(LedgerConstant.UTXO, key);
-        if (output.getStatus() != oldStatus) {
+        if (null == output || !output.compareAndSetStatus(oldStatus, newStatus)) {
             return false;
         }
-        output.setStatus(newStatus);
+        refreshUnSpend(output);
         return true;
     }
+
+    public void updateUtxoStatus(UtxoOutput output, int newStatus) {
+        output.setStatus(newStatus);
+        refreshUnSpend(output);
+    }
+
+    /**
+     * add the output to the balance of its address, creating the balance when needed
+     */
+    public void addUnSpend(UtxoOutput output) {
+        String address = Address.fromHashs(output.getAddress()).getBase58();
+        UtxoBalance balance = (UtxoBalance) getBalance(address);
+        if (null == balance) {
+            balance = (UtxoBalance) cacheService.putElementIfAbsent(LedgerConstant.STANDING_BOOK, address, new UtxoBalance());
+        }
+        long currentTime = TimeService.currentTimeMillis();
+        balance.addUnSpend(output, currentTime);
+        if (output.getLockTime() > currentTime) {
+            UtxoLockTimeWheel.getInstance().schedule(address, output.getUtxoKey(), output.getLockTime());
+        }
+    }
+
+    public UtxoOutput removeUnSpend(UtxoOutput output) {
+        UtxoBalance balance = (UtxoBalance) getBalance(Address.fromHashs(output.getAddress()).getBase58());
+        if (null == balance) {
+            return null;
+        }
+        return balance.removeUnSpend(output.getUtxoKey());
+    }
+
+    private void refreshUnSpend(UtxoOutput output) {
+        UtxoBalance balance = (UtxoBalance) getBalance(Address.fromHashs(output.getAddress()).getBase58());
+        if (null != balance) {
+            balance.updateUnSpend(output, TimeService.currentTimeMillis());
+        }
+    }
 }
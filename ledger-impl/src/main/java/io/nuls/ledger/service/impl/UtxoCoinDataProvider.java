@@ -27,16 +27,21 @@ import io.nuls.account.entity.Account;
 import io.nuls.account.entity.Address;
 import io.nuls.account.service.intf.AccountService;
 import io.nuls.core.chain.entity.Na;
+import io.nuls.core.chain.entity.NulsDigestKey;
+import io.nuls.core.chain.entity.NulsSignData;
 import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.constant.TxStatusEnum;
+import io.nuls.core.context.NulsContext;
 import io.nuls.core.crypto.ECKey;
 import io.nuls.core.crypto.script.ScriptBuilder;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.exception.NulsRuntimeException;
+import io.nuls.core.utils.crypto.Utils;
 import io.nuls.core.utils.io.NulsByteBuffer;
 import io.nuls.core.utils.log.Log;
 import io.nuls.core.utils.spring.lite.annotation.Autowired;
+import io.nuls.core.validate.SignatureVerifier;
 import io.nuls.db.dao.TxAccountRelationDataService;
 import io.nuls.db.dao.UtxoInputDataService;
 import io.nuls.db.dao.UtxoOutputDataService;
@@ -47,8 +52,8 @@ import io.nuls.db.transactional.annotation.DbSession;
 import io.nuls.ledger.entity.*;
 import io.nuls.ledger.entity.params.Coin;
 import io.nuls.ledger.entity.params.CoinTransferData;
+import io.nuls.ledger.entity.tx.AbstractCoinTransaction;
 import io.nuls.ledger.service.intf.CoinDataProvider;
-import io.nuls.ledger.util.UtxoTransactionTool;
 import io.nuls.ledger.util.UtxoTransferTool;
 
 import java.math.BigInteger;
@@ -72,6 +77,8 @@ public class UtxoCoinDataProvider implements CoinDataProvider {
 
     private UtxoCoinManager coinManager = UtxoCoinManager.getInstance();
 
+    private final ThreadLocal<UtxoBatch> batchHolder = new ThreadLocal<>();
+
     @Override
     public CoinData parse(NulsByteBuffer byteBuffer) throws NulsException {
         CoinData coinData = byteBuffer.readNulsData(new UtxoData());
@@ -90,11 +97,15 @@ public class UtxoCoinDataProvider implements CoinDataProvider {
         //Lock the transaction specified output in the cache when the newly received transaction is approved.
         UtxoData utxoData = (UtxoData) coinData;
         List<UtxoOutput> outputs = new ArrayList<>();
+        String signer = getSignerAddress(tx.getSign());
         try {
             for (int i = 0; i < utxoData.getInputs().size(); i++) {
                 UtxoInput input = utxoData.getInputs().get(i);
                 UtxoOutput unSpend = cacheService.getUtxo(input.getKey());
-                unSpend.setStatus(UtxoOutput.LOCKED);
+                if (!isOwner(signer, unSpend)) {
+                    throw new NulsRuntimeException(ErrorCode.UTXO_OWNER_NOT_MATCH);
+                }
+                cacheService.updateUtxoStatus(unSpend, UtxoOutput.LOCKED);
                 outputs.add(unSpend);
             }
         } catch (Exception e) {
@@ -102,24 +113,92 @@ public class UtxoCoinDataProvider implements CoinDataProvider {
                 cacheService.updateUtxoStatus(output.getKey(), UtxoOutput.USEABLE, UtxoOutput.LOCKED);
             }
             throw e;
-        } finally {
-            for (UtxoInput input : utxoData.getInputs()) {
-                UtxoOutput unSpend = cacheService.getUtxo(input.getKey());
-                UtxoTransactionTool.getInstance().calcBalance(Address.fromHashs(unSpend.getAddress()));
-            }
         }
     }
 
+    /**
+     * The sign only proves who signed, only the owner of an output may spend it.
+     * A tx without an ecc sign has no signer and can not spend anything.
+     */
+    static boolean isOwner(String signer, UtxoOutput unSpend) {
+        return null != signer && signer.equals(Address.fromHashs(unSpend.getAddress()).getBase58());
+    }
+
+    /**
+     * the address of the key that signed, null when the sign is not an ecc sign
+     */
+    static String getSignerAddress(NulsSignData sign) {
+        byte[] pubKey = SignatureVerifier.getPubKey(sign);
+        if (null == pubKey) {
+            return null;
+        }
+        byte[] hash160 = Utils.sha256hash160(ECKey.fromPublicOnly(pubKey).getPubKey(false));
+        return new Address(NulsContext.getInstance().getChainId(NulsContext.CHAIN_ID), hash160).getBase58();
+    }
+
+    @Override
+    public void startBatch(List<Transaction> txList) {
+        UtxoBatch batch = batchHolder.get();
+        if (null == batch) {
+            batch = new UtxoBatch();
+            batchHolder.set(batch);
+        }
+        batch.depth++;
+        loadSpends(batch, txList);
+    }
+
+    @Override
+    @DbSession
+    public void endBatch() {
+        UtxoBatch batch = batchHolder.get();
+        if (null == batch || --batch.depth > 0) {
+            return;
+        }
+        batchHolder.remove();
+        try {
+            write(batch);
+        } catch (Exception e) {
+            Log.warn(e.getMessage(), e);
+            undo(batch);
+            throw e;
+        }
+    }
+
+    /**
+     * drop the collected rows and undo the cache changes of every save and rollback in the batch, newest first
+     */
+    @Override
+    public void cancelBatch() {
+        UtxoBatch batch = batchHolder.get();
+        batchHolder.remove();
+        if (null != batch) {
+            undo(batch);
+        }
+    }
+
+    private void undo(UtxoBatch batch) {
+        for (int i = batch.undoList.size() - 1; i >= 0; i--) {
+            batch.undoList.get(i).undo();
+        }
+        batch.undoList.clear();
+    }
+
     @Override
     @DbSession
     /**
      * 1. change spending output status  (cache and database)
      * 2. save new input
      * 3. save new unSpend output (cache and database)
-     * 4. finally, calc balance
+     * the balances of the touched addresses follow the cache changes
+     * inside a batch the rows are written by endBatch
      */
     public void save(CoinData coinData, Transaction tx) {
         UtxoData utxoData = (UtxoData) coinData;
+        UtxoBatch batch = batchHolder.get();
+        boolean alone = null == batch;
+        if (alone) {
+            batch = new UtxoBatch();
+        }
 
         List<UtxoInputPo> inputPoList = new ArrayList<>();
         List<UtxoOutput> spends = new ArrayList<>();
@@ -142,49 +221,41 @@ public class UtxoCoinDataProvider implements CoinDataProvider {
                 txRelations.add(relationPo);
             }
 
-            outputDataService.updateStatus(spendPoList);
-
-            inputDataService.save(inputPoList);
-
-            outputDataService.save(outputPoList);
-
-            relationDataService.save(txRelations);
-
             processDataOutput(utxoData);
 
             for (UtxoOutput spend : spends) {
                 cacheService.removeUtxo(spend.getKey());
-                UtxoBalance balance = (UtxoBalance) cacheService.getBalance(Address.fromHashs(spend.getAddress()).getBase58());
-                balance.getUnSpends().remove(spend);
+                cacheService.removeUnSpend(spend);
+            }
+
+            batch.outputPoList.addAll(outputPoList);
+            batch.inputPoList.addAll(inputPoList);
+            batch.statusPoList.addAll(spendPoList);
+            batch.relationPoList.addAll(txRelations);
+            if (alone) {
+                write(batch);
+            } else {
+                batch.undoList.add(new SaveUndo(utxoData, spends));
             }
         } catch (Exception e) {
             //rollback
             Log.warn(e.getMessage(), e);
-            for (UtxoOutput output : utxoData.getOutputs()) {
-                cacheService.removeUtxo(output.getKey());
-                UtxoBalance balance = (UtxoBalance) cacheService.getBalance(Address.fromHashs(output.getAddress()).getBase58());
-                if (balance != null) {
-                    balance.getUnSpends().remove(output);
-                }
-            }
+            undoSave(utxoData, spends);
+            throw e;
+        }
+    }
 
-            for (UtxoOutput spend : spends) {
-                cacheService.putUtxo(spend.getKey(), spend);
+    private void undoSave(UtxoData utxoData, List<UtxoOutput> spends) {
+        for (UtxoOutput output : utxoData.getOutputs()) {
+            cacheService.removeUtxo(output.getKey());
+            cacheService.removeUnSpend(output);
+        }
+
+        for (UtxoOutput spend : spends) {
+            cacheService.putUtxo(spend.getKey(), spend);
 //                cacheService.updateUtxoStatus(spend.getKey(), UtxoOutput.SPENT, UtxoOutput.LOCKED);
-                spend.setStatus(UtxoOutput.LOCKED);
-                UtxoBalance balance = (UtxoBalance) cacheService.getBalance(Address.fromHashs(spend.getAddress()).getBase58());
-                if (balance != null && !balance.getUnSpends().contains(spend)) {
-                    balance.getUnSpends().add(spend);
-                }
-            }
-            throw e;
-        } finally {
-            for (UtxoOutput spend : spends) {
-                UtxoTransactionTool.getInstance().calcBalance(Address.fromHashs(spend.getAddress()));
-            }
-            for (UtxoOutput output : utxoData.getOutputs()) {
-                UtxoTransactionTool.getInstance().calcBalance(Address.fromHashs(output.getAddress()));
-            }
+            spend.setStatus(UtxoOutput.LOCKED);
+            cacheService.addUnSpend(spend);
         }
     }
 
@@ -214,15 +285,7 @@ public class UtxoCoinDataProvider implements CoinDataProvider {
             UtxoOutput output = utxoData.getOutputs().get(i);
 
             cacheService.putUtxo(output.getKey(), output);
-            String address = Address.fromHashs(output.getAddress()).getBase58();
-            UtxoBalance balance = (UtxoBalance) cacheService.getBalance(address);
-            if (balance == null) {
-                balance = new UtxoBalance(Na.valueOf(output.getValue()), Na.ZERO);
-                balance.addUnSpend(output);
-                cacheService.putBalance(address, balance);
-            } else {
-                balance.addUnSpend(output);
-            }
+            cacheService.addUnSpend(output);
         }
     }
 
@@ -233,31 +296,38 @@ public class UtxoCoinDataProvider implements CoinDataProvider {
         if (utxoData == null) {
             return;
         }
+        UtxoBatch batch = batchHolder.get();
         if (TxStatusEnum.AGREED.equals(tx.getStatus())) {
+            List<String> unlockedList = new ArrayList<>();
             for (UtxoInput input : utxoData.getInputs()) {
-                cacheService.updateUtxoStatus(input.getKey(), UtxoOutput.USEABLE, UtxoOutput.LOCKED);
+                if (cacheService.updateUtxoStatus(input.getKey(), UtxoOutput.USEABLE, UtxoOutput.LOCKED)) {
+                    unlockedList.add(input.getKey());
+                }
+            }
+            if (null != batch) {
+                batch.undoList.add(new UnlockUndo(unlockedList));
             }
         } else if (tx.getStatus().equals(TxStatusEnum.CONFIRMED)) {
-            Map<String, Object> keyMap = new HashMap<>();
+            boolean alone = null == batch;
+            if (alone) {
+                batch = new UtxoBatch();
+                loadSpends(batch, Collections.singletonList(tx));
+            }
+            RollbackUndo undo = new RollbackUndo();
+            batch.undoList.add(undo);
             Set<String> addressSet = new HashSet<>();
             //process output
             for (UtxoOutput output : utxoData.getOutputs()) {
-                keyMap.clear();
-                keyMap.put("txHash", output.getTxHash().getDigestHex());
-                keyMap.put("outIndex", output.getIndex());
-
-                outputDataService.delete(keyMap);
+                batch.deleteOutputPoList.add(UtxoTransferTool.toOutputPojo(output));
+                UtxoOutput cached = cacheService.getUtxo(output.getKey());
                 cacheService.removeUtxo(output.getKey());
 
-                // if utxo not spent,should calc balance and clear cache
-                Address address = Address.fromHashs(output.getAddress());
-                UtxoBalance balance = (UtxoBalance) cacheService.getBalance(address.getBase58());
-                if (balance != null) {
-                    balance.removeUnSpend(output.getKey());
+                // if utxo not spent,should take it out of the balance
+                cacheService.removeUnSpend(output);
+                if (null != cached) {
+                    undo.removedList.add(cached);
                 }
-
-                UtxoTransactionTool.getInstance().calcBalance(address.getBase58());
-                addressSet.add(address.getBase58());
+                addressSet.add(Address.fromHashs(output.getAddress()).getBase58());
             }
 
             //process input
@@ -265,32 +335,79 @@ public class UtxoCoinDataProvider implements CoinDataProvider {
             //2. change input referenced output status (database)
             //3. cache and calc balance
             for (UtxoInput input : utxoData.getInputs()) {
-                keyMap.clear();
-                keyMap.put("txHash", input.getTxHash().getDigestHex());
-                keyMap.put("inIndex", input.getIndex());
-                inputDataService.delete(keyMap);
-
-                keyMap.put("txHash", input.getFromHash().getDigestHex());
-                keyMap.put("outIndex", input.getFromIndex());
-                UtxoOutputPo outputPo = outputDataService.get(keyMap);
+                batch.deleteInputPoList.add(UtxoTransferTool.toInputPojo(input));
+
+                UtxoOutputPo outputPo = batch.spendMap.get(input.getUtxoKey());
+                if (null == outputPo) {
+                    throw new NulsRuntimeException(ErrorCode.DB_DATA_ERROR, "the spent output is missing:" + input.getKey());
+                }
                 outputPo.setStatus((byte) UtxoOutput.USEABLE);
-                outputDataService.updateStatus(outputPo);
+                batch.statusPoList.add(outputPo);
                 addressSet.add(outputPo.getAddress());
 
                 UtxoOutput output = UtxoTransferTool.toOutput(outputPo);
                 cacheService.putUtxo(output.getKey(), output);
+                cacheService.addUnSpend(output);
+                undo.restoredList.add(output);
+            }
 
-                UtxoBalance balance = (UtxoBalance) cacheService.getBalance(outputPo.getAddress());
-                if (balance == null) {
-                    balance = new UtxoBalance(Na.valueOf(output.getValue()), Na.ZERO);
-                }
-                balance.addUnSpend(output);
-                UtxoTransactionTool.getInstance().calcBalance(outputPo.getAddress());
+            for (String address : addressSet) {
+                batch.deleteRelationPoList.add(new TxAccountRelationPo(tx.getHash().getDigestHex(), address));
             }
+            if (alone) {
+                write(batch);
+            }
+        }
 
-            relationDataService.deleteRelation(tx.getHash().getDigestHex(), addressSet);
+    }
+
+    /**
+     * read the outputs spent by the confirmed transactions with one query, their rollback needs them
+     */
+    private void loadSpends(UtxoBatch batch, List<Transaction> txList) {
+        List<UtxoOutputPo> keyList = new ArrayList<>();
+        for (Transaction tx : txList) {
+            if (!(tx instanceof AbstractCoinTransaction) || !TxStatusEnum.CONFIRMED.equals(tx.getStatus())) {
+                continue;
+            }
+            UtxoData utxoData = (UtxoData) ((AbstractCoinTransaction) tx).getCoinData();
+            if (null == utxoData) {
+                continue;
+            }
+            for (UtxoInput input : utxoData.getInputs()) {
+                UtxoOutputPo key = new UtxoOutputPo();
+                key.setTxHash(input.getFromHash().getDigestHex());
+                key.setOutIndex(input.getFromIndex());
+                keyList.add(key);
+            }
         }
+        if (keyList.isEmpty()) {
+            return;
+        }
+        for (UtxoOutputPo po : outputDataService.getOutputs(keyList)) {
+            batch.spendMap.put(new UtxoKey(NulsDigestKey.fromDigestHex(po.getTxHash()), po.getOutIndex()), po);
+        }
+    }
 
+    /**
+     * inserts go first and deletes last, so a block may spend its own outputs and be rolled back in one batch
+     */
+    private void write(UtxoBatch batch) {
+        outputDataService.save(batch.outputPoList);
+        inputDataService.save(batch.inputPoList);
+        if (!batch.statusPoList.isEmpty()) {
+            outputDataService.updateStatus(batch.statusPoList);
+        }
+        relationDataService.save(batch.relationPoList);
+        if (!batch.deleteOutputPoList.isEmpty()) {
+            outputDataService.deleteOutputs(batch.deleteOutputPoList);
+        }
+        if (!batch.deleteInputPoList.isEmpty()) {
+            inputDataService.deleteInputs(batch.deleteInputPoList);
+        }
+        if (!batch.deleteRelationPoList.isEmpty()) {
+            relationDataService.deleteRelations(batch.deleteRelationPoList);
+        }
     }
 
     @Override
@@ -381,4 +498,76 @@ public class UtxoCoinDataProvider implements CoinDataProvider {
         return utxoData;
     }
 
+    /**
+     * the rows of the transactions saved or rolled back since startBatch
+     */
+    private static class UtxoBatch {
+        private int depth;
+        private final List<UtxoOutputPo> outputPoList = new ArrayList<>();
+        private final List<UtxoInputPo> inputPoList = new ArrayList<>();
+        private final List<UtxoOutputPo> statusPoList = new ArrayList<>();
+        private final List<TxAccountRelationPo> relationPoList = new ArrayList<>();
+        private final List<UtxoOutputPo> deleteOutputPoList = new ArrayList<>();
+        private final List<UtxoInputPo> deleteInputPoList = new ArrayList<>();
+        private final List<TxAccountRelationPo> deleteRelationPoList = new ArrayList<>();
+        private final Map<UtxoKey, UtxoOutputPo> spendMap = new HashMap<>();
+        /**
+         * how to take back the cache changes of the batch if its rows are never written
+         */
+        private final List<CacheUndo> undoList = new ArrayList<>();
+    }
+
+    private interface CacheUndo {
+        void undo();
+    }
+
+    private class SaveUndo implements CacheUndo {
+        private final UtxoData utxoData;
+        private final List<UtxoOutput> spends;
+
+        private SaveUndo(UtxoData utxoData, List<UtxoOutput> spends) {
+            this.utxoData = utxoData;
+            this.spends = spends;
+        }
+
+        @Override
+        public void undo() {
+            undoSave(utxoData, spends);
+        }
+    }
+
+    /**
+     * the outputs of a rolled back tx go back into the cache, the outputs it spent leave it again
+     */
+    private class RollbackUndo implements CacheUndo {
+        private final List<UtxoOutput> removedList = new ArrayList<>();
+        private final List<UtxoOutput> restoredList = new ArrayList<>();
+
+        @Override
+        public void undo() {
+            for (UtxoOutput output : restoredList) {
+                cacheService.removeUtxo(output.getKey());
+                cacheService.removeUnSpend(output);
+            }
+            for (UtxoOutput output : removedList) {
+                cacheService.putUtxo(output.getKey(), output);
+                cacheService.addUnSpend(output);
+            }
+        }
+    }
+
+    private class UnlockUndo implements CacheUndo {
+        private final List<String> keyList;
+
+        private UnlockUndo(List<String> keyList) {
+            this.keyList = keyList;
+        }
+
+        @Override
+        public void undo() {
+            for (String key : keyList) {
+                cacheService.updateUtxoStatus(key, UtxoOutput.LOCKED, UtxoOutput.USEABLE);
+            }
+        }
+    }
 }
@@ -25,18 +25,20 @@ package io.nuls.ledger.service.impl;
 
 import io.nuls.account.entity.Address;
 import io.nuls.core.chain.entity.Na;
+import io.nuls.core.utils.date.TimeService;
 import io.nuls.core.utils.log.Log;
 import io.nuls.db.dao.UtxoOutputDataService;
 import io.nuls.db.entity.UtxoOutputPo;
 import io.nuls.ledger.entity.UtxoBalance;
 import io.nuls.ledger.entity.UtxoOutput;
-import io.nuls.ledger.util.UtxoTransactionTool;
+import io.nuls.ledger.select.CoinSelectStrategy;
+import io.nuls.ledger.select.LargestFirstSelectStrategy;
 import io.nuls.ledger.util.UtxoTransferTool;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -45,10 +47,19 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class UtxoCoinManager {
 
+    private static final int LOCK_STRIPES = 64;
+    /**
+     * how often the selection is repeated when a chosen output was taken by another transaction meanwhile
+     */
+    private static final int MAX_SELECT_TIMES = 3;
+
     private static UtxoCoinManager instance = new UtxoCoinManager();
 
     private UtxoCoinManager() {
         cacheService = LedgerCacheService.getInstance();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
     }
 
     public static UtxoCoinManager getInstance() {
@@ -59,45 +70,16 @@ public class UtxoCoinManager {
 
     private UtxoOutputDataService outputDataService;
 
-    private Lock lock = new ReentrantLock();
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    private volatile CoinSelectStrategy selectStrategy = new LargestFirstSelectStrategy();
 
     public void cacheAllUnSpendOutPut() {
         List<UtxoOutputPo> utxoOutputPos = outputDataService.getAllUnSpend();
-        String address = null;
-        List<UtxoOutput> list = null;
-        Set<String> addressSet = new HashSet<>();
-
-        for (int i = 0; i < utxoOutputPos.size(); i++) {
-            UtxoOutputPo po = utxoOutputPos.get(i);
+        for (UtxoOutputPo po : utxoOutputPos) {
             UtxoOutput output = UtxoTransferTool.toOutput(po);
             cacheService.putUtxo(output.getKey(), output);
-
-            if (i == 0) {
-                address = po.getAddress();
-                list = new ArrayList<>();
-                addressSet.add(address);
-
-            } else if (!address.equals(po.getAddress())) {
-                UtxoBalance balance = new UtxoBalance();
-                balance.setUnSpends(list);
-                cacheService.putBalance(address, balance);
-
-                list = new ArrayList<>();
-                address = po.getAddress();
-                addressSet.add(address);
-            }
-
-            list.add(output);
-
-            if (i == utxoOutputPos.size() - 1) {
-                UtxoBalance balance = new UtxoBalance();
-                balance.setUnSpends(list);
-                cacheService.putBalance(address, balance);
-            }
-        }
-
-        for(String str : addressSet) {
-            UtxoTransactionTool.getInstance().calcBalance(str);
+            cacheService.addUnSpend(output);
         }
     }
 
@@ -109,90 +91,94 @@ public class UtxoCoinManager {
      * @return
      */
     public List<UtxoOutput> getAccountUnSpend(String address, Na value) {
-        lock.lock();
-        List<UtxoOutput> unSpends = new ArrayList<>();
-        try {
-            UtxoBalance balance = (UtxoBalance) cacheService.getBalance(address);
-            if (balance == null || balance.getUsable().isLessThan(value)) {
-                return unSpends;
-            }
+        return getAccountsUnSpend(Collections.singletonList(address), value);
+    }
 
-            //check use-able is enough , find unSpend utxo
-            boolean enough = false;
-            Na amount = Na.ZERO;
-            for (int i = 0; i < balance.getUnSpends().size(); i++) {
-                UtxoOutput output = balance.getUnSpends().get(i);
-                boolean update = cacheService.updateUtxoStatus(output.getKey(), UtxoOutput.LOCKED, UtxoOutput.USEABLE);
-                //other tx locked this utxo
-                if (!update) {
-                    continue;
-                }
-                unSpends.add(output);
-                amount = amount.add(Na.valueOf(output.getValue()));
-                if (amount.isGreaterThan(value)) {
-                    enough = true;
-                    break;
-                }
-            }
-            if (!enough) {
-                for (UtxoOutput output : unSpends) {
-                    cacheService.updateUtxoStatus(output.getKey(), UtxoOutput.USEABLE, UtxoOutput.LOCKED);
-                }
-                unSpends = new ArrayList<>();
-            }
+    /**
+     * Select outputs of the given addresses and reserve them by moving them from usable to locked.
+     * Only the lock stripes of these addresses are held, transfers from other addresses run in parallel.
+     */
+    public List<UtxoOutput> getAccountsUnSpend(List<String> addressList, Na value) {
+        List<Lock> lockList = lockAddresses(addressList);
+        try {
+            return reserve(addressList, value.getValue());
         } catch (Exception e) {
             Log.error(e);
-            for (UtxoOutput output : unSpends) {
-                cacheService.updateUtxoStatus(output.getKey(), UtxoOutput.USEABLE, UtxoOutput.LOCKED);
-            }
+            return new ArrayList<>();
         } finally {
-            lock.unlock();
+            for (int i = lockList.size() - 1; i >= 0; i--) {
+                lockList.get(i).unlock();
+            }
         }
-        return unSpends;
     }
 
-    public List<UtxoOutput> getAccountsUnSpend(List<String> addressList, Na value) {
-        lock.lock();
-        List<UtxoOutput> unSpends = new ArrayList<>();
-        try {
-            //check use-able is enough , find unSpend utxo
-            Na amount = Na.ZERO;
-            boolean enough = false;
-            for (String address : addressList) {
-                UtxoBalance balance = (UtxoBalance) cacheService.getBalance(address);
-                for (int i = 0; i < balance.getUnSpends().size(); i++) {
-                    UtxoOutput output = balance.getUnSpends().get(i);
-                    boolean update = cacheService.updateUtxoStatus(output.getKey(), UtxoOutput.LOCKED, UtxoOutput.USEABLE);
-                    if (!update) {
-                        continue;
-                    }
-                    unSpends.add(output);
-                    amount = amount.add(Na.valueOf(output.getValue()));
-                    if (amount.isGreaterThan(value)) {
-                        enough = true;
-                        break;
-                    }
-                }
-                if (enough) {
-                    break;
+    private List<UtxoOutput> reserve(List<String> addressList, long target) {
+        long currentTime = TimeService.currentTimeMillis();
+        List<UtxoOutput> candidates = new ArrayList<>();
+        for (String address : addressList) {
+            UtxoBalance balance = (UtxoBalance) cacheService.getBalance(address);
+            if (null == balance) {
+                continue;
+            }
+            for (UtxoOutput output : balance.getUnSpends()) {
+                if (output.getStatus() == UtxoOutput.USEABLE && output.getLockTime() <= currentTime) {
+                    candidates.add(output);
                 }
             }
-            if (!enough) {
-                for (UtxoOutput output : unSpends) {
-                    cacheService.updateUtxoStatus(output.getKey(), UtxoOutput.USEABLE, UtxoOutput.LOCKED);
+        }
+        for (int i = 0; i < MAX_SELECT_TIMES; i++) {
+            List<UtxoOutput> selected = selectStrategy.select(candidates, target);
+            if (selected.isEmpty()) {
+                break;
+            }
+            List<UtxoOutput> reserved = new ArrayList<>();
+            UtxoOutput failed = null;
+            try {
+                for (UtxoOutput output : selected) {
+                    //other tx locked this utxo
+                    if (!cacheService.updateUtxoStatus(output.getKey(), UtxoOutput.LOCKED, UtxoOutput.USEABLE)) {
+                        failed = output;
+                        break;
+                    }
+                    reserved.add(output);
                 }
-                unSpends = new ArrayList<>();
+            } catch (RuntimeException e) {
+                release(reserved);
+                throw e;
             }
-        } catch (Exception e) {
-            Log.error(e);
-            for (UtxoOutput output : unSpends) {
-                cacheService.updateUtxoStatus(output.getKey(), UtxoOutput.USEABLE, UtxoOutput.LOCKED);
+            if (null == failed) {
+                return reserved;
             }
-            unSpends = new ArrayList<>();
-        } finally {
-            lock.unlock();
+            release(reserved);
+            candidates.remove(failed);
+        }
+        return new ArrayList<>();
+    }
+
+    private void release(List<UtxoOutput> reserved) {
+        for (UtxoOutput output : reserved) {
+            cacheService.updateUtxoStatus(output.getKey(), UtxoOutput.USEABLE, UtxoOutput.LOCKED);
+        }
+    }
+
+    /**
+     * lock the stripes of the addresses in ascending order, so two callers can never wait for each other
+     */
+    private List<Lock> lockAddresses(List<String> addressList) {
+        TreeSet<Integer> stripeSet = new TreeSet<>();
+        for (String address : addressList) {
+            stripeSet.add((address.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES);
         }
-        return unSpends;
+        List<Lock> lockList = new ArrayList<>(stripeSet.size());
+        for (int stripe : stripeSet) {
+            locks[stripe].lock();
+            lockList.add(locks[stripe]);
+        }
+        return lockList;
+    }
+
+    public void setSelectStrategy(CoinSelectStrategy selectStrategy) {
+        this.selectStrategy = selectStrategy;
     }
 
     public void setOutputDataService(UtxoOutputDataService outputDataService) {
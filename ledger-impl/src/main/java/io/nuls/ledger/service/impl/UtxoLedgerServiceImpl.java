@@ -34,7 +34,9 @@ import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.constant.TxStatusEnum;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.exception.NulsException;
+import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.tx.serivce.TransactionService;
+import io.nuls.core.utils.date.TimeService;
 import io.nuls.core.utils.log.Log;
 import io.nuls.core.utils.param.AssertUtil;
 import io.nuls.core.utils.spring.lite.annotation.Autowired;
@@ -44,14 +46,16 @@ import io.nuls.db.transactional.annotation.DbSession;
 import io.nuls.event.bus.service.intf.EventBroadcaster;
 import io.nuls.ledger.entity.Balance;
 import io.nuls.ledger.entity.UtxoBalance;
-import io.nuls.ledger.entity.UtxoOutput;
+import io.nuls.ledger.entity.listener.CoinDataTxService;
 import io.nuls.ledger.entity.params.Coin;
 import io.nuls.ledger.entity.params.CoinTransferData;
 import io.nuls.ledger.entity.tx.AbstractCoinTransaction;
 import io.nuls.ledger.entity.tx.LockNulsTransaction;
 import io.nuls.ledger.entity.tx.TransferTransaction;
 import io.nuls.ledger.event.TransactionEvent;
+import io.nuls.ledger.service.intf.CoinDataProvider;
 import io.nuls.ledger.service.intf.LedgerService;
+import io.nuls.ledger.util.UtxoLockTimeWheel;
 import io.nuls.ledger.util.UtxoTransactionTool;
 import io.nuls.ledger.util.UtxoTransferTool;
 
@@ -73,6 +77,8 @@ public class UtxoLedgerServiceImpl implements LedgerService {
     private UtxoTransactionDataService txDao;
     @Autowired
     private EventBroadcaster eventBroadcaster;
+    @Autowired
+    private CoinDataProvider coinDataProvider;
 
     private static final String RECEIVE_TX_CACHE = "Received-tx-cache";
 
@@ -193,6 +199,7 @@ public class UtxoLedgerServiceImpl implements LedgerService {
 
     @Override
     public Balance getBalance(String address) {
+        UtxoLockTimeWheel.getInstance().advance(TimeService.currentTimeMillis());
         Balance balance = ledgerCacheService.getBalance(address);
         if (null == balance) {
             balance = calcBalance(address);
@@ -201,22 +208,14 @@ public class UtxoLedgerServiceImpl implements LedgerService {
     }
 
     private Balance calcBalance(String address) {
-
-        UtxoBalance balance = new UtxoBalance();
         List<UtxoOutputPo> unSpendList = txDao.getAccountUnSpend(address);
         if (unSpendList == null || unSpendList.isEmpty()) {
-            return balance;
+            return new UtxoBalance();
         }
-        List<UtxoOutput> unSpends = new ArrayList<>();
-
         for (UtxoOutputPo po : unSpendList) {
-            UtxoOutput output = UtxoTransferTool.toOutput(po);
-            unSpends.add(output);
+            ledgerCacheService.addUnSpend(UtxoTransferTool.toOutput(po));
         }
-        ledgerCacheService.putBalance(address, balance);
-        UtxoTransactionTool.getInstance().calcBalance(address);
-
-        return balance;
+        return ledgerCacheService.getBalance(address);
     }
 
     @Override
@@ -360,6 +359,88 @@ public class UtxoLedgerServiceImpl implements LedgerService {
         tx.setStatus(TxStatusEnum.CONFIRMED);
     }
 
+    @Override
+    @DbSession
+    public void commitTxList(List<Transaction> txList) throws NulsException {
+        coinDataProvider.startBatch(txList);
+        List<TxStatusEnum> statusList = new ArrayList<>();
+        int index = 0;
+        int serviceCount = 0;
+        try {
+            for (; index < txList.size(); index++) {
+                Transaction tx = txList.get(index);
+                statusList.add(tx.getStatus());
+                if (tx.getStatus() == TxStatusEnum.AGREED) {
+                    continue;
+                }
+                List<TransactionService> serviceList = getServiceList(tx.getClass());
+                for (serviceCount = 0; serviceCount < serviceList.size(); serviceCount++) {
+                    serviceList.get(serviceCount).onCommit(tx);
+                }
+                tx.setStatus(TxStatusEnum.CONFIRMED);
+            }
+            coinDataProvider.endBatch();
+        } catch (NulsException | RuntimeException e) {
+            Log.error(e);
+            coinDataProvider.cancelBatch();
+            undoCommit(txList, statusList, index, serviceCount, e);
+            throw e;
+        }
+    }
+
+    /**
+     * take back what the other services committed, newest first, including the services of the failed tx;
+     * the utxo cache is already restored by cancelBatch and the rows go with the database transaction
+     */
+    private void undoCommit(List<Transaction> txList, List<TxStatusEnum> statusList, int index, int serviceCount, Exception e) {
+        for (int i = statusList.size() - 1; i >= 0; i--) {
+            Transaction tx = txList.get(i);
+            TxStatusEnum status = statusList.get(i);
+            if (status == TxStatusEnum.AGREED) {
+                continue;
+            }
+            List<TransactionService> serviceList = getServiceList(tx.getClass());
+            int count = i == index ? serviceCount : serviceList.size();
+            for (int j = count - 1; j >= 0; j--) {
+                TransactionService service = serviceList.get(j);
+                if (service instanceof CoinDataTxService) {
+                    continue;
+                }
+                try {
+                    service.onRollback(tx);
+                } catch (NulsException | RuntimeException ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            tx.setStatus(status);
+        }
+    }
+
+    @Override
+    @DbSession
+    public void rollbackTxList(List<Transaction> txList) {
+        coinDataProvider.startBatch(txList);
+        List<TxStatusEnum> statusList = new ArrayList<>();
+        try {
+            for (int i = txList.size() - 1; i >= 0; i--) {
+                Transaction tx = txList.get(i);
+                statusList.add(tx.getStatus());
+                rollbackTx(tx);
+            }
+            coinDataProvider.endBatch();
+        } catch (NulsException | RuntimeException e) {
+            Log.error(e);
+            coinDataProvider.cancelBatch();
+            for (int i = 0; i < statusList.size(); i++) {
+                txList.get(txList.size() - 1 - i).setStatus(statusList.get(i));
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new NulsRuntimeException(e);
+        }
+    }
+
     @Override
     public void approvalTx(Transaction tx) throws NulsException {
         AssertUtil.canNotEmpty(tx, ErrorCode.NULL_PARAMETER);
@@ -373,6 +454,16 @@ public class UtxoLedgerServiceImpl implements LedgerService {
         tx.setStatus(TxStatusEnum.AGREED);
     }
 
+    @Override
+    public List<Transaction> approvalTxList(List<Transaction> txList) {
+        return UtxoTxExecutor.getInstance().execute(txList, new UtxoTxExecutor.TxAction() {
+            @Override
+            public void apply(Transaction tx) throws NulsException {
+                approvalTx(tx);
+            }
+        });
+    }
+
     @Override
     public void deleteTx(Transaction tx) {
         // todo auto-generated method stub(niels)
@@ -386,15 +477,6 @@ public class UtxoLedgerServiceImpl implements LedgerService {
     }
 
     public List<TransactionService> getServiceList(Class<? extends Transaction> txClass) {
-        List<TransactionService> list = new ArrayList<>();
-        Class clazz = txClass;
-        while (!clazz.equals(Transaction.class)) {
-            TransactionService txService = TransactionManager.getService(clazz);
-            if (null != txService) {
-                list.add(0, txService);
-            }
-            clazz = clazz.getSuperclass();
-        }
-        return list;
+        return TransactionManager.getServiceList(txClass);
     }
 }
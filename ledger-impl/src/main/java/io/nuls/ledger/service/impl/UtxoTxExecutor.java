@@ -0,0 +1,204 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.service.impl;
+
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.chain.manager.TransactionManager;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.tx.serivce.TransactionService;
+import io.nuls.core.utils.log.Log;
+import io.nuls.ledger.entity.UtxoData;
+import io.nuls.ledger.entity.UtxoInput;
+import io.nuls.ledger.entity.UtxoKey;
+import io.nuls.ledger.entity.listener.CoinDataTxService;
+import io.nuls.ledger.entity.tx.AbstractCoinTransaction;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Applies the transactions of a block on several cores.
+ * The utxos a tx touches (the outputs its inputs spend and its own outputs) are read from its {@link UtxoData};
+ * the txs are cut, in block order, into groups in which no two txs touch the same utxo.
+ * The txs of a group run in parallel and the groups run one after another, so a tx that spends an output
+ * of the same block, or an input another tx spends too, still sees the txs before it in block order.
+ * A tx without utxo data, or handled by other services than the coin data one (consensus, alias),
+ * changes state the keys do not describe and always forms a group of its own.
+ */
+public class UtxoTxExecutor {
+
+    /**
+     * below this many txs a group or a task runs its txs directly instead of splitting them
+     */
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private static final UtxoTxExecutor INSTANCE = new UtxoTxExecutor(Runtime.getRuntime().availableProcessors());
+
+    private final ForkJoinPool pool;
+
+    public UtxoTxExecutor(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    public static UtxoTxExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * what is done to every tx, it must only touch the utxos of the tx when it runs in parallel
+     */
+    public interface TxAction {
+        void apply(Transaction tx) throws NulsException;
+    }
+
+    /**
+     * run the action on every tx, an exception only fails its own tx
+     *
+     * @return the txs the action failed on, in block order
+     */
+    public List<Transaction> execute(List<Transaction> txList, TxAction action) {
+        List<Transaction> failedList = new ArrayList<>();
+        for (List<Transaction> group : partition(txList)) {
+            boolean[] failed = new boolean[group.size()];
+            if (group.size() < SPLIT_THRESHOLD) {
+                apply(group, failed, 0, group.size(), action);
+            } else {
+                pool.invoke(new ApplyTask(group, failed, 0, group.size(), action));
+            }
+            for (int i = 0; i < failed.length; i++) {
+                if (failed[i]) {
+                    failedList.add(group.get(i));
+                }
+            }
+        }
+        return failedList;
+    }
+
+    /**
+     * cut the txs into groups without a shared utxo, keeping the block order
+     */
+    public List<List<Transaction>> partition(List<Transaction> txList) {
+        List<List<Transaction>> groupList = new ArrayList<>();
+        if (null == txList || txList.isEmpty()) {
+            return groupList;
+        }
+        Set<UtxoKey> groupKeySet = new HashSet<>();
+        int start = 0;
+        for (int i = 0; i < txList.size(); i++) {
+            List<UtxoKey> keyList = getKeyList(txList.get(i));
+            boolean conflict = null == keyList;
+            if (!conflict) {
+                for (UtxoKey key : keyList) {
+                    if (groupKeySet.contains(key)) {
+                        conflict = true;
+                        break;
+                    }
+                }
+            }
+            if (conflict && i > start) {
+                groupList.add(txList.subList(start, i));
+                groupKeySet.clear();
+                start = i;
+            }
+            if (null == keyList) {
+                groupList.add(txList.subList(i, i + 1));
+                start = i + 1;
+                continue;
+            }
+            groupKeySet.addAll(keyList);
+        }
+        if (start < txList.size()) {
+            groupList.add(txList.subList(start, txList.size()));
+        }
+        return groupList;
+    }
+
+    /**
+     * @return the utxos the tx spends and creates, null if it has to run on its own
+     */
+    private static List<UtxoKey> getKeyList(Transaction tx) {
+        if (!(tx instanceof AbstractCoinTransaction) || null == tx.getHash()) {
+            return null;
+        }
+        for (TransactionService service : TransactionManager.getServiceList(tx.getClass())) {
+            if (!(service instanceof CoinDataTxService)) {
+                return null;
+            }
+        }
+        if (!(((AbstractCoinTransaction) tx).getCoinData() instanceof UtxoData)) {
+            return null;
+        }
+        UtxoData utxoData = (UtxoData) ((AbstractCoinTransaction) tx).getCoinData();
+        List<UtxoKey> keyList = new ArrayList<>();
+        if (null != utxoData.getInputs()) {
+            for (UtxoInput input : utxoData.getInputs()) {
+                keyList.add(input.getUtxoKey());
+            }
+        }
+        if (null != utxoData.getOutputs()) {
+            for (int i = 0; i < utxoData.getOutputs().size(); i++) {
+                keyList.add(new UtxoKey(tx.getHash().getKey(), utxoData.getOutputs().get(i).getIndex()));
+            }
+        }
+        return keyList;
+    }
+
+    private static void apply(List<Transaction> txList, boolean[] failed, int from, int to, TxAction action) {
+        for (int i = from; i < to; i++) {
+            try {
+                action.apply(txList.get(i));
+            } catch (NulsException | RuntimeException e) {
+                Log.error(e);
+                failed[i] = true;
+            }
+        }
+    }
+
+    private static class ApplyTask extends RecursiveAction {
+        private final List<Transaction> txList;
+        private final boolean[] failed;
+        private final int from;
+        private final int to;
+        private final TxAction action;
+
+        private ApplyTask(List<Transaction> txList, boolean[] failed, int from, int to, TxAction action) {
+            this.txList = txList;
+            this.failed = failed;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                apply(txList, failed, from, to, action);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ApplyTask(txList, failed, from, middle, action), new ApplyTask(txList, failed, middle, to, action));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.util;
+
+import io.nuls.ledger.entity.Balance;
+import io.nuls.ledger.entity.UtxoBalance;
+import io.nuls.ledger.entity.UtxoKey;
+import io.nuls.ledger.service.impl.LedgerCacheService;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timer wheel of the lock times of cached outputs.
+ * When a lock time has passed, only that output is re-evaluated in the balance of its address.
+ */
+public class UtxoLockTimeWheel {
+
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_SIZE = 512;
+
+    private static final UtxoLockTimeWheel INSTANCE = new UtxoLockTimeWheel();
+
+    private final List<LockEntry>[] buckets;
+    private long currentTick = -1;
+
+    @SuppressWarnings("unchecked")
+    private UtxoLockTimeWheel() {
+        buckets = new List[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+    }
+
+    public static UtxoLockTimeWheel getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void schedule(String address, UtxoKey key, long lockTime) {
+        // round up, so that the tick of an entry is never reached before its lock time
+        long tick = (lockTime + TICK_MILLIS - 1) / TICK_MILLIS;
+        buckets[(int) (tick % WHEEL_SIZE)].add(new LockEntry(address, key, lockTime));
+    }
+
+    /**
+     * unlock every output whose lock time is not later than the given time
+     */
+    public void advance(long currentTime) {
+        List<LockEntry> expiredList = new ArrayList<>();
+        synchronized (this) {
+            long tick = currentTime / TICK_MILLIS;
+            if (currentTick < 0 || tick - currentTick >= WHEEL_SIZE) {
+                currentTick = tick - WHEEL_SIZE;
+            }
+            while (currentTick < tick) {
+                currentTick++;
+                Iterator<LockEntry> it = buckets[(int) (currentTick % WHEEL_SIZE)].iterator();
+                while (it.hasNext()) {
+                    LockEntry entry = it.next();
+                    if (entry.lockTime <= currentTime) {
+                        it.remove();
+                        expiredList.add(entry);
+                    }
+                }
+            }
+        }
+        LedgerCacheService cacheService = LedgerCacheService.getInstance();
+        for (LockEntry entry : expiredList) {
+            Balance balance = cacheService.getBalance(entry.address);
+            if (balance instanceof UtxoBalance) {
+                ((UtxoBalance) balance).refresh(entry.key, currentTime);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (List<LockEntry> bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    private static class LockEntry {
+        private final String address;
+        private final UtxoKey key;
+        private final long lockTime;
+
+        private LockEntry(String address, UtxoKey key, long lockTime) {
+            this.address = address;
+            this.key = key;
+            this.lockTime = lockTime;
+        }
+    }
+}
@@ -25,7 +25,6 @@ package io.nuls.ledger.util;
 
 import io.nuls.account.entity.Address;
 import io.nuls.account.service.intf.AccountService;
-import io.nuls.core.chain.entity.Na;
 import io.nuls.core.chain.entity.NulsDigestData;
 import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.context.NulsContext;
@@ -120,30 +119,16 @@ public class UtxoTransactionTool {
         return false;
     }
 
+    /**
+     * re-evaluate every unspent output of the address,
+     * the cache keeps balances up to date by itself, this is only needed to repair one
+     */
     public void calcBalance(String address) {
         UtxoBalance balance = (UtxoBalance) ledgerCacheService.getBalance(address);
         if (balance == null) {
             return;
         }
-
-        long usable = 0;
-        long lock = 0;
-        long currentTime = TimeService.currentTimeMillis();
-        for (UtxoOutput output : balance.getUnSpends()) {
-            if (output.getStatus() == UtxoOutput.USEABLE) {
-                if (output.getLockTime() > currentTime) {
-                    lock += output.getValue();
-                }else {
-                    usable += output.getValue();
-                }
-
-            } else if (output.getStatus() == UtxoOutput.LOCKED) {
-                lock += output.getValue();
-            }
-        }
-        balance.setLocked(Na.valueOf(lock));
-        balance.setUsable(Na.valueOf(usable));
-        balance.setBalance(balance.getUsable().add(balance.getLocked()));
+        balance.recalc(TimeService.currentTimeMillis());
     }
 
     public void calcBalance(Address address) {
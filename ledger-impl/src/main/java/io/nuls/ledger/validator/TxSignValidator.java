@@ -25,13 +25,19 @@ package io.nuls.ledger.validator;
 
 import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.validate.NulsDataValidator;
+import io.nuls.core.validate.SignatureVerifier;
 import io.nuls.core.validate.ValidateResult;
 
 /**
+ * Checks that the sign is a valid signature of the tx hash.
+ * Whether the signing key owns the spent outputs is checked when the tx is approved,
+ * that is where the outputs are resolved, see {@code UtxoCoinDataProvider#approve}.
+ *
  * @author Niels
  * @date 2017/11/20
  */
 public class TxSignValidator implements NulsDataValidator<Transaction> {
+    private static final String ERROR_MESSAGE = "transaction sign check failed";
     private static final TxSignValidator INSTANCE = new TxSignValidator();
 
     private TxSignValidator() {
@@ -43,7 +49,9 @@ public class TxSignValidator implements NulsDataValidator<Transaction> {
 
     @Override
     public ValidateResult validate(Transaction data) {
-        //todo verify sign
-        return ValidateResult.getSuccessResult();
+        if (SignatureVerifier.getInstance().verify(data)) {
+            return ValidateResult.getSuccessResult();
+        }
+        return ValidateResult.getFailedResult(ERROR_MESSAGE);
     }
 }
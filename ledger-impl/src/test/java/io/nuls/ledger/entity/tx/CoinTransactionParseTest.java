@@ -0,0 +1,204 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.entity.tx;
+
+import io.nuls.core.chain.entity.Na;
+import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsSignData;
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.ledger.entity.CoinData;
+import io.nuls.ledger.entity.UtxoData;
+import io.nuls.ledger.entity.UtxoInput;
+import io.nuls.ledger.entity.UtxoOutput;
+import io.nuls.ledger.entity.params.CoinTransferData;
+import io.nuls.ledger.service.intf.CoinDataProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Every coin tx type serialized and parsed again, the coin data is read after the sign.
+ */
+public class CoinTransactionParseTest {
+
+    @BeforeClass
+    public static void init() {
+        AbstractCoinTransaction.coinDataProvider = new ParseOnlyProvider();
+    }
+
+    @Test
+    public void testTransfer() throws Exception {
+        assertCoinTxRoundTrip(new TransferTransaction(), new TransferTransaction());
+    }
+
+    @Test
+    public void testLock() throws Exception {
+        assertCoinTxRoundTrip(new LockNulsTransaction(), new LockNulsTransaction());
+    }
+
+    @Test
+    public void testUnlock() throws Exception {
+        assertCoinTxRoundTrip(new UnlockNulsTransaction(), new UnlockNulsTransaction());
+    }
+
+    @Test
+    public void testSmallChange() throws Exception {
+        assertCoinTxRoundTrip(new SmallChangeTransaction(), new SmallChangeTransaction());
+    }
+
+    @Test
+    public void testCoinBase() throws Exception {
+        assertCoinTxRoundTrip(new CoinBaseTransaction(), new CoinBaseTransaction());
+    }
+
+    @Test
+    public void testNullCoinDataAndSign() throws Exception {
+        TransferTransaction tx = new TransferTransaction();
+        tx.setFee(Na.ZERO);
+        TransferTransaction parsed = assertRoundTrip(tx, new TransferTransaction());
+        assertNull(parsed.getCoinData());
+        assertNull(parsed.getSign());
+    }
+
+    private void assertCoinTxRoundTrip(AbstractCoinTransaction tx, AbstractCoinTransaction parsed) throws Exception {
+        tx.setFee(Na.valueOf(100000));
+        tx.setRemark(new byte[]{1, 2, 3});
+        tx.setCoinData(createUtxoData());
+        tx.setSign(sign());
+        assertRoundTrip(tx, parsed);
+        UtxoData utxoData = (UtxoData) parsed.getCoinData();
+        assertEquals(1, utxoData.getInputs().size());
+        assertEquals(2, utxoData.getOutputs().size());
+        assertEquals(600, utxoData.getOutputs().get(1).getValue());
+
+        parsed.setSign(null);
+        assertRoundTrip(parsed, tx.getClass().newInstance());
+    }
+
+    /**
+     * serialize and parse again, the parsed hash must be the hash of the unsigned tx
+     */
+    static <T extends Transaction> T assertRoundTrip(Transaction tx, T parsed) throws Exception {
+        byte[] bytes = tx.serialize();
+        parsed.parse(bytes);
+        assertEquals(unsignedHash(tx), parsed.getHash());
+        assertEquals(unsignedHash(parsed), parsed.getHash());
+        assertArrayEquals(bytes, parsed.serialize());
+        assertEquals(bytes.length, parsed.size());
+        return parsed;
+    }
+
+    static NulsDigestData unsignedHash(Transaction tx) throws IOException {
+        NulsSignData sign = tx.getSign();
+        tx.setSign(null);
+        try {
+            return NulsDigestData.calcDigestData(tx.serialize());
+        } finally {
+            tx.setSign(sign);
+        }
+    }
+
+    private static UtxoData createUtxoData() {
+        UtxoData data = new UtxoData();
+        UtxoInput input = new UtxoInput();
+        input.setTxHash(NulsDigestData.calcDigestData(new byte[]{1}));
+        input.setFromHash(NulsDigestData.calcDigestData(new byte[]{2}));
+        input.setFromIndex(1);
+        input.setSign(sign());
+        data.getInputs().add(input);
+        for (int i = 0; i < 2; i++) {
+            UtxoOutput output = new UtxoOutput();
+            output.setTxHash(NulsDigestData.calcDigestData(new byte[]{1}));
+            output.setIndex(i);
+            output.setValue(500 + i * 100);
+            output.setAddress(new byte[23]);
+            output.setScriptBytes(new byte[]{1, 2});
+            data.getOutputs().add(output);
+        }
+        return data;
+    }
+
+    private static NulsSignData sign() {
+        NulsSignData sign = new NulsSignData();
+        sign.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+        sign.setSignBytes(new byte[]{7, 7, 7});
+        return sign;
+    }
+
+    private static class ParseOnlyProvider implements CoinDataProvider {
+
+        @Override
+        public CoinData parse(NulsByteBuffer byteBuffer) throws NulsException {
+            return byteBuffer.readNulsData(new UtxoData());
+        }
+
+        @Override
+        public CoinTransferData getTransferData(CoinData coinData) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void approve(CoinData coinData, Transaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void save(CoinData coinData, Transaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void rollback(CoinData coinData, Transaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void startBatch(List<Transaction> txList) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void endBatch() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancelBatch() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CoinData createByTransferData(Transaction tx, CoinTransferData coinParam, String password) throws NulsException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
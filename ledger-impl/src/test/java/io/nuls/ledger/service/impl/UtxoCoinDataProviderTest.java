@@ -0,0 +1,77 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.service.impl;
+
+import io.nuls.account.entity.Address;
+import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.NulsSignData;
+import io.nuls.core.context.NulsContext;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.script.Script;
+import io.nuls.core.utils.crypto.Utils;
+import io.nuls.ledger.entity.UtxoOutput;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UtxoCoinDataProviderTest {
+
+    private final NulsDigestData txHash = NulsDigestData.calcDigestData(new byte[]{1, 2, 3});
+
+    @Test
+    public void testOwnerMaySpend() {
+        ECKey owner = new ECKey();
+        assertTrue(UtxoCoinDataProvider.isOwner(UtxoCoinDataProvider.getSignerAddress(sign(owner)), outputOf(owner)));
+    }
+
+    @Test
+    public void testForeignSignRejected() {
+        ECKey owner = new ECKey();
+        assertFalse(UtxoCoinDataProvider.isOwner(UtxoCoinDataProvider.getSignerAddress(sign(new ECKey())), outputOf(owner)));
+    }
+
+    @Test
+    public void testPlaceholderSignRejected() {
+        String signer = UtxoCoinDataProvider.getSignerAddress(NulsSignData.EMPTY_SIGN);
+        assertNull(signer);
+        assertFalse(UtxoCoinDataProvider.isOwner(signer, outputOf(new ECKey())));
+    }
+
+    private NulsSignData sign(ECKey key) {
+        NulsSignData sign = new NulsSignData();
+        sign.setSignAlgType(NulsSignData.SIGN_ALG_ECC);
+        sign.setSignBytes(Script.createInputScript(key.sign(txHash.getWholeBytes()).encodeToDER(), key.getPubKey()));
+        return sign;
+    }
+
+    private UtxoOutput outputOf(ECKey key) {
+        Address address = new Address(NulsContext.getInstance().getChainId(NulsContext.CHAIN_ID), Utils.sha256hash160(key.getPubKey(false)));
+        UtxoOutput output = new UtxoOutput();
+        output.setAddress(address.getHash());
+        output.setValue(100);
+        return output;
+    }
+}
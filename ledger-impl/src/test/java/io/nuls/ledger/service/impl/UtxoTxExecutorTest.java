@@ -0,0 +1,185 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.ledger.service.impl;
+
+import io.nuls.core.chain.entity.NulsDigestData;
+import io.nuls.core.chain.entity.Transaction;
+import io.nuls.ledger.entity.UtxoData;
+import io.nuls.ledger.entity.UtxoInput;
+import io.nuls.ledger.entity.UtxoKey;
+import io.nuls.ledger.entity.UtxoOutput;
+import io.nuls.ledger.entity.tx.TransferTransaction;
+import io.nuls.ledger.service.intf.CoinDataProvider;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * The groups never share a utxo, and running them in parallel leaves the same utxo set as running the block in order.
+ */
+public class UtxoTxExecutorTest {
+
+    private final Random random = new Random(1);
+    private final Map<UtxoKey, UtxoOutput> utxoMap = new ConcurrentHashMap<>();
+
+    @Test
+    public void testPartition() {
+        Transaction a = createTx(fund(), fund());
+        Transaction b = createTx(fund());
+        Transaction spendA = createTx(output(a, 0));
+        Transaction noCoinData = new TestTransaction();
+        noCoinData.setHash(randomHash());
+        UtxoOutput funding = fund();
+        Transaction c = createTx(funding);
+        Transaction doubleSpend = createTx(funding);
+
+        List<List<Transaction>> groupList = new UtxoTxExecutor(4).partition(Arrays.asList(a, b, spendA, noCoinData, c, doubleSpend));
+        assertEquals(5, groupList.size());
+        assertEquals(Arrays.asList(a, b), groupList.get(0));
+        assertEquals(Arrays.asList(spendA), groupList.get(1));
+        assertEquals(Arrays.asList(noCoinData), groupList.get(2));
+        assertEquals(Arrays.asList(c), groupList.get(3));
+        assertEquals(Arrays.asList(doubleSpend), groupList.get(4));
+    }
+
+    @Test
+    public void testSameResultAsInOrder() {
+        List<Transaction> txList = new ArrayList<>();
+        List<UtxoOutput> chainableList = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Transaction tx;
+            // one tx in twenty spends an output of an earlier tx of the block
+            if (i % 20 == 19) {
+                tx = createTx(chainableList.remove(random.nextInt(chainableList.size())));
+            } else {
+                tx = createTx(fund(), fund());
+            }
+            chainableList.add(output(tx, 0));
+            txList.add(tx);
+        }
+        Map<UtxoKey, UtxoOutput> before = new ConcurrentHashMap<>(utxoMap);
+
+        for (Transaction tx : txList) {
+            apply(tx);
+        }
+        Map<UtxoKey, UtxoOutput> inOrder = new ConcurrentHashMap<>(utxoMap);
+
+        utxoMap.clear();
+        for (UtxoOutput output : before.values()) {
+            output.setStatus(UtxoOutput.USEABLE);
+            utxoMap.put(output.getUtxoKey(), output);
+        }
+        for (Transaction tx : txList) {
+            output(tx, 0).setStatus(UtxoOutput.USEABLE);
+        }
+        assertTrue(new UtxoTxExecutor(4).execute(txList, this::apply).isEmpty());
+        assertEquals(inOrder.keySet(), utxoMap.keySet());
+        assertEquals(txList.size() * 2 - 50, utxoMap.size());
+    }
+
+    /**
+     * spend the inputs and add the outputs
+     */
+    private void apply(Transaction tx) {
+        UtxoData utxoData = (UtxoData) ((TestTransaction) tx).getCoinData();
+        for (UtxoInput input : utxoData.getInputs()) {
+            UtxoOutput spend = utxoMap.get(input.getUtxoKey());
+            if (null == spend || !spend.compareAndSetStatus(UtxoOutput.USEABLE, UtxoOutput.SPENT)) {
+                throw new IllegalStateException("utxo " + input.getUtxoKey() + " is not spendable");
+            }
+            utxoMap.remove(input.getUtxoKey());
+        }
+        for (UtxoOutput output : utxoData.getOutputs()) {
+            utxoMap.put(output.getUtxoKey(), output);
+        }
+    }
+
+    private Transaction createTx(UtxoOutput... fromList) {
+        TestTransaction tx = new TestTransaction();
+        tx.setHash(randomHash());
+        List<UtxoInput> inputs = new ArrayList<>();
+        for (UtxoOutput from : fromList) {
+            UtxoInput input = new UtxoInput(tx.getHash());
+            input.setFromHash(from.getTxHash());
+            input.setFromIndex(from.getIndex());
+            inputs.add(input);
+        }
+        List<UtxoOutput> outputs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            outputs.add(createOutput(tx.getHash(), i));
+        }
+        UtxoData utxoData = new UtxoData();
+        utxoData.setInputs(inputs);
+        utxoData.setOutputs(outputs);
+        tx.setCoinData(utxoData);
+        return tx;
+    }
+
+    /**
+     * an output of an earlier block
+     */
+    private UtxoOutput fund() {
+        UtxoOutput output = createOutput(randomHash(), 0);
+        utxoMap.put(output.getUtxoKey(), output);
+        return output;
+    }
+
+    private static UtxoOutput output(Transaction tx, int index) {
+        return ((UtxoData) ((TestTransaction) tx).getCoinData()).getOutputs().get(index);
+    }
+
+    private static UtxoOutput createOutput(NulsDigestData txHash, int index) {
+        UtxoOutput output = new UtxoOutput(txHash);
+        output.setIndex(index);
+        output.setValue(100000000L);
+        output.setStatus(UtxoOutput.USEABLE);
+        return output;
+    }
+
+    private NulsDigestData randomHash() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return NulsDigestData.calcDigestData(bytes);
+    }
+
+    /**
+     * a transfer that does not look up the coin data provider of a running node
+     */
+    public static class TestTransaction extends TransferTransaction {
+        static {
+            if (null == coinDataProvider) {
+                coinDataProvider = (CoinDataProvider) Proxy.newProxyInstance(CoinDataProvider.class.getClassLoader(),
+                        new Class[]{CoinDataProvider.class}, (proxy, method, args) -> null);
+            }
+        }
+    }
+}
@@ -24,6 +24,9 @@
 package io.nuls.ledger.entity;
 
 import io.nuls.core.chain.entity.BaseNulsData;
+import io.nuls.core.chain.entity.NulsDigestData;
+
+import java.util.Set;
 
 /**
  * @author Niels
@@ -31,4 +34,8 @@ import io.nuls.core.chain.entity.BaseNulsData;
  */
 public abstract class CoinData extends BaseNulsData {
 
+    /**
+     * @return the hashes of the txs whose outputs are spent
+     */
+    public abstract Set<NulsDigestData> getFromHashSet();
 }
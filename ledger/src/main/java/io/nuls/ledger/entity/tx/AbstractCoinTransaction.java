@@ -24,15 +24,13 @@
 package io.nuls.ledger.entity.tx;
 
 import io.nuls.core.chain.entity.BaseNulsData;
-import io.nuls.core.chain.entity.NulsDigestData;
-import io.nuls.core.chain.entity.NulsSignData;
 import io.nuls.core.chain.entity.Transaction;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.utils.crypto.Utils;
 import io.nuls.core.utils.io.NulsByteBuffer;
 import io.nuls.core.utils.io.NulsOutputStreamBuffer;
-import io.nuls.core.utils.log.Log;
+import io.nuls.core.validate.ValidatorManager;
 import io.nuls.ledger.entity.CoinData;
 import io.nuls.ledger.entity.params.CoinTransferData;
 import io.nuls.ledger.entity.validator.CoinDataValidator;
@@ -46,6 +44,10 @@ import java.io.IOException;
  */
 public abstract class AbstractCoinTransaction<T extends BaseNulsData> extends Transaction<T> {
 
+    static {
+        ValidatorManager.addValidator(AbstractCoinTransaction.class, CoinDataValidator.getInstance());
+    }
+
     protected static CoinDataProvider coinDataProvider;
 
     protected CoinData coinData;
@@ -55,7 +57,6 @@ public abstract class AbstractCoinTransaction<T extends BaseNulsData> extends Tr
     public AbstractCoinTransaction(int type) {
         super(type);
         initCoinDataProvider();
-        this.registerValidator(CoinDataValidator.getInstance());
     }
 
     public AbstractCoinTransaction(int type, CoinTransferData coinParam, String password) throws NulsException {
@@ -71,8 +72,8 @@ public abstract class AbstractCoinTransaction<T extends BaseNulsData> extends Tr
     }
 
     @Override
-    public int size() {
-        int size = super.size();
+    protected int calcSize() {
+        int size = super.calcSize();
         size += Utils.sizeOfSerialize(coinData);
         return size;
     }
@@ -84,18 +85,8 @@ public abstract class AbstractCoinTransaction<T extends BaseNulsData> extends Tr
     }
 
     @Override
-    protected void parse(NulsByteBuffer byteBuffer) throws NulsException {
-        super.parse(byteBuffer);
+    protected void parseAfterSign(NulsByteBuffer byteBuffer) throws NulsException {
         this.coinData = coinDataProvider.parse(byteBuffer);
-        NulsSignData cache = this.sign;
-        this.sign = null;
-        try {
-            hash = NulsDigestData.calcDigestData(this.serialize());
-        } catch (IOException e) {
-            Log.error(e);
-        }
-        sign = cache;
-
     }
 
     public CoinDataProvider getCoinDataProvider() {
@@ -112,6 +103,7 @@ public abstract class AbstractCoinTransaction<T extends BaseNulsData> extends Tr
 
     public void setCoinData(CoinData coinData) {
         this.coinData = coinData;
+        this.resetSize();
     }
 
 }
@@ -29,6 +29,8 @@ import io.nuls.core.utils.io.NulsByteBuffer;
 import io.nuls.ledger.entity.CoinData;
 import io.nuls.ledger.entity.params.CoinTransferData;
 
+import java.util.List;
+
 /**
  * @author Niels
  * @date 2017/12/21
@@ -45,5 +47,21 @@ public interface CoinDataProvider {
 
     void rollback(CoinData coinData, Transaction tx);
 
+    /**
+     * Until endBatch the rows of save and rollback on this thread are only collected,
+     * then the whole list is written with a few batch statements.
+     *
+     * @param txList the transactions the batch will cover, the rows their rollback needs are read up front
+     */
+    void startBatch(List<Transaction> txList);
+
+    void endBatch();
+
+    /**
+     * drop the collected rows and take back the cache changes made in the batch,
+     * the caller rolls back the database transaction
+     */
+    void cancelBatch();
+
     CoinData createByTransferData(Transaction tx, CoinTransferData coinParam, String password) throws NulsException;
 }
@@ -77,8 +77,27 @@ public interface LedgerService {
 
     void commitTx(Transaction tx) throws NulsException;
 
+    /**
+     * commit the transactions of a block in order, their coin data is written together at the end;
+     * when one fails nothing of the list stays applied and the failure is thrown
+     */
+    void commitTxList(List<Transaction> txList) throws NulsException;
+
+    /**
+     * roll back the transactions of a block in reverse order, their coin data is written together at the end;
+     * when one fails nothing of the list stays rolled back and the failure is thrown
+     */
+    void rollbackTxList(List<Transaction> txList);
+
     void approvalTx(Transaction tx) throws NulsException;
 
+    /**
+     * approve the transactions of a block, the ones that do not share an output run in parallel
+     *
+     * @return the transactions that could not be approved, in block order
+     */
+    List<Transaction> approvalTxList(List<Transaction> txList);
+
     void deleteTx(Transaction tx);
 
     void deleteTx(long blockHeight);
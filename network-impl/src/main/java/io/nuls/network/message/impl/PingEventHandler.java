@@ -0,0 +1,47 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.network.message.impl;
+
+import io.nuls.core.event.BaseEvent;
+import io.nuls.network.entity.Node;
+import io.nuls.network.message.NetworkEventResult;
+import io.nuls.network.message.entity.PongEvent;
+import io.nuls.network.message.handler.NetWorkEventHandler;
+
+public class PingEventHandler implements NetWorkEventHandler {
+
+    private static final PingEventHandler INSTANCE = new PingEventHandler();
+
+    private PingEventHandler() {
+    }
+
+    public static PingEventHandler getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public NetworkEventResult process(BaseEvent networkEvent, Node node) {
+        return new NetworkEventResult(true, new PongEvent());
+    }
+}
@@ -81,6 +81,7 @@ public class VersionEventHandler implements NetWorkEventHandler {
             node.setStatus(Node.HANDSHAKE);
             node.setPort(event.getExternalPort());
             node.setLastTime(TimeService.currentTimeMillis());
+            node.setFailCount(0);
             getNodeDao().saveChange(NodeTransferTool.toPojo(node));
         }
         return null;
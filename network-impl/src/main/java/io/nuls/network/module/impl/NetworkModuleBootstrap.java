@@ -23,6 +23,7 @@
  */
 package io.nuls.network.module.impl;
 
+import io.netty.channel.socket.SocketChannel;
 import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.event.EventManager;
@@ -34,13 +35,19 @@ import io.nuls.network.constant.NetworkConstant;
 import io.nuls.network.message.entity.GetNodeEvent;
 import io.nuls.network.message.entity.GetVersionEvent;
 import io.nuls.network.message.entity.NodeEvent;
+import io.nuls.network.message.entity.PingEvent;
+import io.nuls.network.message.entity.PongEvent;
 import io.nuls.network.message.entity.VersionEvent;
 import io.nuls.network.module.AbstractNetworkModule;
 import io.nuls.network.service.NetworkService;
 import io.nuls.network.service.impl.NetworkServiceImpl;
 import io.nuls.network.service.impl.netty.NettyClient;
+import io.nuls.network.service.impl.netty.NioChannelMap;
+import io.nuls.network.service.impl.netty.NodeTraffic;
+import io.nuls.network.service.impl.netty.NulsMessageDecoder;
 
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * @author vivi
@@ -69,6 +76,8 @@ public class NetworkModuleBootstrap extends AbstractNetworkModule {
         EventManager.putEvent(VersionEvent.class);
         EventManager.putEvent(GetNodeEvent.class);
         EventManager.putEvent(NodeEvent.class);
+        EventManager.putEvent(PingEvent.class);
+        EventManager.putEvent(PongEvent.class);
     }
 
     @Override
@@ -81,6 +90,7 @@ public class NetworkModuleBootstrap extends AbstractNetworkModule {
     public void shutdown() {
         networkService.shutdown();
         NettyClient.worker.shutdownGracefully();
+        NulsMessageDecoder.PARSE_GROUP.shutdownGracefully();
     }
 
     @Override
@@ -94,7 +104,15 @@ public class NetworkModuleBootstrap extends AbstractNetworkModule {
         str.append("\nmoduleName:");
         str.append(getModuleName());
         str.append(",p2p module info:");
-        str.append("here is info");
+        for (Map.Entry<String, SocketChannel> entry : NioChannelMap.channels().entrySet()) {
+            NodeTraffic traffic = NodeTraffic.get(entry.getValue());
+            if (null != traffic) {
+                str.append("\n");
+                str.append(entry.getValue().remoteAddress());
+                str.append(":");
+                str.append(traffic);
+            }
+        }
         return str.toString();
     }
 }
@@ -23,8 +23,11 @@
  */
 package io.nuls.network.service.impl;
 
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.socket.SocketChannel;
 import io.nuls.core.event.BaseEvent;
 import io.nuls.core.mesasge.NulsMessage;
@@ -34,11 +37,11 @@ import io.nuls.network.entity.Node;
 import io.nuls.network.entity.NodeGroup;
 import io.nuls.network.entity.param.AbstractNetworkParam;
 import io.nuls.network.service.impl.netty.NioChannelMap;
+import io.nuls.network.service.impl.netty.NodeTraffic;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author vivi
@@ -105,7 +108,7 @@ public class BroadcastHandler {
             if (node == null) {
                 return new BroadcastResult(false, "node not found");
             }
-            return broadcast(message, node, asyn);
+            return broadcast(message, NodeTraffic.getLane(event), node, asyn);
         } catch (IOException e) {
             return new BroadcastResult(false, "event.serialize() error");
         }
@@ -114,7 +117,7 @@ public class BroadcastHandler {
     public BroadcastResult broadcastToNode(BaseEvent event, Node node, boolean asyn) {
         try {
             NulsMessage message = new NulsMessage(network.packetMagic(), event.serialize());
-            return broadcast(message, node, asyn);
+            return broadcast(message, NodeTraffic.getLane(event), node, asyn);
         } catch (IOException e) {
             return new BroadcastResult(false, "event.serialize() error");
         }
@@ -336,55 +339,120 @@ public class BroadcastHandler {
 
     private BroadcastResult broadcastToList(List<Node> nodeList, BaseEvent event, String excludeNodeId, boolean asyn) {
         NulsMessage message;
-        BroadcastResult result = new BroadcastResult();
         try {
             message = new NulsMessage(network.packetMagic(), event.serialize());
-            int successCount = 0;
+        } catch (IOException e) {
+            return new BroadcastResult(false, "event.serialize() error");
+        }
+        List<Node> targetList = new ArrayList<>(nodeList.size());
+        for (Node node : nodeList) {
+            if (excludeNodeId != null && node.getId().equals(excludeNodeId)) {
+                continue;
+            }
+            targetList.add(node);
+        }
+        return broadcast(message, NodeTraffic.getLane(event), targetList, asyn);
+    }
+
+    private BroadcastResult broadcast(NulsMessage message, int lane, Node node, boolean asyn) {
+        return broadcast(message, lane, Collections.singletonList(node), asyn);
+    }
+
+    /**
+     * The message is encoded once into a pooled buffer, every channel queues a retained duplicate of it in the lane
+     * of its {@link NodeTraffic}. The writes of the channels sharing an event loop are handed over as one task,
+     * in synchronous mode the futures are awaited only after every write has been submitted.
+     */
+    private BroadcastResult broadcast(NulsMessage message, int lane, List<Node> nodeList, boolean asyn) {
+        ByteBuf buffer;
+        try {
+            buffer = encode(message);
+        } catch (IOException e) {
+            return new BroadcastResult(false, "event.serialize() error");
+        }
+        List<Node> sendNodes = new ArrayList<>();
+        List<ChannelFuture> futureList = new ArrayList<>();
+        Map<EventLoop, List<ChannelWrite>> batchMap = new HashMap<>();
+        try {
             for (Node node : nodeList) {
-                if (excludeNodeId != null && node.getId().equals(excludeNodeId)) {
+                if (!node.isAlive() && node.getChannelId() == null) {
+                    continue;
+                }
+                SocketChannel channel = NioChannelMap.get(node.getChannelId());
+                if (channel == null) {
                     continue;
                 }
-                BroadcastResult br = broadcast(message, node, asyn);
-                if (br.isSuccess()) {
-                    successCount++;
-                    result.getBroadcastNodes().add(node);
+                List<ChannelWrite> batch = batchMap.get(channel.eventLoop());
+                if (batch == null) {
+                    batch = new ArrayList<>();
+                    batchMap.put(channel.eventLoop(), batch);
                 }
+                ChannelPromise promise = channel.newPromise();
+                batch.add(new ChannelWrite(channel, buffer.retainedDuplicate(), promise));
+                sendNodes.add(node);
+                futureList.add(promise);
             }
-            if (successCount == 0) {
-                return new BroadcastResult(false, "send message failed");
+        } finally {
+            buffer.release();
+        }
+        if (sendNodes.isEmpty()) {
+            return new BroadcastResult(false, "send message failed");
+        }
+        for (Map.Entry<EventLoop, List<ChannelWrite>> entry : batchMap.entrySet()) {
+            submit(entry.getKey(), lane, entry.getValue());
+        }
+        if (asyn) {
+            return new BroadcastResult(true, "OK", sendNodes);
+        }
+
+        List<Node> successNodes = new ArrayList<>();
+        for (int i = 0; i < futureList.size(); i++) {
+            ChannelFuture future = futureList.get(i);
+            try {
+                future.await();
+            } catch (InterruptedException e) {
+                Log.error(e);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (future.isSuccess()) {
+                successNodes.add(sendNodes.get(i));
             }
-        } catch (IOException e) {
-            return new BroadcastResult(false, "event.serialize() error");
         }
-        result.setSuccess(true);
-        result.setMessage("OK");
-        return result;
+        if (successNodes.isEmpty()) {
+            return new BroadcastResult(false, "send message failed");
+        }
+        return new BroadcastResult(true, "OK", successNodes);
     }
 
-    private BroadcastResult broadcast(NulsMessage message, Node node, boolean asyn) throws IOException {
+    private ByteBuf encode(NulsMessage message) throws IOException {
+        byte[] header = message.getHeader().serialize();
+        byte[] data = message.getData();
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(header.length + data.length);
+        buffer.writeBytes(header);
+        buffer.writeBytes(data);
+        return buffer;
+    }
+
+    private void submit(EventLoop eventLoop, final int lane, final List<ChannelWrite> batch) {
         try {
-            if(!node.isAlive() && node.getChannelId() == null) {
-                return new BroadcastResult(false, "node not found");
-            }
-            SocketChannel channel = NioChannelMap.get(node.getChannelId());
-            if (channel == null) {
-                return new BroadcastResult(false, "node not found");
-            }
-            ChannelFuture future = channel.writeAndFlush(Unpooled.wrappedBuffer(message.serialize()));
-            if (!asyn) {
-                future.await();
-                boolean success = future.isSuccess();
-                if (!success) {
-                    return new BroadcastResult(false, "send message failed");
+            eventLoop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (ChannelWrite write : batch) {
+                        NodeTraffic.get(write.channel).offer(write.channel, lane, write.buffer, write.promise);
+                    }
+                    for (ChannelWrite write : batch) {
+                        NodeTraffic.get(write.channel).drain(write.channel);
+                    }
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            for (ChannelWrite write : batch) {
+                write.buffer.release();
+                write.promise.tryFailure(e);
             }
-        } catch (IOException e) {
-            throw e;
-        } catch (Exception e) {
-            Log.error(e);
-            return new BroadcastResult(false, "send message failed");
         }
-        return new BroadcastResult(true, "OK");
     }
 
     public void setNetwork(AbstractNetworkParam network) {
@@ -394,4 +462,16 @@ public class BroadcastHandler {
     public void setNodesManager(NodesManager nodesManager) {
         this.nodesManager = nodesManager;
     }
+
+    private static class ChannelWrite {
+        private final SocketChannel channel;
+        private final ByteBuf buffer;
+        private final ChannelPromise promise;
+
+        private ChannelWrite(SocketChannel channel, ByteBuf buffer, ChannelPromise promise) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.promise = promise;
+        }
+    }
 }
@@ -26,9 +26,6 @@ package io.nuls.network.service.impl;
 import io.nuls.core.constant.NulsConstant;
 import io.nuls.core.context.NulsContext;
 import io.nuls.core.event.BaseEvent;
-import io.nuls.core.event.EventManager;
-import io.nuls.core.exception.NulsException;
-import io.nuls.core.mesasge.NulsMessage;
 import io.nuls.core.thread.manager.TaskManager;
 import io.nuls.core.utils.crypto.Hex;
 import io.nuls.core.utils.log.Log;
@@ -38,16 +35,12 @@ import io.nuls.network.entity.Node;
 import io.nuls.network.entity.param.AbstractNetworkParam;
 import io.nuls.network.message.NetworkEventHandlerFactory;
 import io.nuls.network.message.NetworkEventResult;
-import io.nuls.network.message.filter.MessageFilterChain;
 import io.nuls.network.message.handler.NetWorkEventHandler;
 import io.nuls.network.service.NetworkService;
 import io.nuls.network.service.impl.netty.NettyClient;
 import io.nuls.network.service.impl.netty.NettyServer;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * @author vivi
@@ -92,42 +85,18 @@ public class ConnectionManager {
     }
 
     public void connectionNode(Node node) {
-        TaskManager.createAndRunThread(NulsConstant.MODULE_ID_NETWORK, "node connection", new Runnable() {
-            @Override
-            public void run() {
-                NettyClient client = new NettyClient(node);
-                client.start();
-            }
-        }, false);
+        new NettyClient(node).start();
     }
 
-    public void receiveMessage(ByteBuffer buffer, Node node) {
+    public void receiveEvent(BaseEvent event, Node node) {
+        if (!node.isAlive()) {
+            return;
+        }
         try {
-            buffer.flip();
-            if (!node.isAlive()) {
-                buffer.clear();
-                return;
-            }
-            List<NulsMessage> list = new ArrayList<>();
-            while (buffer.hasRemaining()) {
-                NulsMessage message = new NulsMessage(buffer);
-                list.add(message);
-            }
-            for (NulsMessage message : list) {
-                if (MessageFilterChain.getInstance().doFilter(message)) {
-                    BaseEvent event = EventManager.getInstance(message.getData());
-                    processMessage(event, node);
-                }
-            }
-        } catch (NulsException e) {
-            //todo
-            Log.error(e);
+            processMessage(event, node);
         } catch (Exception e) {
             //todo
             Log.error(e);
-            return;
-        } finally {
-            buffer.clear();
         }
     }
 
@@ -43,7 +43,6 @@ import io.nuls.network.param.MainNetworkParam;
 import io.nuls.network.param.TestNetworkParam;
 import io.nuls.network.service.NetworkService;
 
-import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -191,8 +190,8 @@ public class NetworkServiceImpl implements NetworkService {
     }
 
     @Override
-    public void receiveMessage(ByteBuffer buffer, Node node) {
-        connectionManager.receiveMessage(buffer, node);
+    public void receiveEvent(BaseEvent event, Node node) {
+        connectionManager.receiveEvent(event, node);
     }
 
     private AbstractNetworkParam getNetworkInstance() {
@@ -1,18 +1,19 @@
 package io.nuls.network.service.impl.netty;
 
-import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.socket.SocketChannel;
 import io.nuls.core.context.NulsContext;
+import io.nuls.core.event.BaseEvent;
 import io.nuls.core.utils.log.Log;
 import io.nuls.core.utils.spring.lite.annotation.Autowired;
 import io.nuls.network.entity.Node;
 import io.nuls.network.service.NetworkService;
 
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
 
+@ChannelHandler.Sharable
 public class ClientChannelHandler extends ChannelInboundHandlerAdapter {
 
     @Autowired
@@ -58,13 +59,7 @@ public class ClientChannelHandler extends ChannelInboundHandlerAdapter {
         SocketChannel channel = (SocketChannel) ctx.channel();
         Node node = getNetworkService().getNode(channel.remoteAddress().getHostString());
         if (node != null && node.isAlive()) {
-            ByteBuf buf = (ByteBuf) msg;
-            byte[] bytes = new byte[buf.readableBytes()];
-            buf.readBytes(bytes);
-            buf.release();
-            ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
-            buffer.put(bytes);
-            getNetworkService().receiveMessage(buffer, node);
+            getNetworkService().receiveEvent((BaseEvent) msg, node);
         }
     }
 
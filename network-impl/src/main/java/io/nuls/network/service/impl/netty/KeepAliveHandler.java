@@ -0,0 +1,67 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.network.service.impl.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.nuls.core.context.NulsContext;
+import io.nuls.core.mesasge.NulsMessage;
+import io.nuls.network.message.entity.PingEvent;
+import io.nuls.network.service.NetworkService;
+
+/**
+ * Reacts on the events of the {@link io.netty.handler.timeout.IdleStateHandler} in front of it:
+ * a connection that wrote nothing for a while sends a ping, one that read nothing for longer is closed.
+ */
+@ChannelHandler.Sharable
+public class KeepAliveHandler extends ChannelInboundHandlerAdapter {
+
+    private NetworkService networkService;
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (!(evt instanceof IdleStateEvent)) {
+            super.userEventTriggered(ctx, evt);
+            return;
+        }
+        IdleState state = ((IdleStateEvent) evt).state();
+        if (state == IdleState.READER_IDLE) {
+            ctx.close();
+        } else if (state == IdleState.WRITER_IDLE) {
+            NulsMessage message = new NulsMessage(getNetworkService().getNetworkParam().packetMagic(), new PingEvent().serialize());
+            ctx.writeAndFlush(Unpooled.wrappedBuffer(message.serialize()));
+        }
+    }
+
+    private NetworkService getNetworkService() {
+        if (networkService == null) {
+            networkService = NulsContext.getServiceBean(NetworkService.class);
+        }
+        return networkService;
+    }
+}
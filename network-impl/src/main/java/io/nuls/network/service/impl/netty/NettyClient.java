@@ -2,24 +2,46 @@ package io.nuls.network.service.impl.netty;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.nuls.core.context.NulsContext;
+import io.nuls.core.utils.date.TimeService;
 import io.nuls.core.utils.log.Log;
+import io.nuls.network.constant.NetworkConstant;
 import io.nuls.network.entity.Node;
 import io.nuls.network.service.NetworkService;
 
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Dials one outbound node without blocking the caller.
+ * All outbound connections share one event loop group (epoll where it is available), a node that failed before
+ * is dialed again only after a backoff that doubles with its fail count, and only a few dials run at the same time.
+ */
 public class NettyClient {
 
-    public static EventLoopGroup worker = new NioEventLoopGroup();
+    private static final boolean EPOLL = Epoll.isAvailable();
 
-    Bootstrap boot;
+    public static EventLoopGroup worker = EPOLL ? new EpollEventLoopGroup() : new NioEventLoopGroup();
 
-    private SocketChannel socketChannel;
+    private static final Bootstrap BOOT = new Bootstrap()
+            .group(worker)
+            .channel(EPOLL ? EpollSocketChannel.class : NioSocketChannel.class)
+            .option(ChannelOption.TCP_NODELAY, true)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, NetworkConstant.NETWORK_CONNECT_TIMEOUT)
+            .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(NetworkConstant.NETWORK_WRITE_BUFFER_LOW, NetworkConstant.NETWORK_WRITE_BUFFER_HIGH))
+            .handler(new NulsChannelInitializer<>(new ClientChannelHandler()));
+
+    private static final Semaphore DIALS = new Semaphore(NetworkConstant.NETWORK_MAX_DIALS);
 
     private Node node;
 
@@ -27,31 +49,63 @@ public class NettyClient {
 
     public NettyClient(Node node) {
         this.node = node;
-        boot = new Bootstrap();
-        boot.group(worker)
-                .channel(NioSocketChannel.class)
-                .option(ChannelOption.TCP_NODELAY, true)
-                .option(ChannelOption.SO_KEEPALIVE, true)
-                .handler(new NulsChannelInitializer<>(new ClientChannelHandler()));
     }
 
     public void start() {
+        schedule(getBackoff());
+    }
+
+    private void schedule(long delay) {
         try {
-            ChannelFuture future = boot.connect(node.getIp(), node.getPort()).sync();
-            if (future.isSuccess()) {
-                socketChannel = (SocketChannel) future.channel();
-            } else {
-                getNetworkService().removeNode(node.getId());
-            }
-            future.channel().closeFuture().sync();
+            worker.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    dial();
+                }
+            }, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            //the network is shutting down
+        }
+    }
+
+    private void dial() {
+        //removed or connected in the meantime
+        if (node.getStatus() != Node.WAIT) {
+            return;
+        }
+        if (!DIALS.tryAcquire()) {
+            schedule(NetworkConstant.NETWORK_DIAL_RETRY_INTERVAL);
+            return;
+        }
+        ChannelFuture future;
+        try {
+            future = BOOT.connect(node.getIp(), node.getPort());
         } catch (Exception e) {
-//            Log.error(e);
-            //maybe time out or refused or something
-            if (socketChannel != null) {
-                socketChannel.close();
-            }
+            DIALS.release();
+            Log.error(e);
             getNetworkService().removeNode(node.getId());
+            return;
+        }
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                DIALS.release();
+                if (!future.isSuccess()) {
+                    //maybe time out or refused or something
+                    getNetworkService().removeNode(node.getId());
+                }
+            }
+        });
+    }
+
+    private long getBackoff() {
+        int failCount = node.getFailCount();
+        if (failCount <= 0) {
+            return 0;
         }
+        long backoff = Math.min(NetworkConstant.NETWORK_DIAL_BACKOFF << Math.min(failCount - 1, 16),
+                NetworkConstant.NETWORK_DIAL_BACKOFF_MAX);
+        return node.getLastFailTime() + backoff - TimeService.currentTimeMillis();
     }
 
     private NetworkService getNetworkService() {
@@ -4,8 +4,10 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.nuls.network.constant.NetworkConstant;
 
 public class NettyServer {
 
@@ -27,7 +29,7 @@ public class NettyServer {
                 .channel(NioServerSocketChannel.class)
                 .option(ChannelOption.SO_BACKLOG, 128)
                 .childOption(ChannelOption.TCP_NODELAY, true)            //Send messages immediately
-                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(NetworkConstant.NETWORK_WRITE_BUFFER_LOW, NetworkConstant.NETWORK_WRITE_BUFFER_HIGH))
                 .childHandler(new NulsChannelInitializer<>(new ServerChannelHandler()));
     }
 
@@ -0,0 +1,219 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.network.service.impl.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.AttributeKey;
+import io.nuls.consensus.constant.ConsensusEventType;
+import io.nuls.core.constant.NulsConstant;
+import io.nuls.core.event.BaseEvent;
+import io.nuls.core.event.EventHeader;
+import io.nuls.network.constant.NetworkConstant;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The traffic of one connection.
+ * Messages are sorted into lanes: network and consensus control messages, whole blocks and tx groups, everything else.
+ * Inbound every lane has a token bucket, a message over the limit is dropped and a peer that keeps sending over it
+ * is demoted. Outbound every lane has a queue that is written to the channel, higher lanes first, only while the
+ * channel is writable, so a slow peer makes its own queues full and its tx messages are dropped first instead of
+ * growing netty's outbound buffer without limit.
+ */
+public class NodeTraffic {
+
+    public static final AttributeKey<NodeTraffic> KEY = AttributeKey.valueOf("nodeTraffic");
+
+    public static final int LANE_CONSENSUS = 0;
+    public static final int LANE_BLOCK = 1;
+    public static final int LANE_TX = 2;
+    private static final int LANE_COUNT = 3;
+
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder[] messagesIn = new LongAdder[LANE_COUNT];
+    private final LongAdder[] droppedIn = new LongAdder[LANE_COUNT];
+    private final LongAdder[] droppedOut = new LongAdder[LANE_COUNT];
+    private final TokenBucket[] inBuckets = new TokenBucket[LANE_COUNT];
+    private final AtomicInteger overLimit = new AtomicInteger();
+
+    /**
+     * only used on the event loop of the channel
+     */
+    private final ArrayDeque<PendingWrite>[] outQueues;
+    private final long[] outQueueBytes = new long[LANE_COUNT];
+
+    @SuppressWarnings("unchecked")
+    public NodeTraffic() {
+        outQueues = new ArrayDeque[LANE_COUNT];
+        for (int i = 0; i < LANE_COUNT; i++) {
+            messagesIn[i] = new LongAdder();
+            droppedIn[i] = new LongAdder();
+            droppedOut[i] = new LongAdder();
+            inBuckets[i] = new TokenBucket(NetworkConstant.NETWORK_LANE_IN_RATE[i], NetworkConstant.NETWORK_LANE_IN_BURST[i]);
+            outQueues[i] = new ArrayDeque<>();
+        }
+    }
+
+    public static NodeTraffic get(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    public static int getLane(BaseEvent event) {
+        return getLane(event.getHeader());
+    }
+
+    public static int getLane(EventHeader header) {
+        short moduleId = header.getModuleId();
+        if (moduleId == NulsConstant.MODULE_ID_NETWORK) {
+            return LANE_CONSENSUS;
+        }
+        if (moduleId == NulsConstant.MODULE_ID_CONSENSUS) {
+            short eventType = header.getEventType();
+            if (eventType == ConsensusEventType.BLOCK || eventType == ConsensusEventType.TX_GROUP) {
+                return LANE_BLOCK;
+            }
+            return LANE_CONSENSUS;
+        }
+        return LANE_TX;
+    }
+
+    public void read(int bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void written(int bytes) {
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * @return false if the message is over the limit of its lane and should be dropped
+     */
+    public boolean acceptInbound(int lane, int bytes) {
+        messagesIn[lane].increment();
+        if (inBuckets[lane].tryConsume(bytes)) {
+            return true;
+        }
+        droppedIn[lane].increment();
+        overLimit.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return true exactly once, when the peer dropped more messages than allowed
+     */
+    public boolean shouldDemote() {
+        return overLimit.get() > NetworkConstant.NETWORK_MAX_DROPPED_MESSAGES
+                && overLimit.getAndSet(Integer.MIN_VALUE) > NetworkConstant.NETWORK_MAX_DROPPED_MESSAGES;
+    }
+
+    /**
+     * queue a message, must be called on the event loop of the channel
+     */
+    public void offer(Channel channel, int lane, ByteBuf buffer, ChannelPromise promise) {
+        if (!channel.isActive()) {
+            buffer.release();
+            promise.tryFailure(new ClosedChannelException());
+            return;
+        }
+        int bytes = buffer.readableBytes();
+        if (outQueueBytes[lane] + bytes > NetworkConstant.NETWORK_LANE_OUT_QUEUE[lane] && !outQueues[lane].isEmpty()) {
+            droppedOut[lane].increment();
+            buffer.release();
+            promise.tryFailure(new IllegalStateException("outbound queue of lane " + lane + " is full"));
+            return;
+        }
+        outQueues[lane].add(new PendingWrite(buffer, promise));
+        outQueueBytes[lane] += bytes;
+    }
+
+    /**
+     * write the queued messages while the channel is writable, must be called on the event loop of the channel
+     */
+    public void drain(Channel channel) {
+        boolean written = false;
+        for (int lane = 0; lane < LANE_COUNT && channel.isWritable(); lane++) {
+            ArrayDeque<PendingWrite> queue = outQueues[lane];
+            while (!queue.isEmpty() && channel.isWritable()) {
+                PendingWrite write = queue.poll();
+                outQueueBytes[lane] -= write.buffer.readableBytes();
+                channel.write(write.buffer, write.promise);
+                written = true;
+            }
+        }
+        if (written) {
+            channel.flush();
+        }
+    }
+
+    /**
+     * release everything that is still queued, must be called on the event loop of the channel
+     */
+    public void clear() {
+        ClosedChannelException cause = new ClosedChannelException();
+        for (int lane = 0; lane < LANE_COUNT; lane++) {
+            PendingWrite write;
+            while ((write = outQueues[lane].poll()) != null) {
+                write.buffer.release();
+                write.promise.tryFailure(cause);
+            }
+            outQueueBytes[lane] = 0;
+        }
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        str.append("in:").append(getBytesIn()).append("B,out:").append(getBytesOut()).append("B");
+        for (int i = 0; i < LANE_COUNT; i++) {
+            str.append(",lane").append(i).append(":{messagesIn:").append(messagesIn[i].sum());
+            str.append(",droppedIn:").append(droppedIn[i].sum());
+            str.append(",droppedOut:").append(droppedOut[i].sum()).append("}");
+        }
+        return str.toString();
+    }
+
+    private static class PendingWrite {
+        private final ByteBuf buffer;
+        private final ChannelPromise promise;
+
+        private PendingWrite(ByteBuf buffer, ChannelPromise promise) {
+            this.buffer = buffer;
+            this.promise = promise;
+        }
+    }
+}
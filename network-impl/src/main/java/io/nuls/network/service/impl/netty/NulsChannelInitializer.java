@@ -7,11 +7,19 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.codec.string.StringEncoder;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.nuls.network.constant.NetworkConstant;
 
 import java.nio.charset.Charset;
 
 public class NulsChannelInitializer<T extends ChannelInboundHandlerAdapter> extends ChannelInitializer<SocketChannel> {
 
+    private static final TrafficHandler TRAFFIC_HANDLER = new TrafficHandler();
+
+    private static final KeepAliveHandler KEEP_ALIVE_HANDLER = new KeepAliveHandler();
+
+    private static final NulsMessageDecoder MESSAGE_DECODER = new NulsMessageDecoder();
+
     private T t;
 
     public NulsChannelInitializer(T t) {
@@ -20,9 +28,14 @@ public class NulsChannelInitializer<T extends ChannelInboundHandlerAdapter> exte
 
     @Override
     protected void initChannel(SocketChannel socketChannel) throws Exception {
+        socketChannel.attr(NodeTraffic.KEY).set(new NodeTraffic());
         ChannelPipeline p = socketChannel.pipeline();
         p.addLast("decoder", new LengthFieldBasedFrameDecoder(10 * 1024 * 1024, 0, 8, 0, 8));
         p.addLast("encoder0", new LengthFieldPrepender(8, false));
+        p.addLast("traffic", TRAFFIC_HANDLER);
+        p.addLast("idle", new IdleStateHandler(NetworkConstant.NETWORK_READER_IDLE_SECONDS, NetworkConstant.NETWORK_WRITER_IDLE_SECONDS, 0));
+        p.addLast("keepAlive", KEEP_ALIVE_HANDLER);
+        p.addLast(NulsMessageDecoder.PARSE_GROUP, "messageDecoder", MESSAGE_DECODER);
         p.addLast(t);
     }
 }
@@ -0,0 +1,121 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.network.service.impl.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.nuls.core.constant.NulsConstant;
+import io.nuls.core.context.NulsContext;
+import io.nuls.core.event.BaseEvent;
+import io.nuls.core.event.EventHeader;
+import io.nuls.core.event.EventManager;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.mesasge.NulsMessage;
+import io.nuls.core.thread.manager.NulsThreadFactory;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.core.utils.log.Log;
+import io.nuls.db.entity.NodePo;
+import io.nuls.network.entity.Node;
+import io.nuls.network.message.filter.MessageFilterChain;
+import io.nuls.network.service.NetworkService;
+
+import java.util.List;
+
+/**
+ * Turns a frame into the events of the messages it holds.
+ * The messages are parsed from a view of the frame's array, a frame in direct memory is copied into one array first.
+ * It is added to the pipeline on {@link #PARSE_GROUP}, so the parsing never runs on the I/O threads,
+ * the frame is released once its events are parsed. Messages over the inbound limits of the peer are dropped here,
+ * charged by their length and event header before the body is checked or parsed.
+ */
+@ChannelHandler.Sharable
+public class NulsMessageDecoder extends MessageToMessageDecoder<ByteBuf> {
+
+    public static final EventExecutorGroup PARSE_GROUP = new DefaultEventExecutorGroup(
+            Runtime.getRuntime().availableProcessors(), new NulsThreadFactory(NulsConstant.MODULE_ID_NETWORK, "network-parse"));
+
+    private NetworkService networkService;
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf frame, List<Object> out) {
+        int length = frame.readableBytes();
+        if (length == 0) {
+            return;
+        }
+        NulsByteBuffer buffer;
+        if (frame.hasArray()) {
+            buffer = new NulsByteBuffer(frame.array(), frame.arrayOffset() + frame.readerIndex(), length);
+        } else {
+            byte[] bytes = new byte[length];
+            frame.getBytes(frame.readerIndex(), bytes);
+            buffer = new NulsByteBuffer(bytes);
+        }
+        frame.skipBytes(length);
+        NodeTraffic traffic = NodeTraffic.get(ctx.channel());
+        try {
+            while (buffer.remaining() > 0) {
+                NulsMessage message = new NulsMessage(buffer);
+                EventHeader header = new EventHeader();
+                header.parse(message.getBody());
+                if (!traffic.acceptInbound(NodeTraffic.getLane(header), message.getHeader().getLength())) {
+                    continue;
+                }
+                if (!MessageFilterChain.getInstance().doFilter(message)) {
+                    continue;
+                }
+                BaseEvent event = EventManager.getInstance(message.getBody());
+                if (null != event) {
+                    out.add(event);
+                }
+            }
+        } catch (NulsException e) {
+            Log.error(e);
+        }
+        if (traffic.shouldDemote()) {
+            demote((SocketChannel) ctx.channel(), traffic);
+        }
+    }
+
+    private void demote(SocketChannel channel, NodeTraffic traffic) {
+        Node node = getNetworkService().getNode(channel.remoteAddress().getHostString());
+        if (node != null) {
+            Log.info("demote node " + node.getId() + " for exceeding its traffic limits, " + traffic);
+            getNetworkService().blackNode(node.getId(), NodePo.YELLOW);
+        } else {
+            channel.close();
+        }
+    }
+
+    private NetworkService getNetworkService() {
+        if (networkService == null) {
+            networkService = NulsContext.getServiceBean(NetworkService.class);
+        }
+        return networkService;
+    }
+}
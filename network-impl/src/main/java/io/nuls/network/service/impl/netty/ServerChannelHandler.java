@@ -1,11 +1,11 @@
 package io.nuls.network.service.impl.netty;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.socket.SocketChannel;
 import io.nuls.core.context.NulsContext;
+import io.nuls.core.event.BaseEvent;
 import io.nuls.core.utils.log.Log;
 import io.nuls.core.utils.network.IpUtil;
 import io.nuls.core.utils.spring.lite.annotation.Autowired;
@@ -15,7 +15,6 @@ import io.nuls.network.entity.NodeGroup;
 import io.nuls.network.service.NetworkService;
 
 import java.net.InetAddress;
-import java.nio.ByteBuffer;
 
 @ChannelHandler.Sharable
 public class ServerChannelHandler extends ChannelInboundHandlerAdapter {
@@ -87,13 +86,7 @@ public class ServerChannelHandler extends ChannelInboundHandlerAdapter {
         SocketChannel channel = (SocketChannel) ctx.channel();
         Node node = getNetworkService().getNode(channel.remoteAddress().getHostString());
         if (node != null && node.isAlive()) {
-            ByteBuf buf = (ByteBuf) msg;
-            byte[] bytes = new byte[buf.readableBytes()];
-            buf.readBytes(bytes);
-            buf.release();
-            ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
-            buffer.put(bytes);
-            getNetworkService().receiveMessage(buffer, node);
+            getNetworkService().receiveEvent((BaseEvent) msg, node);
         }
     }
 
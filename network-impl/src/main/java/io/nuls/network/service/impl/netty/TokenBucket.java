@@ -0,0 +1,65 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.network.service.impl.netty;
+
+/**
+ * Allows rate bytes per second on average and up to burst bytes at once.
+ */
+public class TokenBucket {
+
+    private final long rate;
+    private final long burst;
+    private long tokens;
+    private long lastNanos;
+
+    public TokenBucket(long rate, long burst) {
+        this.rate = rate;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastNanos = System.nanoTime();
+    }
+
+    /**
+     * @return true if the bytes were within the limit and were taken from the bucket
+     */
+    public synchronized boolean tryConsume(long bytes) {
+        long now = System.nanoTime();
+        long elapsed = now - lastNanos;
+        if (elapsed >= 1000000000L * burst / rate) {
+            tokens = burst;
+            lastNanos = now;
+        } else {
+            long refill = elapsed * rate / 1000000000L;
+            if (refill > 0) {
+                tokens = Math.min(burst, tokens + refill);
+                lastNanos = now;
+            }
+        }
+        if (tokens < bytes) {
+            return false;
+        }
+        tokens -= bytes;
+        return true;
+    }
+}
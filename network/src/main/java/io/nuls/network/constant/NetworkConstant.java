@@ -49,9 +49,34 @@ public interface NetworkConstant {
     String NETWORK_NODE_OUT_GROUP = "outNodes";
     String NETWORK_NODE_CONSENSUS_GROUP = "consensus_Group";
 
+    /**
+     * --------[connection] -------
+     */
+    int NETWORK_CONNECT_TIMEOUT = 5000;
+    int NETWORK_MAX_DIALS = 8;
+    long NETWORK_DIAL_RETRY_INTERVAL = 1000;
+    long NETWORK_DIAL_BACKOFF = 5000;
+    long NETWORK_DIAL_BACKOFF_MAX = 10 * 60 * 1000;
+    int NETWORK_WRITER_IDLE_SECONDS = 30;
+    int NETWORK_READER_IDLE_SECONDS = 90;
+
+    /**
+     * --------[traffic] -------
+     * inbound bytes per second and burst of each lane, the bytes one lane may queue for a peer that cannot keep up,
+     * and the dropped inbound messages after which a peer is demoted
+     */
+    long[] NETWORK_LANE_IN_RATE = {2 << 20, 16 << 20, 1 << 20};
+    long[] NETWORK_LANE_IN_BURST = {8 << 20, 32 << 20, 4 << 20};
+    long[] NETWORK_LANE_OUT_QUEUE = {4 << 20, 32 << 20, 2 << 20};
+    int NETWORK_WRITE_BUFFER_LOW = 256 * 1024;
+    int NETWORK_WRITE_BUFFER_HIGH = 1024 * 1024;
+    int NETWORK_MAX_DROPPED_MESSAGES = 100;
+
     //network message type
     short NETWORK_GET_VERSION_EVENT = 01;
     short NETWORK_VERSION_EVENT = 02;
     short NETWORK_GET_NODE_EVENT = 03;
     short NETWORK_NODE_EVENT = 04;
+    short NETWORK_PING_EVENT = 05;
+    short NETWORK_PONG_EVENT = 06;
 }
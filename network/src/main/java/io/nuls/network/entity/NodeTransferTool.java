@@ -41,6 +41,7 @@ public class NodeTransferTool {
         node.setLastTime(po.getLastTime());
         node.setMagicNumber(po.getMagicNum());
         node.setFailCount(po.getFailCount());
+        node.setLastFailTime(po.getLastFailTime());
     }
 
 
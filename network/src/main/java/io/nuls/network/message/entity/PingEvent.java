@@ -21,55 +21,47 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-package io.nuls.consensus.cache.manager.tx.listener;
+package io.nuls.network.message.entity;
 
-import io.nuls.cache.entity.CacheListenerItem;
-import io.nuls.cache.listener.intf.NulsCacheListener;
-import io.nuls.core.chain.entity.Transaction;
-import io.nuls.core.constant.TxStatusEnum;
-import io.nuls.core.context.NulsContext;
+import io.nuls.core.constant.NulsConstant;
+import io.nuls.core.event.BaseEvent;
+import io.nuls.core.event.EventHeader;
 import io.nuls.core.exception.NulsException;
-import io.nuls.core.utils.log.Log;
-import io.nuls.ledger.service.intf.LedgerService;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.core.utils.io.NulsOutputStreamBuffer;
+import io.nuls.network.constant.NetworkConstant;
+
+import java.io.IOException;
 
 /**
+ * Sent on a connection that had nothing to write for a while, the peer answers with a {@link PongEvent}.
+ *
  * @author Niels
- * @date 2018/1/24
+ * @date 2018/3/26
  */
-public class ReceivedTxCacheListener implements NulsCacheListener<String, Transaction> {
-
-    private LedgerService ledgerService = NulsContext.getServiceBean(LedgerService.class);
+public class PingEvent extends BaseEvent {
 
-    @Override
-    public void onCreate(CacheListenerItem<String, Transaction> item) {
+    public PingEvent() {
+        super(NulsConstant.MODULE_ID_NETWORK, NetworkConstant.NETWORK_PING_EVENT);
     }
 
     @Override
-    public void onEvict(CacheListenerItem<String, Transaction> item) {
-        rollbackTx(item.getOldValue());
-    }
-
-    private void rollbackTx(Transaction tx) {
-        if (tx.getStatus() == TxStatusEnum.CACHED) {
-            return;
-        }
-        try {
-            ledgerService.rollbackTx(tx);
-        } catch (NulsException e) {
-            Log.error(e);
-        }
+    public int size() {
+        return EventHeader.EVENT_HEADER_LENGTH;
     }
 
     @Override
-    public void onRemove(CacheListenerItem<String, Transaction> item) {
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeNulsData(getHeader());
     }
 
     @Override
-    public void onUpdate(CacheListenerItem<String, Transaction> item) {
+    protected void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.setHeader(byteBuffer.readNulsData(new EventHeader()));
     }
 
     @Override
-    public void onExpire(CacheListenerItem<String, Transaction> item) {
-        rollbackTx(item.getOldValue());
+    protected BaseEvent parseEventBody(NulsByteBuffer byteBuffer) throws NulsException {
+        return null;
     }
 }
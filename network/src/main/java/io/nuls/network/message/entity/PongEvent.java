@@ -0,0 +1,64 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.network.message.entity;
+
+import io.nuls.core.constant.NulsConstant;
+import io.nuls.core.event.BaseEvent;
+import io.nuls.core.event.EventHeader;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.utils.io.NulsByteBuffer;
+import io.nuls.core.utils.io.NulsOutputStreamBuffer;
+import io.nuls.network.constant.NetworkConstant;
+
+import java.io.IOException;
+
+/**
+ * The answer to a {@link PingEvent}.
+ */
+public class PongEvent extends BaseEvent {
+
+    public PongEvent() {
+        super(NulsConstant.MODULE_ID_NETWORK, NetworkConstant.NETWORK_PONG_EVENT);
+    }
+
+    @Override
+    public int size() {
+        return EventHeader.EVENT_HEADER_LENGTH;
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeNulsData(getHeader());
+    }
+
+    @Override
+    protected void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.setHeader(byteBuffer.readNulsData(new EventHeader()));
+    }
+
+    @Override
+    protected BaseEvent parseEventBody(NulsByteBuffer byteBuffer) throws NulsException {
+        return null;
+    }
+}
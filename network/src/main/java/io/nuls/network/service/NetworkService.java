@@ -29,7 +29,6 @@ import io.nuls.network.entity.Node;
 import io.nuls.network.entity.NodeGroup;
 import io.nuls.network.entity.param.AbstractNetworkParam;
 
-import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -74,6 +73,6 @@ public interface NetworkService {
 
     BroadcastResult sendToGroup(BaseEvent event, String groupName, String excludeNodeId, boolean asyn);
 
-    void receiveMessage(ByteBuffer buffer, Node node);
+    void receiveEvent(BaseEvent event, Node node);
 
 }